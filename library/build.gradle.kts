@@ -5,6 +5,7 @@ plugins {
     id("ca.coglinc.javacc") version "2.4.0"
     `jacoco`
     `svndump-sample-dump`
+    id("me.champeau.jmh") version "0.6.8"
 }
 
 repositories {
@@ -27,6 +28,11 @@ tasks {
     compileTestJava {
         dependsOn(compileJavacc)
     }
+    register<JavaExec>("generateDump") {
+        description = "Writes a synthetic dump, like: --args='big.dump revisions=1000000 seed=7'"
+        classpath = sourceSets["main"].runtimeClasspath
+        mainClass.set("com.github.cstroe.svndumpgui.internal.generator.DumpGenerator")
+    }
     jacocoTestReport {
         reports {
             xml.required.set(false)
@@ -48,6 +54,21 @@ sourceSets {
             srcDirs += tasks.named<CompileJavaccTask>("compileJavacc").get().outputDirectory
         }
     }
+    named("jmh") {
+        // the benchmarks read the checked-in test dumps
+        resources.srcDir("src/test/resources")
+    }
+}
+
+jmh {
+    jmhVersion.set("1.36")
+    // report allocation rates next to the timings, like -prof gc
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("reports/jmh/results.json"))
+    if(project.hasProperty("jmhInclude")) {
+        includes.add(project.property("jmhInclude").toString())
+    }
 }
 
 jacoco {
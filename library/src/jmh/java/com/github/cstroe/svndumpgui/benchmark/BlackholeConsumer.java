@@ -0,0 +1,34 @@
+package com.github.cstroe.svndumpgui.benchmark;
+
+import com.github.cstroe.svndumpgui.api.ContentChunk;
+import com.github.cstroe.svndumpgui.api.Node;
+import com.github.cstroe.svndumpgui.api.Revision;
+import com.github.cstroe.svndumpgui.internal.AbstractRepositoryConsumer;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Ends a chain, handing everything it gets to a blackhole so that the work
+ * of producing it is not optimized away.
+ */
+class BlackholeConsumer extends AbstractRepositoryConsumer {
+    private final Blackhole blackhole;
+
+    BlackholeConsumer(Blackhole blackhole) {
+        this.blackhole = blackhole;
+    }
+
+    @Override
+    public void consume(Revision revision) {
+        blackhole.consume(revision);
+    }
+
+    @Override
+    public void consume(Node node) {
+        blackhole.consume(node);
+    }
+
+    @Override
+    public void consume(ContentChunk chunk) {
+        blackhole.consume(chunk);
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.cstroe.svndumpgui.benchmark;
+
+import com.github.cstroe.svndumpgui.internal.utility.SvnDumpCharStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the synthetic dump, which is all ASCII, through the stream that
+ * feeds the JavaCC parser: a character at a time, as headers are read,
+ * and in blocks, as file content is read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CharStreamBenchmark {
+    private static final int BLOCK_SIZE = 4096;
+
+    private byte[] bytes;
+
+    @Setup
+    public void load() throws IOException {
+        bytes = Dumps.load(Dumps.SYNTHETIC);
+    }
+
+    @Benchmark
+    public void readChar(Blackhole blackhole) throws IOException {
+        SvnDumpCharStream stream = new SvnDumpCharStream(new ByteArrayInputStream(bytes));
+        for(int i = 0; i < bytes.length; i++) {
+            // starting a token lets the stream drop what it has read, as the parser does between tokens
+            blackhole.consume(i % 64 == 0 ? stream.BeginToken() : stream.readChar());
+        }
+    }
+
+    @Benchmark
+    public void readBytes(Blackhole blackhole) throws IOException {
+        SvnDumpCharStream stream = new SvnDumpCharStream(new ByteArrayInputStream(bytes));
+        // the parser always reads a header before any content
+        int left = bytes.length;
+        do {
+            left--;
+        } while(stream.readChar() != '\n');
+
+        byte[] block = new byte[BLOCK_SIZE];
+        for(; left > 0; left -= BLOCK_SIZE) {
+            stream.readBytes(block, Math.min(BLOCK_SIZE, left));
+            blackhole.consume(block);
+        }
+    }
+}
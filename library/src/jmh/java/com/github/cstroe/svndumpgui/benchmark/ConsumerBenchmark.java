@@ -0,0 +1,82 @@
+package com.github.cstroe.svndumpgui.benchmark;
+
+import com.github.cstroe.svndumpgui.api.ConsumerInterest;
+import com.github.cstroe.svndumpgui.api.RepositoryConsumer;
+import com.github.cstroe.svndumpgui.api.SelectiveConsumer;
+import com.github.cstroe.svndumpgui.generated.ParseException;
+import com.github.cstroe.svndumpgui.internal.AbstractRepositoryConsumer;
+import com.github.cstroe.svndumpgui.internal.consumer.TreeOfKnowledgeImpl;
+import com.github.cstroe.svndumpgui.internal.parser.SvnDumpByteParser;
+import com.github.cstroe.svndumpgui.internal.validate.PathCollisionValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the consumers that keep a history of every path over a whole dump.
+ * The dump is parsed each time too, without file content, which none of
+ * these consumers ask for; {@link #parseOnly()} is that cost alone, without
+ * properties either.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConsumerBenchmark {
+    public static class NothingOfInterest extends AbstractRepositoryConsumer implements SelectiveConsumer {
+        @Override
+        public Set<ConsumerInterest> getInterests() {
+            return EnumSet.noneOf(ConsumerInterest.class);
+        }
+    }
+
+    @Param({ "dumps/many_branches.dump", Dumps.SYNTHETIC })
+    public String dump;
+
+    private byte[] bytes;
+
+    @Setup
+    public void load() throws IOException {
+        bytes = Dumps.load(dump);
+    }
+
+    @Benchmark
+    public TreeOfKnowledgeImpl treeOfKnowledge() throws ParseException {
+        return consume(new TreeOfKnowledgeImpl());
+    }
+
+    @Benchmark
+    public PathCollisionValidator pathCollisionValidator() throws ParseException {
+        PathCollisionValidator validator = consume(new PathCollisionValidator());
+        if(!validator.isValid()) {
+            throw new IllegalStateException(validator.getError().getMessage());
+        }
+        return validator;
+    }
+
+    @Benchmark
+    public NothingOfInterest parseOnly() throws ParseException {
+        return consume(new NothingOfInterest());
+    }
+
+    private <T extends RepositoryConsumer> T consume(T consumer) throws ParseException {
+        SvnDumpByteParser.consume(new ByteArrayInputStream(bytes), consumer);
+        return consumer;
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.cstroe.svndumpgui.benchmark;
+
+import com.github.cstroe.svndumpgui.internal.generator.DumpGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The inputs of the benchmarks: the checked-in test dumps, by resource
+ * name, or a synthetic dump that is the same for every run.
+ */
+final class Dumps {
+    static final String SYNTHETIC = "synthetic";
+
+    private Dumps() {}
+
+    static byte[] load(String name) throws IOException {
+        if(SYNTHETIC.equals(name)) {
+            return synthetic(2000, 42);
+        }
+        try(InputStream is = Dumps.class.getClassLoader().getResourceAsStream(name)) {
+            if(is == null) {
+                throw new IllegalArgumentException("No such dump: " + name);
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while((read = is.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    /**
+     * A dump where each revision adds or changes a few files under
+     * <code>trunk</code>, and every 100th revision copies trunk to a branch.
+     */
+    static byte[] synthetic(int revisions, long seed) {
+        DumpGenerator generator = new DumpGenerator(seed);
+        generator.setRevisions(revisions);
+        generator.setNodesPerRevision(2);
+        generator.setTextSize(2048);
+        generator.setBranches(100, 1);
+        ByteArrayOutputStream dump = new ByteArrayOutputStream();
+        generator.writeTo(dump);
+        return dump.toByteArray();
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.cstroe.svndumpgui.benchmark;
+
+import com.github.cstroe.svndumpgui.internal.utility.range.MultiSpan;
+import com.github.cstroe.svndumpgui.internal.utility.range.Span;
+import com.github.cstroe.svndumpgui.internal.utility.range.SpanImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The operations that {@link com.github.cstroe.svndumpgui.internal.consumer.TreeOfKnowledgeImpl}
+ * does on the revision ranges of every path, on a range made of
+ * <code>spans</code> separate spans, as a path that was deleted and added back that many times.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiSpanBenchmark {
+    @Param({ "1", "10", "100" })
+    public int spans;
+
+    private MultiSpan multiSpan;
+    private int[] revisions;
+
+    @Setup
+    public void build() {
+        multiSpan = new MultiSpan();
+        for(int span = 0; span < spans; span++) {
+            multiSpan.add(new SpanImpl(span * 10, span * 10 + 5));
+        }
+        Random random = new Random(1);
+        revisions = new int[1024];
+        for(int i = 0; i < revisions.length; i++) {
+            revisions[i] = random.nextInt(spans * 10);
+        }
+    }
+
+    @Benchmark
+    public int contains() {
+        int found = 0;
+        for(int revision : revisions) {
+            if(multiSpan.contains(revision)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public MultiSpan addToInfinity() {
+        MultiSpan copy = multiSpan.clone();
+        copy.add(new SpanImpl(spans * 10, Span.POSITIVE_INFINITY));
+        return copy;
+    }
+
+    @Benchmark
+    public MultiSpan cutoff() {
+        MultiSpan copy = multiSpan.clone();
+        copy.cutoff(spans * 5);
+        return copy;
+    }
+}
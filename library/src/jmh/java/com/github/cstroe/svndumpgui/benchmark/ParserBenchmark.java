@@ -0,0 +1,52 @@
+package com.github.cstroe.svndumpgui.benchmark;
+
+import com.github.cstroe.svndumpgui.generated.ParseException;
+import com.github.cstroe.svndumpgui.generated.SvnDumpParser;
+import com.github.cstroe.svndumpgui.internal.parser.SvnDumpByteParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a dump from memory with each parser.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+    @Param({ "dumps/many_branches.dump", "dumps/svn_copy_and_delete.before.dump", Dumps.SYNTHETIC })
+    public String dump;
+
+    private byte[] bytes;
+
+    @Setup
+    public void load() throws IOException {
+        bytes = Dumps.load(dump);
+    }
+
+    @Benchmark
+    public void javaccParser(Blackhole blackhole) throws ParseException {
+        SvnDumpParser.consume(new ByteArrayInputStream(bytes), new BlackholeConsumer(blackhole));
+    }
+
+    @Benchmark
+    public void byteParser(Blackhole blackhole) throws ParseException {
+        SvnDumpByteParser.consume(new ByteArrayInputStream(bytes), new BlackholeConsumer(blackhole));
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.cstroe.svndumpgui.benchmark;
+
+import com.github.cstroe.svndumpgui.api.ContentChunk;
+import com.github.cstroe.svndumpgui.api.Node;
+import com.github.cstroe.svndumpgui.api.Repository;
+import com.github.cstroe.svndumpgui.api.Revision;
+import com.github.cstroe.svndumpgui.generated.ParseException;
+import com.github.cstroe.svndumpgui.internal.parser.SvnDumpByteParser;
+import com.github.cstroe.svndumpgui.internal.writer.RepositoryInMemory;
+import com.github.cstroe.svndumpgui.internal.writer.SvnDumpWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a dump that was parsed into memory beforehand, so that only the
+ * writer is measured.  The copies kept in memory are written from the object
+ * model; {@link #rewrite} parses the dump straight into the writer, which
+ * copies the records as they were parsed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriterBenchmark {
+    @Param({ "dumps/many_branches.dump", "dumps/svn_copy_and_delete.before.dump", Dumps.SYNTHETIC })
+    public String dump;
+
+    private byte[] bytes;
+    private Repository repository;
+
+    @Setup
+    public void load() throws IOException, ParseException {
+        bytes = Dumps.load(dump);
+        RepositoryInMemory inMemory = new RepositoryInMemory();
+        SvnDumpByteParser.consume(new ByteArrayInputStream(bytes), inMemory);
+        repository = inMemory.getRepo();
+    }
+
+    @Benchmark
+    public void svnDumpWriter(Blackhole blackhole) {
+        SvnDumpWriter writer = new SvnDumpWriter();
+        writer.writeTo(new BlackholeOutputStream(blackhole));
+        replay(repository, writer);
+    }
+
+    @Benchmark
+    public void rewrite(Blackhole blackhole) throws ParseException {
+        SvnDumpWriter writer = new SvnDumpWriter();
+        writer.writeTo(new BlackholeOutputStream(blackhole));
+        SvnDumpByteParser.consume(new ByteArrayInputStream(bytes), writer);
+    }
+
+    private static void replay(Repository repository, SvnDumpWriter writer) {
+        writer.consume(repository.getPreamble());
+        for(Revision revision : repository.getRevisions()) {
+            writer.consume(revision);
+            for(Node node : revision.getNodes()) {
+                writer.consume(node);
+                if(!node.getContent().isEmpty()) {
+                    for(ContentChunk chunk : node.getContent()) {
+                        writer.consume(chunk);
+                    }
+                    writer.endChunks();
+                }
+                writer.endNode(node);
+            }
+            writer.endRevision(revision);
+        }
+        writer.finish();
+    }
+
+    private static class BlackholeOutputStream extends OutputStream {
+        private final Blackhole blackhole;
+
+        BlackholeOutputStream(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(int b) {
+            blackhole.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            blackhole.consume(b);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.cstroe.svndumpgui.api;
+
+import java.io.Serializable;
+
+/**
+ * A consumer whose state can be saved at the end of a revision, so that a
+ * later run can resume parsing after that revision instead of starting over.
+ *
+ * A chain can only be checkpointed if every consumer in it implements this
+ * interface, since the state of any other consumer would be lost.  Parsers
+ * refuse to checkpoint or resume such a chain.
+ */
+public interface CheckpointableConsumer extends RepositoryConsumer {
+    /**
+     * Called between revisions.
+     *
+     * @return the state of this consumer, or null if it has none
+     */
+    Serializable saveState();
+
+    /**
+     * Puts this consumer back into the state that {@link #saveState()} returned,
+     * before the first revision after the checkpoint is consumed.
+     */
+    void restoreState(Serializable state);
+}
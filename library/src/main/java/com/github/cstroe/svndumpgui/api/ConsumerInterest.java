@@ -0,0 +1,22 @@
+package com.github.cstroe.svndumpgui.api;
+
+/**
+ * The optional parts of a dump, which a parser may skip over
+ * when no consumer in the chain is interested in them.
+ */
+public enum ConsumerInterest {
+    /**
+     * The {@link ContentChunk}s of file nodes, and the end of them.
+     */
+    FILE_CONTENT,
+
+    NODE_PROPERTIES,
+
+    REVISION_PROPERTIES,
+
+    /**
+     * The bytes that the headers and properties of revisions and nodes were
+     * parsed from, which a writer copies as they are when nothing changed them.
+     */
+    RAW_RECORDS
+}
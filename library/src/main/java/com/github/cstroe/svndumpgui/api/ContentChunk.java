@@ -1,6 +1,35 @@
 package com.github.cstroe.svndumpgui.api;
 
+import java.nio.ByteBuffer;
+
 public interface ContentChunk {
     byte[] getContent();
     void setContent(byte[] content);
+
+    /**
+     * @return a read-only view of the content, positioned at the start of the content.
+     *         Chunks that are backed by a buffer return a view of it without
+     *         copying the content into a byte array.
+     */
+    default ByteBuffer getBuffer() {
+        byte[] content = getContent();
+        return content == null ? null : ByteBuffer.wrap(content).asReadOnlyBuffer();
+    }
+
+    /**
+     * @return the number of bytes in this chunk
+     */
+    default int getLength() {
+        return getContent().length;
+    }
+
+    /**
+     * A parser may recycle the memory behind a chunk once the chunks of a node
+     * have ended.  Consumers that keep a chunk past
+     * {@link RepositoryConsumer#endChunks()} must keep the chunk returned by this
+     * method instead, which is a copy if the chunk is recycled.
+     */
+    default ContentChunk retain() {
+        return this;
+    }
 }
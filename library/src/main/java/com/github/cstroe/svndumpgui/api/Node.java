@@ -20,26 +20,159 @@ public interface Node {
     List<ContentChunk> getContent();
     void addFileContentChunk(ContentChunk chunk);
 
+    /**
+     * Keeps track of how many EOLs are actually in the dump file after this node, so that
+     * {@link com.github.cstroe.svndumpgui.internal.writer.SvnDumpWriter#endNode(Node)}
+     * can produce the matching number of new lines.  The SVN dump file description is
+     * not specific enough about them.
+     *
+     * @return the number of EOLs, or 0 if the node wasn't parsed and the writer should use its default
+     */
+    default int getTrailingNewlines() {
+        return 0;
+    }
+
+    /**
+     * Nodes that don't keep the count ignore it, and are written with the default.
+     */
+    default void setTrailingNewlines(int trailingNewlines) {}
+
     /**
      * @return the value of a header defined in this node
      */
     String get(NodeHeader header);
 
+    /*
+     * The headers as the values they stand for.  A header that is missing, or
+     * whose value can't be parsed, is null, or -1 for a number.  These parse
+     * the strings of getHeaders() each time they are called, unless the
+     * implementation keeps the values parsed, like NodeImpl.
+     */
+
+    default NodeAction getAction() {
+        return NodeAction.fromString(getHeaders().get(NodeHeader.ACTION));
+    }
+
+    default NodeKind getKind() {
+        return NodeKind.fromString(getHeaders().get(NodeHeader.KIND));
+    }
+
+    default int getCopyFromRevision() {
+        long revision = parseNumber(getHeaders().get(NodeHeader.COPY_FROM_REV));
+        return revision > Integer.MAX_VALUE ? -1 : (int) revision;
+    }
+
+    default long getPropContentLength() {
+        return parseNumber(getHeaders().get(NodeHeader.PROP_CONTENT_LENGTH));
+    }
+
+    default long getTextContentLength() {
+        return parseNumber(getHeaders().get(NodeHeader.TEXT_CONTENT_LENGTH));
+    }
+
+    default long getContentLength() {
+        return parseNumber(getHeaders().get(NodeHeader.CONTENT_LENGTH));
+    }
+
+    default boolean isPropDelta() {
+        return "true".equals(getHeaders().get(NodeHeader.PROP_DELTA));
+    }
+
+    default boolean isTextDelta() {
+        return "true".equals(getHeaders().get(NodeHeader.TEXT_DELTA));
+    }
+
+    /**
+     * @return the 16 bytes of the <code>Text-content-md5</code> header
+     */
+    default byte[] getMd5() {
+        return parseHex(getHeaders().get(NodeHeader.MD5), 16);
+    }
+
+    /**
+     * @return the 20 bytes of the <code>Text-content-sha1</code> header
+     */
+    default byte[] getSha1() {
+        return parseHex(getHeaders().get(NodeHeader.SHA1), 20);
+    }
+
+    /**
+     * @return the 16 bytes of the <code>Text-copy-source-md5</code> header
+     */
+    default byte[] getSourceMd5() {
+        return parseHex(getHeaders().get(NodeHeader.SOURCE_MD5), 16);
+    }
+
+    /**
+     * @return the 20 bytes of the <code>Text-copy-source-sha1</code> header
+     */
+    default byte[] getSourceSha1() {
+        return parseHex(getHeaders().get(NodeHeader.SOURCE_SHA1), 20);
+    }
+
     /**
      * Utility method to return a byte array for the entire file content.  This
      * will concatenate all the byte arrays of each ContentChunk.
      */
     default byte[] getByteContent() {
-        int totalLength = getContent().stream().mapToInt(c -> c.getContent().length).sum();
+        int totalLength = getContent().stream().mapToInt(ContentChunk::getLength).sum();
         byte[] bigByte = new byte[totalLength];
 
         int currentPosition = 0;
         for(ContentChunk chunk : getContent()) {
-            int chunkLength = chunk.getContent().length;
-            System.arraycopy(chunk.getContent(), 0, bigByte, currentPosition, chunkLength);
+            int chunkLength = chunk.getLength();
+            chunk.getBuffer().get(bigByte, currentPosition, chunkLength);
             currentPosition += chunkLength;
         }
 
         return bigByte;
     }
+
+    /**
+     * @return the number, or -1 if the string isn't written the way a dump writes a number
+     */
+    private static long parseNumber(String number) {
+        if(number == null) {
+            return -1;
+        }
+        int length = number.length();
+        if(length == 0 || length > 18 || (length > 1 && number.charAt(0) == '0')) {
+            return -1;
+        }
+        long value = 0;
+        for(int i = 0; i < length; i++) {
+            int digit = number.charAt(i) - '0';
+            if(digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static byte[] parseHex(String hex, int length) {
+        if(hex == null || hex.length() != length * 2) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        for(int i = 0; i < length; i++) {
+            int high = hexDigit(hex.charAt(i * 2));
+            int low = hexDigit(hex.charAt(i * 2 + 1));
+            if(high < 0 || low < 0) {
+                return null;
+            }
+            bytes[i] = (byte) ((high << 4) | low);
+        }
+        return bytes;
+    }
+
+    private static int hexDigit(char c) {
+        if(c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if(c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
 }
@@ -0,0 +1,40 @@
+package com.github.cstroe.svndumpgui.api;
+
+/**
+ * The values of the <code>Node-action</code> header.
+ */
+public enum NodeAction {
+
+    CHANGE("change"),
+    ADD("add"),
+    DELETE("delete"),
+    REPLACE("replace"),
+
+    ;
+
+    private final String rawText;
+
+    /**
+     * @param rawText the text representation of this node action
+     */
+    NodeAction(String rawText) {
+        this.rawText = rawText;
+    }
+
+    /**
+     * @return the action with the given text representation, or null if there is none
+     */
+    public static NodeAction fromString(String rawText) {
+        for(NodeAction action : values()) {
+            if(action.rawText.equals(rawText)) {
+                return action;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return rawText;
+    }
+}
@@ -17,6 +17,8 @@ public enum NodeHeader {
     COPY_FROM_PATH("Node-copyfrom-path: "),
     SOURCE_MD5("Text-copy-source-md5: "),
     SOURCE_SHA1("Text-copy-source-sha1: "),
+    DELTA_BASE_MD5("Text-delta-base-md5: "),
+    DELTA_BASE_SHA1("Text-delta-base-sha1: "),
 
     ;
 
@@ -0,0 +1,38 @@
+package com.github.cstroe.svndumpgui.api;
+
+/**
+ * The values of the <code>Node-kind</code> header.
+ */
+public enum NodeKind {
+
+    FILE("file"),
+    DIR("dir"),
+
+    ;
+
+    private final String rawText;
+
+    /**
+     * @param rawText the text representation of this node kind
+     */
+    NodeKind(String rawText) {
+        this.rawText = rawText;
+    }
+
+    /**
+     * @return the kind with the given text representation, or null if there is none
+     */
+    public static NodeKind fromString(String rawText) {
+        for(NodeKind kind : values()) {
+            if(kind.rawText.equals(rawText)) {
+                return kind;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return rawText;
+    }
+}
@@ -9,13 +9,11 @@ public interface Property {
     String MERGEINFO = "svn:mergeinfo";
 
     /**
-     * Used in {@link com.github.cstroe.svndumpgui.generated.SvnDumpFileParser#Start(RepositoryConsumer)}
-     * to keep track of how many EOLs are actually in the dump file, so that
-     * {@link com.github.cstroe.svndumpgui.internal.writer.SvnDumpWriter#endNode(Node)}
-     * can produce the matching number of new lines.
+     * Used to be put into the properties of every parsed node, to keep track
+     * of how many EOLs follow it in the dump file.
      *
-     * Had to resort to this "hack" because the SVN dump file description is not specific enough
-     * and it was too hard to decipher the behavior of "svnadmin dump" with regards to new lines.
+     * @deprecated the parsers don't set it anymore, see {@link Node#getTrailingNewlines()}
      */
+    @Deprecated
     String TRAILING_NEWLINE_HINT = "TRAILING_NEWLINE_HINT";
 }
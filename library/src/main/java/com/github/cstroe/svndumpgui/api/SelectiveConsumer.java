@@ -0,0 +1,27 @@
+package com.github.cstroe.svndumpgui.api;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * A consumer that declares which optional parts of the dump it looks at.
+ *
+ * Consumers that don't implement this interface are assumed to need everything.
+ */
+public interface SelectiveConsumer extends RepositoryConsumer {
+    Set<ConsumerInterest> getInterests();
+
+    /**
+     * @return the parts of the dump that any consumer in the chain is interested in
+     */
+    static Set<ConsumerInterest> interestsOf(RepositoryConsumer chain) {
+        Set<ConsumerInterest> interests = EnumSet.noneOf(ConsumerInterest.class);
+        for(RepositoryConsumer consumer = chain; consumer != null; consumer = consumer.getNextConsumer()) {
+            if(!(consumer instanceof SelectiveConsumer)) {
+                return EnumSet.allOf(ConsumerInterest.class);
+            }
+            interests.addAll(((SelectiveConsumer) consumer).getInterests());
+        }
+        return interests;
+    }
+}
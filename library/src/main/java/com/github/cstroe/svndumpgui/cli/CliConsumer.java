@@ -3,16 +3,23 @@ package com.github.cstroe.svndumpgui.cli;
 import com.github.cstroe.svndumpgui.api.RepositoryWriter;
 import com.github.cstroe.svndumpgui.generated.ParseException;
 import com.github.cstroe.svndumpgui.generated.SvnDumpParser;
+import com.github.cstroe.svndumpgui.internal.utility.PrefetchInputStream;
 import com.github.cstroe.svndumpgui.internal.writer.SvnDumpWriter;
 
 import java.io.FileNotFoundException;
 import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
 
 public class CliConsumer {
     public static void main(final String[] args) throws ParseException, UnsupportedEncodingException, FileNotFoundException {
         RepositoryWriter writer = new SvnDumpWriter();
         writer.writeTo(System.out);
-        SvnDumpParser.consume(System.in, writer);
+        if(Arrays.asList(args).contains("--prefetch")) {
+            // read the pipe while the parser works
+            SvnDumpParser.consume(new PrefetchInputStream(System.in), writer);
+        } else {
+            SvnDumpParser.consume(System.in, writer);
+        }
         System.out.flush();
     }
 }
@@ -5,6 +5,7 @@ import com.github.cstroe.svndumpgui.api.Node;
 import com.github.cstroe.svndumpgui.api.RepositoryConsumer;
 import com.github.cstroe.svndumpgui.api.Preamble;
 import com.github.cstroe.svndumpgui.api.Revision;
+import com.github.cstroe.svndumpgui.internal.metrics.ConsumerTimer;
 
 /**
  * Responsible for continuing the consumer chain processing.
@@ -14,6 +15,10 @@ public abstract class AbstractRepositoryConsumer implements RepositoryConsumer {
     private RepositoryConsumer previousConsumer;
     private RepositoryConsumer nextConsumer;
 
+    // where the calls are passed on to: the next consumer, or a timer in front of it while metrics are collected
+    private RepositoryConsumer target;
+    private ConsumerTimer timer = null;
+
     @Override
     public RepositoryConsumer getNextConsumer() {
         return nextConsumer;
@@ -22,6 +27,7 @@ public abstract class AbstractRepositoryConsumer implements RepositoryConsumer {
     @Override
     public void setNextConsumer(RepositoryConsumer consumer) {
         this.nextConsumer = consumer;
+        this.target = timed(consumer);
     }
 
     @Override
@@ -34,59 +40,72 @@ public abstract class AbstractRepositoryConsumer implements RepositoryConsumer {
         this.previousConsumer = previousConsumer;
     }
 
+    /**
+     * Times the calls that are passed on to the next consumer, or stops timing
+     * them if the timer is null.  See {@link com.github.cstroe.svndumpgui.internal.metrics.ConsumerMetrics}.
+     */
+    public void setTimer(ConsumerTimer timer) {
+        this.timer = timer;
+        this.target = timed(nextConsumer);
+    }
+
+    private RepositoryConsumer timed(RepositoryConsumer consumer) {
+        return timer == null || consumer == null ? consumer : timer.time(consumer);
+    }
+
     @Override
     public void consume(Preamble preamble) {
-        if(nextConsumer != null) {
-            nextConsumer.consume(preamble);
+        if(target != null) {
+            target.consume(preamble);
         }
     }
 
     @Override
     public void consume(Revision revision) {
-        if(nextConsumer != null) {
-            nextConsumer.consume(revision);
+        if(target != null) {
+            target.consume(revision);
         }
     }
 
     @Override
     public void endRevision(Revision revision) {
-        if(nextConsumer != null) {
-            nextConsumer.endRevision(revision);
+        if(target != null) {
+            target.endRevision(revision);
         }
     }
 
     @Override
     public void consume(Node node) {
-        if(nextConsumer != null) {
-            nextConsumer.consume(node);
+        if(target != null) {
+            target.consume(node);
         }
     }
 
     @Override
     public void endNode(Node node) {
-        if(nextConsumer != null) {
-            nextConsumer.endNode(node);
+        if(target != null) {
+            target.endNode(node);
         }
     }
 
     @Override
     public void consume(ContentChunk chunk) {
-        if(nextConsumer != null) {
-            nextConsumer.consume(chunk);
+        if(target != null) {
+            target.consume(chunk);
         }
     }
 
     @Override
     public void endChunks() {
-        if(nextConsumer != null) {
-            nextConsumer.endChunks();
+        if(target != null) {
+            target.endChunks();
         }
     }
 
     @Override
     public void finish() {
-        if(nextConsumer != null) {
-            nextConsumer.finish();
+        if(target != null) {
+            target.finish();
         }
     }
 }
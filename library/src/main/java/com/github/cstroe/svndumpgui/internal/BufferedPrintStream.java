@@ -0,0 +1,173 @@
+package com.github.cstroe.svndumpgui.internal;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A {@link SimplePrintStream} that collects what is printed in a large
+ * buffer, and writes it to the underlying stream when the buffer is full or
+ * flushed.  Numbers are formatted straight into the buffer, and so are
+ * strings, unless they have characters that are not ASCII.  Arrays and
+ * buffers larger than the buffer are written through without being copied.
+ *
+ * Nothing reaches the underlying stream until {@link #flush()} is called,
+ * or the buffer fills up.
+ */
+public class BufferedPrintStream extends SimplePrintStream {
+    public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+
+    private final byte[] buffer;
+    private final byte[] lineSeparator;
+    private int position = 0;
+
+    public BufferedPrintStream(OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    public BufferedPrintStream(OutputStream out, int bufferSize) {
+        super(out);
+        if(bufferSize < 32) {
+            throw new IllegalArgumentException("The buffer must hold at least 32 bytes.");
+        }
+        this.buffer = new byte[bufferSize];
+        this.lineSeparator = getLineSeparator().getBytes();
+    }
+
+    /**
+     * @return the number of bytes printed, including the ones still in the buffer
+     */
+    @Override
+    public long getBytesWritten() {
+        return super.getBytesWritten() + position;
+    }
+
+    @Override
+    public void write(int b) {
+        if(position == buffer.length) {
+            drain();
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        if(len > buffer.length - position) {
+            drain();
+            if(len >= buffer.length) {
+                writeThrough(b, off, len);
+                return;
+            }
+        }
+        System.arraycopy(b, off, buffer, position, len);
+        position += len;
+    }
+
+    @Override
+    public void print(byte[] output) {
+        write(output, 0, output.length);
+    }
+
+    @Override
+    public void print(String output) {
+        int length = output.length();
+        if(length > buffer.length - position) {
+            drain();
+            if(length > buffer.length) {
+                super.print(output);
+                return;
+            }
+        }
+        for(int i = 0; i < length; i++) {
+            char c = output.charAt(i);
+            if(c >= 0x80) {
+                // let the platform encode the whole string
+                print(output.getBytes());
+                return;
+            }
+        }
+        for(int i = 0; i < length; i++) {
+            buffer[position++] = (byte) output.charAt(i);
+        }
+    }
+
+    @Override
+    public void println() {
+        print(lineSeparator);
+    }
+
+    @Override
+    public void println(String output) {
+        print(output);
+        println();
+    }
+
+    @Override
+    public void print(int output) {
+        print((long) output);
+    }
+
+    @Override
+    public void println(int output) {
+        print((long) output);
+        println();
+    }
+
+    public void print(long output) {
+        if(output < 0) {
+            print(Long.toString(output));
+            return;
+        }
+        if(buffer.length - position < 20) {
+            drain();
+        }
+        int digits = 1;
+        for(long rest = output / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for(int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + output % 10);
+            output /= 10;
+        }
+        position += digits;
+    }
+
+    public void println(long output) {
+        print(output);
+        println();
+    }
+
+    @Override
+    public void write(ByteBuffer content) {
+        int length = content.remaining();
+        if(length > buffer.length - position) {
+            drain();
+            if(length >= buffer.length) {
+                super.write(content);
+                return;
+            }
+        }
+        content.get(buffer, position, length);
+        position += length;
+    }
+
+    @Override
+    public void transferFrom(FileChannel source, long position, long count) {
+        drain();
+        super.transferFrom(source, position, count);
+    }
+
+    @Override
+    public void flush() {
+        drain();
+        super.flush();
+    }
+
+    private void drain() {
+        if(position > 0) {
+            int length = position;
+            position = 0;
+            writeThrough(buffer, 0, length);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.cstroe.svndumpgui.internal;
+
+import com.github.cstroe.svndumpgui.api.ContentChunk;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A chunk of file content that is a view of a buffer, such as a slice of
+ * a memory-mapped dump file.  The content is only copied into a byte array
+ * when {@link #getContent()} is called.
+ */
+public class ByteBufferContentChunk implements ContentChunk {
+    private ByteBuffer buffer;
+    private byte[] content;
+
+    public ByteBufferContentChunk(ByteBuffer buffer) {
+        if(buffer == null) {
+            throw new IllegalArgumentException("A ContentChunk must have some content.");
+        }
+        this.buffer = buffer.slice().asReadOnlyBuffer();
+    }
+
+    @Override
+    public byte[] getContent() {
+        if(content == null) {
+            content = new byte[buffer.remaining()];
+            buffer.duplicate().get(content);
+        }
+        return content;
+    }
+
+    @Override
+    public void setContent(byte[] content) {
+        if(content == null) {
+            throw new IllegalArgumentException("A ContentChunk must have some content.");
+        }
+        this.content = content;
+    }
+
+    /**
+     * @return a view of the buffer, or of the byte array once it has been handed out,
+     *         since the caller may have changed it.
+     */
+    @Override
+    public ByteBuffer getBuffer() {
+        if(content != null) {
+            return ByteBuffer.wrap(content).asReadOnlyBuffer();
+        }
+        return buffer.duplicate();
+    }
+
+    @Override
+    public int getLength() {
+        return content == null ? buffer.remaining() : content.length;
+    }
+
+    @Override
+    public String toString() {
+        return Integer.toString(getLength()) + " bytes";
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.cstroe.svndumpgui.internal;
+
+import com.github.cstroe.svndumpgui.api.ContentChunk;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A chunk of file content that is a region of a dump file, which has not
+ * been read.  A writer can copy the region straight from the file, see
+ * {@link SimplePrintStream#transferFrom(FileChannel, long, long)}.  The
+ * content is only read into a byte array when {@link #getContent()} is called.
+ */
+public class FileRegionContentChunk implements ContentChunk {
+    private final FileChannel channel;
+    private final long offset;
+    private final int length;
+    private byte[] content;
+
+    public FileRegionContentChunk(FileChannel channel, long offset, int length) {
+        if(channel == null) {
+            throw new IllegalArgumentException("A ContentChunk must have some content.");
+        }
+        if(offset < 0 || length < 0) {
+            throw new IllegalArgumentException("A file region cannot have a negative offset or length.");
+        }
+        this.channel = channel;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public FileChannel getChannel() {
+        return channel;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return true until the content is read or replaced, after which the
+     *         region of the file may no longer be what this chunk holds
+     */
+    public boolean isUnread() {
+        return content == null;
+    }
+
+    @Override
+    public byte[] getContent() {
+        if(content == null) {
+            byte[] bytes = new byte[length];
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            try {
+                while(buffer.hasRemaining()) {
+                    if(channel.read(buffer, offset + buffer.position()) < 0) {
+                        throw new EOFException("Unexpected end of file at byte " + (offset + buffer.position()));
+                    }
+                }
+            } catch(IOException ex) {
+                throw new RuntimeException(ex);
+            }
+            content = bytes;
+        }
+        return content;
+    }
+
+    @Override
+    public void setContent(byte[] content) {
+        if(content == null) {
+            throw new IllegalArgumentException("A ContentChunk must have some content.");
+        }
+        this.content = content;
+    }
+
+    @Override
+    public int getLength() {
+        return content == null ? length : content.length;
+    }
+
+    /**
+     * The file is closed once it has been parsed, so the content is read now.
+     */
+    @Override
+    public ContentChunk retain() {
+        getContent();
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return Integer.toString(getLength()) + " bytes";
+    }
+}
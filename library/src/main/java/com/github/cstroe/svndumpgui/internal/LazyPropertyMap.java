@@ -0,0 +1,249 @@
+package com.github.cstroe.svndumpgui.internal;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Properties, in the order they were parsed, that keep each value as the
+ * UTF-8 bytes it was read from and decode it only when it is asked for.
+ *
+ * Most consumer chains never look at <code>svn:log</code> or
+ * <code>svn:mergeinfo</code>, so those are never decoded, and
+ * {@link com.github.cstroe.svndumpgui.internal.writer.SvnDumpWriter SvnDumpWriter}
+ * writes the bytes of untouched values back out as they are, see {@link #getRaw(String)}.
+ *
+ * Otherwise this is an ordinary map.  A value that is put into it replaces the
+ * raw bytes.  The map remembers whether it was changed since {@link #markClean()}.
+ */
+public class LazyPropertyMap extends AbstractMap<String, String> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static class Value implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] raw;
+        private String decoded;
+
+        private Value(byte[] raw, String decoded) {
+            this.raw = raw;
+            this.decoded = decoded;
+        }
+
+        private String decode() {
+            if(decoded == null && raw != null) {
+                decoded = new String(raw, StandardCharsets.UTF_8);
+            }
+            return decoded;
+        }
+    }
+
+    private final Map<String, Value> values = new LinkedHashMap<>();
+    private boolean dirty = false;
+
+    public LazyPropertyMap() {}
+
+    public LazyPropertyMap(Map<String, String> properties) {
+        if(properties instanceof LazyPropertyMap) {
+            // the values are never changed, only replaced, so they can be shared
+            values.putAll(((LazyPropertyMap) properties).values);
+        } else {
+            putAll(properties);
+        }
+    }
+
+    /**
+     * @return true if a property was added, changed or removed since {@link #markClean()}
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public void markClean() {
+        dirty = false;
+    }
+
+    /**
+     * Adds a property with the bytes of its value, which are decoded when the value is first asked for.
+     */
+    public void putRaw(String key, byte[] value) {
+        values.put(key, new Value(value, null));
+        dirty = true;
+    }
+
+    /**
+     * @return the bytes the value was parsed from, or null if the value was put into the map as a string
+     */
+    public byte[] getRaw(String key) {
+        Value value = values.get(key);
+        return value == null ? null : value.raw;
+    }
+
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return values.containsKey(key);
+    }
+
+    @Override
+    public String get(Object key) {
+        Value value = values.get(key);
+        return value == null ? null : value.decode();
+    }
+
+    @Override
+    public String put(String key, String value) {
+        Value previous = values.put(key, new Value(null, value));
+        dirty = true;
+        return previous == null ? null : previous.decode();
+    }
+
+    @Override
+    public String remove(Object key) {
+        Value previous = values.remove(key);
+        dirty |= previous != null;
+        return previous == null ? null : previous.decode();
+    }
+
+    @Override
+    public void clear() {
+        values.clear();
+        dirty = true;
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<String>() {
+            @Override
+            public int size() {
+                return values.size();
+            }
+
+            @Override
+            public boolean contains(Object key) {
+                return values.containsKey(key);
+            }
+
+            @Override
+            public boolean remove(Object key) {
+                if(!values.containsKey(key)) {
+                    return false;
+                }
+                LazyPropertyMap.this.remove(key);
+                return true;
+            }
+
+            @Override
+            public Iterator<String> iterator() {
+                Iterator<String> iterator = values.keySet().iterator();
+                return new Iterator<String>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public String next() {
+                        return iterator.next();
+                    }
+
+                    @Override
+                    public void remove() {
+                        iterator.remove();
+                        dirty = true;
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<Entry<String, String>>() {
+            @Override
+            public int size() {
+                return values.size();
+            }
+
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                Iterator<Entry<String, Value>> iterator = values.entrySet().iterator();
+                return new Iterator<Entry<String, String>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        return new PropertyEntry(iterator.next());
+                    }
+
+                    @Override
+                    public void remove() {
+                        iterator.remove();
+                        dirty = true;
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Decodes the value only when {@link #getValue()} is called, so that iterating over the keys stays cheap.
+     */
+    private class PropertyEntry implements Entry<String, String> {
+        private final Entry<String, Value> entry;
+
+        private PropertyEntry(Entry<String, Value> entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public String getKey() {
+            return entry.getKey();
+        }
+
+        @Override
+        public String getValue() {
+            return entry.getValue().decode();
+        }
+
+        @Override
+        public String setValue(String value) {
+            String previous = getValue();
+            entry.setValue(new Value(null, value));
+            dirty = true;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if(!(other instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> otherEntry = (Entry<?, ?>) other;
+            return Objects.equals(getKey(), otherEntry.getKey()) && Objects.equals(getValue(), otherEntry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
@@ -0,0 +1,651 @@
+package com.github.cstroe.svndumpgui.internal;
+
+import com.github.cstroe.svndumpgui.api.NodeAction;
+import com.github.cstroe.svndumpgui.api.NodeHeader;
+import com.github.cstroe.svndumpgui.api.NodeKind;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The headers of a node, kept as the values they stand for: enums for the
+ * action and the kind, numbers for the lengths and the copy source revision,
+ * and the bytes of the checksums.
+ *
+ * The parsers fill in the typed values once, and consumers read them with
+ * the typed getters instead of parsing the header strings again.  As a map,
+ * it is a view that formats the values when they are asked for, and parses
+ * the strings that are put into it, so code that works with
+ * {@link com.github.cstroe.svndumpgui.api.Node#getHeaders()} keeps working.
+ * A string that doesn't stand for a typed value, like an unknown action, is
+ * kept as it is, and the typed getter treats the header as missing.
+ *
+ * The headers are iterated in the order they were added, which is the order
+ * of the dump.
+ *
+ * The map remembers whether it was changed since {@link #markClean()}, so
+ * that a writer can tell whether the headers it parsed are still the ones
+ * in the dump.  The arrays of the checksums are not copied, and changing
+ * them in place is not noticed.
+ */
+public class NodeHeaderMap extends AbstractMap<NodeHeader, String> implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final NodeHeader[] HEADERS = NodeHeader.values();
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final byte[] order = new byte[HEADERS.length];
+    private int size = 0;
+    private int present = 0;
+    private int typed = 0;
+    // the strings that don't stand for a typed value, created when one is put
+    private String[] text = null;
+    private boolean dirty = false;
+
+    private String path;
+    private NodeKind kind;
+    private NodeAction action;
+    private boolean propDelta;
+    private long propContentLength = -1;
+    private boolean textDelta;
+    private long textContentLength = -1;
+    private byte[] md5;
+    private byte[] sha1;
+    private long contentLength = -1;
+    private int copyFromRevision = -1;
+    private String copyFromPath;
+    private byte[] sourceMd5;
+    private byte[] sourceSha1;
+    private byte[] deltaBaseMd5;
+    private byte[] deltaBaseSha1;
+
+    public NodeHeaderMap() {}
+
+    public NodeHeaderMap(Map<NodeHeader, String> headers) {
+        if(headers instanceof NodeHeaderMap) {
+            NodeHeaderMap other = (NodeHeaderMap) headers;
+            System.arraycopy(other.order, 0, order, 0, other.size);
+            size = other.size;
+            present = other.present;
+            typed = other.typed;
+            text = other.text == null ? null : other.text.clone();
+            path = other.path;
+            kind = other.kind;
+            action = other.action;
+            propDelta = other.propDelta;
+            propContentLength = other.propContentLength;
+            textDelta = other.textDelta;
+            textContentLength = other.textContentLength;
+            md5 = other.md5;
+            sha1 = other.sha1;
+            contentLength = other.contentLength;
+            copyFromRevision = other.copyFromRevision;
+            copyFromPath = other.copyFromPath;
+            sourceMd5 = other.sourceMd5;
+            sourceSha1 = other.sourceSha1;
+            deltaBaseMd5 = other.deltaBaseMd5;
+            deltaBaseSha1 = other.deltaBaseSha1;
+        } else {
+            putAll(headers);
+        }
+    }
+
+    /**
+     * @return true if a header was added, changed or removed since {@link #markClean()}
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public void markClean() {
+        dirty = false;
+    }
+
+    public String getPath() {
+        return isTyped(NodeHeader.PATH) ? path : null;
+    }
+
+    public void setPath(String path) {
+        if(set(NodeHeader.PATH, path)) {
+            this.path = path;
+        }
+    }
+
+    public NodeKind getKind() {
+        return isTyped(NodeHeader.KIND) ? kind : null;
+    }
+
+    public void setKind(NodeKind kind) {
+        if(set(NodeHeader.KIND, kind)) {
+            this.kind = kind;
+        }
+    }
+
+    public NodeAction getAction() {
+        return isTyped(NodeHeader.ACTION) ? action : null;
+    }
+
+    public void setAction(NodeAction action) {
+        if(set(NodeHeader.ACTION, action)) {
+            this.action = action;
+        }
+    }
+
+    public boolean isPropDelta() {
+        return isTyped(NodeHeader.PROP_DELTA) && propDelta;
+    }
+
+    public void setPropDelta(boolean propDelta) {
+        this.propDelta = propDelta;
+        added(NodeHeader.PROP_DELTA);
+    }
+
+    /**
+     * @return the length, or -1 if there is no such header
+     */
+    public long getPropContentLength() {
+        return isTyped(NodeHeader.PROP_CONTENT_LENGTH) ? propContentLength : -1;
+    }
+
+    public void setPropContentLength(long propContentLength) {
+        this.propContentLength = propContentLength;
+        added(NodeHeader.PROP_CONTENT_LENGTH);
+    }
+
+    public boolean isTextDelta() {
+        return isTyped(NodeHeader.TEXT_DELTA) && textDelta;
+    }
+
+    public void setTextDelta(boolean textDelta) {
+        this.textDelta = textDelta;
+        added(NodeHeader.TEXT_DELTA);
+    }
+
+    /**
+     * @return the length, or -1 if there is no such header
+     */
+    public long getTextContentLength() {
+        return isTyped(NodeHeader.TEXT_CONTENT_LENGTH) ? textContentLength : -1;
+    }
+
+    public void setTextContentLength(long textContentLength) {
+        this.textContentLength = textContentLength;
+        added(NodeHeader.TEXT_CONTENT_LENGTH);
+    }
+
+    /**
+     * @return the 16 bytes of the checksum, or null if there is no such header
+     */
+    public byte[] getMd5() {
+        return isTyped(NodeHeader.MD5) ? md5 : null;
+    }
+
+    public void setMd5(byte[] md5) {
+        if(set(NodeHeader.MD5, md5)) {
+            this.md5 = md5;
+        }
+    }
+
+    /**
+     * @return the 20 bytes of the checksum, or null if there is no such header
+     */
+    public byte[] getSha1() {
+        return isTyped(NodeHeader.SHA1) ? sha1 : null;
+    }
+
+    public void setSha1(byte[] sha1) {
+        if(set(NodeHeader.SHA1, sha1)) {
+            this.sha1 = sha1;
+        }
+    }
+
+    /**
+     * @return the length, or -1 if there is no such header
+     */
+    public long getContentLength() {
+        return isTyped(NodeHeader.CONTENT_LENGTH) ? contentLength : -1;
+    }
+
+    public void setContentLength(long contentLength) {
+        this.contentLength = contentLength;
+        added(NodeHeader.CONTENT_LENGTH);
+    }
+
+    /**
+     * @return the revision, or -1 if there is no such header
+     */
+    public int getCopyFromRevision() {
+        return isTyped(NodeHeader.COPY_FROM_REV) ? copyFromRevision : -1;
+    }
+
+    public void setCopyFromRevision(int copyFromRevision) {
+        this.copyFromRevision = copyFromRevision;
+        added(NodeHeader.COPY_FROM_REV);
+    }
+
+    public String getCopyFromPath() {
+        return isTyped(NodeHeader.COPY_FROM_PATH) ? copyFromPath : null;
+    }
+
+    public void setCopyFromPath(String copyFromPath) {
+        if(set(NodeHeader.COPY_FROM_PATH, copyFromPath)) {
+            this.copyFromPath = copyFromPath;
+        }
+    }
+
+    /**
+     * @return the 16 bytes of the checksum, or null if there is no such header
+     */
+    public byte[] getSourceMd5() {
+        return isTyped(NodeHeader.SOURCE_MD5) ? sourceMd5 : null;
+    }
+
+    public void setSourceMd5(byte[] sourceMd5) {
+        if(set(NodeHeader.SOURCE_MD5, sourceMd5)) {
+            this.sourceMd5 = sourceMd5;
+        }
+    }
+
+    /**
+     * @return the 20 bytes of the checksum, or null if there is no such header
+     */
+    public byte[] getSourceSha1() {
+        return isTyped(NodeHeader.SOURCE_SHA1) ? sourceSha1 : null;
+    }
+
+    public void setSourceSha1(byte[] sourceSha1) {
+        if(set(NodeHeader.SOURCE_SHA1, sourceSha1)) {
+            this.sourceSha1 = sourceSha1;
+        }
+    }
+
+    /**
+     * @return the 16 bytes of the checksum, or null if there is no such header
+     */
+    public byte[] getDeltaBaseMd5() {
+        return isTyped(NodeHeader.DELTA_BASE_MD5) ? deltaBaseMd5 : null;
+    }
+
+    public void setDeltaBaseMd5(byte[] deltaBaseMd5) {
+        if(set(NodeHeader.DELTA_BASE_MD5, deltaBaseMd5)) {
+            this.deltaBaseMd5 = deltaBaseMd5;
+        }
+    }
+
+    /**
+     * @return the 20 bytes of the checksum, or null if there is no such header
+     */
+    public byte[] getDeltaBaseSha1() {
+        return isTyped(NodeHeader.DELTA_BASE_SHA1) ? deltaBaseSha1 : null;
+    }
+
+    public void setDeltaBaseSha1(byte[] deltaBaseSha1) {
+        if(set(NodeHeader.DELTA_BASE_SHA1, deltaBaseSha1)) {
+            this.deltaBaseSha1 = deltaBaseSha1;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof NodeHeader && (present & bit((NodeHeader) key)) != 0;
+    }
+
+    @Override
+    public String get(Object key) {
+        if(!containsKey(key)) {
+            return null;
+        }
+        NodeHeader header = (NodeHeader) key;
+        if(!isTyped(header)) {
+            return text[header.ordinal()];
+        }
+        switch(header) {
+            case PATH: return path;
+            case KIND: return kind.toString();
+            case ACTION: return action.toString();
+            case PROP_DELTA: return Boolean.toString(propDelta);
+            case PROP_CONTENT_LENGTH: return Long.toString(propContentLength);
+            case TEXT_DELTA: return Boolean.toString(textDelta);
+            case TEXT_CONTENT_LENGTH: return Long.toString(textContentLength);
+            case MD5: return toHex(md5);
+            case SHA1: return toHex(sha1);
+            case CONTENT_LENGTH: return Long.toString(contentLength);
+            case COPY_FROM_REV: return Integer.toString(copyFromRevision);
+            case COPY_FROM_PATH: return copyFromPath;
+            case SOURCE_MD5: return toHex(sourceMd5);
+            case SOURCE_SHA1: return toHex(sourceSha1);
+            case DELTA_BASE_MD5: return toHex(deltaBaseMd5);
+            case DELTA_BASE_SHA1: return toHex(deltaBaseSha1);
+            default: throw new IllegalStateException(header.name());
+        }
+    }
+
+    @Override
+    public String put(NodeHeader header, String value) {
+        if(header == null) {
+            throw new NullPointerException("Cannot put a null header.");
+        }
+        String previous = get(header);
+        if(value == null || !parse(header, value)) {
+            if(text == null) {
+                text = new String[HEADERS.length];
+            }
+            text[header.ordinal()] = value;
+            typed &= ~bit(header);
+            dirty = true;
+            if((present & bit(header)) == 0) {
+                present |= bit(header);
+                order[size++] = (byte) header.ordinal();
+            }
+        }
+        return previous;
+    }
+
+    @Override
+    public String remove(Object key) {
+        if(!containsKey(key)) {
+            return null;
+        }
+        NodeHeader header = (NodeHeader) key;
+        String previous = get(header);
+        dirty = true;
+        int position = 0;
+        while(order[position] != header.ordinal()) {
+            position++;
+        }
+        System.arraycopy(order, position + 1, order, position, size - position - 1);
+        size--;
+        present &= ~bit(header);
+        typed &= ~bit(header);
+        if(text != null) {
+            text[header.ordinal()] = null;
+        }
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        dirty = true;
+        size = 0;
+        present = 0;
+        typed = 0;
+        text = null;
+    }
+
+    @Override
+    public Set<Entry<NodeHeader, String>> entrySet() {
+        return new AbstractSet<Entry<NodeHeader, String>>() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Iterator<Entry<NodeHeader, String>> iterator() {
+                return new Iterator<Entry<NodeHeader, String>>() {
+                    private int next = 0;
+                    private NodeHeader current = null;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < size;
+                    }
+
+                    @Override
+                    public Entry<NodeHeader, String> next() {
+                        if(!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        current = HEADERS[order[next++]];
+                        return new HeaderEntry(current);
+                    }
+
+                    @Override
+                    public void remove() {
+                        if(current == null) {
+                            throw new IllegalStateException();
+                        }
+                        NodeHeaderMap.this.remove(current);
+                        current = null;
+                        next--;
+                    }
+                };
+            }
+        };
+    }
+
+    private class HeaderEntry implements Entry<NodeHeader, String> {
+        private final NodeHeader header;
+
+        private HeaderEntry(NodeHeader header) {
+            this.header = header;
+        }
+
+        @Override
+        public NodeHeader getKey() {
+            return header;
+        }
+
+        @Override
+        public String getValue() {
+            return get(header);
+        }
+
+        @Override
+        public String setValue(String value) {
+            return put(header, value);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if(!(other instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> otherEntry = (Entry<?, ?>) other;
+            String value = getValue();
+            return header.equals(otherEntry.getKey()) && (value == null ? otherEntry.getValue() == null : value.equals(otherEntry.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            String value = getValue();
+            return header.hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return header.name() + "=" + getValue();
+        }
+    }
+
+    /**
+     * Sets the typed value of a header from its string.
+     *
+     * @return false if the string doesn't stand for a typed value, in which case nothing is changed
+     */
+    private boolean parse(NodeHeader header, String value) {
+        switch(header) {
+            case PATH:
+                setPath(value);
+                return true;
+            case KIND: {
+                NodeKind parsed = NodeKind.fromString(value);
+                if(parsed != null) {
+                    setKind(parsed);
+                }
+                return parsed != null;
+            }
+            case ACTION: {
+                NodeAction parsed = NodeAction.fromString(value);
+                if(parsed != null) {
+                    setAction(parsed);
+                }
+                return parsed != null;
+            }
+            case PROP_DELTA:
+            case TEXT_DELTA: {
+                boolean isTrue = value.equals("true");
+                if(!isTrue && !value.equals("false")) {
+                    return false;
+                }
+                if(header == NodeHeader.PROP_DELTA) {
+                    setPropDelta(isTrue);
+                } else {
+                    setTextDelta(isTrue);
+                }
+                return true;
+            }
+            case PROP_CONTENT_LENGTH:
+            case TEXT_CONTENT_LENGTH:
+            case CONTENT_LENGTH: {
+                long parsed = parseNumber(value);
+                if(parsed < 0) {
+                    return false;
+                }
+                if(header == NodeHeader.PROP_CONTENT_LENGTH) {
+                    setPropContentLength(parsed);
+                } else if(header == NodeHeader.TEXT_CONTENT_LENGTH) {
+                    setTextContentLength(parsed);
+                } else {
+                    setContentLength(parsed);
+                }
+                return true;
+            }
+            case COPY_FROM_REV: {
+                long parsed = parseNumber(value);
+                if(parsed < 0 || parsed > Integer.MAX_VALUE) {
+                    return false;
+                }
+                setCopyFromRevision((int) parsed);
+                return true;
+            }
+            case COPY_FROM_PATH:
+                setCopyFromPath(value);
+                return true;
+            case MD5:
+            case SOURCE_MD5:
+            case DELTA_BASE_MD5:
+            case SHA1:
+            case SOURCE_SHA1:
+            case DELTA_BASE_SHA1: {
+                int length = header == NodeHeader.MD5 || header == NodeHeader.SOURCE_MD5 || header == NodeHeader.DELTA_BASE_MD5 ? 16 : 20;
+                byte[] parsed = parseHex(value, length);
+                if(parsed == null) {
+                    return false;
+                }
+                switch(header) {
+                    case MD5: setMd5(parsed); break;
+                    case SOURCE_MD5: setSourceMd5(parsed); break;
+                    case DELTA_BASE_MD5: setDeltaBaseMd5(parsed); break;
+                    case SHA1: setSha1(parsed); break;
+                    case SOURCE_SHA1: setSourceSha1(parsed); break;
+                    default: setDeltaBaseSha1(parsed); break;
+                }
+                return true;
+            }
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Adds a header whose value isn't a primitive, or removes it if the value is null.
+     *
+     * @return true if the header was added
+     */
+    private boolean set(NodeHeader header, Object value) {
+        if(value == null) {
+            remove(header);
+            return false;
+        }
+        added(header);
+        return true;
+    }
+
+    private void added(NodeHeader header) {
+        dirty = true;
+        int bit = bit(header);
+        typed |= bit;
+        if((present & bit) == 0) {
+            present |= bit;
+            order[size++] = (byte) header.ordinal();
+        }
+        if(text != null) {
+            text[header.ordinal()] = null;
+        }
+    }
+
+    private boolean isTyped(NodeHeader header) {
+        return (typed & bit(header)) != 0;
+    }
+
+    private static int bit(NodeHeader header) {
+        return 1 << header.ordinal();
+    }
+
+    /**
+     * @return the number, or -1 if the string isn't written the way a dump writes a number
+     */
+    private static long parseNumber(String number) {
+        int length = number.length();
+        if(length == 0 || length > 18 || (length > 1 && number.charAt(0) == '0')) {
+            return -1;
+        }
+        long value = 0;
+        for(int i = 0; i < length; i++) {
+            int digit = number.charAt(i) - '0';
+            if(digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * @return the bytes, or null if the string isn't <code>length</code> bytes in lower case hex
+     */
+    public static byte[] parseHex(String hex, int length) {
+        if(hex.length() != length * 2) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        for(int i = 0; i < length; i++) {
+            int high = hexDigit(hex.charAt(i * 2));
+            int low = hexDigit(hex.charAt(i * 2 + 1));
+            if(high < 0 || low < 0) {
+                return null;
+            }
+            bytes[i] = (byte) ((high << 4) | low);
+        }
+        return bytes;
+    }
+
+    private static int hexDigit(char c) {
+        if(c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if(c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+    public static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for(int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0x0f];
+            hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0x0f];
+        }
+        return new String(hex);
+    }
+}
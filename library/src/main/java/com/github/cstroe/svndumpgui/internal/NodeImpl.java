@@ -2,22 +2,34 @@ package com.github.cstroe.svndumpgui.internal;
 
 import com.github.cstroe.svndumpgui.api.ContentChunk;
 import com.github.cstroe.svndumpgui.api.Node;
+import com.github.cstroe.svndumpgui.api.NodeAction;
 import com.github.cstroe.svndumpgui.api.NodeHeader;
+import com.github.cstroe.svndumpgui.api.NodeKind;
 import com.github.cstroe.svndumpgui.api.Revision;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.EnumMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
-public class NodeImpl implements Node {
+public class NodeImpl implements Node, Serializable {
+    private static final long serialVersionUID = 1L;
+
     private Revision revision;
-    private Map<NodeHeader, String> headers = new EnumMap<>(NodeHeader.class);
+    private NodeHeaderMap headers = new NodeHeaderMap();
     private Map<String, String> properties = new LinkedHashMap<>();
-    private List<ContentChunk> content = new LinkedList<>();
+    // content is not kept in checkpoints
+    private transient List<ContentChunk> content = new LinkedList<>();
+    private int trailingNewlines = 0;
+    // what the headers and properties were parsed from, which is not kept in checkpoints either
+    private transient ByteBuffer rawRecord = null;
+    private boolean dirty = false;
 
     public NodeImpl() {
         this.revision = null;
@@ -29,9 +41,10 @@ public class NodeImpl implements Node {
 
     public NodeImpl(Node node) {
         this.revision = node.getRevision().orElse(null);
-        this.headers = new EnumMap<>(node.getHeaders());
+        this.trailingNewlines = node.getTrailingNewlines();
+        this.headers = new NodeHeaderMap(node.getHeaders());
         if(node.getProperties() != null) {
-            this.properties = new LinkedHashMap<>(node.getProperties());
+            this.properties = new LazyPropertyMap(node.getProperties());
         }
 
         List<ContentChunk> nodeContent = node.getContent();
@@ -41,6 +54,11 @@ public class NodeImpl implements Node {
         }
     }
 
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        content = new LinkedList<>();
+    }
+
     @Override
     public Optional<Revision> getRevision() {
         return Optional.ofNullable(revision);
@@ -61,6 +79,16 @@ public class NodeImpl implements Node {
         content.add(chunk);
     }
 
+    @Override
+    public int getTrailingNewlines() {
+        return trailingNewlines;
+    }
+
+    @Override
+    public void setTrailingNewlines(int trailingNewlines) {
+        this.trailingNewlines = trailingNewlines;
+    }
+
     @Override
     public Map<String, String> getProperties() {
         return properties;
@@ -69,11 +97,44 @@ public class NodeImpl implements Node {
     @Override
     public void setProperties(Map<String, String> properties) {
         this.properties = properties;
+        dirty = true;
+    }
+
+    /**
+     * Keeps the bytes that the headers and properties of this node were parsed from.
+     */
+    public void setRawRecord(ByteBuffer rawRecord) {
+        this.rawRecord = rawRecord;
+        this.dirty = false;
+        headers.markClean();
+        if(properties instanceof LazyPropertyMap) {
+            ((LazyPropertyMap) properties).markClean();
+        }
+    }
+
+    /**
+     * The content is not part of the record, since it is handed to the
+     * consumers in chunks that they can replace.
+     *
+     * @return a view of the bytes the headers and properties of this node were
+     *         parsed from, up to the content, or null if either was changed
+     *         since, or the node wasn't parsed
+     */
+    public ByteBuffer getRawRecord() {
+        if(rawRecord == null || dirty || headers.isDirty() ||
+                (properties instanceof LazyPropertyMap && ((LazyPropertyMap) properties).isDirty())) {
+            return null;
+        }
+        return rawRecord.duplicate();
     }
 
+    /**
+     * The headers are copied, unless they are already a {@link NodeHeaderMap}.
+     */
     @Override
     public void setHeaders(Map<NodeHeader, String> headers) {
-        this.headers = headers;
+        this.headers = headers instanceof NodeHeaderMap ? (NodeHeaderMap) headers : new NodeHeaderMap(headers);
+        dirty = true;
     }
 
     @Override
@@ -86,6 +147,66 @@ public class NodeImpl implements Node {
         return headers.get(header);
     }
 
+    @Override
+    public NodeAction getAction() {
+        return headers.getAction();
+    }
+
+    @Override
+    public NodeKind getKind() {
+        return headers.getKind();
+    }
+
+    @Override
+    public int getCopyFromRevision() {
+        return headers.getCopyFromRevision();
+    }
+
+    @Override
+    public long getPropContentLength() {
+        return headers.getPropContentLength();
+    }
+
+    @Override
+    public long getTextContentLength() {
+        return headers.getTextContentLength();
+    }
+
+    @Override
+    public long getContentLength() {
+        return headers.getContentLength();
+    }
+
+    @Override
+    public boolean isPropDelta() {
+        return headers.isPropDelta();
+    }
+
+    @Override
+    public boolean isTextDelta() {
+        return headers.isTextDelta();
+    }
+
+    @Override
+    public byte[] getMd5() {
+        return headers.getMd5();
+    }
+
+    @Override
+    public byte[] getSha1() {
+        return headers.getSha1();
+    }
+
+    @Override
+    public byte[] getSourceMd5() {
+        return headers.getSourceMd5();
+    }
+
+    @Override
+    public byte[] getSourceSha1() {
+        return headers.getSourceSha1();
+    }
+
     @Override
     public String toString() {
         String md5hash = "";
@@ -0,0 +1,93 @@
+package com.github.cstroe.svndumpgui.internal;
+
+import com.github.cstroe.svndumpgui.api.ContentChunk;
+import com.github.cstroe.svndumpgui.internal.utility.ChunkBufferPool;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A chunk of file content read into an array leased from a {@link ChunkBufferPool}.
+ *
+ * The parser releases the array back to the pool after
+ * {@link com.github.cstroe.svndumpgui.api.RepositoryConsumer#endChunks() endChunks()},
+ * so consumers that keep the chunk must {@link #retain()} it.
+ */
+public class PooledContentChunk implements ContentChunk {
+    private final ChunkBufferPool pool;
+    private final int length;
+    private byte[] leased;
+    private byte[] content;
+
+    public PooledContentChunk(ChunkBufferPool pool, byte[] leased, int length) {
+        if(pool == null || leased == null) {
+            throw new IllegalArgumentException("A ContentChunk must have some content.");
+        }
+        if(length < 0 || length > leased.length) {
+            throw new IllegalArgumentException("The length of the chunk must fit in the leased array.");
+        }
+        this.pool = pool;
+        this.leased = leased;
+        this.length = length;
+    }
+
+    @Override
+    public byte[] getContent() {
+        if(content == null) {
+            content = Arrays.copyOf(requireLeased(), length);
+        }
+        return content;
+    }
+
+    @Override
+    public void setContent(byte[] content) {
+        if(content == null) {
+            throw new IllegalArgumentException("A ContentChunk must have some content.");
+        }
+        this.content = content;
+    }
+
+    @Override
+    public ByteBuffer getBuffer() {
+        if(content != null) {
+            return ByteBuffer.wrap(content).asReadOnlyBuffer();
+        }
+        return ByteBuffer.wrap(requireLeased(), 0, length).slice().asReadOnlyBuffer();
+    }
+
+    @Override
+    public int getLength() {
+        return content == null ? length : content.length;
+    }
+
+    @Override
+    public ContentChunk retain() {
+        if(content != null) {
+            return new ContentChunkImpl(this);
+        }
+        return new ContentChunkImpl(Arrays.copyOf(requireLeased(), length));
+    }
+
+    /**
+     * Gives the leased array back to the pool.  The content stays available
+     * only if it was copied out with {@link #getContent()} before.
+     */
+    public void release() {
+        if(leased != null) {
+            pool.release(leased);
+            leased = null;
+        }
+    }
+
+    private byte[] requireLeased() {
+        if(leased == null) {
+            throw new IllegalStateException("The content of this chunk was released; chunks must be retained to be used after endChunks().");
+        }
+        return leased;
+    }
+
+    @Override
+    public String toString() {
+        return Integer.toString(getLength()) + " bytes";
+    }
+}
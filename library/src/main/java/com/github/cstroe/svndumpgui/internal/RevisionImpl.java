@@ -4,15 +4,21 @@ import com.github.cstroe.svndumpgui.api.Node;
 import com.github.cstroe.svndumpgui.api.Property;
 import com.github.cstroe.svndumpgui.api.Revision;
 
+import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
-public class RevisionImpl implements Revision {
+public class RevisionImpl implements Revision, Serializable {
+    private static final long serialVersionUID = 1L;
 
     private int number;
     private Map<String, String> properties = new LinkedHashMap<>();
+    // what the revision was parsed from, which is not kept in checkpoints
+    private transient ByteBuffer rawRecord = null;
+    private boolean dirty = false;
     private List<Node> nodes = new ArrayList<>();
 
     public RevisionImpl(int number) {
@@ -28,7 +34,7 @@ public class RevisionImpl implements Revision {
 
     public RevisionImpl(Revision revision) {
         this.number = revision.getNumber();
-        this.properties = new LinkedHashMap<>(revision.getProperties());
+        this.properties = new LazyPropertyMap(revision.getProperties());
         for(Node node : revision.getNodes()) {
             nodes.add(new NodeImpl(node));
         }
@@ -42,6 +48,30 @@ public class RevisionImpl implements Revision {
     @Override
     public void setNumber(int number) {
         this.number = number;
+        dirty = true;
+    }
+
+    /**
+     * Keeps the bytes that the headers and properties of this revision were parsed from.
+     */
+    public void setRawRecord(ByteBuffer rawRecord) {
+        this.rawRecord = rawRecord;
+        this.dirty = false;
+        if(properties instanceof LazyPropertyMap) {
+            ((LazyPropertyMap) properties).markClean();
+        }
+    }
+
+    /**
+     * @return a view of the bytes this revision was parsed from, up to and
+     *         including <code>PROPS-END</code>, or null if the number or the
+     *         properties were changed since, or it wasn't parsed
+     */
+    public ByteBuffer getRawRecord() {
+        if(rawRecord == null || dirty || !(properties instanceof LazyPropertyMap) || ((LazyPropertyMap) properties).isDirty()) {
+            return null;
+        }
+        return rawRecord.duplicate();
     }
 
     @Override
@@ -59,7 +89,8 @@ public class RevisionImpl implements Revision {
         if(properties == null) {
             throw new NullPointerException("Cannot set null properties on Revision.");
         }
-        this.properties = new LinkedHashMap<>(properties);
+        this.properties = new LazyPropertyMap(properties);
+        dirty = true;
     }
 
     @Override
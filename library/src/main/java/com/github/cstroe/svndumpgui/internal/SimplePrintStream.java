@@ -1,8 +1,14 @@
 package com.github.cstroe.svndumpgui.internal;
 
+import java.io.EOFException;
+import java.io.FileOutputStream;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * Does not swallow exceptions, unlike {@link java.io.PrintStream}, but
@@ -11,6 +17,8 @@ import java.io.OutputStream;
  */
 public class SimplePrintStream extends FilterOutputStream {
     private String lineSeparator;
+    private WritableByteChannel channel;
+    private long bytesWritten = 0;
 
     public SimplePrintStream(OutputStream out) {
         super(out);
@@ -28,9 +36,58 @@ public class SimplePrintStream extends FilterOutputStream {
         this.lineSeparator = lineSeparator;
     }
 
+    /**
+     * Sets the channel that buffers and file regions are written to, which
+     * must write to the same place as the stream.  By default, it is the
+     * channel of a {@link FileOutputStream}, or a channel around the stream.
+     */
+    public void setChannel(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    public String getLineSeparator() {
+        return lineSeparator;
+    }
+
+    /**
+     * @return the number of bytes written through this stream
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        bytesWritten++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        bytesWritten += len;
+    }
+
+    /**
+     * Writes straight to the underlying stream, for subclasses that
+     * override {@link #write(byte[], int, int)}.
+     */
+    protected final void writeThrough(byte[] b, int off, int len) {
+        try {
+            out.write(b, off, len);
+            bytesWritten += len;
+        } catch(IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
     public void print(String output) {
+        print(output.getBytes());
+    }
+
+    public void print(byte[] output) {
         try {
-            write(output.getBytes());
+            write(output);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -53,6 +110,61 @@ public class SimplePrintStream extends FilterOutputStream {
         print(Integer.toString(output));
     }
 
+    /**
+     * Writes the remaining bytes of the buffer.  Buffers that aren't backed by an
+     * accessible array, such as slices of a memory-mapped file, are written
+     * through a channel rather than copied into a byte array first.
+     */
+    public void write(ByteBuffer buffer) {
+        try {
+            bytesWritten += buffer.remaining();
+            if(buffer.hasArray()) {
+                out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                buffer.position(buffer.limit());
+                return;
+            }
+
+            WritableByteChannel channel = channel();
+            while(buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch(IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Copies <code>count</code> bytes of a file, starting at <code>position</code>.
+     * When this stream writes to a file or a socket, the operating system
+     * copies the bytes without them passing through the JVM.
+     */
+    public void transferFrom(FileChannel source, long position, long count) {
+        try {
+            out.flush();
+            WritableByteChannel channel = channel();
+            long transferred = 0;
+            while(transferred < count) {
+                long copied = source.transferTo(position + transferred, count - transferred, channel);
+                if(copied <= 0) {
+                    throw new EOFException("Unexpected end of file at byte " + (position + transferred));
+                }
+                transferred += copied;
+            }
+            bytesWritten += count;
+        } catch(IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private WritableByteChannel channel() {
+        if(channel == null) {
+            channel = out instanceof FileOutputStream ?
+                    ((FileOutputStream) out).getChannel() :
+                    Channels.newChannel(out);
+        }
+        return channel;
+    }
+
     @Override
     public void flush() {
         try {
@@ -1,7 +1,11 @@
 package com.github.cstroe.svndumpgui.internal.consumer;
 
+import com.github.cstroe.svndumpgui.api.CheckpointableConsumer;
+import com.github.cstroe.svndumpgui.api.ConsumerInterest;
 import com.github.cstroe.svndumpgui.api.Node;
+import com.github.cstroe.svndumpgui.api.NodeAction;
 import com.github.cstroe.svndumpgui.api.NodeHeader;
+import com.github.cstroe.svndumpgui.api.SelectiveConsumer;
 import com.github.cstroe.svndumpgui.api.TreeOfKnowledge;
 import com.github.cstroe.svndumpgui.internal.AbstractRepositoryConsumer;
 import com.github.cstroe.svndumpgui.internal.utility.range.MultiSpan;
@@ -11,7 +15,10 @@ import com.github.cstroe.svndumpgui.internal.utility.tree.CLTreeNode;
 import com.github.cstroe.svndumpgui.internal.utility.tree.CLTreeNodeImpl;
 import org.javatuples.Triplet;
 
+import java.io.Serializable;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Predicate;
 
 /**
@@ -19,9 +26,9 @@ import java.util.function.Predicate;
  *
  * @see com.github.cstroe.svndumpgui.api.TreeOfKnowledge
  */
-public class TreeOfKnowledgeImpl extends AbstractRepositoryConsumer implements TreeOfKnowledge {
+public class TreeOfKnowledgeImpl extends AbstractRepositoryConsumer implements TreeOfKnowledge, SelectiveConsumer, CheckpointableConsumer {
 
-    private final CLTreeNodeImpl<Triplet<MultiSpan, String, Node>> root;
+    private CLTreeNodeImpl<Triplet<MultiSpan, String, Node>> root;
 
     private Predicate<Triplet<MultiSpan, String, Node>> inRevision(int revision) {
         return t ->  t.getValue0().contains(revision);
@@ -44,20 +51,22 @@ public class TreeOfKnowledgeImpl extends AbstractRepositoryConsumer implements T
 
     @Override
     public void consume(Node node) {
-        final String nodeAction = node.get(NodeHeader.ACTION);
+        final NodeAction nodeAction = node.getAction();
+        if(nodeAction == null) {
+            throw new IllegalArgumentException("Unhandled node action.");
+        }
         switch(nodeAction) {
-            case "add":
+            case ADD:
                 addToTree(node);
                 break;
 
-            case "delete":
+            case DELETE:
                 deleteFromTree(node);
                 break;
 
-            case "change":
-            case "replace":
-                final String nodeTextContentLength = node.get(NodeHeader.TEXT_CONTENT_LENGTH);
-                if(nodeTextContentLength != null) {
+            case CHANGE:
+            case REPLACE:
+                if(node.getHeaders().containsKey(NodeHeader.TEXT_CONTENT_LENGTH)) {
                     deleteFromTree(node);
                     addToTree(node);
                 }
@@ -100,9 +109,8 @@ public class TreeOfKnowledgeImpl extends AbstractRepositoryConsumer implements T
         }
 
         // copied from
-        String copiedFromRev = node.get(NodeHeader.COPY_FROM_REV);
-        if (copiedFromRev != null) {
-            int copyRevision = Integer.parseInt(copiedFromRev);
+        int copyRevision = node.getCopyFromRevision();
+        if (copyRevision != -1) {
             String copyPath = node.get(NodeHeader.COPY_FROM_PATH);
 
             CLTreeNode<Triplet<MultiSpan, String, Node>> oldNode = findNode(copyRevision, copyPath);
@@ -187,4 +195,20 @@ public class TreeOfKnowledgeImpl extends AbstractRepositoryConsumer implements T
 
         return currentRoot.lookInside().getValue2();
     }
+
+    @Override
+    public Serializable saveState() {
+        return root;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void restoreState(Serializable state) {
+        root = (CLTreeNodeImpl<Triplet<MultiSpan, String, Node>>) state;
+    }
+
+    @Override
+    public Set<ConsumerInterest> getInterests() {
+        return EnumSet.of(ConsumerInterest.NODE_PROPERTIES, ConsumerInterest.REVISION_PROPERTIES);
+    }
 }
@@ -0,0 +1,363 @@
+package com.github.cstroe.svndumpgui.internal.delta;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Applies an svndiff delta, as written by <code>svnadmin dump --deltas</code>,
+ * to the text it was made against.
+ *
+ * The delta is written to this stream in pieces of any size.  Every window is
+ * applied as soon as all of its bytes have arrived, and the part of the target
+ * text it describes is written to the target stream, so only one window is
+ * held in memory at a time.
+ *
+ * All three versions of the format are read: svndiff0 with plain sections,
+ * svndiff1 with zlib compressed sections and svndiff2 with LZ4 compressed
+ * sections.  Closing the decoder checks that the delta was complete; it
+ * does not close the target stream.
+ */
+public class SvndiffDecoder extends OutputStream {
+    private static final int HEADER_LENGTH = 4;
+    private static final int MAX_VARINT_LENGTH = 10;
+
+    private static final int COPY_FROM_SOURCE = 0;
+    private static final int COPY_FROM_TARGET = 1;
+    private static final int COPY_FROM_NEW_DATA = 2;
+
+    private final byte[] source;
+    private final OutputStream target;
+
+    private int version = -1;
+    private long targetLength = 0;
+
+    // the bytes of the window that hasn't arrived completely
+    private byte[] pending = new byte[8192];
+    private int pendingLength = 0;
+
+    // where the next varint is read from
+    private int cursor;
+
+    private Inflater inflater = null;
+
+    /**
+     * @param source the text the delta was made against
+     * @param target receives the text the delta describes
+     */
+    public SvndiffDecoder(byte[] source, OutputStream target) {
+        if(source == null || target == null) {
+            throw new IllegalArgumentException("The source and the target cannot be null.");
+        }
+        this.source = source;
+        this.target = target;
+    }
+
+    /**
+     * Applies a complete delta.
+     */
+    public static byte[] apply(byte[] source, byte[] delta) throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        try(SvndiffDecoder decoder = new SvndiffDecoder(source, target)) {
+            decoder.write(delta);
+        }
+        return target.toByteArray();
+    }
+
+    /**
+     * @return the version of the format, or -1 if the header hasn't been read yet
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the number of bytes written to the target so far
+     */
+    public long getTargetLength() {
+        return targetLength;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if(pendingLength + length > pending.length) {
+            byte[] larger = new byte[Math.max(pending.length * 2, pendingLength + length)];
+            System.arraycopy(pending, 0, larger, 0, pendingLength);
+            pending = larger;
+        }
+        System.arraycopy(bytes, offset, pending, pendingLength, length);
+        pendingLength += length;
+
+        int consumed = 0;
+        if(version < 0) {
+            if(pendingLength < HEADER_LENGTH) {
+                return;
+            }
+            if(pending[0] != 'S' || pending[1] != 'V' || pending[2] != 'N' || pending[3] < 0 || pending[3] > 2) {
+                throw new IOException("Not an svndiff delta, or an unsupported version of it.");
+            }
+            version = pending[3];
+            consumed = HEADER_LENGTH;
+        }
+
+        int windowLength;
+        while((windowLength = applyWindow(consumed)) > 0) {
+            consumed += windowLength;
+        }
+
+        System.arraycopy(pending, consumed, pending, 0, pendingLength - consumed);
+        pendingLength -= consumed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(inflater != null) {
+            inflater.end();
+            inflater = null;
+        }
+        if(version < 0) {
+            throw new IOException("The svndiff delta ended before its header.");
+        }
+        if(pendingLength > 0) {
+            throw new IOException("The svndiff delta ended in the middle of a window.");
+        }
+    }
+
+    /**
+     * Applies the window at the given position of the pending bytes.
+     *
+     * @return the length of the window, or 0 if it hasn't arrived completely
+     */
+    private int applyWindow(int start) throws IOException {
+        cursor = start;
+        long sourceOffset = readVarint(pending, pendingLength);
+        long sourceLength = readVarint(pending, pendingLength);
+        long windowLength = readVarint(pending, pendingLength);
+        long instructionsLength = readVarint(pending, pendingLength);
+        long newDataLength = readVarint(pending, pendingLength);
+        if(newDataLength < 0) {
+            return 0;
+        }
+        if(sourceOffset + sourceLength > source.length) {
+            throw new IOException("An svndiff window refers past the end of the source.");
+        }
+        if(windowLength > Integer.MAX_VALUE || instructionsLength + newDataLength > Integer.MAX_VALUE - cursor) {
+            throw new IOException("An svndiff window is too large.");
+        }
+        int instructionsStart = cursor;
+        int newDataStart = instructionsStart + (int) instructionsLength;
+        int end = newDataStart + (int) newDataLength;
+        if(end > pendingLength) {
+            return 0;
+        }
+
+        byte[] instructions = pending;
+        int instructionsEnd = newDataStart;
+        byte[] newData = pending;
+        int newDataOffset = newDataStart;
+        int newDataEnd = end;
+        if(version > 0) {
+            instructions = decompress(pending, instructionsStart, newDataStart);
+            instructionsStart = 0;
+            instructionsEnd = instructions.length;
+            newData = decompress(pending, newDataStart, end);
+            newDataOffset = 0;
+            newDataEnd = newData.length;
+        }
+
+        byte[] window = new byte[(int) windowLength];
+        int position = 0;
+        cursor = instructionsStart;
+        while(cursor < instructionsEnd) {
+            int instruction = instructions[cursor++] & 0xff;
+            long length = instruction & 0x3f;
+            if(length == 0) {
+                length = readVarint(instructions, instructionsEnd);
+            }
+            if(length <= 0 || length > window.length - position) {
+                throw new IOException("An svndiff instruction writes past the end of its window.");
+            }
+            int copyLength = (int) length;
+            switch(instruction >>> 6) {
+                case COPY_FROM_SOURCE: {
+                    long offset = readVarint(instructions, instructionsEnd);
+                    if(offset < 0 || offset + length > sourceLength) {
+                        throw new IOException("An svndiff instruction copies from outside of the source view.");
+                    }
+                    System.arraycopy(source, (int) (sourceOffset + offset), window, position, copyLength);
+                    break;
+                }
+                case COPY_FROM_TARGET: {
+                    long offset = readVarint(instructions, instructionsEnd);
+                    if(offset < 0 || offset >= position) {
+                        throw new IOException("An svndiff instruction copies from outside of the target view.");
+                    }
+                    // the copy may overlap the bytes it writes, which repeats them
+                    for(int i = 0; i < copyLength; i++) {
+                        window[position + i] = window[(int) offset + i];
+                    }
+                    break;
+                }
+                case COPY_FROM_NEW_DATA:
+                    if(length > newDataEnd - newDataOffset) {
+                        throw new IOException("An svndiff instruction copies more new data than there is.");
+                    }
+                    System.arraycopy(newData, newDataOffset, window, position, copyLength);
+                    newDataOffset += copyLength;
+                    break;
+                default:
+                    throw new IOException("Invalid svndiff instruction.");
+            }
+            position += copyLength;
+        }
+        if(position != window.length || newDataOffset != newDataEnd) {
+            throw new IOException("An svndiff window does not match its lengths.");
+        }
+
+        target.write(window);
+        targetLength += window.length;
+        return end - start;
+    }
+
+    /**
+     * Reads a number written in 7 bits per byte, most significant bits first.
+     *
+     * @return the number, or -1 if it isn't complete before <code>end</code>
+     */
+    private long readVarint(byte[] bytes, int end) throws IOException {
+        if(cursor < 0) {
+            return -1;
+        }
+        long value = 0;
+        for(int i = 0; i < MAX_VARINT_LENGTH; i++) {
+            if(cursor >= end) {
+                cursor = -1;
+                return -1;
+            }
+            int b = bytes[cursor++];
+            value = (value << 7) | (b & 0x7f);
+            if(b >= 0) {
+                if(value < 0) {
+                    break;
+                }
+                return value;
+            }
+        }
+        throw new IOException("Invalid number in an svndiff delta.");
+    }
+
+    /**
+     * Decompresses a section of an svndiff1 or svndiff2 window, which starts
+     * with its original length.  A section that didn't get any smaller is
+     * stored as it is.
+     */
+    private byte[] decompress(byte[] bytes, int start, int end) throws IOException {
+        cursor = start;
+        long originalLength = readVarint(bytes, end);
+        if(originalLength < 0 || originalLength > Integer.MAX_VALUE) {
+            throw new IOException("Invalid length of a compressed svndiff section.");
+        }
+        byte[] original = new byte[(int) originalLength];
+        int dataStart = cursor;
+        if(end - dataStart == originalLength) {
+            System.arraycopy(bytes, dataStart, original, 0, original.length);
+        } else if(version == 1) {
+            inflate(bytes, dataStart, end - dataStart, original);
+        } else {
+            decompressLz4(bytes, dataStart, end, original);
+        }
+        return original;
+    }
+
+    private void inflate(byte[] bytes, int offset, int length, byte[] original) throws IOException {
+        if(inflater == null) {
+            inflater = new Inflater();
+        } else {
+            inflater.reset();
+        }
+        inflater.setInput(bytes, offset, length);
+        int inflated = 0;
+        try {
+            while(inflated < original.length) {
+                int count = inflater.inflate(original, inflated, original.length - inflated);
+                if(count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += count;
+            }
+        } catch(DataFormatException ex) {
+            throw new IOException("Invalid zlib data in an svndiff delta.", ex);
+        }
+        if(inflated != original.length) {
+            throw new IOException("A compressed svndiff section is shorter than its length.");
+        }
+    }
+
+    /**
+     * Decompresses an LZ4 block: a series of literals, each followed by a
+     * match that repeats earlier bytes, except for the last one.
+     */
+    private static void decompressLz4(byte[] bytes, int start, int end, byte[] original) throws IOException {
+        int in = start;
+        int out = 0;
+        while(in < end) {
+            int token = bytes[in++] & 0xff;
+
+            int literals = token >>> 4;
+            if(literals == 15) {
+                int b;
+                do {
+                    if(in >= end) {
+                        throw new IOException("Truncated LZ4 data in an svndiff delta.");
+                    }
+                    b = bytes[in++] & 0xff;
+                    literals += b;
+                } while(b == 255);
+            }
+            if(literals > end - in || literals > original.length - out) {
+                throw new IOException("Invalid LZ4 data in an svndiff delta.");
+            }
+            System.arraycopy(bytes, in, original, out, literals);
+            in += literals;
+            out += literals;
+            if(in == end) {
+                break;
+            }
+
+            if(end - in < 2) {
+                throw new IOException("Truncated LZ4 data in an svndiff delta.");
+            }
+            int offset = (bytes[in] & 0xff) | (bytes[in + 1] & 0xff) << 8;
+            in += 2;
+            int matchLength = token & 0x0f;
+            if(matchLength == 15) {
+                int b;
+                do {
+                    if(in >= end) {
+                        throw new IOException("Truncated LZ4 data in an svndiff delta.");
+                    }
+                    b = bytes[in++] & 0xff;
+                    matchLength += b;
+                } while(b == 255);
+            }
+            matchLength += 4;
+            if(offset == 0 || offset > out || matchLength > original.length - out) {
+                throw new IOException("Invalid LZ4 data in an svndiff delta.");
+            }
+            for(int i = 0; i < matchLength; i++) {
+                original[out + i] = original[out - offset + i];
+            }
+            out += matchLength;
+        }
+        if(out != original.length) {
+            throw new IOException("A compressed svndiff section is shorter than its length.");
+        }
+    }
+}
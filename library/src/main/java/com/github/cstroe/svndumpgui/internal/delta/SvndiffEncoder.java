@@ -0,0 +1,262 @@
+package com.github.cstroe.svndumpgui.internal.delta;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Makes an svndiff delta from one text to another, which
+ * {@link SvndiffDecoder} and <code>svnadmin load</code> can apply.
+ *
+ * Like Subversion, the target is cut into windows of a fixed size, and each
+ * window is matched against the part of the source at the same offset.
+ * Blocks of the source are found in the target with a rolling hash, and
+ * every match is extended as far as it goes; the bytes in between become new
+ * data.  With version 1 of the format, the sections of a window that get
+ * smaller when they are compressed with zlib are written compressed.
+ */
+public class SvndiffEncoder {
+    public static final int DEFAULT_WINDOW_SIZE = 100 * 1024;
+
+    private static final int BLOCK_SIZE = 64;
+
+    private static final int COPY_FROM_SOURCE = 0;
+    private static final int COPY_FROM_NEW_DATA = 2;
+
+    private final int version;
+    private final int windowSize;
+
+    private Deflater deflater = null;
+
+    public SvndiffEncoder() {
+        this(1, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param version the version of the format, 0 or 1
+     * @param windowSize the number of bytes of the target in each window
+     */
+    public SvndiffEncoder(int version, int windowSize) {
+        if(version != 0 && version != 1) {
+            throw new IllegalArgumentException("Only svndiff0 and svndiff1 can be written.");
+        }
+        if(windowSize < 1) {
+            throw new IllegalArgumentException("The window size must be positive.");
+        }
+        this.version = version;
+        this.windowSize = windowSize;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * @return a delta that turns the source into the target
+     */
+    public byte[] encode(byte[] source, byte[] target) {
+        ByteArrayOutputStream delta = new ByteArrayOutputStream();
+        delta.write('S');
+        delta.write('V');
+        delta.write('N');
+        delta.write(version);
+
+        Window window = new Window();
+        for(int targetOffset = 0; targetOffset < target.length; targetOffset += windowSize) {
+            int targetLength = Math.min(windowSize, target.length - targetOffset);
+            int sourceOffset = Math.min(targetOffset, source.length);
+            int sourceLength = Math.min(windowSize, source.length - sourceOffset);
+
+            window.clear();
+            window.match(source, sourceOffset, sourceLength, target, targetOffset, targetLength);
+
+            byte[] instructions = section(window.instructions.toByteArray());
+            byte[] newData = section(window.newData.toByteArray());
+            writeVarint(delta, sourceOffset);
+            writeVarint(delta, sourceLength);
+            writeVarint(delta, targetLength);
+            writeVarint(delta, instructions.length);
+            writeVarint(delta, newData.length);
+            delta.write(instructions, 0, instructions.length);
+            delta.write(newData, 0, newData.length);
+        }
+
+        if(deflater != null) {
+            deflater.end();
+            deflater = null;
+        }
+        return delta.toByteArray();
+    }
+
+    /**
+     * @return the section as it is written in the delta: compressed, for svndiff1, if that makes it smaller
+     */
+    private byte[] section(byte[] original) {
+        if(version == 0) {
+            return original;
+        }
+        ByteArrayOutputStream section = new ByteArrayOutputStream(original.length + 8);
+        writeVarint(section, original.length);
+
+        if(deflater == null) {
+            deflater = new Deflater();
+        } else {
+            deflater.reset();
+        }
+        deflater.setInput(original);
+        deflater.finish();
+        // a section that doesn't get smaller is stored as it is
+        byte[] compressed = new byte[original.length];
+        int length = 0;
+        while(!deflater.finished() && length < compressed.length) {
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+        if(deflater.finished() && length < original.length) {
+            section.write(compressed, 0, length);
+        } else {
+            section.write(original, 0, original.length);
+        }
+        return section.toByteArray();
+    }
+
+    static void writeVarint(ByteArrayOutputStream out, long value) {
+        int shift = 63 - Long.numberOfLeadingZeros(value | 1);
+        for(shift -= shift % 7; shift > 0; shift -= 7) {
+            out.write((int) ((value >>> shift) & 0x7f) | 0x80);
+        }
+        out.write((int) (value & 0x7f));
+    }
+
+    /**
+     * The instructions and new data of one window.
+     */
+    private static class Window {
+        private final ByteArrayOutputStream instructions = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream newData = new ByteArrayOutputStream();
+
+        // the offsets of the blocks of the source view, by their hash; -1 where there is none
+        private int[] blocks = new int[0];
+
+        void clear() {
+            instructions.reset();
+            newData.reset();
+        }
+
+        void match(byte[] source, int sourceOffset, int sourceLength, byte[] target, int targetOffset, int targetLength) {
+            int targetEnd = targetOffset + targetLength;
+            int pending = targetOffset;
+            if(sourceLength >= BLOCK_SIZE) {
+                index(source, sourceOffset, sourceLength);
+                int mask = blocks.length - 1;
+                int sourceEnd = sourceOffset + sourceLength;
+
+                int position = targetOffset;
+                int hash = position + BLOCK_SIZE <= targetEnd ? hash(target, position) : 0;
+                while(position + BLOCK_SIZE <= targetEnd) {
+                    int candidate = blocks[mix(hash) & mask];
+                    if(candidate >= 0 && regionEquals(source, sourceOffset + candidate, target, position, BLOCK_SIZE)) {
+                        int start = sourceOffset + candidate;
+                        int matchStart = position;
+                        // the match may also cover the bytes before the block
+                        while(matchStart > pending && start > sourceOffset && source[start - 1] == target[matchStart - 1]) {
+                            start--;
+                            matchStart--;
+                        }
+                        int matchEnd = position + BLOCK_SIZE;
+                        int end = sourceOffset + candidate + BLOCK_SIZE;
+                        while(matchEnd < targetEnd && end < sourceEnd && source[end] == target[matchEnd]) {
+                            end++;
+                            matchEnd++;
+                        }
+
+                        newData(target, pending, matchStart);
+                        instruction(COPY_FROM_SOURCE, matchEnd - matchStart);
+                        writeVarint(instructions, start - sourceOffset);
+                        position = matchEnd;
+                        pending = matchEnd;
+                        if(position + BLOCK_SIZE <= targetEnd) {
+                            hash = hash(target, position);
+                        }
+                        continue;
+                    }
+
+                    if(position + BLOCK_SIZE < targetEnd) {
+                        hash = roll(hash, target[position], target[position + BLOCK_SIZE]);
+                    }
+                    position++;
+                }
+            }
+            newData(target, pending, targetEnd);
+        }
+
+        private void newData(byte[] target, int start, int end) {
+            if(end > start) {
+                instruction(COPY_FROM_NEW_DATA, end - start);
+                newData.write(target, start, end - start);
+            }
+        }
+
+        private void instruction(int opcode, int length) {
+            if(length < 64) {
+                instructions.write(opcode << 6 | length);
+            } else {
+                instructions.write(opcode << 6);
+                writeVarint(instructions, length);
+            }
+        }
+
+        private void index(byte[] source, int sourceOffset, int sourceLength) {
+            int count = sourceLength / BLOCK_SIZE;
+            int size = Integer.highestOneBit(Math.max(count * 2 - 1, 1)) << 1;
+            if(blocks.length != size) {
+                blocks = new int[size];
+            }
+            Arrays.fill(blocks, -1);
+            int mask = size - 1;
+            // earlier blocks win, so that matches stay in order when the source repeats itself
+            for(int block = count - 1; block >= 0; block--) {
+                int offset = block * BLOCK_SIZE;
+                blocks[mix(hash(source, sourceOffset + offset)) & mask] = offset;
+            }
+        }
+    }
+
+    /**
+     * An Adler-32 style sum of a block: the sum of its bytes in the low
+     * half, and the sum of those sums in the high half.
+     */
+    private static int hash(byte[] bytes, int offset) {
+        int a = 0;
+        int b = 0;
+        for(int i = offset; i < offset + BLOCK_SIZE; i++) {
+            a += bytes[i] & 0xff;
+            b += a;
+        }
+        return (b << 16) | (a & 0xffff);
+    }
+
+    private static int roll(int hash, byte out, byte in) {
+        int a = hash & 0xffff;
+        int b = hash >>> 16;
+        a = a - (out & 0xff) + (in & 0xff);
+        b = b - BLOCK_SIZE * (out & 0xff) + a;
+        return (b << 16) | (a & 0xffff);
+    }
+
+    private static int mix(int hash) {
+        return hash * 0x9e3779b1 >>> 7;
+    }
+
+    private static boolean regionEquals(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        for(int i = 0; i < length; i++) {
+            if(a[aOffset + i] != b[bOffset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
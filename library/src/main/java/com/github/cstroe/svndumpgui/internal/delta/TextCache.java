@@ -0,0 +1,247 @@
+package com.github.cstroe.svndumpgui.internal.delta;
+
+import com.github.cstroe.svndumpgui.api.Node;
+import com.github.cstroe.svndumpgui.api.NodeAction;
+import com.github.cstroe.svndumpgui.api.NodeHeader;
+import com.github.cstroe.svndumpgui.api.NodeKind;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The full texts of files at the revisions they were changed in, which are
+ * the sources that deltas are applied against.
+ *
+ * The cache holds at most {@link #getCapacity()} bytes of text.  When it is
+ * full, the text that was used the longest time ago is dropped, along with
+ * every path and revision it was the text of.  A text that was dropped, or
+ * that didn't fit, is remembered as missing, so that {@link #get} never
+ * returns an older text of the same path in its place.
+ *
+ * Copies share the text of their source, and are only counted once.
+ */
+public class TextCache {
+    public static final long DEFAULT_CAPACITY = 64L * 1024 * 1024;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    public static class Text {
+        private final byte[] content;
+        private final byte[] md5;
+        private final List<String> paths = new ArrayList<>(1);
+        private final List<Integer> revisions = new ArrayList<>(1);
+
+        private Text(byte[] content, byte[] md5) {
+            this.content = content;
+            this.md5 = md5;
+        }
+
+        public byte[] getContent() {
+            return content;
+        }
+
+        /**
+         * @return the MD5 sum of the content, or null if it isn't known
+         */
+        public byte[] getMd5() {
+            return md5;
+        }
+    }
+
+    private final long capacity;
+    private long size = 0;
+
+    // for every path, the text it had from each revision on; null where it is missing
+    private final TreeMap<String, TreeMap<Integer, Text>> history = new TreeMap<>();
+
+    // the texts in the order they were last used
+    private final LinkedHashSet<Text> recent = new LinkedHashSet<>();
+
+    public TextCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the number of bytes of text to keep
+     */
+    public TextCache(long capacity) {
+        if(capacity < 0) {
+            throw new IllegalArgumentException("The capacity cannot be negative.");
+        }
+        this.capacity = capacity;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of bytes of text in the cache
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Records what a node does to the texts of files, apart from the text it
+     * carries: removals, copies, and files that are added or changed to be
+     * empty.  The text of a node with content is recorded with {@link #put}.
+     */
+    public void track(Node node, int revision) {
+        String path = node.get(NodeHeader.PATH);
+        NodeAction action = node.getAction();
+        if(action == NodeAction.DELETE || action == NodeAction.REPLACE) {
+            delete(path, revision);
+        }
+        String copyFromPath = node.get(NodeHeader.COPY_FROM_PATH);
+        if(copyFromPath != null) {
+            copy(copyFromPath, node.getCopyFromRevision(), path, revision);
+        }
+        if(action == NodeAction.DELETE || node.getKind() == NodeKind.DIR || node.isTextDelta()) {
+            return;
+        }
+
+        long textContentLength = node.getTextContentLength();
+        if(textContentLength == 0 || (textContentLength < 0 && copyFromPath == null && action != NodeAction.CHANGE)) {
+            put(path, revision, EMPTY, null);
+        }
+    }
+
+    /**
+     * @return true if the delta of the node is made against an empty text, instead of an earlier one
+     */
+    public static boolean hasEmptySource(Node node) {
+        return node.get(NodeHeader.COPY_FROM_PATH) == null && node.getAction() != NodeAction.CHANGE;
+    }
+
+    /**
+     * Records the text of a file, from a revision on.
+     *
+     * @param md5 the MD5 sum of the content, or null if it isn't known
+     */
+    public void put(String path, int revision, byte[] content, byte[] md5) {
+        if(content.length > capacity) {
+            setMissing(path, revision);
+            return;
+        }
+        Text text = new Text(content, md5);
+        size += content.length;
+        recent.add(text);
+        locate(text, path, revision);
+        evict();
+    }
+
+    /**
+     * Records that a file has a text that isn't known, like one that is too large to keep.
+     */
+    public void setMissing(String path, int revision) {
+        TreeMap<Integer, Text> revisions = history.get(path);
+        if(revisions != null) {
+            revisions.put(revision, null);
+            trim(path, revisions);
+        }
+    }
+
+    /**
+     * @return the text of the file at the given revision, or null if it isn't in the cache
+     */
+    public Text get(String path, int revision) {
+        TreeMap<Integer, Text> revisions = history.get(path);
+        if(revisions == null) {
+            return null;
+        }
+        Map.Entry<Integer, Text> entry = revisions.floorEntry(revision);
+        if(entry == null || entry.getValue() == null) {
+            return null;
+        }
+        Text text = entry.getValue();
+        recent.remove(text);
+        recent.add(text);
+        return text;
+    }
+
+    /**
+     * Records a copy of a file, or of all the files in a directory.
+     */
+    public void copy(String fromPath, int fromRevision, String toPath, int revision) {
+        Text text = get(fromPath, fromRevision);
+        if(text != null) {
+            locate(text, toPath, revision);
+        } else {
+            setMissing(toPath, revision);
+        }
+
+        String prefix = fromPath.isEmpty() ? "" : fromPath + "/";
+        String destination = toPath.isEmpty() ? "" : toPath + "/";
+        List<String> children = new ArrayList<>(subtree(prefix).keySet());
+        for(String child : children) {
+            String childPath = destination + child.substring(prefix.length());
+            Text childText = get(child, fromRevision);
+            if(childText != null) {
+                locate(childText, childPath, revision);
+            } else {
+                setMissing(childPath, revision);
+            }
+        }
+    }
+
+    /**
+     * Records the removal of a file, or of a directory and all the files in it.
+     */
+    public void delete(String path, int revision) {
+        setMissing(path, revision);
+        List<String> children = new ArrayList<>(subtree(path.isEmpty() ? "" : path + "/").keySet());
+        for(String child : children) {
+            setMissing(child, revision);
+        }
+    }
+
+    private SortedMap<String, TreeMap<Integer, Text>> subtree(String prefix) {
+        if(prefix.isEmpty()) {
+            return history;
+        }
+        // '0' is the character after '/'
+        return history.subMap(prefix, prefix.substring(0, prefix.length() - 1) + "0");
+    }
+
+    private void locate(Text text, String path, int revision) {
+        history.computeIfAbsent(path, p -> new TreeMap<>()).put(revision, text);
+        text.paths.add(path);
+        text.revisions.add(revision);
+    }
+
+    private void evict() {
+        Iterator<Text> oldest = recent.iterator();
+        while(size > capacity && oldest.hasNext()) {
+            Text text = oldest.next();
+            oldest.remove();
+            size -= text.content.length;
+            for(int i = 0; i < text.paths.size(); i++) {
+                String path = text.paths.get(i);
+                TreeMap<Integer, Text> revisions = history.get(path);
+                if(revisions != null && revisions.get(text.revisions.get(i)) == text) {
+                    revisions.put(text.revisions.get(i), null);
+                    trim(path, revisions);
+                }
+            }
+        }
+    }
+
+    /**
+     * Forgets the revisions of a path that are missing and have no earlier
+     * text, since looking them up finds nothing either way.
+     */
+    private void trim(String path, TreeMap<Integer, Text> revisions) {
+        while(!revisions.isEmpty() && revisions.firstEntry().getValue() == null) {
+            revisions.pollFirstEntry();
+        }
+        if(revisions.isEmpty()) {
+            history.remove(path);
+        }
+    }
+}
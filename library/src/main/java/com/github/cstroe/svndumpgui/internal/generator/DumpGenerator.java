@@ -0,0 +1,472 @@
+package com.github.cstroe.svndumpgui.internal.generator;
+
+import com.github.cstroe.svndumpgui.api.NodeAction;
+import com.github.cstroe.svndumpgui.api.NodeKind;
+import com.github.cstroe.svndumpgui.api.Property;
+import com.github.cstroe.svndumpgui.api.RepositoryConsumer;
+import com.github.cstroe.svndumpgui.internal.ContentChunkImpl;
+import com.github.cstroe.svndumpgui.internal.NodeHeaderMap;
+import com.github.cstroe.svndumpgui.internal.NodeImpl;
+import com.github.cstroe.svndumpgui.internal.PreambleImpl;
+import com.github.cstroe.svndumpgui.internal.RevisionImpl;
+import com.github.cstroe.svndumpgui.internal.writer.SvnDumpWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Makes up a repository history from a seed, and hands it to a consumer
+ * chain as a parser would, so that a dump of any size can be written with
+ * {@link SvnDumpWriter} without a real repository.  The same seed and shape
+ * always give the same dump, byte for byte.
+ *
+ * Every revision adds or changes files in a tree under <code>trunk</code>,
+ * which is <code>width</code> directories wide and <code>depth</code>
+ * directories deep.  Optionally, some revisions copy trunk to several
+ * branches and tags at once, some files are binary, and some revisions set
+ * a long <code>svn:mergeinfo</code> on trunk.
+ *
+ * Nothing is kept in memory but the paths that exist, since file content is
+ * generated again from the seed of the node when it is written, after it
+ * was generated once to compute its checksums.
+ *
+ * From the command line, or the <code>generateDump</code> Gradle task:
+ * <pre>
+ *     DumpGenerator out.dump revisions=1000000 seed=7 binaryEvery=50
+ * </pre>
+ * where the options are the setters of this class.
+ */
+public class DumpGenerator {
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final long START_DATE = Instant.parse("2010-01-01T00:00:00Z").getEpochSecond();
+    private static final byte[] CORPUS = corpus();
+
+    private final long seed;
+
+    private int revisions = 1000;
+    private int nodesPerRevision = 3;
+    private int width = 10;
+    private int depth = 2;
+    private int filesPerDirectory = 20;
+    private int textSize = 4096;
+    private int branchEvery = 0;
+    private int copies = 1;
+    private int binaryEvery = 0;
+    private long binarySize = 1024 * 1024;
+    private int mergeinfoEvery = 0;
+    private int mergeinfoEntries = 100;
+
+    // what exists in trunk at the revision being generated
+    private final Set<String> dirs = new HashSet<>();
+    private final List<String> files = new ArrayList<>();
+    private final Set<String> fileSet = new HashSet<>();
+    private int fileAdds;
+    private Random random;
+
+    public DumpGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @param revisions the number of revisions, including revision 0
+     */
+    public void setRevisions(int revisions) {
+        this.revisions = positive("revisions", revisions);
+    }
+
+    /**
+     * @param nodesPerRevision the number of files added or changed in each revision
+     */
+    public void setNodesPerRevision(int nodesPerRevision) {
+        this.nodesPerRevision = positive("nodesPerRevision", nodesPerRevision);
+    }
+
+    /**
+     * @param width the number of directories in each directory of trunk
+     * @param depth the number of directories above every file in trunk
+     */
+    public void setTreeShape(int width, int depth) {
+        this.width = positive("width", width);
+        if(depth < 0) {
+            throw new IllegalArgumentException("depth cannot be negative.");
+        }
+        this.depth = depth;
+    }
+
+    public void setFilesPerDirectory(int filesPerDirectory) {
+        this.filesPerDirectory = positive("filesPerDirectory", filesPerDirectory);
+    }
+
+    /**
+     * @param textSize the average size of text files, in bytes
+     */
+    public void setTextSize(int textSize) {
+        this.textSize = positive("textSize", textSize);
+    }
+
+    /**
+     * Copies trunk every few revisions, to <code>copies</code> branches and
+     * tags in the same revision.
+     *
+     * @param branchEvery the number of revisions between copies, or 0 for none
+     */
+    public void setBranches(int branchEvery, int copies) {
+        this.branchEvery = notNegative("branchEvery", branchEvery);
+        this.copies = positive("copies", copies);
+    }
+
+    /**
+     * @param binaryEvery one in this many files added is binary, or 0 for none
+     * @param binarySize the size of binary files, in bytes
+     */
+    public void setBinaries(int binaryEvery, long binarySize) {
+        this.binaryEvery = notNegative("binaryEvery", binaryEvery);
+        if(binarySize < 0) {
+            throw new IllegalArgumentException("binarySize cannot be negative.");
+        }
+        this.binarySize = binarySize;
+    }
+
+    /**
+     * @param mergeinfoEvery the number of revisions between changes of the
+     *                       <code>svn:mergeinfo</code> of trunk, or 0 for none
+     * @param mergeinfoEntries the number of merge sources in it
+     */
+    public void setMergeinfo(int mergeinfoEvery, int mergeinfoEntries) {
+        this.mergeinfoEvery = notNegative("mergeinfoEvery", mergeinfoEvery);
+        this.mergeinfoEntries = positive("mergeinfoEntries", mergeinfoEntries);
+    }
+
+    private static int positive(String name, int value) {
+        if(value < 1) {
+            throw new IllegalArgumentException(name + " must be positive.");
+        }
+        return value;
+    }
+
+    private static int notNegative(String name, int value) {
+        if(value < 0) {
+            throw new IllegalArgumentException(name + " cannot be negative.");
+        }
+        return value;
+    }
+
+    /**
+     * Writes the dump with an {@link SvnDumpWriter}.
+     */
+    public void writeTo(OutputStream os) {
+        SvnDumpWriter writer = new SvnDumpWriter();
+        writer.writeTo(os);
+        generate(writer);
+    }
+
+    /**
+     * Hands the whole history to the consumer chain, then finishes it.
+     */
+    public void generate(RepositoryConsumer consumer) {
+        random = new Random(seed);
+        dirs.clear();
+        files.clear();
+        fileSet.clear();
+        fileAdds = 0;
+
+        consumer.consume(new PreambleImpl(new UUID(random.nextLong(), random.nextLong()).toString()));
+        for(int number = 0; number < revisions; number++) {
+            RevisionImpl revision = new RevisionImpl(number);
+            if(number > 0) {
+                revision.getProperties().put(Property.AUTHOR, "generator");
+            }
+            revision.getProperties().put(Property.DATE, date(number));
+            if(number > 0) {
+                revision.getProperties().put(Property.LOG, "Revision " + number + ".");
+            }
+            consumer.consume(revision);
+
+            if(number == 1) {
+                for(String dir : new String[] { "trunk", "branches", "tags" }) {
+                    addDir(consumer, revision, dir);
+                }
+            } else if(number > 1 && branchEvery > 0 && number % branchEvery == 0) {
+                copyTrunk(consumer, revision);
+            } else if(number > 1 && mergeinfoEvery > 0 && number % mergeinfoEvery == 0) {
+                changeMergeinfo(consumer, revision);
+            } else if(number > 1) {
+                for(int index = 0; index < nodesPerRevision; index++) {
+                    changeFile(consumer, revision, index);
+                }
+            }
+
+            consumer.endRevision(revision);
+        }
+        consumer.finish();
+    }
+
+    private static String date(int revision) {
+        // the format of svn:date, with microseconds
+        String seconds = Instant.ofEpochSecond(START_DATE + revision * 60L).toString();
+        return seconds.substring(0, seconds.length() - 1) + ".000000Z";
+    }
+
+    private void addDir(RepositoryConsumer consumer, RevisionImpl revision, String path) {
+        NodeHeaderMap headers = headers(path, NodeKind.DIR, NodeAction.ADD);
+        dirs.add(path);
+        emit(consumer, node(revision, headers, new LinkedHashMap<>()), null);
+    }
+
+    private void copyTrunk(RepositoryConsumer consumer, RevisionImpl revision) {
+        for(int copy = 0; copy < copies; copy++) {
+            String path = copy % 2 == 0 ?
+                    "branches/b" + revision.getNumber() + "-" + copy :
+                    "tags/t" + revision.getNumber() + "-" + copy;
+            NodeHeaderMap headers = headers(path, NodeKind.DIR, NodeAction.ADD);
+            headers.setCopyFromRevision(revision.getNumber() - 1);
+            headers.setCopyFromPath("trunk");
+            emit(consumer, node(revision, headers, null), null);
+        }
+    }
+
+    private void changeMergeinfo(RepositoryConsumer consumer, RevisionImpl revision) {
+        StringBuilder mergeinfo = new StringBuilder();
+        for(int entry = 0; entry < mergeinfoEntries; entry++) {
+            int end = 1 + random.nextInt(revision.getNumber() - 1);
+            int start = 1 + random.nextInt(end);
+            if(entry > 0) {
+                mergeinfo.append('\n');
+            }
+            mergeinfo.append("/branches/feature").append(entry).append(':').append(start).append('-').append(end);
+        }
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put(Property.MERGEINFO, mergeinfo.toString());
+        emit(consumer, node(revision, headers("trunk", NodeKind.DIR, NodeAction.CHANGE), properties), null);
+    }
+
+    private void changeFile(RepositoryConsumer consumer, RevisionImpl revision, int index) {
+        String path;
+        if(!files.isEmpty() && random.nextInt(2) == 0) {
+            path = files.get(random.nextInt(files.size()));
+        } else {
+            StringBuilder dir = new StringBuilder("trunk");
+            for(int level = 0; level < depth; level++) {
+                dir.append("/d").append(random.nextInt(width));
+                if(!dirs.contains(dir.toString())) {
+                    addDir(consumer, revision, dir.toString());
+                }
+            }
+            int file = random.nextInt(filesPerDirectory);
+            boolean binary = !fileSet.contains(dir + "/f" + file + ".txt") && binaryEvery > 0 && (fileAdds + 1) % binaryEvery == 0;
+            path = dir + "/f" + file + (binary ? ".bin" : ".txt");
+        }
+
+        boolean binary = path.endsWith(".bin");
+        Content content = binary ?
+                new Content(true, binarySize, seed(revision.getNumber(), index)) :
+                new Content(false, 1 + random.nextInt(2 * textSize), seed(revision.getNumber(), index));
+
+        Map<String, String> properties = null;
+        NodeAction action = NodeAction.CHANGE;
+        if(fileSet.add(path)) {
+            files.add(path);
+            fileAdds++;
+            action = NodeAction.ADD;
+            properties = new LinkedHashMap<>();
+            if(binary) {
+                properties.put(Property.MIMETYPE, "application/octet-stream");
+            }
+        }
+
+        NodeHeaderMap headers = headers(path, NodeKind.FILE, action);
+        emit(consumer, node(revision, headers, properties), content);
+    }
+
+    private long seed(int revision, int index) {
+        long mixed = seed * 0x9e3779b97f4a7c15L + revision * 0xc2b2ae3d27d4eb4fL + index;
+        return mixed ^ (mixed >>> 31);
+    }
+
+    private static NodeHeaderMap headers(String path, NodeKind kind, NodeAction action) {
+        NodeHeaderMap headers = new NodeHeaderMap();
+        headers.setPath(path);
+        headers.setKind(kind);
+        headers.setAction(action);
+        return headers;
+    }
+
+    private static NodeImpl node(RevisionImpl revision, NodeHeaderMap headers, Map<String, String> properties) {
+        NodeImpl node = new NodeImpl(revision);
+        node.setHeaders(headers);
+        node.setProperties(properties);
+        return node;
+    }
+
+    /**
+     * Fills in the lengths and checksums, and hands the node and its content to the chain.
+     */
+    private static void emit(RepositoryConsumer consumer, NodeImpl node, Content content) {
+        NodeHeaderMap headers = (NodeHeaderMap) node.getHeaders();
+        boolean hasProperties = node.getProperties() != null;
+        long propContentLength = hasProperties ? propertiesLength(node.getProperties()) : 0;
+        if(hasProperties) {
+            headers.setPropContentLength(propContentLength);
+        }
+        if(content != null) {
+            headers.setTextContentLength(content.length);
+            content.digest(headers);
+        }
+        if(hasProperties || content != null) {
+            headers.setContentLength(propContentLength + (content == null ? 0 : content.length));
+        }
+
+        consumer.consume(node);
+        if(content != null && content.length > 0) {
+            content.emit(consumer);
+            consumer.endChunks();
+        }
+        consumer.endNode(node);
+    }
+
+    /**
+     * @return the length of the properties as they are written, up to and including <code>PROPS-END</code>
+     */
+    static long propertiesLength(Map<String, String> properties) {
+        long length = "PROPS-END\n".length();
+        for(Map.Entry<String, String> property : properties.entrySet()) {
+            int key = property.getKey().getBytes(StandardCharsets.UTF_8).length;
+            int value = property.getValue().getBytes(StandardCharsets.UTF_8).length;
+            length += 2 + Integer.toString(key).length() + 1 + key + 1;
+            length += 2 + Integer.toString(value).length() + 1 + value + 1;
+        }
+        return length;
+    }
+
+    /**
+     * The content of a file, which is made again from its seed every time
+     * it is read: words of text, or random bytes.
+     */
+    private static class Content {
+        private final boolean binary;
+        private final long length;
+        private final long seed;
+
+        Content(boolean binary, long length, long seed) {
+            this.binary = binary;
+            this.length = length;
+            this.seed = seed;
+        }
+
+        void digest(NodeHeaderMap headers) {
+            MessageDigest md5 = messageDigest("MD5");
+            MessageDigest sha1 = messageDigest("SHA1");
+            Random random = new Random(seed);
+            for(long offset = 0; offset < length; offset += CHUNK_SIZE) {
+                byte[] chunk = chunk(random, offset);
+                md5.update(chunk);
+                sha1.update(chunk);
+            }
+            headers.setMd5(md5.digest());
+            headers.setSha1(sha1.digest());
+        }
+
+        void emit(RepositoryConsumer consumer) {
+            Random random = new Random(seed);
+            for(long offset = 0; offset < length; offset += CHUNK_SIZE) {
+                consumer.consume(new ContentChunkImpl(chunk(random, offset)));
+            }
+        }
+
+        private byte[] chunk(Random random, long offset) {
+            byte[] chunk = new byte[(int) Math.min(CHUNK_SIZE, length - offset)];
+            if(binary) {
+                random.nextBytes(chunk);
+            } else {
+                int start = (int) ((seed & 0x7fffffffL) % CORPUS.length);
+                for(int i = 0; i < chunk.length; i++) {
+                    chunk[i] = CORPUS[(int) ((start + offset + i) % CORPUS.length)];
+                }
+            }
+            return chunk;
+        }
+    }
+
+    private static byte[] corpus() {
+        String[] words = { "public", "static", "void", "return", "if", "for", "int", "String", "null", "new", "this", "class" };
+        Random random = new Random(0);
+        StringBuilder text = new StringBuilder();
+        while(text.length() < CHUNK_SIZE) {
+            text.append(words[random.nextInt(words.length)]);
+            text.append(random.nextInt(8) == 0 ? "\n" : " ");
+        }
+        return text.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static MessageDigest messageDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch(NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Writes a dump to a file, or to standard output if the file is <code>-</code>.
+     *
+     * @param args the file, then options like <code>revisions=1000</code>
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length < 1) {
+            System.err.println("usage: DumpGenerator <file|-> [seed=N] [revisions=N] [nodesPerRevision=N] [width=N] [depth=N]\n" +
+                    "       [filesPerDirectory=N] [textSize=N] [branchEvery=N] [copies=N] [binaryEvery=N]\n" +
+                    "       [binarySize=N] [mergeinfoEvery=N] [mergeinfoEntries=N]");
+            System.exit(1);
+        }
+
+        Map<String, Long> options = new LinkedHashMap<>();
+        for(int i = 1; i < args.length; i++) {
+            int equals = args[i].indexOf('=');
+            if(equals < 0) {
+                throw new IllegalArgumentException("Options look like name=value, not " + args[i]);
+            }
+            options.put(args[i].substring(0, equals), Long.parseLong(args[i].substring(equals + 1)));
+        }
+
+        DumpGenerator generator = new DumpGenerator(options.getOrDefault("seed", 0L));
+        generator.setRevisions(option(options, "revisions", generator.revisions));
+        generator.setNodesPerRevision(option(options, "nodesPerRevision", generator.nodesPerRevision));
+        generator.setTreeShape(option(options, "width", generator.width), option(options, "depth", generator.depth));
+        generator.setFilesPerDirectory(option(options, "filesPerDirectory", generator.filesPerDirectory));
+        generator.setTextSize(option(options, "textSize", generator.textSize));
+        generator.setBranches(option(options, "branchEvery", generator.branchEvery), option(options, "copies", generator.copies));
+        generator.setBinaries(option(options, "binaryEvery", generator.binaryEvery), options.getOrDefault("binarySize", generator.binarySize));
+        generator.setMergeinfo(option(options, "mergeinfoEvery", generator.mergeinfoEvery), option(options, "mergeinfoEntries", generator.mergeinfoEntries));
+        options.keySet().removeAll(Arrays.asList("seed", "revisions", "nodesPerRevision", "width", "depth", "filesPerDirectory",
+                "textSize", "branchEvery", "copies", "binaryEvery", "binarySize", "mergeinfoEvery", "mergeinfoEntries"));
+        if(!options.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options: " + options.keySet());
+        }
+
+        OutputStream os = "-".equals(args[0]) ? System.out : Files.newOutputStream(Paths.get(args[0]));
+        try(OutputStream out = new BufferedOutputStream(os, 1024 * 1024)) {
+            generator.writeTo(out);
+        }
+    }
+
+    private static int option(Map<String, Long> options, String name, int defaultValue) {
+        return Math.toIntExact(options.getOrDefault(name, (long) defaultValue));
+    }
+}
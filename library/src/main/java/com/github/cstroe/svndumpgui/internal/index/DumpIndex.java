@@ -0,0 +1,185 @@
+package com.github.cstroe.svndumpgui.internal.index;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The byte offsets of the revisions and nodes in a dump file, read from a
+ * sidecar index written by {@link DumpIndexBuilder}.
+ *
+ * The index file is mapped into memory, so only the pages that are looked
+ * at are read from disk.  All numbers are big-endian:
+ *
+ * <pre>
+ * header:         "SVNDIDX1", dump length (long), revision count (int), node count (long)
+ * node table:     header offset (long), content offset (long), text offset (long) per node
+ * revision table: revision number (int), offset (long), first node (long) per revision
+ * </pre>
+ *
+ * The nodes of a revision are numbered from its first node up to the first
+ * node of the next revision.
+ */
+public class DumpIndex {
+    static final byte[] MAGIC = "SVNDIDX1".getBytes(StandardCharsets.US_ASCII);
+    static final int HEADER_LENGTH = MAGIC.length + 8 + 4 + 8;
+    static final int NODE_ENTRY_LENGTH = 8 + 8 + 8;
+    static final int REVISION_ENTRY_LENGTH = 4 + 8 + 8;
+
+    private final long dumpLength;
+    private final int revisionCount;
+    private final long nodeCount;
+
+    private final Table nodes;
+    private final Table revisions;
+
+    private DumpIndex(FileChannel channel, Path indexFile) throws IOException {
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(HEADER_LENGTH, channel.size()));
+        if(header.remaining() < HEADER_LENGTH) {
+            throw new IOException(indexFile + " is not a dump index.");
+        }
+        byte[] magic = new byte[MAGIC.length];
+        header.get(magic);
+        if(!Arrays.equals(magic, MAGIC)) {
+            throw new IOException(indexFile + " is not a dump index.");
+        }
+        dumpLength = header.getLong();
+        revisionCount = header.getInt();
+        nodeCount = header.getLong();
+
+        long revisionTableOffset = HEADER_LENGTH + nodeCount * NODE_ENTRY_LENGTH;
+        if(channel.size() != revisionTableOffset + (long) revisionCount * REVISION_ENTRY_LENGTH) {
+            throw new IOException(indexFile + " is truncated.");
+        }
+        nodes = new Table(channel, HEADER_LENGTH, nodeCount, NODE_ENTRY_LENGTH);
+        revisions = new Table(channel, revisionTableOffset, revisionCount, REVISION_ENTRY_LENGTH);
+    }
+
+    public static DumpIndex load(Path indexFile) throws IOException {
+        try(FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            return new DumpIndex(channel, indexFile);
+        }
+    }
+
+    /**
+     * @return the length of the dump file that was indexed
+     */
+    public long getDumpLength() {
+        return dumpLength;
+    }
+
+    public int getRevisionCount() {
+        return revisionCount;
+    }
+
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getRevisionNumber(int revisionIndex) {
+        return revisions.entry(revisionIndex).getInt(revisions.position(revisionIndex));
+    }
+
+    /**
+     * @return where the <code>Revision-number</code> header of the revision starts
+     */
+    public long getRevisionOffset(int revisionIndex) {
+        return revisions.entry(revisionIndex).getLong(revisions.position(revisionIndex) + 4);
+    }
+
+    /**
+     * @return where the next revision starts, or the length of the dump for the last revision
+     */
+    public long getRevisionEnd(int revisionIndex) {
+        return revisionIndex + 1 < revisionCount ? getRevisionOffset(revisionIndex + 1) : dumpLength;
+    }
+
+    public long getFirstNode(int revisionIndex) {
+        return revisions.entry(revisionIndex).getLong(revisions.position(revisionIndex) + 12);
+    }
+
+    public long getNodeCount(int revisionIndex) {
+        long end = revisionIndex + 1 < revisionCount ? getFirstNode(revisionIndex + 1) : nodeCount;
+        return end - getFirstNode(revisionIndex);
+    }
+
+    /**
+     * Finds a revision by its number, the same way {@link Arrays#binarySearch(int[], int)} does.
+     *
+     * @return the index of the revision, or <code>(-(insertion point) - 1)</code> if it is not in the dump
+     */
+    public int indexOfRevision(int revisionNumber) {
+        int low = 0;
+        int high = revisionCount - 1;
+        while(low <= high) {
+            int middle = (low + high) >>> 1;
+            int number = getRevisionNumber(middle);
+            if(number < revisionNumber) {
+                low = middle + 1;
+            } else if(number > revisionNumber) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * @return where the first header of the node starts
+     */
+    public long getNodeHeaderOffset(long node) {
+        return nodes.entry(node).getLong(nodes.position(node));
+    }
+
+    /**
+     * @return where the properties or text of the node start, right after its headers
+     */
+    public long getNodeContentOffset(long node) {
+        return nodes.entry(node).getLong(nodes.position(node) + 8);
+    }
+
+    /**
+     * @return where the text of the node starts, or -1 if it has none
+     */
+    public long getNodeTextOffset(long node) {
+        return nodes.entry(node).getLong(nodes.position(node) + 16);
+    }
+
+    /**
+     * Fixed length entries, mapped in as many segments as it takes to stay under 2 GB per mapping.
+     */
+    private static class Table {
+        private final long count;
+        private final int entryLength;
+        private final int entriesPerSegment;
+        private final ByteBuffer[] segments;
+
+        private Table(FileChannel channel, long offset, long count, int entryLength) throws IOException {
+            this.count = count;
+            this.entryLength = entryLength;
+            this.entriesPerSegment = Integer.MAX_VALUE / entryLength;
+            this.segments = new ByteBuffer[(int) ((count + entriesPerSegment - 1) / entriesPerSegment)];
+            for(int i = 0; i < segments.length; i++) {
+                long first = (long) i * entriesPerSegment;
+                long entries = Math.min(entriesPerSegment, count - first);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset + first * entryLength, entries * entryLength);
+            }
+        }
+
+        private ByteBuffer entry(long index) {
+            if(index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("Entry " + index + " is not in the index, there are " + count + ".");
+            }
+            return segments[(int) (index / entriesPerSegment)];
+        }
+
+        private int position(long index) {
+            return (int) (index % entriesPerSegment) * entryLength;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.github.cstroe.svndumpgui.internal.index;
+
+import com.github.cstroe.svndumpgui.api.ConsumerInterest;
+import com.github.cstroe.svndumpgui.api.SelectiveConsumer;
+import com.github.cstroe.svndumpgui.generated.ParseException;
+import com.github.cstroe.svndumpgui.internal.AbstractRepositoryConsumer;
+import com.github.cstroe.svndumpgui.internal.parser.MappedDumpInput;
+import com.github.cstroe.svndumpgui.internal.parser.SvnDumpByteParser;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Writes a {@link DumpIndex} while a dump is being parsed.
+ *
+ * The parser reports where every revision and node starts, see
+ * {@link SvnDumpByteParser#setIndexBuilder(DumpIndexBuilder)}.  Node entries
+ * are streamed to the index file as they arrive, the revision table and the
+ * header are written when the builder is closed.
+ */
+public class DumpIndexBuilder implements Closeable {
+    private final Path indexFile;
+    private final DataOutputStream out;
+
+    private int revisionCount = 0;
+    private int[] revisionNumbers = new int[1024];
+    private long[] revisionOffsets = new long[1024];
+    private long[] firstNodes = new long[1024];
+
+    private long nodeCount = 0;
+    private long dumpLength = -1;
+
+    public DumpIndexBuilder(Path indexFile) throws IOException {
+        this.indexFile = indexFile;
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile)));
+        out.write(new byte[DumpIndex.HEADER_LENGTH]); // filled in by close()
+    }
+
+    /**
+     * @param offset where the <code>Revision-number</code> header starts
+     */
+    public void revision(int number, long offset) {
+        if(revisionCount == revisionNumbers.length) {
+            int length = revisionCount * 2;
+            revisionNumbers = Arrays.copyOf(revisionNumbers, length);
+            revisionOffsets = Arrays.copyOf(revisionOffsets, length);
+            firstNodes = Arrays.copyOf(firstNodes, length);
+        }
+        revisionNumbers[revisionCount] = number;
+        revisionOffsets[revisionCount] = offset;
+        firstNodes[revisionCount] = nodeCount;
+        revisionCount++;
+    }
+
+    /**
+     * @param headerOffset where the first header of the node starts
+     * @param contentOffset where the properties or text of the node start, after the headers
+     * @param textOffset where the text of the node starts, or -1 if it has none
+     */
+    public void node(long headerOffset, long contentOffset, long textOffset) throws IOException {
+        if(revisionCount == 0) {
+            throw new IllegalStateException("A node must belong to a revision.");
+        }
+        out.writeLong(headerOffset);
+        out.writeLong(contentOffset);
+        out.writeLong(textOffset);
+        nodeCount++;
+    }
+
+    /**
+     * @param dumpLength where the dump ends
+     */
+    public void end(long dumpLength) {
+        this.dumpLength = dumpLength;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for(int i = 0; i < revisionCount; i++) {
+            out.writeInt(revisionNumbers[i]);
+            out.writeLong(revisionOffsets[i]);
+            out.writeLong(firstNodes[i]);
+        }
+        out.close();
+
+        if(dumpLength == -1) {
+            throw new IOException("The dump was not indexed to the end, " + indexFile + " is incomplete.");
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(DumpIndex.HEADER_LENGTH);
+        header.put(DumpIndex.MAGIC);
+        header.putLong(dumpLength);
+        header.putInt(revisionCount);
+        header.putLong(nodeCount);
+        header.flip();
+        try(FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.WRITE)) {
+            while(header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+    }
+
+    /**
+     * Indexes a dump file, skipping over all properties and file content.
+     */
+    public static void build(Path dumpFile, Path indexFile) throws ParseException, IOException {
+        try(FileChannel channel = FileChannel.open(dumpFile, StandardOpenOption.READ);
+            DumpIndexBuilder builder = new DumpIndexBuilder(indexFile)) {
+            SvnDumpByteParser parser = new SvnDumpByteParser(new MappedDumpInput(channel));
+            parser.setIndexBuilder(builder);
+            parser.Start(new NothingWanted());
+        }
+    }
+
+    private static class NothingWanted extends AbstractRepositoryConsumer implements SelectiveConsumer {
+        @Override
+        public Set<ConsumerInterest> getInterests() {
+            return EnumSet.noneOf(ConsumerInterest.class);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.cstroe.svndumpgui.internal.metrics;
+
+/**
+ * The methods of {@link com.github.cstroe.svndumpgui.api.RepositoryConsumer}
+ * that pass the dump along the chain, which {@link ConsumerMetrics} times.
+ */
+public enum Callback {
+    PREAMBLE("consume(Preamble)"),
+    REVISION("consume(Revision)"),
+    END_REVISION("endRevision(Revision)"),
+    NODE("consume(Node)"),
+    END_NODE("endNode(Node)"),
+    CHUNK("consume(ContentChunk)"),
+    END_CHUNKS("endChunks()"),
+    FINISH("finish()");
+
+    private final String method;
+
+    Callback(String method) {
+        this.method = method;
+    }
+
+    @Override
+    public String toString() {
+        return method;
+    }
+}
@@ -0,0 +1,189 @@
+package com.github.cstroe.svndumpgui.internal.metrics;
+
+import com.github.cstroe.svndumpgui.api.CheckpointableConsumer;
+import com.github.cstroe.svndumpgui.api.ConsumerInterest;
+import com.github.cstroe.svndumpgui.api.RepositoryConsumer;
+import com.github.cstroe.svndumpgui.api.SelectiveConsumer;
+import com.github.cstroe.svndumpgui.internal.AbstractRepositoryConsumer;
+
+import javax.management.ObjectName;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Measures the wall time that each consumer of a chain spends in each callback.
+ *
+ * {@link #instrument(RepositoryConsumer)} puts this in front of a chain, and
+ * has every {@link AbstractRepositoryConsumer} pass its calls on through a
+ * proxy that times them, which costs two calls to {@link System#nanoTime()}
+ * per callback.  Chains that aren't instrumented call the next consumer
+ * directly.
+ *
+ * The time of a consumer that doesn't extend AbstractRepositoryConsumer is
+ * counted in the consumer before it, and so is the time of the consumers
+ * after it, since nothing times the calls it passes on.
+ */
+public class ConsumerMetrics extends AbstractRepositoryConsumer implements ConsumerMetricsMXBean, SelectiveConsumer, CheckpointableConsumer {
+    private final List<RepositoryConsumer> consumers = new ArrayList<>();
+    private final List<ConsumerTimer> timers = new ArrayList<>();
+
+    private ObjectName objectName = null;
+
+    private ConsumerMetrics() {}
+
+    /**
+     * Starts timing a chain.  The chain must be complete, since consumers
+     * can't be added to it once this is in front of it.
+     *
+     * @return the new head of the chain, which should be given to the parser
+     */
+    public static ConsumerMetrics instrument(RepositoryConsumer chain) {
+        ConsumerMetrics metrics = new ConsumerMetrics();
+        metrics.continueTo(chain);
+
+        RepositoryConsumer caller = metrics;
+        ConsumerTimer callerTimer = null;
+        for(RepositoryConsumer consumer = chain; consumer != null; consumer = consumer.getNextConsumer()) {
+            ConsumerTimer timer = null;
+            if(caller instanceof AbstractRepositoryConsumer) {
+                timer = new ConsumerTimer(callerTimer);
+                ((AbstractRepositoryConsumer) caller).setTimer(timer);
+            }
+            metrics.consumers.add(consumer);
+            metrics.timers.add(timer);
+            caller = consumer;
+            callerTimer = timer;
+        }
+        return metrics;
+    }
+
+    /**
+     * Stops timing the chain, and takes this out of the front of it.
+     */
+    public void detach() {
+        for(RepositoryConsumer consumer = this; consumer != null; consumer = consumer.getNextConsumer()) {
+            if(consumer instanceof AbstractRepositoryConsumer) {
+                ((AbstractRepositoryConsumer) consumer).setTimer(null);
+            }
+        }
+        RepositoryConsumer chain = getNextConsumer();
+        if(chain != null) {
+            chain.setPreviousConsumer(null);
+            setNextConsumer(null);
+        }
+    }
+
+    /**
+     * @return the consumers of the chain, in order, which are numbered from 0 below
+     */
+    public List<RepositoryConsumer> getConsumerChain() {
+        return Collections.unmodifiableList(consumers);
+    }
+
+    /**
+     * @return how many times the callback of the consumer was called, or 0 if it wasn't timed
+     */
+    public long getCalls(int consumer, Callback callback) {
+        ConsumerTimer timer = timers.get(consumer);
+        return timer == null ? 0 : timer.getCalls(callback);
+    }
+
+    /**
+     * @return the nanoseconds spent in the callback of the consumer, without the consumers after it
+     */
+    public long getSelfNanos(int consumer, Callback callback) {
+        ConsumerTimer timer = timers.get(consumer);
+        return timer == null ? 0 : timer.getSelfNanos(callback);
+    }
+
+    /**
+     * @return the nanoseconds spent in the callback of the consumer, with the consumers after it
+     */
+    public long getTotalNanos(int consumer, Callback callback) {
+        ConsumerTimer timer = timers.get(consumer);
+        return timer == null ? 0 : timer.getTotalNanos(callback);
+    }
+
+    /**
+     * @return the nanoseconds spent in all the callbacks of the consumer, without the consumers after it
+     */
+    public long getSelfNanos(int consumer) {
+        long nanos = 0;
+        for(Callback callback : Callback.values()) {
+            nanos += getSelfNanos(consumer, callback);
+        }
+        return nanos;
+    }
+
+    @Override
+    public List<String> getConsumers() {
+        List<String> names = new ArrayList<>();
+        for(RepositoryConsumer consumer : consumers) {
+            names.add(consumer.getClass().getSimpleName());
+        }
+        return names;
+    }
+
+    @Override
+    public Map<String, Long> getCalls() {
+        return byCallback(this::getCalls);
+    }
+
+    @Override
+    public Map<String, Long> getSelfNanos() {
+        return byCallback(this::getSelfNanos);
+    }
+
+    @Override
+    public Map<String, Long> getTotalNanos() {
+        return byCallback(this::getTotalNanos);
+    }
+
+    private Map<String, Long> byCallback(ToLongBiFunction<Integer, Callback> metric) {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for(int consumer = 0; consumer < consumers.size(); consumer++) {
+            String name = consumer + " " + consumers.get(consumer).getClass().getSimpleName() + " ";
+            for(Callback callback : Callback.values()) {
+                if(getCalls(consumer, callback) > 0) {
+                    values.put(name + callback, metric.applyAsLong(consumer, callback));
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Makes the metrics visible through JMX, under the given name.
+     */
+    public ObjectName register(String name) {
+        objectName = Jmx.register(this, "ConsumerMetrics", name);
+        return objectName;
+    }
+
+    public void unregister() {
+        if(objectName != null) {
+            Jmx.unregister(objectName);
+            objectName = null;
+        }
+    }
+
+    @Override
+    public Set<ConsumerInterest> getInterests() {
+        return EnumSet.noneOf(ConsumerInterest.class);
+    }
+
+    @Override
+    public Serializable saveState() {
+        return null;
+    }
+
+    @Override
+    public void restoreState(Serializable state) {}
+}
@@ -0,0 +1,26 @@
+package com.github.cstroe.svndumpgui.internal.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The JMX view of {@link ConsumerMetrics}.  The maps are keyed by the
+ * position and class of a consumer and the callback, such as
+ * <code>1 SvnDumpWriter consume(Node)</code>, and only have the callbacks
+ * that were called.
+ */
+public interface ConsumerMetricsMXBean {
+    List<String> getConsumers();
+
+    Map<String, Long> getCalls();
+
+    /**
+     * @return the nanoseconds spent in each callback, without the consumers after it
+     */
+    Map<String, Long> getSelfNanos();
+
+    /**
+     * @return the nanoseconds spent in each callback, with the consumers after it
+     */
+    Map<String, Long> getTotalNanos();
+}
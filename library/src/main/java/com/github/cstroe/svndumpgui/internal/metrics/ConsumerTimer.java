@@ -0,0 +1,63 @@
+package com.github.cstroe.svndumpgui.internal.metrics;
+
+import com.github.cstroe.svndumpgui.api.RepositoryConsumer;
+
+/**
+ * Times the callbacks of one consumer in a chain, including the time of the
+ * consumers after it, and tells the consumer before it how long it waited.
+ *
+ * The consumer before passes its calls on through {@link #time(RepositoryConsumer)},
+ * see {@link com.github.cstroe.svndumpgui.internal.AbstractRepositoryConsumer#setTimer(ConsumerTimer)}.
+ * Only the parser thread writes the counts, so they are plain fields; a
+ * reader on another thread may see them a little out of date.
+ */
+public class ConsumerTimer {
+    private final ConsumerTimer previous;
+
+    private final long[] calls = new long[Callback.values().length];
+    private final long[] totalNanos = new long[Callback.values().length];
+    private final long[] downstreamNanos = new long[Callback.values().length];
+
+    // the callback that the consumer is in, to charge the time of the next consumer to it
+    private Callback active = Callback.PREAMBLE;
+
+    ConsumerTimer(ConsumerTimer previous) {
+        this.previous = previous;
+    }
+
+    /**
+     * @return the consumer, behind a proxy that times the calls to it
+     */
+    public RepositoryConsumer time(RepositoryConsumer consumer) {
+        return new TimedConsumer(this, consumer);
+    }
+
+    /**
+     * @return the start time, for {@link #exit}
+     */
+    long enter(Callback callback) {
+        active = callback;
+        return System.nanoTime();
+    }
+
+    void exit(Callback callback, long start) {
+        long elapsed = System.nanoTime() - start;
+        calls[callback.ordinal()]++;
+        totalNanos[callback.ordinal()] += elapsed;
+        if(previous != null) {
+            previous.downstreamNanos[previous.active.ordinal()] += elapsed;
+        }
+    }
+
+    long getCalls(Callback callback) {
+        return calls[callback.ordinal()];
+    }
+
+    long getTotalNanos(Callback callback) {
+        return totalNanos[callback.ordinal()];
+    }
+
+    long getSelfNanos(Callback callback) {
+        return totalNanos[callback.ordinal()] - downstreamNanos[callback.ordinal()];
+    }
+}
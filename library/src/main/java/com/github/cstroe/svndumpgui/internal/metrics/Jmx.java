@@ -0,0 +1,31 @@
+package com.github.cstroe.svndumpgui.internal.metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Registers metrics with the platform MBean server, under
+ * <code>com.github.cstroe.svndumpgui:type=...,name=...</code>.
+ */
+class Jmx {
+    private static final String DOMAIN = "com.github.cstroe.svndumpgui";
+
+    static ObjectName register(Object mbean, String type, String name) {
+        try {
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, objectName);
+            return objectName;
+        } catch(JMException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    static void unregister(ObjectName objectName) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch(JMException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.github.cstroe.svndumpgui.internal.metrics;
+
+import javax.management.ObjectName;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts what a parser has read, see
+ * {@link com.github.cstroe.svndumpgui.internal.parser.SvnDumpByteParser#setMetrics(ParserMetrics)}.
+ * The counts can be read while parsing goes on, through the getters or JMX.
+ *
+ * The parser thread updates the counts as it goes, except for the hashing
+ * time, which is added up from the threads that verify checksums.
+ */
+public class ParserMetrics implements ParserMetricsMXBean {
+    private volatile long startNanos = 0;
+    private volatile long endNanos = 0;
+
+    private volatile long bytesRead = 0;
+    private volatile long revisions = 0;
+    private volatile long nodes = 0;
+    private volatile long contentBytes = 0;
+    private final LongAdder hashingNanos = new LongAdder();
+
+    private ObjectName objectName = null;
+
+    public void start() {
+        startNanos = System.nanoTime();
+        endNanos = 0;
+    }
+
+    public void end(long bytesRead) {
+        this.bytesRead = bytesRead;
+        endNanos = System.nanoTime();
+    }
+
+    /**
+     * @param bytesRead the position in the dump at the end of the revision
+     */
+    public void revision(long bytesRead) {
+        this.bytesRead = bytesRead;
+        revisions++;
+    }
+
+    public void node() {
+        nodes++;
+    }
+
+    public void content(long length) {
+        contentBytes += length;
+    }
+
+    public void hashing(long nanos) {
+        hashingNanos.add(nanos);
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    @Override
+    public long getRevisions() {
+        return revisions;
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public long getContentBytes() {
+        return contentBytes;
+    }
+
+    @Override
+    public long getHashingNanos() {
+        return hashingNanos.sum();
+    }
+
+    @Override
+    public long getElapsedNanos() {
+        long start = startNanos;
+        if(start == 0) {
+            return 0;
+        }
+        long end = endNanos;
+        return (end == 0 ? System.nanoTime() : end) - start;
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        return perSecond(bytesRead);
+    }
+
+    @Override
+    public double getRevisionsPerSecond() {
+        return perSecond(revisions);
+    }
+
+    @Override
+    public double getNodesPerSecond() {
+        return perSecond(nodes);
+    }
+
+    @Override
+    public double getContentBytesPerSecond() {
+        return perSecond(contentBytes);
+    }
+
+    private double perSecond(long count) {
+        long elapsed = getElapsedNanos();
+        return elapsed == 0 ? 0 : count * 1e9 / elapsed;
+    }
+
+    /**
+     * Makes the metrics visible through JMX, under the given name.
+     */
+    public ObjectName register(String name) {
+        objectName = Jmx.register(this, "ParserMetrics", name);
+        return objectName;
+    }
+
+    public void unregister() {
+        if(objectName != null) {
+            Jmx.unregister(objectName);
+            objectName = null;
+        }
+    }
+}
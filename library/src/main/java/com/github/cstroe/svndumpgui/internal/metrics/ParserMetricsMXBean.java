@@ -0,0 +1,32 @@
+package com.github.cstroe.svndumpgui.internal.metrics;
+
+/**
+ * The JMX view of {@link ParserMetrics}.
+ */
+public interface ParserMetricsMXBean {
+    long getBytesRead();
+
+    long getRevisions();
+
+    long getNodes();
+
+    long getContentBytes();
+
+    /**
+     * @return the nanoseconds spent hashing file content, on any thread
+     */
+    long getHashingNanos();
+
+    /**
+     * @return the nanoseconds since parsing started, up to the end if it has ended
+     */
+    long getElapsedNanos();
+
+    double getBytesPerSecond();
+
+    double getRevisionsPerSecond();
+
+    double getNodesPerSecond();
+
+    double getContentBytesPerSecond();
+}
@@ -0,0 +1,98 @@
+package com.github.cstroe.svndumpgui.internal.metrics;
+
+import com.github.cstroe.svndumpgui.api.ContentChunk;
+import com.github.cstroe.svndumpgui.api.Node;
+import com.github.cstroe.svndumpgui.api.Preamble;
+import com.github.cstroe.svndumpgui.api.RepositoryConsumer;
+import com.github.cstroe.svndumpgui.api.Revision;
+
+/**
+ * Stands in front of a consumer and times the calls that are passed on to it,
+ * see {@link ConsumerTimer#time(RepositoryConsumer)}.  The chain still links
+ * to the consumer itself, so this is only ever called, never walked.
+ */
+class TimedConsumer implements RepositoryConsumer {
+    private final ConsumerTimer timer;
+    private final RepositoryConsumer consumer;
+
+    TimedConsumer(ConsumerTimer timer, RepositoryConsumer consumer) {
+        this.timer = timer;
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void consume(Preamble preamble) {
+        long start = timer.enter(Callback.PREAMBLE);
+        consumer.consume(preamble);
+        timer.exit(Callback.PREAMBLE, start);
+    }
+
+    @Override
+    public void consume(Revision revision) {
+        long start = timer.enter(Callback.REVISION);
+        consumer.consume(revision);
+        timer.exit(Callback.REVISION, start);
+    }
+
+    @Override
+    public void endRevision(Revision revision) {
+        long start = timer.enter(Callback.END_REVISION);
+        consumer.endRevision(revision);
+        timer.exit(Callback.END_REVISION, start);
+    }
+
+    @Override
+    public void consume(Node node) {
+        long start = timer.enter(Callback.NODE);
+        consumer.consume(node);
+        timer.exit(Callback.NODE, start);
+    }
+
+    @Override
+    public void endNode(Node node) {
+        long start = timer.enter(Callback.END_NODE);
+        consumer.endNode(node);
+        timer.exit(Callback.END_NODE, start);
+    }
+
+    @Override
+    public void consume(ContentChunk chunk) {
+        long start = timer.enter(Callback.CHUNK);
+        consumer.consume(chunk);
+        timer.exit(Callback.CHUNK, start);
+    }
+
+    @Override
+    public void endChunks() {
+        long start = timer.enter(Callback.END_CHUNKS);
+        consumer.endChunks();
+        timer.exit(Callback.END_CHUNKS, start);
+    }
+
+    @Override
+    public void finish() {
+        long start = timer.enter(Callback.FINISH);
+        consumer.finish();
+        timer.exit(Callback.FINISH, start);
+    }
+
+    @Override
+    public RepositoryConsumer getNextConsumer() {
+        return consumer.getNextConsumer();
+    }
+
+    @Override
+    public void setNextConsumer(RepositoryConsumer nextConsumer) {
+        consumer.setNextConsumer(nextConsumer);
+    }
+
+    @Override
+    public RepositoryConsumer getPreviousConsumer() {
+        return consumer.getPreviousConsumer();
+    }
+
+    @Override
+    public void setPreviousConsumer(RepositoryConsumer previousConsumer) {
+        consumer.setPreviousConsumer(previousConsumer);
+    }
+}
@@ -0,0 +1,142 @@
+package com.github.cstroe.svndumpgui.internal.parser;
+
+import com.github.cstroe.svndumpgui.api.CheckpointableConsumer;
+import com.github.cstroe.svndumpgui.api.RepositoryConsumer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The point where parsing stopped at the end of a revision: the offset in the
+ * dump where the next revision starts, and the state of every consumer in the
+ * chain, in order.
+ *
+ * A later run resumes from a checkpoint with
+ * {@link SvnDumpByteParser#resumeFrom(Checkpoint)}, and a chain of the same
+ * consumers, which get their state back before the next revision.
+ */
+public class Checkpoint implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int revision;
+    private final long offset;
+    private final List<String> consumers;
+    private final List<Serializable> states;
+
+    private Checkpoint(int revision, long offset, List<String> consumers, List<Serializable> states) {
+        this.revision = revision;
+        this.offset = offset;
+        this.consumers = consumers;
+        this.states = states;
+    }
+
+    /**
+     * Saves the state of the chain after a revision.
+     *
+     * @param offset where the next revision starts in the dump
+     */
+    public static Checkpoint of(int revision, long offset, RepositoryConsumer chain) {
+        requireCheckpointable(chain);
+        List<String> consumers = new ArrayList<>();
+        List<Serializable> states = new ArrayList<>();
+        for(RepositoryConsumer consumer = chain; consumer != null; consumer = consumer.getNextConsumer()) {
+            consumers.add(consumer.getClass().getName());
+            states.add(((CheckpointableConsumer) consumer).saveState());
+        }
+        return new Checkpoint(revision, offset, consumers, states);
+    }
+
+    /**
+     * @throws IllegalStateException if a consumer in the chain can't be checkpointed
+     */
+    public static void requireCheckpointable(RepositoryConsumer chain) {
+        for(RepositoryConsumer consumer = chain; consumer != null; consumer = consumer.getNextConsumer()) {
+            if(!(consumer instanceof CheckpointableConsumer)) {
+                throw new IllegalStateException(consumer.getClass().getName() + " does not support checkpoints, so the chain cannot be resumed.");
+            }
+        }
+    }
+
+    /**
+     * @return the last revision that was consumed before the checkpoint
+     */
+    public int getRevision() {
+        return revision;
+    }
+
+    /**
+     * @return the offset in the dump where parsing resumes
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return the class names of the consumers in the chain that was checkpointed
+     */
+    public List<String> getConsumers() {
+        return Collections.unmodifiableList(consumers);
+    }
+
+    /**
+     * Gives the consumers of a chain the state that the consumers of the
+     * checkpointed chain had.
+     *
+     * @throws IllegalStateException if the chain isn't made of the same consumers
+     */
+    public void restore(RepositoryConsumer chain) {
+        requireCheckpointable(chain);
+        List<String> chainConsumers = new ArrayList<>();
+        for(RepositoryConsumer consumer = chain; consumer != null; consumer = consumer.getNextConsumer()) {
+            chainConsumers.add(consumer.getClass().getName());
+        }
+        if(!chainConsumers.equals(consumers)) {
+            throw new IllegalStateException("The checkpoint was made with the consumers " + consumers + ", not " + chainConsumers);
+        }
+
+        int index = 0;
+        for(RepositoryConsumer consumer = chain; consumer != null; consumer = consumer.getNextConsumer()) {
+            ((CheckpointableConsumer) consumer).restoreState(states.get(index++));
+        }
+    }
+
+    /**
+     * Writes the checkpoint to a file, replacing the previous checkpoint only
+     * once the new one is complete.
+     */
+    public void write(Path file) throws IOException {
+        Path partial = file.resolveSibling(file.getFileName() + ".partial");
+        try(OutputStream os = new BufferedOutputStream(Files.newOutputStream(partial));
+            ObjectOutputStream oos = new ObjectOutputStream(os)) {
+            oos.writeObject(this);
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return the checkpoint in the file, or null if there is no such file
+     */
+    public static Checkpoint read(Path file) throws IOException {
+        if(!Files.exists(file)) {
+            return null;
+        }
+        try(InputStream is = new BufferedInputStream(Files.newInputStream(file));
+            ObjectInputStream ois = new ObjectInputStream(is)) {
+            return (Checkpoint) ois.readObject();
+        } catch(ClassNotFoundException ex) {
+            throw new IOException("Cannot read the checkpoint in " + file, ex);
+        }
+    }
+}
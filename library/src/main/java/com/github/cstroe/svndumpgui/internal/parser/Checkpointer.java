@@ -0,0 +1,58 @@
+package com.github.cstroe.svndumpgui.internal.parser;
+
+import com.github.cstroe.svndumpgui.api.RepositoryConsumer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Writes a {@link Checkpoint} to a file every few revisions, while
+ * {@link SvnDumpByteParser} parses a dump, replacing the one before.
+ */
+public class Checkpointer {
+    private final Path file;
+    private final int interval;
+
+    private int revisionsSinceCheckpoint = 0;
+    private Checkpoint lastCheckpoint = null;
+
+    /**
+     * @param file where the checkpoint is written
+     * @param interval the number of revisions between checkpoints
+     */
+    public Checkpointer(Path file, int interval) {
+        if(interval < 1) {
+            throw new IllegalArgumentException("The checkpoint interval must be at least one revision.");
+        }
+        this.file = file;
+        this.interval = interval;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return the last checkpoint that was written, or null if there is none yet
+     */
+    public Checkpoint getLastCheckpoint() {
+        return lastCheckpoint;
+    }
+
+    /**
+     * @return true if a checkpoint is due after the revision that just ended
+     */
+    boolean endRevision() {
+        return ++revisionsSinceCheckpoint >= interval;
+    }
+
+    /**
+     * Writes a checkpoint for the chain, which has consumed everything up to the given offset.
+     */
+    void checkpoint(int revision, long offset, RepositoryConsumer chain) throws IOException {
+        Checkpoint checkpoint = Checkpoint.of(revision, offset, chain);
+        checkpoint.write(file);
+        lastCheckpoint = checkpoint;
+        revisionsSinceCheckpoint = 0;
+    }
+}
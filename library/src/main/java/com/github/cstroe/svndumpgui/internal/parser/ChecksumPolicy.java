@@ -0,0 +1,28 @@
+package com.github.cstroe.svndumpgui.internal.parser;
+
+/**
+ * Which of the content checksums in a dump are verified while parsing.
+ * A checksum is only verified if the node has the matching header.
+ */
+public enum ChecksumPolicy {
+    NONE(false, false),
+    MD5(true, false),
+    SHA1(false, true),
+    BOTH(true, true);
+
+    private final boolean md5;
+    private final boolean sha1;
+
+    ChecksumPolicy(boolean md5, boolean sha1) {
+        this.md5 = md5;
+        this.sha1 = sha1;
+    }
+
+    public boolean verifiesMd5() {
+        return md5;
+    }
+
+    public boolean verifiesSha1() {
+        return sha1;
+    }
+}
@@ -0,0 +1,305 @@
+package com.github.cstroe.svndumpgui.internal.parser;
+
+import com.github.cstroe.svndumpgui.generated.ParseException;
+import com.github.cstroe.svndumpgui.internal.NodeHeaderMap;
+import com.github.cstroe.svndumpgui.internal.metrics.ParserMetrics;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies the MD5 and SHA1 sums of file content, for both parsers.
+ *
+ * For every node with content, the parser calls {@link #startContent},
+ * {@link #update} for each chunk and {@link #endContent()}, then {@link #endNode()}
+ * before the node ends and {@link #finish()} at the end of the dump.
+ *
+ * When hashing off the parser thread, the bytes handed to {@link #update}
+ * are read later, so they must not change until {@link #awaitContent()}
+ * returns.  Chunks of file content must not be modified in place.  At most
+ * {@link #setMaxPendingBytes(int) a number of bytes} wait to be hashed for
+ * each sum, and {@link #update} waits for the hashing to catch up beyond that.
+ */
+public class ChecksumVerifier {
+    public static final int DEFAULT_MAX_PENDING_BYTES = 64 * 1024 * 1024;
+
+    private ChecksumPolicy policy = ChecksumPolicy.BOTH;
+    private VerificationMode mode = VerificationMode.INLINE;
+
+    private ParserMetrics metrics = null;
+
+    private int maxPendingBytes = DEFAULT_MAX_PENDING_BYTES;
+    private Worker md5Worker = null;
+    private Worker sha1Worker = null;
+
+    // the content that is currently being read
+    private String path;
+    private byte[] md5sum;
+    private byte[] sha1sum;
+    private MessageDigest md5;
+    private MessageDigest sha1;
+
+    // content that is being hashed off the parser thread, in dump order
+    private final Deque<PendingContent> pending = new ArrayDeque<>();
+
+    public void setPolicy(ChecksumPolicy policy) {
+        if(policy == null) {
+            throw new IllegalArgumentException("The checksum policy cannot be null.");
+        }
+        this.policy = policy;
+    }
+
+    public void setMode(VerificationMode mode) {
+        if(mode == null) {
+            throw new IllegalArgumentException("The verification mode cannot be null.");
+        }
+        this.mode = mode;
+    }
+
+    /**
+     * Takes effect for the sums that haven't been hashed off the parser thread yet.
+     *
+     * @param bytes how many bytes of content may wait to be hashed, for each sum
+     */
+    public void setMaxPendingBytes(int bytes) {
+        if(bytes <= 0) {
+            throw new IllegalArgumentException("The number of pending bytes must be positive.");
+        }
+        this.maxPendingBytes = bytes;
+    }
+
+    /**
+     * Adds the time spent hashing to the metrics, or stops if they are null.
+     */
+    public void setMetrics(ParserMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public ChecksumPolicy getPolicy() {
+        return policy;
+    }
+
+    public VerificationMode getMode() {
+        return mode;
+    }
+
+    /**
+     * @param md5sum the expected MD5 sum, as in {@link com.github.cstroe.svndumpgui.api.Node#getMd5()}, or null
+     * @param sha1sum the expected SHA1 sum, or null
+     */
+    public void startContent(String path, byte[] md5sum, byte[] sha1sum) {
+        this.path = path;
+        this.md5sum = policy.verifiesMd5() ? md5sum : null;
+        this.sha1sum = policy.verifiesSha1() ? sha1sum : null;
+        this.md5 = this.md5sum == null ? null : messageDigest("MD5");
+        this.sha1 = this.sha1sum == null ? null : messageDigest("SHA1");
+    }
+
+    /**
+     * @return true if the content that was started has a checksum to verify
+     */
+    public boolean verifiesContent() {
+        return md5 != null || sha1 != null;
+    }
+
+    public void update(ByteBuffer content) {
+        if(mode == VerificationMode.INLINE) {
+            if(md5 != null) {
+                update(md5, content.duplicate(), metrics);
+            }
+            if(sha1 != null) {
+                update(sha1, content.duplicate(), metrics);
+            }
+            return;
+        }
+
+        if(md5 != null) {
+            md5Worker().update(md5, content.duplicate(), metrics);
+        }
+        if(sha1 != null) {
+            sha1Worker().update(sha1, content.duplicate(), metrics);
+        }
+    }
+
+    public void update(byte[] content, int offset, int length) {
+        update(ByteBuffer.wrap(content, offset, length));
+    }
+
+    private static void update(MessageDigest digest, ByteBuffer bytes, ParserMetrics metrics) {
+        if(metrics == null) {
+            digest.update(bytes);
+            return;
+        }
+        long start = System.nanoTime();
+        digest.update(bytes);
+        metrics.hashing(System.nanoTime() - start);
+    }
+
+    public void endContent() throws ParseException {
+        if(mode == VerificationMode.INLINE) {
+            if(md5 != null) {
+                check("MD5", path, md5sum, md5.digest());
+            }
+            if(sha1 != null) {
+                check("SHA1", path, sha1sum, sha1.digest());
+            }
+        } else if(md5 != null || sha1 != null) {
+            pending.addLast(new PendingContent(path,
+                    md5sum, md5 == null ? null : md5Worker().digest(md5),
+                    sha1sum, sha1 == null ? null : sha1Worker().digest(sha1)));
+        }
+        md5 = null;
+        sha1 = null;
+    }
+
+    /**
+     * Waits until all the content handed to {@link #update} has been hashed, and checks it.
+     */
+    public void awaitContent() throws ParseException {
+        while(!pending.isEmpty()) {
+            pending.removeFirst().check();
+        }
+    }
+
+    public void endNode() throws ParseException {
+        if(mode == VerificationMode.END_NODE) {
+            awaitContent();
+        } else if(mode == VerificationMode.DEFERRED) {
+            while(!pending.isEmpty() && pending.peekFirst().isDone()) {
+                pending.removeFirst().check();
+            }
+        }
+    }
+
+    public void finish() throws ParseException {
+        awaitContent();
+    }
+
+    private Worker md5Worker() {
+        if(md5Worker == null) {
+            md5Worker = new Worker("md5", maxPendingBytes);
+        }
+        return md5Worker;
+    }
+
+    private Worker sha1Worker() {
+        if(sha1Worker == null) {
+            sha1Worker = new Worker("sha1", maxPendingBytes);
+        }
+        return sha1Worker;
+    }
+
+    /**
+     * Hashes the content of one sum off the parser thread.  A single thread
+     * keeps the updates of a digest in order.  It goes away when it's idle, so
+     * a parser doesn't have to be closed.
+     */
+    private static class Worker {
+        private final ExecutorService executor;
+        private final int maxPendingBytes;
+        // the bytes that may still be handed over before the hashing catches up
+        private final Semaphore room;
+
+        private Worker(String algorithm, int maxPendingBytes) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "svndump-" + algorithm + "-verifier");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+            this.executor = executor;
+            this.maxPendingBytes = maxPendingBytes;
+            this.room = new Semaphore(maxPendingBytes);
+        }
+
+        private void update(MessageDigest digest, ByteBuffer bytes, ParserMetrics metrics) {
+            // a chunk larger than the limit waits until nothing else is pending
+            int size = Math.min(bytes.remaining(), maxPendingBytes);
+            try {
+                room.acquire(size);
+            } catch(InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(ex);
+            }
+            executor.execute(() -> {
+                try {
+                    ChecksumVerifier.update(digest, bytes, metrics);
+                } finally {
+                    room.release(size);
+                }
+            });
+        }
+
+        private Future<byte[]> digest(MessageDigest digest) {
+            return executor.submit(() -> digest.digest());
+        }
+    }
+
+    private static void check(String algorithm, String path, byte[] expected, byte[] actual) throws ParseException {
+        if(!MessageDigest.isEqual(expected, actual)) {
+            throw new ParseException(algorithm + " sum is incorrect! Expected: " + toHex(expected) + ", Actual: " + toHex(actual) + " (Node-path: " + path + ")");
+        }
+    }
+
+    private static class PendingContent {
+        private final String path;
+        private final byte[] md5sum;
+        private final Future<byte[]> md5;
+        private final byte[] sha1sum;
+        private final Future<byte[]> sha1;
+
+        private PendingContent(String path, byte[] md5sum, Future<byte[]> md5, byte[] sha1sum, Future<byte[]> sha1) {
+            this.path = path;
+            this.md5sum = md5sum;
+            this.md5 = md5;
+            this.sha1sum = sha1sum;
+            this.sha1 = sha1;
+        }
+
+        private boolean isDone() {
+            return (md5 == null || md5.isDone()) && (sha1 == null || sha1.isDone());
+        }
+
+        private void check() throws ParseException {
+            if(md5 != null) {
+                ChecksumVerifier.check("MD5", path, md5sum, result(md5));
+            }
+            if(sha1 != null) {
+                ChecksumVerifier.check("SHA1", path, sha1sum, result(sha1));
+            }
+        }
+
+        private static byte[] result(Future<byte[]> future) {
+            try {
+                return future.get();
+            } catch(InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(ex);
+            } catch(ExecutionException ex) {
+                throw new RuntimeException(ex.getCause());
+            }
+        }
+    }
+
+    private static MessageDigest messageDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch(NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    static String toHex(byte[] digest) {
+        return NodeHeaderMap.toHex(digest);
+    }
+}
@@ -0,0 +1,133 @@
+package com.github.cstroe.svndumpgui.internal.parser;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * The bytes of a dump file, as seen by the {@link SvnDumpByteParser}.
+ *
+ * A window of the input is available in {@link #buffer}, between
+ * {@link #position} and {@link #limit}.  The parser reads from the window
+ * with absolute gets and calls {@link #fill()} when it needs more bytes.
+ */
+public abstract class DumpInput implements Closeable {
+    ByteBuffer buffer;     // the window of the input that is currently available
+    int position = 0;      // next unread byte in the buffer
+    int limit = 0;         // end of the valid bytes in the buffer
+    long bufferOffset = 0; // position in the input of the first byte in the buffer
+
+    // the start of the record being parsed, whose bytes fill() keeps if it can, or -1
+    long mark = -1;
+    // the buffer holds the input from here on, bytes before were read around it
+    long contiguousFrom = 0;
+
+    private byte[] scratch = new byte[256];
+
+    /**
+     * Makes more bytes available after {@link #limit}, keeping the unread
+     * bytes from {@link #position} onward.  The unread bytes may be moved,
+     * so any index into the buffer taken before this call is invalid after it.
+     *
+     * @return false if the end of the input was reached
+     */
+    abstract boolean fill() throws IOException;
+
+    public long getStreamPosition() {
+        return bufferOffset + position;
+    }
+
+    /**
+     * Copies the next <code>length</code> bytes of the input into the destination.
+     */
+    void readFully(byte[] destination, int offset, int length) throws IOException {
+        int copied = 0;
+        while(true) {
+            int available = Math.min(length - copied, limit - position);
+            buffer.position(position);
+            buffer.get(destination, offset + copied, available);
+            position += available;
+            copied += available;
+
+            if(copied == length) {
+                return;
+            }
+            if(!fill()) {
+                throw new EOFException("Unexpected end of input at byte " + getStreamPosition());
+            }
+        }
+    }
+
+    /**
+     * Steps over the next <code>length</code> bytes of the input.
+     */
+    void skip(long length) throws IOException {
+        long left = length;
+        while(true) {
+            int available = (int) Math.min(left, limit - position);
+            position += available;
+            left -= available;
+
+            if(left == 0) {
+                return;
+            }
+            if(!fill()) {
+                throw new EOFException("Unexpected end of input at byte " + getStreamPosition());
+            }
+        }
+    }
+
+    /**
+     * Hands out the bytes of the input from <code>start</code> up to the
+     * current position, which should be the {@link #mark}.
+     *
+     * @return a read-only copy, or null if some of the bytes are no longer in the buffer
+     */
+    ByteBuffer span(long start) {
+        if(start < Math.max(bufferOffset, contiguousFrom)) {
+            return null;
+        }
+        ByteBuffer view = buffer.duplicate();
+        view.limit(position).position((int) (start - bufferOffset));
+        byte[] copy = new byte[view.remaining()];
+        view.get(copy);
+        return ByteBuffer.wrap(copy).asReadOnlyBuffer();
+    }
+
+    /**
+     * Hands out the next <code>length</code> bytes of the input as a read-only
+     * view, for inputs whose bytes stay valid after the parser moves on.
+     *
+     * @return the view, or null if this input can't provide one
+     */
+    ByteBuffer slice(int length) throws IOException {
+        return null;
+    }
+
+    /**
+     * @return the file that this input reads, whose offsets match {@link #getStreamPosition()},
+     *         or null if the input is not a file
+     */
+    FileChannel channel() {
+        return null;
+    }
+
+    /**
+     * Decodes bytes from the buffer without consuming them.
+     */
+    String decode(int start, int length, Charset charset) {
+        if(buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + start, length, charset);
+        }
+
+        if(scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.position(start);
+        buffer.get(scratch, 0, length);
+        return new String(scratch, 0, length, charset);
+    }
+}
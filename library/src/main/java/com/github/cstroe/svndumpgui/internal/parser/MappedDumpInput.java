@@ -0,0 +1,121 @@
+package com.github.cstroe.svndumpgui.internal.parser;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a dump straight out of the page cache, by mapping the file into memory.
+ *
+ * A single mapping can't be larger than 2 GB, so the file is mapped one
+ * segment at a time.  When the parser runs off the end of a segment, the
+ * next segment is mapped starting at the first unread byte.
+ */
+public class MappedDumpInput extends DumpInput {
+    public static final int DEFAULT_SEGMENT_SIZE = 256 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int segmentSize;
+
+    public MappedDumpInput(FileChannel channel) throws IOException {
+        this(channel, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public MappedDumpInput(FileChannel channel, int segmentSize) throws IOException {
+        if(channel == null) {
+            throw new IllegalArgumentException("Cannot parse a null FileChannel.");
+        }
+        if(segmentSize <= 0) {
+            throw new IllegalArgumentException("The segment size must be positive.");
+        }
+        this.channel = channel;
+        this.fileSize = channel.size();
+        this.segmentSize = segmentSize;
+        map(0);
+    }
+
+    private void map(long offset) throws IOException {
+        long size = Math.min(segmentSize, fileSize - offset);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+        bufferOffset = offset;
+        position = 0;
+        limit = (int) size;
+    }
+
+    /**
+     * Maps the next segment from the {@link #mark}, if the record is not too
+     * long, and otherwise from the first unread byte.
+     */
+    @Override
+    boolean fill() throws IOException {
+        if(bufferOffset + limit >= fileSize) {
+            return false;
+        }
+        if(position == 0) {
+            throw new IOException("A line at byte " + bufferOffset + " is longer than the segment size of " + segmentSize + " bytes.");
+        }
+        long next = bufferOffset + position;
+        long from = mark > bufferOffset && mark < next && next - mark < segmentSize / 2 ? mark : next;
+        map(from);
+        position = (int) (next - from);
+        return true;
+    }
+
+    @Override
+    void skip(long length) throws IOException {
+        if(length <= limit - position) {
+            position += length;
+            return;
+        }
+
+        long target = bufferOffset + position + length;
+        if(target > fileSize) {
+            throw new EOFException("Unexpected end of input at byte " + fileSize);
+        }
+        map(target);
+    }
+
+    /**
+     * The mapping stays valid for as long as a view of it is reachable,
+     * so content can be handed out without copying it.
+     */
+    @Override
+    ByteBuffer slice(int length) throws IOException {
+        if(length > segmentSize || bufferOffset + position + length > fileSize) {
+            return null;
+        }
+        if(length > limit - position) {
+            map(bufferOffset + position);
+        }
+
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(position).limit(position + length);
+        position += length;
+        return slice.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * The bytes are not copied, the view is of the mapping.
+     */
+    @Override
+    ByteBuffer span(long start) {
+        if(start < bufferOffset) {
+            return null;
+        }
+        ByteBuffer view = buffer.duplicate();
+        view.limit(position).position((int) (start - bufferOffset));
+        return view.slice().asReadOnlyBuffer();
+    }
+
+    @Override
+    FileChannel channel() {
+        return channel;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
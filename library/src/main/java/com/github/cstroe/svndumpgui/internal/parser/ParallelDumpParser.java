@@ -0,0 +1,254 @@
+package com.github.cstroe.svndumpgui.internal.parser;
+
+import com.github.cstroe.svndumpgui.api.ConsumerInterest;
+import com.github.cstroe.svndumpgui.api.ContentChunk;
+import com.github.cstroe.svndumpgui.api.Node;
+import com.github.cstroe.svndumpgui.api.Preamble;
+import com.github.cstroe.svndumpgui.api.RepositoryConsumer;
+import com.github.cstroe.svndumpgui.api.Revision;
+import com.github.cstroe.svndumpgui.api.SelectiveConsumer;
+import com.github.cstroe.svndumpgui.generated.ParseException;
+import com.github.cstroe.svndumpgui.internal.AbstractRepositoryConsumer;
+import com.github.cstroe.svndumpgui.internal.index.DumpIndex;
+import com.github.cstroe.svndumpgui.internal.index.DumpIndexBuilder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Parses a dump file on several threads.
+ *
+ * The file is split into segments of whole revisions, using the offsets in a
+ * {@link DumpIndex}.  Each segment is parsed by its own {@link SvnDumpByteParser},
+ * which records the events instead of passing them on.  The recorded events
+ * are then replayed to the consumer chain one segment at a time, in the order
+ * of the segments in the file, so the consumers see exactly what
+ * {@link SvnDumpByteParser#Start(RepositoryConsumer)} would have shown them.
+ *
+ * A parse error is reported after the events that came before it, like the
+ * sequential parser does.
+ */
+public class ParallelDumpParser {
+    public static final long DEFAULT_SEGMENT_LENGTH = 32 * 1024 * 1024;
+
+    private final Path dumpFile;
+    private final DumpIndex index;
+    private final int threads;
+
+    private long segmentLength = DEFAULT_SEGMENT_LENGTH;
+    private int fileContentChunkSize = SvnDumpByteParser.DEFAULT_FILE_CONTENT_CHUNK_SIZE;
+    private ChecksumPolicy checksumPolicy = ChecksumPolicy.BOTH;
+    private VerificationMode verificationMode = VerificationMode.INLINE;
+
+    public ParallelDumpParser(Path dumpFile, DumpIndex index, int threads) {
+        if(threads <= 0) {
+            throw new IllegalArgumentException("At least one thread is needed to parse.");
+        }
+        this.dumpFile = dumpFile;
+        this.index = index;
+        this.threads = threads;
+    }
+
+    /**
+     * Segments are made of whole revisions, so a revision that is longer than
+     * this is a segment by itself.
+     */
+    public void setSegmentLength(long segmentLength) {
+        this.segmentLength = segmentLength;
+    }
+
+    public void setFileContentChunkSize(int size) {
+        this.fileContentChunkSize = size;
+    }
+
+    public void setChecksumPolicy(ChecksumPolicy policy) {
+        this.checksumPolicy = policy;
+    }
+
+    public void setVerificationMode(VerificationMode mode) {
+        this.verificationMode = mode;
+    }
+
+    /**
+     * Parses a dump file on as many threads as there are processors.  The revision
+     * boundaries are found by indexing the file first, see {@link DumpIndexBuilder#build(Path, Path)}.
+     */
+    public static void consume(Path dumpFile, RepositoryConsumer consumer) throws ParseException {
+        try {
+            Path indexFile = Files.createTempFile("svndump", ".idx");
+            try {
+                DumpIndexBuilder.build(dumpFile, indexFile);
+                new ParallelDumpParser(dumpFile, DumpIndex.load(indexFile), Runtime.getRuntime().availableProcessors()).Start(consumer);
+            } finally {
+                Files.delete(indexFile);
+            }
+        } catch(IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    public void Start(RepositoryConsumer consumer) throws ParseException {
+        Set<ConsumerInterest> interests = SelectiveConsumer.interestsOf(consumer);
+        List<long[]> segments = segments();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "svndump-parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try(FileChannel channel = FileChannel.open(dumpFile, StandardOpenOption.READ)) {
+            if(channel.size() != index.getDumpLength()) {
+                throw new IllegalArgumentException("The index is for a dump of " + index.getDumpLength() + " bytes, but " + dumpFile + " has " + channel.size() + " bytes.");
+            }
+
+            // parse a few segments ahead of the one being replayed, but not the whole file
+            Deque<Future<Segment>> pending = new ArrayDeque<>();
+            int submitted = 0;
+            for(int i = 0; i < segments.size(); i++) {
+                while(submitted < segments.size() && pending.size() < threads * 2) {
+                    long[] range = segments.get(submitted);
+                    boolean first = submitted == 0;
+                    pending.addLast(executor.submit(() -> parse(channel, range[0], range[1], first, interests)));
+                    submitted++;
+                }
+                pending.removeFirst().get().replay(consumer);
+            }
+        } catch(IOException ex) {
+            throw new RuntimeException(ex);
+        } catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        } catch(ExecutionException ex) {
+            if(ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new RuntimeException(ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        consumer.finish();
+    }
+
+    /**
+     * @return the start and end offsets of each segment; there is always at least one, for the preamble
+     */
+    private List<long[]> segments() {
+        List<long[]> segments = new ArrayList<>();
+        int revision = 0;
+        while(revision < index.getRevisionCount()) {
+            long start = index.getRevisionOffset(revision);
+            int last = revision;
+            while(last + 1 < index.getRevisionCount() && index.getRevisionEnd(last + 1) - start <= segmentLength) {
+                last++;
+            }
+            segments.add(new long[] { start, index.getRevisionEnd(last) });
+            revision = last + 1;
+        }
+        if(segments.isEmpty()) {
+            segments.add(new long[] { index.getDumpLength(), index.getDumpLength() });
+        }
+        return segments;
+    }
+
+    private Segment parse(FileChannel channel, long start, long end, boolean first, Set<ConsumerInterest> interests) throws IOException {
+        // the input is not closed, that would close the channel that all the segments share
+        SvnDumpByteParser parser = new SvnDumpByteParser(new MappedDumpInput(channel));
+        parser.setByteRange(start, end);
+        parser.setFileContentChunkSize(fileContentChunkSize);
+        parser.setChecksumPolicy(checksumPolicy);
+        parser.setVerificationMode(verificationMode);
+
+        Segment segment = new Segment(first, interests);
+        try {
+            parser.Start(segment);
+        } catch(ParseException ex) {
+            segment.error = ex;
+        }
+        return segment;
+    }
+
+    /**
+     * The events of one segment, waiting for their turn.  Every segment parses the
+     * preamble, but only the first one keeps it.  The consumers are finished
+     * once, after the last segment.
+     */
+    private static class Segment extends AbstractRepositoryConsumer implements SelectiveConsumer {
+        private final boolean first;
+        private final Set<ConsumerInterest> interests;
+        private final List<Consumer<RepositoryConsumer>> events = new ArrayList<>();
+        private ParseException error = null;
+
+        private Segment(boolean first, Set<ConsumerInterest> interests) {
+            this.first = first;
+            this.interests = interests;
+        }
+
+        @Override
+        public Set<ConsumerInterest> getInterests() {
+            return interests;
+        }
+
+        @Override
+        public void consume(Preamble preamble) {
+            if(first) {
+                events.add(consumer -> consumer.consume(preamble));
+            }
+        }
+
+        @Override
+        public void consume(Revision revision) {
+            events.add(consumer -> consumer.consume(revision));
+        }
+
+        @Override
+        public void endRevision(Revision revision) {
+            events.add(consumer -> consumer.endRevision(revision));
+        }
+
+        @Override
+        public void consume(Node node) {
+            events.add(consumer -> consumer.consume(node));
+        }
+
+        @Override
+        public void endNode(Node node) {
+            events.add(consumer -> consumer.endNode(node));
+        }
+
+        @Override
+        public void consume(ContentChunk chunk) {
+            events.add(consumer -> consumer.consume(chunk));
+        }
+
+        @Override
+        public void endChunks() {
+            events.add(RepositoryConsumer::endChunks);
+        }
+
+        @Override
+        public void finish() {}
+
+        private void replay(RepositoryConsumer consumer) throws ParseException {
+            for(Consumer<RepositoryConsumer> event : events) {
+                event.accept(consumer);
+            }
+            if(error != null) {
+                throw error;
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.cstroe.svndumpgui.internal.parser;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads a dump from an {@link InputStream} through a heap buffer.
+ */
+public class StreamDumpInput extends DumpInput {
+    public static final int INITIAL_BUFFER_LENGTH = 64 * 1024;
+
+    private final InputStream inputStream;
+    private byte[] bytes;
+
+    public StreamDumpInput(InputStream inputStream) {
+        this(inputStream, INITIAL_BUFFER_LENGTH);
+    }
+
+    public StreamDumpInput(InputStream inputStream, int bufferLength) {
+        if(inputStream == null) {
+            throw new IllegalArgumentException("Cannot parse a null InputStream.");
+        }
+        this.inputStream = inputStream;
+        this.bytes = new byte[bufferLength];
+        this.buffer = ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * Keeps the bytes from the {@link #mark}, as long as that leaves room
+     * to read more, and otherwise only the unread bytes.
+     */
+    @Override
+    boolean fill() throws IOException {
+        int keep = position;
+        if(mark >= bufferOffset && mark - bufferOffset < position && limit - (mark - bufferOffset) < bytes.length) {
+            keep = (int) (mark - bufferOffset);
+        }
+        int kept = limit - keep;
+        if(keep > 0) {
+            System.arraycopy(bytes, keep, bytes, 0, kept);
+        } else if(kept == bytes.length) {
+            byte[] newBytes = new byte[(int) Math.min(bytes.length * 2L, Integer.MAX_VALUE - 5)];
+            System.arraycopy(bytes, 0, newBytes, 0, kept);
+            bytes = newBytes;
+            buffer = ByteBuffer.wrap(bytes);
+        }
+        bufferOffset += keep;
+        position -= keep;
+        limit = kept;
+
+        int bytesRead = inputStream.read(bytes, limit, bytes.length - limit);
+        if(bytesRead == -1) {
+            return false;
+        }
+        limit += bytesRead;
+        return true;
+    }
+
+    @Override
+    void readFully(byte[] destination, int offset, int length) throws IOException {
+        int buffered = Math.min(length, limit - position);
+        System.arraycopy(bytes, position, destination, offset, buffered);
+        position += buffered;
+
+        // large reads bypass the buffer
+        int totalBytesRead = buffered;
+        while(totalBytesRead < length) {
+            int bytesRead = inputStream.read(destination, offset + totalBytesRead, length - totalBytesRead);
+            if(bytesRead == -1) {
+                throw new EOFException("Unexpected end of input at byte " + getStreamPosition());
+            }
+            totalBytesRead += bytesRead;
+            bufferOffset += bytesRead;
+            contiguousFrom = getStreamPosition();
+        }
+    }
+
+    @Override
+    void skip(long length) throws IOException {
+        int buffered = (int) Math.min(length, limit - position);
+        position += buffered;
+
+        // a FileInputStream skips by moving the file position, without reading
+        long left = length - buffered;
+        while(left > 0) {
+            long skipped = inputStream.skip(left);
+            if(skipped <= 0) {
+                // skip() may give up before the end of the input, read() can tell
+                if(inputStream.read() == -1) {
+                    throw new EOFException("Unexpected end of input at byte " + getStreamPosition());
+                }
+                skipped = 1;
+            }
+            left -= skipped;
+            bufferOffset += skipped;
+            contiguousFrom = getStreamPosition();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+}
@@ -0,0 +1,893 @@
+package com.github.cstroe.svndumpgui.internal.parser;
+
+import com.github.cstroe.svndumpgui.api.ConsumerInterest;
+import com.github.cstroe.svndumpgui.api.ContentChunk;
+import com.github.cstroe.svndumpgui.api.NodeAction;
+import com.github.cstroe.svndumpgui.api.NodeHeader;
+import com.github.cstroe.svndumpgui.api.NodeKind;
+import com.github.cstroe.svndumpgui.api.RepositoryConsumer;
+import com.github.cstroe.svndumpgui.api.SelectiveConsumer;
+import com.github.cstroe.svndumpgui.generated.ParseException;
+import com.github.cstroe.svndumpgui.internal.ByteBufferContentChunk;
+import com.github.cstroe.svndumpgui.internal.ContentChunkImpl;
+import com.github.cstroe.svndumpgui.internal.FileRegionContentChunk;
+import com.github.cstroe.svndumpgui.internal.LazyPropertyMap;
+import com.github.cstroe.svndumpgui.internal.NodeHeaderMap;
+import com.github.cstroe.svndumpgui.internal.NodeImpl;
+import com.github.cstroe.svndumpgui.internal.PooledContentChunk;
+import com.github.cstroe.svndumpgui.internal.PreambleImpl;
+import com.github.cstroe.svndumpgui.internal.RevisionImpl;
+import com.github.cstroe.svndumpgui.internal.index.DumpIndex;
+import com.github.cstroe.svndumpgui.internal.index.DumpIndexBuilder;
+import com.github.cstroe.svndumpgui.internal.metrics.ParserMetrics;
+import com.github.cstroe.svndumpgui.internal.utility.ChunkBufferPool;
+import com.github.cstroe.svndumpgui.internal.utility.CompressedInput;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A hand-written alternative to the JavaCC generated
+ * {@link com.github.cstroe.svndumpgui.generated.SvnDumpParser SvnDumpParser}.
+ *
+ * Instead of lexing the dump one char at a time and building a token for
+ * every key, colon and value, this parser scans whole header lines out of a
+ * byte buffer, finds the header key with a lookup by key length and parses
+ * numbers straight from the bytes.
+ *
+ * It produces exactly the same sequence of events as
+ * {@link com.github.cstroe.svndumpgui.generated.SvnDumpParser#Start(RepositoryConsumer)},
+ * so the two parsers can be used interchangeably.
+ *
+ * Properties and file content that no {@link com.github.cstroe.svndumpgui.api.SelectiveConsumer SelectiveConsumer}
+ * in the chain is interested in are stepped over without being decoded.
+ * Unless nobody wants them either, the bytes that the headers and
+ * properties of each revision and node were read from are kept with them,
+ * see {@link ConsumerInterest#RAW_RECORDS}.
+ */
+public class SvnDumpByteParser {
+    private static final byte[] VERSION_KEY = ascii("SVN-fs-dump-format-version");
+    private static final byte[] UUID_KEY = ascii("UUID");
+    private static final byte[] REVISION_NUMBER_KEY = ascii("Revision-number");
+    private static final byte[] PROP_CONTENT_LENGTH_KEY = ascii("Prop-content-length");
+    private static final byte[] CONTENT_LENGTH_KEY = ascii("Content-length");
+    private static final byte[] PROPS_END = ascii("PROPS-END");
+
+    private static final String[] KIND_VALUES = { "file", "dir" };
+    private static final String[] ACTION_VALUES = { "change", "add", "delete", "replace" };
+    private static final String[] BOOLEAN_VALUES = { "true", "false" };
+
+    // node header keys (without the ": ") grouped by key length
+    private static final NodeHeader[][] NODE_HEADERS_BY_KEY_LENGTH;
+    private static final byte[][] NODE_HEADER_KEYS = new byte[NodeHeader.values().length][];
+
+    static {
+        int maxLength = 0;
+        for(NodeHeader header : NodeHeader.values()) {
+            String rawText = header.toString();
+            NODE_HEADER_KEYS[header.ordinal()] = ascii(rawText.substring(0, rawText.length() - 2));
+            maxLength = Math.max(maxLength, NODE_HEADER_KEYS[header.ordinal()].length);
+        }
+
+        NODE_HEADERS_BY_KEY_LENGTH = new NodeHeader[maxLength + 1][0];
+        for(NodeHeader header : NodeHeader.values()) {
+            int length = NODE_HEADER_KEYS[header.ordinal()].length;
+            NodeHeader[] current = NODE_HEADERS_BY_KEY_LENGTH[length];
+            NodeHeader[] extended = new NodeHeader[current.length + 1];
+            System.arraycopy(current, 0, extended, 0, current.length);
+            extended[current.length] = header;
+            NODE_HEADERS_BY_KEY_LENGTH[length] = extended;
+        }
+    }
+
+    public static final int DEFAULT_FILE_CONTENT_CHUNK_SIZE = 1024 * 1024 * 4; // 4 MB buffer for file content chunks
+
+    private int fileContentChunkSize = DEFAULT_FILE_CONTENT_CHUNK_SIZE;
+
+    private ChunkBufferPool chunkBufferPool = null;
+    private boolean contentRegions = false;
+    private final ChecksumVerifier checksumVerifier = new ChecksumVerifier();
+
+    private DumpIndexBuilder indexBuilder = null;
+    private Checkpointer checkpointer = null;
+    private ParserMetrics metrics = null;
+    private Checkpoint resumeFrom = null;
+
+    // the revisions to parse, after the preamble
+    private long rangeStart = 0;
+    private long rangeEnd = Long.MAX_VALUE;
+
+    private final DumpInput input;
+
+    // what the consumers want to see, the rest is skipped
+    private Set<ConsumerInterest> interests = EnumSet.allOf(ConsumerInterest.class);
+
+    // the line most recently returned by nextLine(), without its EOL
+    private int lineStart = 0;
+    private int lineEnd = 0;
+
+    public SvnDumpByteParser(InputStream inputStream) {
+        this(new StreamDumpInput(inputStream));
+    }
+
+    public SvnDumpByteParser(DumpInput input) {
+        this.input = input;
+    }
+
+    public void setFileContentChunkSize(int size) {
+        this.fileContentChunkSize = size;
+    }
+
+    public void setChecksumPolicy(ChecksumPolicy policy) {
+        checksumVerifier.setPolicy(policy);
+    }
+
+    public void setVerificationMode(VerificationMode mode) {
+        checksumVerifier.setMode(mode);
+    }
+
+    /**
+     * Reads file content into arrays leased from the pool, rather than allocating
+     * new ones.  The arrays are released after the chunks of each node have ended,
+     * see {@link ContentChunk#retain()}.
+     */
+    public void setChunkBufferPool(ChunkBufferPool chunkBufferPool) {
+        this.chunkBufferPool = chunkBufferPool;
+    }
+
+    /**
+     * When the input is a file, hands file content out as
+     * {@link FileRegionContentChunk}s, which a {@link com.github.cstroe.svndumpgui.internal.writer.SvnDumpWriter SvnDumpWriter}
+     * copies from file to file without reading it.  The content is still
+     * read to verify its checksums, unless the checksum policy is
+     * {@link ChecksumPolicy#NONE}, in which case the checksums in the
+     * headers are trusted.
+     */
+    public void setContentRegions(boolean contentRegions) {
+        this.contentRegions = contentRegions;
+    }
+
+    /**
+     * Reports where every revision and node starts to the builder, while parsing.
+     */
+    public void setIndexBuilder(DumpIndexBuilder indexBuilder) {
+        this.indexBuilder = indexBuilder;
+    }
+
+    /**
+     * Counts the bytes, revisions, nodes and content read, and the time spent
+     * hashing content, while parsing.  Without metrics nothing is counted.
+     */
+    public void setMetrics(ParserMetrics metrics) {
+        this.metrics = metrics;
+        checksumVerifier.setMetrics(metrics);
+    }
+
+    /**
+     * Writes checkpoints at the end of revisions, from which a later run can
+     * resume.  Every consumer in the chain must be a
+     * {@link com.github.cstroe.svndumpgui.api.CheckpointableConsumer}.
+     */
+    public void setCheckpointer(Checkpointer checkpointer) {
+        this.checkpointer = checkpointer;
+    }
+
+    /**
+     * Continues a run that stopped after the given checkpoint: the consumers
+     * get back the state they had then, instead of the preamble, and parsing
+     * starts with the revision after it.
+     */
+    public void resumeFrom(Checkpoint checkpoint) {
+        this.resumeFrom = checkpoint;
+        setByteRange(checkpoint.getOffset(), Long.MAX_VALUE);
+    }
+
+    /**
+     * Parses only the revisions from <code>firstRevision</code> to <code>lastRevision</code>.
+     * The input skips past the revisions before the range, without reading them
+     * if it can, and parsing stops at the end of the range.
+     *
+     * @param index the offsets of the revisions in the dump being parsed
+     */
+    public void setRevisionRange(DumpIndex index, int firstRevision, int lastRevision) {
+        int first = index.indexOfRevision(firstRevision);
+        if(first < 0) {
+            first = -first - 1;
+        }
+        int last = index.indexOfRevision(lastRevision);
+        if(last < 0) {
+            last = -last - 2;
+        }
+
+        if(first > last) {
+            long start = first < index.getRevisionCount() ? index.getRevisionOffset(first) : index.getDumpLength();
+            setByteRange(start, start);
+        } else {
+            setByteRange(index.getRevisionOffset(first), index.getRevisionEnd(last));
+        }
+    }
+
+    /**
+     * Parses only the revisions that start from <code>start</code> up to <code>end</code>,
+     * which must be the offset of a revision or the end of the dump.
+     */
+    void setByteRange(long start, long end) {
+        this.rangeStart = start;
+        this.rangeEnd = end;
+    }
+
+    public long getStreamPosition() {
+        return input.getStreamPosition();
+    }
+
+    /**
+     * Parses a dump, which may be compressed with gzip or zlib, see {@link CompressedInput}.
+     */
+    public static void consume(InputStream inputStream, RepositoryConsumer consumer) throws ParseException {
+        try {
+            new SvnDumpByteParser(CompressedInput.decompress(inputStream)).Start(consumer);
+        } catch(IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Parses a dump file by mapping it into memory, rather than reading it through a stream.
+     * A compressed dump file is decompressed through a stream instead.
+     */
+    public static void consume(Path dumpFile, RepositoryConsumer consumer) throws ParseException {
+        try(FileChannel channel = FileChannel.open(dumpFile, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(2);
+            channel.read(magic, 0);
+            int first = magic.position() > 0 ? magic.get(0) & 0xFF : -1;
+            int second = magic.position() > 1 ? magic.get(1) & 0xFF : -1;
+            if(CompressedInput.detect(first, second) != CompressedInput.Format.NONE) {
+                consume(Channels.newInputStream(channel), consumer);
+                return;
+            }
+            new SvnDumpByteParser(new MappedDumpInput(channel)).Start(consumer);
+        } catch(IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Parses a range of revisions out of a dump file, see {@link #setRevisionRange(DumpIndex, int, int)}.
+     */
+    public static void consume(Path dumpFile, DumpIndex index, int firstRevision, int lastRevision, RepositoryConsumer consumer) throws ParseException {
+        try(FileChannel channel = FileChannel.open(dumpFile, StandardOpenOption.READ)) {
+            if(channel.size() != index.getDumpLength()) {
+                throw new IllegalArgumentException("The index is for a dump of " + index.getDumpLength() + " bytes, but " + dumpFile + " has " + channel.size() + " bytes.");
+            }
+            SvnDumpByteParser parser = new SvnDumpByteParser(new MappedDumpInput(channel));
+            parser.setRevisionRange(index, firstRevision, lastRevision);
+            parser.Start(consumer);
+        } catch(IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    public void Start(RepositoryConsumer consumer) throws ParseException {
+        try {
+            parse(consumer);
+        } catch(IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private void parse(RepositoryConsumer consumer) throws ParseException, IOException {
+        interests = SelectiveConsumer.interestsOf(consumer);
+        if(checkpointer != null) {
+            // fail now rather than at the first checkpoint
+            Checkpoint.requireCheckpointable(consumer);
+        }
+        if(metrics != null) {
+            metrics.start();
+        }
+
+        requireLine();
+        requireKey(VERSION_KEY);
+        requireNumber(valueStart(VERSION_KEY.length), lineEnd);
+        requireBlankLine();
+
+        requireLine();
+        requireKey(UUID_KEY);
+        String uuid = readUuid(valueStart(UUID_KEY.length));
+        requireBlankLine();
+
+        if(resumeFrom != null) {
+            resumeFrom.restore(consumer);
+        } else {
+            consumer.consume(new PreambleImpl(uuid));
+        }
+
+        if(rangeStart > input.getStreamPosition()) {
+            skip(rangeStart - input.getStreamPosition());
+        }
+        boolean hasLine = nextLine();
+        while(hasLine && lineOffset() < rangeEnd) {
+            long revisionOffset = lineOffset();
+            boolean raw = interests.contains(ConsumerInterest.RAW_RECORDS);
+            if(raw) {
+                input.mark = revisionOffset;
+            }
+            RevisionImpl revision = readRevision();
+            if(raw) {
+                revision.setRawRecord(input.span(revisionOffset));
+                input.mark = -1;
+            }
+            if(indexBuilder != null) {
+                indexBuilder.revision(revision.getNumber(), revisionOffset);
+            }
+            consumer.consume(revision);
+            requireBlankLine();
+
+            hasLine = nextLine();
+            while(hasLine && !isKey(REVISION_NUMBER_KEY)) {
+                hasLine = readNode(revision, consumer);
+            }
+            consumer.endRevision(revision);
+            if(metrics != null) {
+                metrics.revision(input.getStreamPosition());
+            }
+
+            if(checkpointer != null && checkpointer.endRevision()) {
+                // a checkpoint only covers content whose checksums were verified
+                checksumVerifier.awaitContent();
+                checkpointer.checkpoint(revision.getNumber(), hasLine ? lineOffset() : input.getStreamPosition(), consumer);
+            }
+        }
+
+        if(indexBuilder != null) {
+            indexBuilder.end(input.getStreamPosition());
+        }
+        checksumVerifier.finish();
+        consumer.finish();
+        if(metrics != null) {
+            metrics.end(input.getStreamPosition());
+        }
+    }
+
+    private RevisionImpl readRevision() throws ParseException, IOException {
+        requireKey(REVISION_NUMBER_KEY);
+        long revisionNumber = requireNumber(valueStart(REVISION_NUMBER_KEY.length), lineEnd);
+        if(revisionNumber > Integer.MAX_VALUE) {
+            throw parseError("Revision number is too large");
+        }
+
+        requireLine();
+        if(isKey(PROP_CONTENT_LENGTH_KEY)) {
+            requireNumber(valueStart(PROP_CONTENT_LENGTH_KEY.length), lineEnd);
+            requireLine();
+        }
+        requireKey(CONTENT_LENGTH_KEY);
+        requireNumber(valueStart(CONTENT_LENGTH_KEY.length), lineEnd);
+        requireBlankLine();
+
+        RevisionImpl revision = new RevisionImpl((int) revisionNumber);
+        revision.setProperties(readProperties(interests.contains(ConsumerInterest.REVISION_PROPERTIES)));
+        return revision;
+    }
+
+    /**
+     * Reads a node, starting with the current line, up to and including its trailing EOLs.
+     *
+     * @return false if the end of the input was reached
+     */
+    private boolean readNode(RevisionImpl revision, RepositoryConsumer consumer) throws ParseException, IOException {
+        long headerOffset = lineOffset();
+        boolean raw = interests.contains(ConsumerInterest.RAW_RECORDS);
+        if(raw) {
+            input.mark = headerOffset;
+        }
+        NodeHeaderMap headers = new NodeHeaderMap();
+        boolean hasLine = true;
+        while(hasLine && lineEnd != lineStart) {
+            NodeHeader header = lookupNodeHeader();
+            if(header == null) {
+                throw parseError("Unknown node header");
+            }
+            readHeader(headers, header);
+            hasLine = nextLine();
+        }
+
+        if(headers.isEmpty()) {
+            throw parseError("Expected a node header or Revision-number");
+        }
+        if(!hasLine) {
+            throw new ParseException("Unexpected end of input at byte " + input.getStreamPosition());
+        }
+
+        NodeImpl node = new NodeImpl(revision);
+        node.setHeaders(headers);
+        long contentOffset = input.getStreamPosition();
+        long textOffset = -1;
+
+        boolean hasProperties = headers.containsKey(NodeHeader.PROP_CONTENT_LENGTH);
+        if(hasProperties) {
+            node.setProperties(readProperties(interests.contains(ConsumerInterest.NODE_PROPERTIES)));
+        }
+        if(raw) {
+            node.setRawRecord(input.span(headerOffset));
+            input.mark = -1;
+        }
+
+        if(metrics != null) {
+            metrics.node();
+        }
+        consumer.consume(node);
+
+        boolean hasContent = false;
+        long length = headers.getTextContentLength();
+        if(length > 0) {
+            textOffset = input.getStreamPosition();
+            if(interests.contains(ConsumerInterest.FILE_CONTENT)) {
+                // the checksums of a delta are those of the full text, which can only be checked once the delta is applied
+                boolean delta = headers.isTextDelta();
+                readChunks(length, consumer, headers.getPath(), delta ? null : headers.getMd5(), delta ? null : headers.getSha1());
+            } else {
+                skip(length);
+            }
+            hasContent = true;
+        }
+
+        // when there are no properties and no content, the blank line after the headers counts as trailing
+        int trailingNewlines = hasProperties || hasContent ? 0 : 1;
+        hasLine = nextLine();
+        while(hasLine && lineEnd == lineStart) {
+            trailingNewlines++;
+            hasLine = nextLine();
+        }
+
+        if(trailingNewlines == 0) {
+            throw parseError("Expected an empty line after node " + headers.getPath());
+        }
+        node.setTrailingNewlines(trailingNewlines);
+
+        if(indexBuilder != null) {
+            indexBuilder.node(headerOffset, contentOffset, textOffset);
+        }
+        checksumVerifier.endNode();
+        consumer.endNode(node);
+        return hasLine;
+    }
+
+    /**
+     * Reads the properties up to and including PROPS-END.  When they aren't kept,
+     * the keys and values are stepped over without decoding them.
+     */
+    private Map<String, String> readProperties(boolean keep) throws ParseException, IOException {
+        LazyPropertyMap properties = new LazyPropertyMap();
+        while(true) {
+            requireLine();
+            if(lineEnd - lineStart == PROPS_END.length && regionEquals(lineStart, PROPS_END)) {
+                return properties;
+            }
+
+            byte[] key = readPropertyPart((byte) 'K', keep);
+            requireLine();
+            byte[] value = readPropertyPart((byte) 'V', keep);
+            if(keep) {
+                // the value is decoded only if someone asks for it
+                properties.putRaw(new String(key, StandardCharsets.UTF_8), value);
+            }
+        }
+    }
+
+    /**
+     * Given a length line such as "K 10", reads the raw bytes that follow it and the EOL after those bytes.
+     *
+     * @return the bytes, or null if they are not kept
+     */
+    private byte[] readPropertyPart(byte prefix, boolean keep) throws ParseException, IOException {
+        if(lineEnd == lineStart || byteAt(lineStart) != prefix) {
+            throw parseError("Expected a property line starting with '" + (char) prefix + "'");
+        }
+
+        long length = requireNumber(skipSpaces(lineStart + 1), lineEnd);
+        byte[] value = null;
+        if(keep) {
+            if(length > Integer.MAX_VALUE) {
+                throw parseError("Property is too large");
+            }
+            value = new byte[(int) length];
+            readFully(value, 0, value.length);
+        } else {
+            skip(length);
+        }
+        requireBlankLine();
+        return value;
+    }
+
+    private void readChunks(long length, RepositoryConsumer consumer, String path, byte[] md5sum, byte[] sha1sum) throws ParseException, IOException {
+        checksumVerifier.startContent(path, md5sum, sha1sum);
+        if(metrics != null) {
+            metrics.content(length);
+        }
+
+        List<PooledContentChunk> pooledChunks = chunkBufferPool == null ? Collections.emptyList() : new ArrayList<>();
+        FileChannel channel = contentRegions ? input.channel() : null;
+        long lengthLeft = length;
+        while(lengthLeft > 0) {
+            int chunkSize = (int) Math.min((long)fileContentChunkSize, lengthLeft);
+
+            ContentChunk chunk;
+            ByteBuffer slice;
+            byte[] leased;
+            if(channel != null) {
+                chunk = new FileRegionContentChunk(channel, input.getStreamPosition(), chunkSize);
+                if(checksumVerifier.verifiesContent()) {
+                    // the content is read only to verify it, the chunk is left unread
+                    slice = input.slice(chunkSize);
+                    if(slice == null) {
+                        byte[] bytes = new byte[chunkSize];
+                        readFully(bytes, 0, chunkSize);
+                        slice = ByteBuffer.wrap(bytes);
+                    }
+                    checksumVerifier.update(slice);
+                } else {
+                    skip(chunkSize);
+                }
+            } else if((slice = input.slice(chunkSize)) != null) {
+                checksumVerifier.update(slice);
+                chunk = new ByteBufferContentChunk(slice);
+            } else if(chunkBufferPool != null && (leased = chunkBufferPool.lease(chunkSize)) != null) {
+                readFully(leased, 0, chunkSize);
+                checksumVerifier.update(leased, 0, chunkSize);
+                PooledContentChunk pooledChunk = new PooledContentChunk(chunkBufferPool, leased, chunkSize);
+                pooledChunks.add(pooledChunk);
+                chunk = pooledChunk;
+            } else {
+                // without a pool, or once the node has used it up, the chunk is left to the garbage collector
+                byte[] freshBytes = new byte[chunkSize];
+                readFully(freshBytes, 0, chunkSize);
+                checksumVerifier.update(freshBytes, 0, chunkSize);
+                chunk = new ContentChunkImpl(freshBytes);
+            }
+            lengthLeft -= chunkSize;
+
+            consumer.consume(chunk);
+        }
+        consumer.endChunks();
+        checksumVerifier.endContent();
+
+        if(!pooledChunks.isEmpty()) {
+            // the leased arrays may still be being hashed
+            checksumVerifier.awaitContent();
+            for(PooledContentChunk pooledChunk : pooledChunks) {
+                pooledChunk.release();
+            }
+        }
+    }
+
+    private NodeHeader lookupNodeHeader() {
+        int colon = indexOf((byte) ':', lineStart, lineEnd);
+        if(colon < 0) {
+            return null;
+        }
+
+        int keyLength = colon - lineStart;
+        if(keyLength >= NODE_HEADERS_BY_KEY_LENGTH.length) {
+            return null;
+        }
+
+        for(NodeHeader candidate : NODE_HEADERS_BY_KEY_LENGTH[keyLength]) {
+            if(regionEquals(lineStart, NODE_HEADER_KEYS[candidate.ordinal()])) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private void readHeader(NodeHeaderMap headers, NodeHeader header) throws ParseException {
+        int keyEnd = lineStart + NODE_HEADER_KEYS[header.ordinal()].length;
+        switch(header) {
+            case PATH:
+            case COPY_FROM_PATH: {
+                // paths are taken verbatim, after exactly one space
+                if(keyEnd + 1 >= lineEnd || byteAt(keyEnd + 1) != ' ') {
+                    throw parseError("Expected a space after " + header.name());
+                }
+                String path = input.decode(keyEnd + 2, lineEnd - keyEnd - 2, StandardCharsets.UTF_8);
+                if(header == NodeHeader.PATH) {
+                    headers.setPath(path);
+                } else {
+                    headers.setCopyFromPath(path);
+                }
+                break;
+            }
+            case KIND:
+                headers.setKind(NodeKind.fromString(requireConstant(keyEnd, KIND_VALUES)));
+                break;
+            case ACTION:
+                headers.setAction(NodeAction.fromString(requireConstant(keyEnd, ACTION_VALUES)));
+                break;
+            case PROP_DELTA:
+                headers.setPropDelta(requireConstant(keyEnd, BOOLEAN_VALUES).equals("true"));
+                break;
+            case TEXT_DELTA:
+                headers.setTextDelta(requireConstant(keyEnd, BOOLEAN_VALUES).equals("true"));
+                break;
+            case MD5:
+                headers.setMd5(requireHash(keyEnd, 16));
+                break;
+            case SOURCE_MD5:
+                headers.setSourceMd5(requireHash(keyEnd, 16));
+                break;
+            case SHA1:
+                headers.setSha1(requireHash(keyEnd, 20));
+                break;
+            case SOURCE_SHA1:
+                headers.setSourceSha1(requireHash(keyEnd, 20));
+                break;
+            case DELTA_BASE_MD5:
+                headers.setDeltaBaseMd5(requireHash(keyEnd, 16));
+                break;
+            case DELTA_BASE_SHA1:
+                headers.setDeltaBaseSha1(requireHash(keyEnd, 20));
+                break;
+            case COPY_FROM_REV: {
+                long revision = requireNumber(valueStart(keyEnd - lineStart), lineEnd);
+                if(revision > Integer.MAX_VALUE) {
+                    throw parseError("Number is too large");
+                }
+                headers.setCopyFromRevision((int) revision);
+                break;
+            }
+            case PROP_CONTENT_LENGTH:
+                headers.setPropContentLength(requireNumber(valueStart(keyEnd - lineStart), lineEnd));
+                break;
+            case TEXT_CONTENT_LENGTH:
+                headers.setTextContentLength(requireNumber(valueStart(keyEnd - lineStart), lineEnd));
+                break;
+            case CONTENT_LENGTH:
+                headers.setContentLength(requireNumber(valueStart(keyEnd - lineStart), lineEnd));
+                break;
+            default:
+                throw parseError("Unknown node header");
+        }
+    }
+
+    private String requireConstant(int keyEnd, String[] constants) throws ParseException {
+        int valueStart = valueStart(keyEnd - lineStart);
+        int valueEnd = trimEnd(valueStart);
+        for(String constant : constants) {
+            if(valueEnd - valueStart == constant.length() && regionEquals(valueStart, constant)) {
+                return constant;
+            }
+        }
+        throw parseError("Unexpected header value");
+    }
+
+    /**
+     * @return the bytes of a hash of <code>length</code> bytes, written in hex
+     */
+    private byte[] requireHash(int keyEnd, int length) throws ParseException {
+        int valueStart = valueStart(keyEnd - lineStart);
+        int valueEnd = trimEnd(valueStart);
+        if(valueEnd - valueStart != length * 2) {
+            throw parseError("Expected a hash of " + length * 2 + " characters");
+        }
+        byte[] hash = new byte[length];
+        for(int i = 0; i < length; i++) {
+            int high = hexDigit(byteAt(valueStart + i * 2));
+            int low = hexDigit(byteAt(valueStart + i * 2 + 1));
+            if(high < 0 || low < 0) {
+                throw parseError("Invalid character in hash");
+            }
+            hash[i] = (byte) ((high << 4) | low);
+        }
+        return hash;
+    }
+
+    private static int hexDigit(byte b) {
+        if(b >= '0' && b <= '9') {
+            return b - '0';
+        }
+        if(b >= 'a' && b <= 'f') {
+            return b - 'a' + 10;
+        }
+        return -1;
+    }
+
+    private String readUuid(int valueStart) throws ParseException {
+        int valueEnd = trimEnd(valueStart);
+        if(valueEnd - valueStart != 36) {
+            throw parseError("Malformed UUID");
+        }
+        for(int i = 0; i < 36; i++) {
+            byte b = byteAt(valueStart + i);
+            boolean valid = i == 8 || i == 13 || i == 18 || i == 23 ?
+                    b == '-' :
+                    (b >= '0' && b <= '9') || (b >= 'a' && b <= 'z');
+            if(!valid) {
+                throw parseError("Malformed UUID");
+            }
+        }
+        return input.decode(valueStart, 36, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * @return the position of the first byte of the value, after the key, the colon and any spaces
+     */
+    private int valueStart(int keyLength) throws ParseException {
+        int colon = lineStart + keyLength;
+        if(colon >= lineEnd || byteAt(colon) != ':') {
+            throw parseError("Expected a colon");
+        }
+        return skipSpaces(colon + 1);
+    }
+
+    private int skipSpaces(int position) {
+        while(position < lineEnd && byteAt(position) == ' ') {
+            position++;
+        }
+        return position;
+    }
+
+    private int trimEnd(int valueStart) {
+        int valueEnd = lineEnd;
+        while(valueEnd > valueStart && byteAt(valueEnd - 1) == ' ') {
+            valueEnd--;
+        }
+        return valueEnd;
+    }
+
+    private long requireNumber(int start, int end) throws ParseException {
+        end = Math.min(end, trimEnd(start));
+        if(start == end) {
+            throw parseError("Expected a number");
+        }
+        long value = 0;
+        for(int i = start; i < end; i++) {
+            int digit = byteAt(i) - '0';
+            if(digit < 0 || digit > 9) {
+                throw parseError("Expected a number");
+            }
+            if(value > (Long.MAX_VALUE - digit) / 10) {
+                throw parseError("Number is too large");
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private void requireKey(byte[] key) throws ParseException {
+        if(!isKey(key)) {
+            throw parseError("Expected " + new String(key, StandardCharsets.US_ASCII));
+        }
+    }
+
+    private boolean isKey(byte[] key) {
+        return lineEnd - lineStart > key.length &&
+                byteAt(lineStart + key.length) == ':' &&
+                regionEquals(lineStart, key);
+    }
+
+    private boolean regionEquals(int start, byte[] expected) {
+        for(int i = 0; i < expected.length; i++) {
+            if(byteAt(start + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean regionEquals(int start, String expected) {
+        for(int i = 0; i < expected.length(); i++) {
+            if(byteAt(start + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(byte value, int start, int end) {
+        for(int i = start; i < end; i++) {
+            if(byteAt(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void requireLine() throws ParseException, IOException {
+        if(!nextLine()) {
+            throw new ParseException("Unexpected end of input at byte " + input.getStreamPosition());
+        }
+    }
+
+    private void requireBlankLine() throws ParseException, IOException {
+        requireLine();
+        if(lineEnd != lineStart) {
+            throw parseError("Expected an empty line");
+        }
+    }
+
+    /**
+     * Advances to the next line of the input.  The line is available in
+     * the buffer between lineStart and lineEnd, without the EOL.
+     *
+     * @return false if the end of the input was reached
+     */
+    private boolean nextLine() throws IOException {
+        int scanned = 0;
+        while(true) {
+            ByteBuffer buffer = input.buffer;
+            int position = input.position;
+            int limit = input.limit;
+            for(int i = position + scanned; i < limit; i++) {
+                if(buffer.get(i) == '\n') {
+                    lineStart = position;
+                    lineEnd = i > lineStart && buffer.get(i - 1) == '\r' ? i - 1 : i;
+                    input.position = i + 1;
+                    return true;
+                }
+            }
+            scanned = limit - position;
+
+            lineStart = 0; // the current line is gone after a fill
+            lineEnd = 0;
+            if(!input.fill()) {
+                if(input.position == input.limit) {
+                    return false;
+                }
+                // the last line in the input has no EOL
+                lineStart = input.position;
+                lineEnd = input.limit;
+                input.position = input.limit;
+                return true;
+            }
+        }
+    }
+
+    private byte byteAt(int index) {
+        return input.buffer.get(index);
+    }
+
+    private void skip(long length) throws ParseException, IOException {
+        try {
+            input.skip(length);
+        } catch(EOFException ex) {
+            throw new ParseException(ex.getMessage());
+        }
+    }
+
+    private void readFully(byte[] destination, int offset, int length) throws ParseException, IOException {
+        try {
+            input.readFully(destination, offset, length);
+        } catch(EOFException ex) {
+            throw new ParseException(ex.getMessage());
+        }
+    }
+
+    /**
+     * @return where the current line starts in the input
+     */
+    private long lineOffset() {
+        return input.getStreamPosition() - (input.position - lineStart);
+    }
+
+    private ParseException parseError(String message) {
+        long lineOffset = lineOffset();
+        String line = input.decode(lineStart, Math.min(lineEnd - lineStart, 80), StandardCharsets.UTF_8);
+        return new ParseException(message + " at byte " + lineOffset + ": \"" + line + "\"");
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
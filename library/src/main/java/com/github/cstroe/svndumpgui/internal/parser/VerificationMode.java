@@ -0,0 +1,24 @@
+package com.github.cstroe.svndumpgui.internal.parser;
+
+/**
+ * When the content checksums are computed, and when a mismatch is reported.
+ */
+public enum VerificationMode {
+    /**
+     * Hash on the parser thread, and report a mismatch right after the chunks of the node.
+     */
+    INLINE,
+
+    /**
+     * Hash on a worker thread per algorithm while parsing continues, and
+     * report a mismatch before the node ends.
+     */
+    END_NODE,
+
+    /**
+     * Hash on a worker thread per algorithm, without waiting for the result.
+     * A mismatch is reported at the first node end after it is found,
+     * or when the dump is finished at the latest.
+     */
+    DEFERRED
+}
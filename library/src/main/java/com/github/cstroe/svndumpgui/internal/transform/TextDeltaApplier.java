@@ -0,0 +1,244 @@
+package com.github.cstroe.svndumpgui.internal.transform;
+
+import com.github.cstroe.svndumpgui.api.ContentChunk;
+import com.github.cstroe.svndumpgui.api.Node;
+import com.github.cstroe.svndumpgui.api.NodeAction;
+import com.github.cstroe.svndumpgui.api.NodeHeader;
+import com.github.cstroe.svndumpgui.api.NodeKind;
+import com.github.cstroe.svndumpgui.api.Revision;
+import com.github.cstroe.svndumpgui.generated.ParseException;
+import com.github.cstroe.svndumpgui.internal.ByteBufferContentChunk;
+import com.github.cstroe.svndumpgui.internal.NodeHeaderMap;
+import com.github.cstroe.svndumpgui.internal.delta.SvndiffDecoder;
+import com.github.cstroe.svndumpgui.internal.delta.TextCache;
+import com.github.cstroe.svndumpgui.internal.parser.ChecksumVerifier;
+import com.github.cstroe.svndumpgui.internal.parser.SvnDumpByteParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+
+/**
+ * Turns the nodes of a dump made with <code>svnadmin dump --deltas</code>
+ * into nodes with full texts, as if the dump was made without deltas.
+ *
+ * A node with <code>Text-delta: true</code> is held back while its delta is
+ * applied, window by window, against the text of its copy source, or the
+ * previous text of its path.  The full text is checked against the
+ * <code>Text-content-md5</code> and <code>Text-content-sha1</code> headers as
+ * it is produced, and then passed on in chunks of at most
+ * {@link #setFileContentChunkSize(int) the chunk size}, with the headers
+ * rewritten to describe it.
+ *
+ * The texts that later deltas are made against are kept in a
+ * {@link TextCache}, which should be large enough to hold the texts that
+ * are changed or copied again.  A delta whose source was dropped from the
+ * cache cannot be applied.  Property deltas are passed on as they are.
+ */
+public class TextDeltaApplier extends AbstractRepositoryMutator {
+    private static final byte[] EMPTY = new byte[0];
+
+    private final TextCache texts;
+    private final ChecksumVerifier verifier = new ChecksumVerifier();
+
+    private int fileContentChunkSize = SvnDumpByteParser.DEFAULT_FILE_CONTENT_CHUNK_SIZE;
+
+    private int revision;
+
+    // the file node whose text is being read, and its text
+    private Node node = null;
+    private ByteArrayOutputStream text = null;
+    private SvndiffDecoder decoder = null;
+
+    // the last node whose delta was applied, until it ends
+    private Node applied = null;
+
+    // receives the text produced by the decoder
+    private final OutputStream target = new OutputStream() {
+        @Override
+        public void write(int b) {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            text.write(bytes, offset, length);
+            verifier.update(bytes, offset, length);
+        }
+    };
+
+    public TextDeltaApplier() {
+        this(new TextCache());
+    }
+
+    public TextDeltaApplier(TextCache texts) {
+        this.texts = texts;
+    }
+
+    /**
+     * @param size the most bytes in each chunk of the full texts that are passed on
+     */
+    public void setFileContentChunkSize(int size) {
+        if(size <= 0) {
+            throw new IllegalArgumentException("The chunk size must be positive.");
+        }
+        this.fileContentChunkSize = size;
+    }
+
+    @Override
+    public void consume(Revision revision) {
+        this.revision = revision.getNumber();
+        super.consume(revision);
+    }
+
+    @Override
+    public void consume(Node node) {
+        texts.track(node, revision);
+        if(node.getKind() == NodeKind.DIR || node.getAction() == NodeAction.DELETE) {
+            super.consume(node);
+            return;
+        }
+
+        String path = node.get(NodeHeader.PATH);
+        long textContentLength = node.getTextContentLength();
+        if(node.isTextDelta() && textContentLength > 0) {
+            this.node = node;
+            this.text = new ByteArrayOutputStream();
+            this.decoder = new SvndiffDecoder(source(node, path), target);
+            verifier.startContent(path, node.getMd5(), node.getSha1());
+            return;
+        }
+
+        if(textContentLength > 0) {
+            if(textContentLength <= texts.getCapacity()) {
+                this.node = node;
+                this.text = new ByteArrayOutputStream((int) textContentLength);
+            } else {
+                texts.setMissing(path, revision);
+            }
+        }
+        super.consume(node);
+    }
+
+    @Override
+    public void consume(ContentChunk chunk) {
+        if(decoder != null) {
+            try {
+                write(chunk, decoder);
+            } catch(IOException ex) {
+                throw new RuntimeException("Could not apply the delta of " + node.get(NodeHeader.PATH) + " at revision " + revision, ex);
+            }
+            return;
+        }
+        if(text != null) {
+            try {
+                write(chunk, text);
+            } catch(IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+        super.consume(chunk);
+    }
+
+    @Override
+    public void endChunks() {
+        if(decoder != null) {
+            applied();
+            return;
+        }
+        if(text != null) {
+            texts.put(node.get(NodeHeader.PATH), revision, text.toByteArray(), node.getMd5());
+            node = null;
+            text = null;
+        }
+        super.endChunks();
+    }
+
+    @Override
+    public void endNode(Node node) {
+        if(decoder != null) {
+            // the chunks ended early, which a parser only does when it isn't interested in content
+            throw new IllegalStateException("The delta of " + node.get(NodeHeader.PATH) + " ended without its content.");
+        }
+        if(node == applied && node.getTextContentLength() == 0 && node.getPropContentLength() < 0 && node.getTrailingNewlines() > 0) {
+            // the newlines were counted after the delta, and now the blank line after the headers ends the node
+            node.setTrailingNewlines(node.getTrailingNewlines() + 1);
+        }
+        applied = null;
+        super.endNode(node);
+    }
+
+    /**
+     * Passes on the node whose delta was applied, with its full text.
+     */
+    private void applied() {
+        Node node = this.node;
+        String path = node.get(NodeHeader.PATH);
+        try {
+            decoder.close();
+            verifier.endContent();
+        } catch(IOException | ParseException ex) {
+            throw new RuntimeException("Could not apply the delta of " + path + " at revision " + revision, ex);
+        }
+        byte[] content = text.toByteArray();
+        texts.put(path, revision, content, node.getMd5());
+        this.node = null;
+        this.text = null;
+        this.decoder = null;
+
+        NodeHeaderMap headers = node.getHeaders() instanceof NodeHeaderMap ?
+                (NodeHeaderMap) node.getHeaders() : new NodeHeaderMap(node.getHeaders());
+        headers.remove(NodeHeader.TEXT_DELTA);
+        headers.remove(NodeHeader.DELTA_BASE_MD5);
+        headers.remove(NodeHeader.DELTA_BASE_SHA1);
+        headers.setTextContentLength(content.length);
+        headers.setContentLength(Math.max(headers.getPropContentLength(), 0) + content.length);
+        if(headers != node.getHeaders()) {
+            node.setHeaders(headers);
+        }
+        applied = node;
+
+        super.consume(node);
+        if(content.length > 0) {
+            for(int offset = 0; offset < content.length; offset += fileContentChunkSize) {
+                int length = Math.min(fileContentChunkSize, content.length - offset);
+                super.consume(new ByteBufferContentChunk(ByteBuffer.wrap(content, offset, length)));
+            }
+            super.endChunks();
+        }
+    }
+
+    private static void write(ContentChunk chunk, OutputStream out) throws IOException {
+        ByteBuffer content = chunk.getBuffer();
+        if(content.hasArray()) {
+            out.write(content.array(), content.arrayOffset() + content.position(), content.remaining());
+        } else {
+            byte[] bytes = new byte[content.remaining()];
+            content.duplicate().get(bytes);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * @return the text that the delta of the node was made against
+     */
+    private byte[] source(Node node, String path) {
+        if(TextCache.hasEmptySource(node)) {
+            return EMPTY;
+        }
+        TextCache.Text source = texts.get(path, revision);
+        if(source == null) {
+            throw new IllegalStateException("The source of the delta of " + path + " at revision " + revision
+                    + " is not in the text cache.  It may be larger than the cache, or not in the dump.");
+        }
+        String expected = node.get(NodeHeader.DELTA_BASE_MD5);
+        byte[] expectedMd5 = expected == null ? null : NodeHeaderMap.parseHex(expected, 16);
+        if(expectedMd5 != null && source.getMd5() != null && !MessageDigest.isEqual(expectedMd5, source.getMd5())) {
+            throw new IllegalStateException("The source of the delta of " + path + " at revision " + revision
+                    + " does not match its MD5 sum " + expected);
+        }
+        return source.getContent();
+    }
+}
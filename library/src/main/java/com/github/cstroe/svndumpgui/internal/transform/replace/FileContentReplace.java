@@ -1,9 +1,11 @@
 package com.github.cstroe.svndumpgui.internal.transform.replace;
 
+import com.github.cstroe.svndumpgui.api.CheckpointableConsumer;
 import com.github.cstroe.svndumpgui.api.ContentChunk;
 import com.github.cstroe.svndumpgui.api.Node;
+import com.github.cstroe.svndumpgui.api.NodeAction;
 import com.github.cstroe.svndumpgui.api.NodeHeader;
-import com.github.cstroe.svndumpgui.api.Property;
+import com.github.cstroe.svndumpgui.api.NodeKind;
 import com.github.cstroe.svndumpgui.api.Revision;
 import com.github.cstroe.svndumpgui.internal.ContentChunkImpl;
 import com.github.cstroe.svndumpgui.internal.NodeImpl;
@@ -11,6 +13,7 @@ import com.github.cstroe.svndumpgui.internal.transform.AbstractRepositoryMutator
 import com.github.cstroe.svndumpgui.internal.utility.Md5;
 import com.github.cstroe.svndumpgui.internal.utility.Sha1;
 
+import java.io.Serializable;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -20,7 +23,7 @@ import java.util.function.Predicate;
 
 import static java.util.Objects.requireNonNull;
 
-public class FileContentReplace extends AbstractRepositoryMutator {
+public class FileContentReplace extends AbstractRepositoryMutator implements CheckpointableConsumer {
     private final Predicate<Node> nodeMatcher;
     private final Function<Node, ContentChunk> contentChunkGenerator;
 
@@ -30,6 +33,22 @@ public class FileContentReplace extends AbstractRepositoryMutator {
     private int currentRevision;
     private int chunkCount;
 
+    /**
+     * What has to be kept across revisions, since the node being matched
+     * and its chunks end with it.
+     */
+    private static class State implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final HashMap<Integer, Set<Node>> previouslyUpdated;
+        private final int currentRevision;
+
+        private State(HashMap<Integer, Set<Node>> previouslyUpdated, int currentRevision) {
+            this.previouslyUpdated = previouslyUpdated;
+            this.currentRevision = currentRevision;
+        }
+    }
+
     /**
      * Helper method to generate a predicate that matches a node,
      * given the revision number, node action, and node path.
@@ -67,6 +86,24 @@ public class FileContentReplace extends AbstractRepositoryMutator {
         this.contentChunkGenerator = requireNonNull(contentChunkGenerator);
     }
 
+    @Override
+    public Serializable saveState() {
+        HashMap<Integer, Set<Node>> updated = new HashMap<>();
+        for(Map.Entry<Integer, Set<Node>> entry : previouslyUpdated.entrySet()) {
+            updated.put(entry.getKey(), new HashSet<>(entry.getValue()));
+        }
+        return new State(updated, currentRevision);
+    }
+
+    @Override
+    public void restoreState(Serializable state) {
+        State saved = (State) state;
+        previouslyUpdated = saved.previouslyUpdated;
+        currentRevision = saved.currentRevision;
+        nodeMatched = false;
+        chunkCount = 0;
+    }
+
     @Override
     public void consume(Revision revision) {
         currentRevision = revision.getNumber();
@@ -75,15 +112,13 @@ public class FileContentReplace extends AbstractRepositoryMutator {
 
     @Override
     public void consume(Node node) {
-        final String nodeAction = node.get(NodeHeader.ACTION);
-        if("delete".equals(nodeAction)) {
+        if(node.getAction() == NodeAction.DELETE) {
             // we don't care about deletes
             super.consume(node);
             return;
         }
 
-        final String nodeKind = node.get(NodeHeader.KIND);
-        if("file".equals(nodeKind) && nodeMatcher.test(node)) {
+        if(node.getKind() == NodeKind.FILE && nodeMatcher.test(node)) {
             // we found a match for replacement
             nodeMatched = true;
             chunkCount = 0;
@@ -91,14 +126,13 @@ public class FileContentReplace extends AbstractRepositoryMutator {
         }
 
         // node was not matched, but it might be a copy of a previously replaced node
-        String copyFromRev = node.get(NodeHeader.COPY_FROM_REV);
-        if(copyFromRev == null) {
+        int copyRevision = node.getCopyFromRevision();
+        if(copyRevision == -1) {
             // nope, it's not a copy
             super.consume(node);
             return;
         }
 
-        int copyRevision = Integer.parseInt(copyFromRev);
         String copyPath = node.get(NodeHeader.COPY_FROM_PATH);
 
         Node previousNode = findPreviouslyUpdatedNode(copyRevision, copyPath);
@@ -134,7 +168,7 @@ public class FileContentReplace extends AbstractRepositoryMutator {
             return;
         }
 
-        if("dir".equals(nodeKind) && "add".equals(nodeAction)) {
+        if(node.getKind() == NodeKind.DIR && node.getAction() == NodeAction.ADD) {
             // we might be moving the directory that contains a previously replaced node
             Node previouslyContainedNode = findPreviouslyUpdatedNodeFromDirectory(copyRevision, copyPath);
             if(previouslyContainedNode != null) {
@@ -219,17 +253,7 @@ public class FileContentReplace extends AbstractRepositoryMutator {
             node.getHeaders().put(NodeHeader.TEXT_CONTENT_LENGTH, Integer.toString(generatedChunk.getContent().length));
         }
 
-        String propDeltaRaw = node.get(NodeHeader.PROP_DELTA);
-        boolean propDelta = false;
-        if(propDeltaRaw != null) {
-            propDelta = Boolean.parseBoolean(propDeltaRaw);
-        }
-
-        String propContentLengthRaw = node.get(NodeHeader.PROP_CONTENT_LENGTH);
-        long propContentLength = 0;
-        if(propContentLengthRaw != null) {
-            propContentLength = Long.parseLong(propContentLengthRaw);
-        }
+        long propContentLength = Math.max(node.getPropContentLength(), 0);
 
         if(node.getHeaders().get(NodeHeader.CONTENT_LENGTH) != null) {
             node.getHeaders().put(NodeHeader.CONTENT_LENGTH, Long.toString(propContentLength + generatedChunk.getContent().length));
@@ -245,8 +269,8 @@ public class FileContentReplace extends AbstractRepositoryMutator {
             node.getHeaders().put(NodeHeader.SHA1, sha1hash);
         }
 
-        if(node.get(NodeHeader.COPY_FROM_REV) != null) {
-            int copyRevision = Integer.parseInt(node.get(NodeHeader.COPY_FROM_REV));
+        int copyRevision = node.getCopyFromRevision();
+        if(copyRevision != -1) {
             String copyPath = node.get(NodeHeader.COPY_FROM_PATH);
 
             Node previouslyUpdatedNode = findPreviouslyUpdatedNode(copyRevision, copyPath);
@@ -262,19 +286,12 @@ public class FileContentReplace extends AbstractRepositoryMutator {
     }
 
     private void continueNodeConsumption(Node node, ContentChunk generatedChunk) {
-        final String trailingNewLine = node.getProperties().get(Property.TRAILING_NEWLINE_HINT);
-        node.getProperties().remove(Property.TRAILING_NEWLINE_HINT);
-
         super.consume(node);
         if(chunkCount > 0) {
             super.consume(generatedChunk);
             super.endChunks();
         }
 
-        if(trailingNewLine != null) {
-            node.getProperties().put(Property.TRAILING_NEWLINE_HINT, trailingNewLine);
-        }
-
         super.endNode(node);
     }
 }
@@ -0,0 +1,137 @@
+package com.github.cstroe.svndumpgui.internal.utility;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes gzip as a series of small, independent members, in the style of BGZF.
+ *
+ * Every member records its compressed size in a <code>BC</code> extra field,
+ * so that {@link ParallelGzipInputStream} can split the file without inflating
+ * it and inflate the members in parallel.  The output is still plain gzip,
+ * which any gzip reader can decompress.
+ */
+public class BlockGzipOutputStream extends OutputStream {
+    // uncompressed bytes per member, small enough for the member to fit in 64K even if it doesn't compress
+    public static final int BLOCK_SIZE = 0xff00;
+
+    private static final int MAX_MEMBER_SIZE = 0x10000;
+    private static final int HEADER_LENGTH = 18;
+    private static final int TRAILER_LENGTH = 8;
+
+    private final OutputStream out;
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private final byte[] block = new byte[BLOCK_SIZE];
+    private final byte[] member = new byte[MAX_MEMBER_SIZE];
+    private int blockLength = 0;
+    private boolean closed = false;
+
+    public BlockGzipOutputStream(OutputStream out) {
+        this(out, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    public BlockGzipOutputStream(OutputStream out, int level) {
+        this.out = out;
+        this.deflater = new Deflater(level, true);
+    }
+
+    @Override
+    public void write(int value) throws IOException {
+        if(blockLength == BLOCK_SIZE) {
+            writeMember();
+        }
+        block[blockLength++] = (byte) value;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while(length > 0) {
+            if(blockLength == BLOCK_SIZE) {
+                writeMember();
+            }
+            int copied = Math.min(length, BLOCK_SIZE - blockLength);
+            System.arraycopy(bytes, offset, block, blockLength, copied);
+            blockLength += copied;
+            offset += copied;
+            length -= copied;
+        }
+    }
+
+    /**
+     * Ends the current member early, so that everything written so far can be decompressed.
+     */
+    @Override
+    public void flush() throws IOException {
+        writeMember();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writeMember();
+            out.close();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void writeMember() throws IOException {
+        if(blockLength == 0) {
+            return;
+        }
+
+        deflater.reset();
+        deflater.setInput(block, 0, blockLength);
+        deflater.finish();
+        int compressedLength = 0;
+        int space = MAX_MEMBER_SIZE - HEADER_LENGTH - TRAILER_LENGTH;
+        while(!deflater.finished() && compressedLength < space) {
+            compressedLength += deflater.deflate(member, HEADER_LENGTH + compressedLength, space - compressedLength);
+        }
+        if(!deflater.finished()) {
+            throw new IOException("A block of " + blockLength + " bytes didn't fit in a gzip member.");
+        }
+
+        crc.reset();
+        crc.update(block, 0, blockLength);
+        int memberLength = HEADER_LENGTH + compressedLength + TRAILER_LENGTH;
+
+        // ID1, ID2, CM = deflate, FLG = FEXTRA, MTIME = 0, XFL = 0, OS = unknown
+        member[0] = (byte) 0x1f;
+        member[1] = (byte) 0x8b;
+        member[2] = 8;
+        member[3] = 4;
+        writeInt(member, 4, 0);
+        member[8] = 0;
+        member[9] = (byte) 0xff;
+        // XLEN = 6, with the BC subfield holding the member size - 1
+        writeShort(member, 10, 6);
+        member[12] = 'B';
+        member[13] = 'C';
+        writeShort(member, 14, 2);
+        writeShort(member, 16, memberLength - 1);
+
+        writeInt(member, HEADER_LENGTH + compressedLength, (int) crc.getValue());
+        writeInt(member, HEADER_LENGTH + compressedLength + 4, blockLength);
+        out.write(member, 0, memberLength);
+        blockLength = 0;
+    }
+
+    private static void writeShort(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >> 8);
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        writeShort(bytes, offset, value);
+        writeShort(bytes, offset + 2, value >> 16);
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.cstroe.svndumpgui.internal.utility;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Recycles the byte arrays that file content is read into, so that parsing
+ * a large repository doesn't allocate a new array for every content chunk.
+ *
+ * All the pooled arrays are the same size, which should be the file content
+ * chunk size of the parser.  Requests for larger arrays are not pooled.
+ * The arrays that are leased and those kept for reuse add up to at most
+ * <code>maxPooledBytes</code>.  Once that many are leased, {@link #lease}
+ * returns null, and the parser reads the rest of the node into arrays of its
+ * own, which it doesn't hold on to, so that a large file doesn't stay in
+ * memory until its node ends.
+ */
+public class ChunkBufferPool {
+    private final int bufferSize;
+    private final long maxPooledBytes;
+    private final int maxPooledBuffers;
+    private final Deque<byte[]> pooled = new ArrayDeque<>();
+    private long leasedBytes = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long discards = 0;
+
+    public ChunkBufferPool(int bufferSize, long maxPooledBytes) {
+        if(bufferSize <= 0) {
+            throw new IllegalArgumentException("The buffer size must be positive.");
+        }
+        if(maxPooledBytes < 0) {
+            throw new IllegalArgumentException("The pool size cannot be negative.");
+        }
+        this.bufferSize = bufferSize;
+        this.maxPooledBytes = maxPooledBytes;
+        this.maxPooledBuffers = (int) Math.min(maxPooledBytes / bufferSize, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return an array of at least <code>length</code> bytes, with undefined content,
+     *         or null if leasing it would go over the size of the pool
+     */
+    public synchronized byte[] lease(int length) {
+        if(length <= bufferSize) {
+            byte[] buffer = pooled.pollFirst();
+            if(buffer != null) {
+                hits++;
+                leasedBytes += buffer.length;
+                return buffer;
+            }
+        }
+        int size = Math.max(length, bufferSize);
+        if(leasedBytes + getPooledBytes() + size > maxPooledBytes) {
+            return null;
+        }
+        misses++;
+        leasedBytes += size;
+        return new byte[size];
+    }
+
+    /**
+     * Returns a leased array to the pool.  The caller must not use it afterwards.
+     */
+    public synchronized void release(byte[] buffer) {
+        leasedBytes -= buffer.length;
+        if(buffer.length != bufferSize || pooled.size() >= maxPooledBuffers) {
+            discards++;
+            return;
+        }
+        pooled.addFirst(buffer);
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of released arrays that were not kept, because the pool was full
+     */
+    public synchronized long getDiscards() {
+        return discards;
+    }
+
+    public synchronized long getPooledBytes() {
+        return (long) pooled.size() * bufferSize;
+    }
+
+    /**
+     * @return the size of the arrays that are leased and not released yet
+     */
+    public synchronized long getLeasedBytes() {
+        return leasedBytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ChunkBufferPool{hits=" + hits + ", misses=" + misses + ", discards=" + discards +
+                ", pooledBytes=" + getPooledBytes() + "}";
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.cstroe.svndumpgui.internal.utility;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Recognizes compressed dumps by their first bytes.
+ *
+ * A dump starts with <code>SVN-fs-dump-format-version</code>, so the magic
+ * bytes of gzip (<code>1f 8b</code>) and of zlib-wrapped deflate
+ * (<code>78</code> plus a header checksum) can't be mistaken for one.
+ */
+public class CompressedInput {
+    public enum Format { NONE, GZIP, ZLIB }
+
+    private static final int GZIP_ID1 = 0x1f;
+    private static final int GZIP_ID2 = 0x8b;
+
+    public static Format detect(int first, int second) {
+        if(first == GZIP_ID1 && second == GZIP_ID2) {
+            return Format.GZIP;
+        }
+        // CM = 8 (deflate) with a window of at most 32K, and the header checksum of RFC 1950
+        if((first & 0x0f) == 8 && (first >> 4) <= 7 && second != -1 && (first * 256 + second) % 31 == 0) {
+            return Format.ZLIB;
+        }
+        return Format.NONE;
+    }
+
+    /**
+     * @return a stream of the decompressed dump, or of the dump itself if it isn't compressed
+     */
+    public static InputStream decompress(InputStream inputStream) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(inputStream, 2);
+        int first = pushback.read();
+        int second = first == -1 ? -1 : pushback.read();
+        if(second != -1) {
+            pushback.unread(second);
+        }
+        if(first != -1) {
+            pushback.unread(first);
+        }
+
+        switch(detect(first, second)) {
+            case GZIP:
+                return new ParallelGzipInputStream(pushback);
+            case ZLIB:
+                return new InflaterInputStream(pushback);
+            default:
+                return pushback;
+        }
+    }
+}
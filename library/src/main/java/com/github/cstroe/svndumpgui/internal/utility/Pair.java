@@ -1,7 +1,10 @@
 package com.github.cstroe.svndumpgui.internal.utility;
 
+import java.io.Serializable;
+
 // adapted from http://stackoverflow.com/a/3646398/1591777
-public class Pair<FIRST, SECOND> {
+public class Pair<FIRST, SECOND> implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     public final FIRST first;
     public final SECOND second;
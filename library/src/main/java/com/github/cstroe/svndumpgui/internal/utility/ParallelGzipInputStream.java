@@ -0,0 +1,426 @@
+package com.github.cstroe.svndumpgui.internal.utility;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Decompresses gzip input, inflating independent members on a pool of threads.
+ *
+ * A gzip file may be made of several members, one after the other.  A member
+ * can only be inflated on its own if its compressed size is known up front,
+ * which is the case when its header has a <code>BC</code> extra field, as
+ * written by BGZF tools and by {@link BlockGzipOutputStream}.  Such members
+ * are read in batches and inflated in parallel, and the results are handed
+ * out in the order of the members in the file.
+ *
+ * Members without a size, like the single member written by <code>gzip</code>,
+ * are inflated on the reading thread as they are read, like {@link java.util.zip.GZIPInputStream} does.
+ */
+public class ParallelGzipInputStream extends InputStream {
+    public static final int DEFAULT_BATCH_SIZE = 1024 * 1024;
+
+    private static final int INPUT_BUFFER_SIZE = 64 * 1024;
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private static final int NO_MORE_MEMBERS = -2;
+    private static final int UNKNOWN_SIZE = -1;
+
+    private final PushbackInputStream source;
+    private final ThreadPoolExecutor workers;
+    private final int depth;
+    private final int batchSize;
+
+    // members with a known size are batched up and inflated by the workers
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    private List<byte[]> batch = new ArrayList<>();
+    private int batchBytes = 0;
+
+    // a member without a size is inflated here, once everything before it was read
+    private final Inflater inflater = new Inflater(true);
+    private final CRC32 crc = new CRC32();
+    private final byte[] inputBuffer = new byte[INPUT_BUFFER_SIZE];
+    private final byte[] inflated = new byte[INPUT_BUFFER_SIZE];
+    private int inputLength = 0;
+    private long inflatedLength = 0;
+    private boolean inflating = false;
+
+    private boolean sourceEnded = false;
+    private boolean closed = false;
+
+    // the decompressed bytes being read
+    private byte[] current = new byte[0];
+    private int position = 0;
+    private int limit = 0;
+
+    private long parallelMembers = 0;
+    private long sequentialMembers = 0;
+
+    public ParallelGzipInputStream(InputStream source) {
+        this(source, Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param batchSize how many compressed bytes each worker inflates at a time
+     */
+    public ParallelGzipInputStream(InputStream source, int threads, int batchSize) {
+        if(source == null) {
+            throw new IllegalArgumentException("Cannot decompress a null InputStream.");
+        }
+        if(threads <= 0) {
+            throw new IllegalArgumentException("At least one thread is needed to inflate.");
+        }
+        this.source = new PushbackInputStream(source, INPUT_BUFFER_SIZE);
+        this.depth = threads * 2;
+        this.batchSize = batchSize;
+        this.workers = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "svndump-inflater");
+            thread.setDaemon(true);
+            return thread;
+        });
+        workers.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if(!fill()) {
+            return -1;
+        }
+        return current[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] destination, int offset, int length) throws IOException {
+        if(length == 0) {
+            return 0;
+        }
+        if(!fill()) {
+            return -1;
+        }
+        int bytesRead = Math.min(length, limit - position);
+        System.arraycopy(current, position, destination, offset, bytesRead);
+        position += bytesRead;
+        return bytesRead;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return limit - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(closed) {
+            return;
+        }
+        closed = true;
+        workers.shutdownNow();
+        inflater.end();
+        source.close();
+    }
+
+    /**
+     * @return the number of members that were inflated by the workers
+     */
+    public long getParallelMembers() {
+        return parallelMembers;
+    }
+
+    /**
+     * @return the number of members that had no size, and were inflated as they were read
+     */
+    public long getSequentialMembers() {
+        return sequentialMembers;
+    }
+
+    /**
+     * @return false if the end of the input was reached
+     */
+    private boolean fill() throws IOException {
+        if(closed) {
+            throw new IOException("Stream closed");
+        }
+        while(position == limit) {
+            if(!pending.isEmpty()) {
+                current = await(pending.removeFirst());
+                position = 0;
+                limit = current.length;
+                readAhead();
+            } else if(inflating) {
+                current = inflated;
+                position = 0;
+                limit = inflateSome();
+                if(!inflating) {
+                    readAhead();
+                }
+            } else {
+                readAhead();
+                if(pending.isEmpty() && !inflating) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads members until enough of them are being inflated, or until one
+     * that has no size, which can't be inflated until the ones before it are read.
+     */
+    private void readAhead() throws IOException {
+        while(!sourceEnded && !inflating && pending.size() < depth) {
+            int bodyLength = readHeader();
+            if(bodyLength == NO_MORE_MEMBERS) {
+                sourceEnded = true;
+            } else if(bodyLength == UNKNOWN_SIZE) {
+                submitBatch();
+                inflater.reset();
+                crc.reset();
+                inflatedLength = 0;
+                inflating = true;
+                sequentialMembers++;
+            } else {
+                byte[] body = new byte[bodyLength];
+                readFully(body, body.length);
+                batch.add(body);
+                batchBytes += bodyLength;
+                parallelMembers++;
+                if(batchBytes >= batchSize) {
+                    submitBatch();
+                }
+            }
+        }
+        if(sourceEnded) {
+            submitBatch();
+        }
+    }
+
+    private void submitBatch() {
+        if(batch.isEmpty()) {
+            return;
+        }
+        List<byte[]> members = batch;
+        pending.addLast(workers.submit(() -> inflate(members)));
+        batch = new ArrayList<>();
+        batchBytes = 0;
+    }
+
+    private static byte[] await(Future<byte[]> inflated) throws IOException {
+        try {
+            return inflated.get();
+        } catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while inflating.", ex);
+        } catch(ExecutionException ex) {
+            if(ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    /**
+     * Inflates whole members, each one made of its deflated data and its trailer.
+     */
+    private static byte[] inflate(List<byte[]> members) throws ZipException {
+        long totalLength = 0;
+        for(byte[] member : members) {
+            totalLength += readInt(member, member.length - 4) & 0xFFFFFFFFL;
+        }
+        if(totalLength > Integer.MAX_VALUE - 8) {
+            throw new ZipException("Corrupt GZIP trailer");
+        }
+
+        byte[] output = new byte[(int) totalLength];
+        int offset = 0;
+        Inflater memberInflater = new Inflater(true);
+        CRC32 memberCrc = new CRC32();
+        try {
+            for(byte[] member : members) {
+                int trailer = member.length - 8;
+                int length = readInt(member, trailer + 4);
+                memberInflater.reset();
+                memberInflater.setInput(member, 0, trailer);
+                int inflatedBytes = 0;
+                while(!memberInflater.finished()) {
+                    int bytes = memberInflater.inflate(output, offset + inflatedBytes, length - inflatedBytes);
+                    if(bytes == 0 && !memberInflater.finished()) {
+                        throw new ZipException("Corrupt GZIP member");
+                    }
+                    inflatedBytes += bytes;
+                }
+                if(memberInflater.getRemaining() != 0 || inflatedBytes != length) {
+                    throw new ZipException("Corrupt GZIP member");
+                }
+
+                memberCrc.reset();
+                memberCrc.update(output, offset, length);
+                if(readInt(member, trailer) != (int) memberCrc.getValue()) {
+                    throw new ZipException("Corrupt GZIP trailer");
+                }
+                offset += length;
+            }
+        } catch(DataFormatException ex) {
+            throw new ZipException(ex.getMessage());
+        } finally {
+            memberInflater.end();
+        }
+        return output;
+    }
+
+    /**
+     * Inflates the next piece of a member that has no size into {@link #inflated}.
+     *
+     * @return the number of bytes inflated, 0 when the end of the member was reached
+     */
+    private int inflateSome() throws IOException {
+        try {
+            while(true) {
+                int bytes = inflater.inflate(inflated);
+                if(bytes > 0) {
+                    crc.update(inflated, 0, bytes);
+                    inflatedLength += bytes;
+                    return bytes;
+                }
+                if(inflater.finished()) {
+                    // what the inflater didn't use is the trailer, and the members after it
+                    int remaining = inflater.getRemaining();
+                    source.unread(inputBuffer, inputLength - remaining, remaining);
+                    readTrailer();
+                    inflating = false;
+                    return 0;
+                }
+                if(inflater.needsDictionary()) {
+                    throw new ZipException("Corrupt GZIP member");
+                }
+                if(inflater.needsInput()) {
+                    inputLength = source.read(inputBuffer, 0, inputBuffer.length);
+                    if(inputLength == -1) {
+                        throw new EOFException("Unexpected end of GZIP input");
+                    }
+                    inflater.setInput(inputBuffer, 0, inputLength);
+                }
+            }
+        } catch(DataFormatException ex) {
+            throw new ZipException(ex.getMessage());
+        }
+    }
+
+    private void readTrailer() throws IOException {
+        byte[] trailer = new byte[8];
+        readFully(trailer, trailer.length);
+        if(readInt(trailer, 0) != (int) crc.getValue() || readInt(trailer, 4) != (int) inflatedLength) {
+            throw new ZipException("Corrupt GZIP trailer");
+        }
+    }
+
+    /**
+     * Reads the header of the next member.
+     *
+     * @return the length of the rest of the member, {@link #UNKNOWN_SIZE} if the header
+     *         doesn't say, or {@link #NO_MORE_MEMBERS} at the end of the input
+     */
+    private int readHeader() throws IOException {
+        int id1 = source.read();
+        if(id1 == -1) {
+            return NO_MORE_MEMBERS;
+        }
+        if(CompressedInput.detect(id1, source.read()) != CompressedInput.Format.GZIP) {
+            throw new ZipException("Not in GZIP format");
+        }
+        if(readByte() != 8) {
+            throw new ZipException("Unsupported compression method");
+        }
+        int flags = readByte();
+        byte[] fixed = new byte[6]; // modification time, extra flags and OS
+        readFully(fixed, fixed.length);
+        int headerLength = 10;
+
+        int memberSize = UNKNOWN_SIZE;
+        if((flags & FEXTRA) != 0) {
+            byte[] length = new byte[2];
+            readFully(length, 2);
+            byte[] extra = new byte[readShort(length, 0)];
+            readFully(extra, extra.length);
+            headerLength += 2 + extra.length;
+
+            for(int i = 0; i + 4 <= extra.length; i += 4 + readShort(extra, i + 2)) {
+                if(extra[i] == 'B' && extra[i + 1] == 'C' && readShort(extra, i + 2) == 2 && i + 6 <= extra.length) {
+                    memberSize = readShort(extra, i + 4) + 1;
+                }
+            }
+        }
+        if((flags & FNAME) != 0) {
+            headerLength += skipZeroTerminated();
+        }
+        if((flags & FCOMMENT) != 0) {
+            headerLength += skipZeroTerminated();
+        }
+        if((flags & FHCRC) != 0) {
+            readByte();
+            readByte();
+            headerLength += 2;
+        }
+
+        if(memberSize == UNKNOWN_SIZE) {
+            return UNKNOWN_SIZE;
+        }
+        if(memberSize - headerLength < 8) {
+            throw new ZipException("Corrupt GZIP header");
+        }
+        return memberSize - headerLength;
+    }
+
+    private int skipZeroTerminated() throws IOException {
+        int length = 1;
+        while(readByte() != 0) {
+            length++;
+        }
+        return length;
+    }
+
+    private int readByte() throws IOException {
+        int value = source.read();
+        if(value == -1) {
+            throw new EOFException("Unexpected end of GZIP input");
+        }
+        return value;
+    }
+
+    private void readFully(byte[] destination, int length) throws IOException {
+        int totalBytesRead = 0;
+        while(totalBytesRead < length) {
+            int bytesRead = source.read(destination, totalBytesRead, length - totalBytesRead);
+            if(bytesRead == -1) {
+                throw new EOFException("Unexpected end of GZIP input");
+            }
+            totalBytesRead += bytesRead;
+        }
+    }
+
+    private static int readShort(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return readShort(bytes, offset) | readShort(bytes, offset + 2) << 16;
+    }
+}
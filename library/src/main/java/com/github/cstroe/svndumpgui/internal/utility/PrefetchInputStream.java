@@ -0,0 +1,244 @@
+package com.github.cstroe.svndumpgui.internal.utility;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads ahead of the parser on a background thread, so that reading the
+ * input overlaps with parsing it, e.g. when the dump comes from a pipe.
+ *
+ * The reader thread fills up to <code>depth</code> buffers of
+ * <code>bufferSize</code> bytes while the parser works through the current
+ * one.  The buffers are recycled, nothing is allocated after construction.
+ *
+ * A stall is counted each time the parser has used up the buffers that were
+ * read ahead and has to wait for the input.  Few stalls mean the parser is
+ * the bottleneck; many stalls mean the input is.
+ */
+public class PrefetchInputStream extends InputStream {
+    public static final int DEFAULT_DEPTH = 4;
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    private static final Block END = new Block(null, -1, null);
+
+    private static class Block {
+        private final byte[] bytes;
+        private final int length;
+        private final IOException error;
+
+        private Block(byte[] bytes, int length, IOException error) {
+            this.bytes = bytes;
+            this.length = length;
+            this.error = error;
+        }
+    }
+
+    private final InputStream source;
+    private final BlockingQueue<Block> filled = new LinkedBlockingQueue<>();
+    private final BlockingQueue<byte[]> empty;
+    private final Thread reader;
+
+    // only used by the thread that reads from this stream
+    private Block current = null;
+    private int position = 0;
+    private IOException error = null;
+    private boolean ended = false;
+    private volatile boolean closed = false;
+
+    private volatile long buffersRead = 0;
+    private volatile long stalls = 0;
+    private volatile long stallNanos = 0;
+    private volatile long readerWaits = 0;
+
+    public PrefetchInputStream(InputStream source) {
+        this(source, DEFAULT_DEPTH, DEFAULT_BUFFER_SIZE);
+    }
+
+    public PrefetchInputStream(InputStream source, int depth, int bufferSize) {
+        if(source == null) {
+            throw new IllegalArgumentException("Cannot read ahead of a null InputStream.");
+        }
+        if(depth <= 0) {
+            throw new IllegalArgumentException("The depth must be positive.");
+        }
+        if(bufferSize <= 0) {
+            throw new IllegalArgumentException("The buffer size must be positive.");
+        }
+        this.source = source;
+
+        // one more buffer than the depth, for the one the parser is reading
+        this.empty = new ArrayBlockingQueue<>(depth + 1);
+        for(int i = 0; i <= depth; i++) {
+            empty.add(new byte[bufferSize]);
+        }
+
+        this.reader = new Thread(this::readAhead, "svndump-prefetch");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private void readAhead() {
+        try {
+            while(!closed) {
+                byte[] bytes = empty.poll();
+                if(bytes == null) {
+                    readerWaits++;
+                    bytes = empty.take();
+                }
+
+                // keep filling the buffer while the parser has something else to read
+                int length = 0;
+                do {
+                    int bytesRead = source.read(bytes, length, bytes.length - length);
+                    if(bytesRead == -1) {
+                        if(length > 0) {
+                            filled.put(new Block(bytes, length, null));
+                        }
+                        filled.put(END);
+                        return;
+                    }
+                    length += bytesRead;
+                } while(length < bytes.length && !filled.isEmpty());
+                filled.put(new Block(bytes, length, null));
+            }
+        } catch(IOException ex) {
+            filled.add(new Block(null, -1, ex));
+        } catch(RuntimeException | Error ex) {
+            // e.g. from a decompressor, the parser must not wait for input that never comes
+            filled.add(new Block(null, -1, new IOException("Could not read ahead of the parser.", ex)));
+        } catch(InterruptedException ex) {
+            // closed
+        }
+    }
+
+    /**
+     * @return false if the end of the input was reached
+     */
+    private boolean ensureAvailable() throws IOException {
+        if(closed) {
+            throw new IOException("Stream closed");
+        }
+        while(current == null || position == current.length) {
+            if(error != null) {
+                throw error;
+            }
+            if(ended) {
+                return false;
+            }
+            if(current != null) {
+                empty.add(current.bytes);
+                current = null;
+            }
+
+            Block next = filled.poll();
+            if(next == null) {
+                long start = System.nanoTime();
+                try {
+                    next = filled.take();
+                } catch(InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for input.", ex);
+                }
+                stalls++;
+                stallNanos += System.nanoTime() - start;
+            }
+
+            if(next.error != null) {
+                error = next.error;
+            } else if(next == END) {
+                ended = true;
+            } else {
+                buffersRead++;
+                current = next;
+                position = 0;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if(!ensureAvailable()) {
+            return -1;
+        }
+        return current.bytes[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] destination, int offset, int length) throws IOException {
+        if(length == 0) {
+            return 0;
+        }
+        if(!ensureAvailable()) {
+            return -1;
+        }
+        int bytesRead = Math.min(length, current.length - position);
+        System.arraycopy(current.bytes, position, destination, offset, bytesRead);
+        position += bytesRead;
+        return bytesRead;
+    }
+
+    @Override
+    public long skip(long length) throws IOException {
+        long skipped = 0;
+        while(skipped < length && ensureAvailable()) {
+            int step = (int) Math.min(length - skipped, current.length - position);
+            position += step;
+            skipped += step;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        if(closed) {
+            throw new IOException("Stream closed");
+        }
+        return current == null ? 0 : current.length - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(closed) {
+            return;
+        }
+        closed = true;
+        reader.interrupt();
+        source.close();
+    }
+
+    /**
+     * @return the number of buffers handed to the parser
+     */
+    public long getBuffersRead() {
+        return buffersRead;
+    }
+
+    /**
+     * @return the number of times the parser had to wait for the input
+     */
+    public long getStalls() {
+        return stalls;
+    }
+
+    public long getStallTime(TimeUnit unit) {
+        return unit.convert(stallNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the number of times the reader thread had to wait for the parser to free a buffer
+     */
+    public long getReaderWaits() {
+        return readerWaits;
+    }
+
+    @Override
+    public String toString() {
+        return "PrefetchInputStream{buffersRead=" + buffersRead + ", stalls=" + stalls +
+                ", stallMillis=" + getStallTime(TimeUnit.MILLISECONDS) + ", readerWaits=" + readerWaits + "}";
+    }
+}
@@ -45,6 +45,9 @@ public final class SvnDumpCharStream implements CharStream {
 
     long streamPosition = 0;
 
+    private static final char REPLACEMENT_CHARACTER = '\uFFFD';
+    private char pendingLowSurrogate = 0; // second half of a surrogate pair, returned by the next readChar()
+
     InputStream inputStream;            // source of bytes
 
     /** Constructs from a Reader. */
@@ -54,27 +57,78 @@ public final class SvnDumpCharStream implements CharStream {
 
     @Override
     public final char readChar() throws IOException {
+        if(pendingLowSurrogate != 0) {
+            char c = pendingLowSurrogate;
+            pendingLowSurrogate = 0;
+            return c;
+        }
+
         if (bufferPosition >= bufferLength)
             refill();
 
         byte currentByte = buffer[bufferPosition];
-        int expectedUtf8Length = getUTF8ExpectedLength(currentByte);
+        if(currentByte >= 0) {
+            // single byte ASCII, by far the most common case in a dump file
+            bufferPosition++;
+            streamPosition++;
+            return (char) currentByte;
+        }
+
+        return readMultiByteChar(currentByte);
+    }
+
+    /**
+     * Decodes a multi-byte UTF-8 sequence one byte at a time, so that a
+     * sequence which straddles a {@link #refill()} is decoded correctly.
+     * Code points outside the BMP are returned as a surrogate pair over
+     * two consecutive calls to {@link #readChar()}.
+     */
+    private char readMultiByteChar(byte leadByte) throws IOException {
+        int expectedUtf8Length = getUTF8ExpectedLength(leadByte);
         if(expectedUtf8Length == 0) {
             throw new UnsupportedEncodingException("Svn log message is not UTF8 or ASCII encoded.");
         }
 
-        byte[] rawBytes = new byte[expectedUtf8Length];
-        System.arraycopy(buffer, bufferPosition, rawBytes, 0, expectedUtf8Length);
-        char c = new String(rawBytes, StandardCharsets.UTF_8).charAt(0);
+        boolean malformed = expectedUtf8Length > 4;
+        int codePoint = leadByte & (0x7F >> expectedUtf8Length);
+        bufferPosition++;
+        streamPosition++;
+
+        for(int i = 1; i < expectedUtf8Length; i++) {
+            if (bufferPosition >= bufferLength)
+                refill();
 
-        streamPosition += expectedUtf8Length;
-        bufferPosition += expectedUtf8Length;
-        return c;
+            byte continuationByte = buffer[bufferPosition];
+            if((continuationByte & 0b11000000) != 0b10000000) {
+                malformed = true;
+            }
+            codePoint = (codePoint << 6) | (continuationByte & 0b00111111);
+            bufferPosition++;
+            streamPosition++;
+        }
+
+        if(malformed || !Character.isValidCodePoint(codePoint)) {
+            return REPLACEMENT_CHARACTER;
+        }
+
+        if(Character.isSupplementaryCodePoint(codePoint)) {
+            pendingLowSurrogate = Character.lowSurrogate(codePoint);
+            return Character.highSurrogate(codePoint);
+        }
+
+        return (char) codePoint;
     }
 
     public byte[] readBytes(int length) throws IOException {
         byte[] localBuffer = new byte[length];
+        readBytes(localBuffer, length);
+        return localBuffer;
+    }
 
+    /**
+     * Reads the next <code>length</code> bytes into the start of the given array.
+     */
+    public void readBytes(byte[] localBuffer, int length) throws IOException {
         // the number of chars already in the buffer
         int bufferedCharsLength = bufferLength - bufferPosition;
 
@@ -101,7 +155,40 @@ public final class SvnDumpCharStream implements CharStream {
         }
 
         streamPosition += length;
-        return localBuffer;
+    }
+
+    /**
+     * Steps over the next <code>length</code> bytes, using {@link InputStream#skip(long)}
+     * for the bytes that aren't buffered yet.
+     */
+    public void skipBytes(long length) throws IOException {
+        // the number of chars already in the buffer
+        int bufferedCharsLength = bufferLength - bufferPosition;
+
+        if(bufferedCharsLength >= length) {
+            bufferPosition += (int) length;
+            tokenStart = bufferPosition;
+        } else {
+            long bytesLeft = length - bufferedCharsLength;
+
+            // clear buffer
+            tokenStart = 0;
+            bufferPosition = 0;
+            bufferLength = 0;
+
+            while(bytesLeft > 0) {
+                long bytesSkipped = inputStream.skip(bytesLeft);
+                if(bytesSkipped <= 0) {
+                    if(inputStream.read() == -1) {
+                        throw new IOException("read past eof");
+                    }
+                    bytesSkipped = 1;
+                }
+                bytesLeft -= bytesSkipped;
+            }
+        }
+
+        streamPosition += length;
     }
 
     // Adapted from: http://stackoverflow.com/a/28892327
@@ -130,7 +217,7 @@ public final class SvnDumpCharStream implements CharStream {
             if (buffer == null) {        // first time: alloc buffer
                 buffer = new byte[INITIAL_BUFFER_LENGTH];
             } else if (bufferLength == buffer.length) { // grow buffer
-                byte[] newBuffer = new byte[Math.max(buffer.length*2, Integer.MAX_VALUE - 5)];
+                byte[] newBuffer = new byte[(int) Math.min(buffer.length * 2L, Integer.MAX_VALUE - 5)];
                 System.arraycopy(buffer, 0, newBuffer, 0, bufferLength);
                 buffer = newBuffer;
             }
@@ -159,6 +246,7 @@ public final class SvnDumpCharStream implements CharStream {
 
     @Override
     public final void backup(int amount) {
+        pendingLowSurrogate = 0;
         streamPosition -= amount;
         bufferPosition -= amount;
         assert bufferPosition > 0;
@@ -167,14 +255,14 @@ public final class SvnDumpCharStream implements CharStream {
 
     @Override
     public final String GetImage() {
-        return new String(buffer, tokenStart, bufferPosition - tokenStart);
+        return new String(buffer, tokenStart, bufferPosition - tokenStart, StandardCharsets.UTF_8);
     }
 
     @Override
     public final char[] GetSuffix(int len) {
         byte[] value = new byte[len];
         System.arraycopy(buffer, bufferPosition - len, value, 0, len);
-        return new String(value).toCharArray();
+        return new String(value, StandardCharsets.UTF_8).toCharArray();
     }
 
     @Override
@@ -1,12 +1,15 @@
 package com.github.cstroe.svndumpgui.internal.utility.range;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
 
-public class MultiSpan implements Cloneable, Collection<Span> {
+public class MultiSpan implements Cloneable, Collection<Span>, Serializable {
+    private static final long serialVersionUID = 1L;
+
     private List<Span> spans = new ArrayList<>();
 
     public MultiSpan() {}
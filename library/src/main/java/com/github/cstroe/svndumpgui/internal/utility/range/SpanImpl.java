@@ -1,6 +1,10 @@
 package com.github.cstroe.svndumpgui.internal.utility.range;
 
-public class SpanImpl implements Span {
+import java.io.Serializable;
+
+public class SpanImpl implements Span, Serializable {
+    private static final long serialVersionUID = 1L;
+
     private int low;
     private int high;
 
@@ -1,11 +1,14 @@
 package com.github.cstroe.svndumpgui.internal.utility.tree;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
-public class CLTreeNodeImpl<T> implements CLTreeNode<T> {
+public class CLTreeNodeImpl<T> implements CLTreeNode<T>, Serializable {
+    private static final long serialVersionUID = 1L;
+
     private List<CLTreeNode<T>> children = new ArrayList<>();
     final T objectInside;
 
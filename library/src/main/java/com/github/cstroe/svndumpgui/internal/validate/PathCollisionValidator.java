@@ -1,22 +1,43 @@
 package com.github.cstroe.svndumpgui.internal.validate;
 
+import com.github.cstroe.svndumpgui.api.CheckpointableConsumer;
+import com.github.cstroe.svndumpgui.api.ConsumerInterest;
 import com.github.cstroe.svndumpgui.api.Node;
+import com.github.cstroe.svndumpgui.api.NodeAction;
 import com.github.cstroe.svndumpgui.api.NodeHeader;
+import com.github.cstroe.svndumpgui.api.NodeKind;
 import com.github.cstroe.svndumpgui.api.RepositoryValidationError;
 import com.github.cstroe.svndumpgui.api.Revision;
+import com.github.cstroe.svndumpgui.api.SelectiveConsumer;
 import com.github.cstroe.svndumpgui.internal.utility.Pair;
 
+import java.io.Serializable;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
-public class PathCollisionValidator extends AbstractRepositoryValidator {
+public class PathCollisionValidator extends AbstractRepositoryValidator implements SelectiveConsumer, CheckpointableConsumer {
     private RepositoryValidationError error = null;
 
-    private Map<Integer, Map<String, Pair<Integer, Node>>> revisionSnapshots = new HashMap<>();
+    private HashMap<Integer, Map<String, Pair<Integer, Node>>> revisionSnapshots = new HashMap<>();
     private Revision previousRevision = null;
 
+    private static class State implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final RepositoryValidationError error;
+        private final HashMap<Integer, Map<String, Pair<Integer, Node>>> revisionSnapshots;
+        private final Revision previousRevision;
+
+        private State(RepositoryValidationError error, HashMap<Integer, Map<String, Pair<Integer, Node>>> revisionSnapshots, Revision previousRevision) {
+            this.error = error;
+            this.revisionSnapshots = revisionSnapshots;
+            this.previousRevision = previousRevision;
+        }
+    }
+
     @Override
     public void consume(Revision revision) {
         if(error != null) {
@@ -50,13 +71,13 @@ public class PathCollisionValidator extends AbstractRepositoryValidator {
         Map<String, Pair<Integer, Node>> currentRevisionPaths =
                 revisionSnapshots.get(revision.getNumber());
         
-        final String action = node.get(NodeHeader.ACTION);
-        final String kind = node.get(NodeHeader.KIND);
+        final NodeAction action = node.getAction();
+        final NodeKind kind = node.getKind();
         final String path = node.get(NodeHeader.PATH);
-        final String copyFromRevision = node.get(NodeHeader.COPY_FROM_REV);
+        final int copyFromRevision = node.getCopyFromRevision();
         final String copyFromPath = node.get(NodeHeader.COPY_FROM_PATH);
 
-        if("add".equals(action)) {
+        if(action == NodeAction.ADD) {
             if(currentRevisionPaths.containsKey(path)) {
                 String message = "Error at revision " + revision.getNumber() + "\n" +
                         "adding " + path + "\n" +
@@ -66,8 +87,8 @@ public class PathCollisionValidator extends AbstractRepositoryValidator {
                 error = new RepositoryValidationErrorImpl(message, revision.getNumber(), node);
             }
 
-            if(copyFromRevision != null) {
-                Map sourceSnapshot = revisionSnapshots.get(Integer.parseInt(copyFromRevision));
+            if(copyFromRevision != -1) {
+                Map sourceSnapshot = revisionSnapshots.get(copyFromRevision);
                 if(!sourceSnapshot.containsKey(copyFromPath)) {
                     String message = "Error at revision " + revision.getNumber() + "\n" +
                             "adding " + path + "\n" +
@@ -79,17 +100,17 @@ public class PathCollisionValidator extends AbstractRepositoryValidator {
 
             currentRevisionPaths.put(path, Pair.of(revision.getNumber(), node));
 
-            if ("dir".equals(kind) && copyFromRevision != null) {
+            if (kind == NodeKind.DIR && copyFromRevision != -1) {
                 // add sub paths also
                 final String oldPrefix = copyFromPath + "/";
                 final String newPrefix = path + "/";
-                Set<String> subPaths = getSubPaths(revisionSnapshots.get(Integer.parseInt(copyFromRevision)).keySet(), copyFromPath);
+                Set<String> subPaths = getSubPaths(revisionSnapshots.get(copyFromRevision).keySet(), copyFromPath);
                 for (String subPath : subPaths) {
                     final String newSubPath = newPrefix + subPath.substring(oldPrefix.length());
                     currentRevisionPaths.put(newSubPath, Pair.of(revision.getNumber(), node));
                 }
             }
-        } else if("delete".equals(action)) {
+        } else if(action == NodeAction.DELETE) {
             if(!currentRevisionPaths.containsKey(path)) {
                 String message = "Error at revision " + revision.getNumber() + "\n" +
                         "deleting " + path + "\n" +
@@ -109,6 +130,19 @@ public class PathCollisionValidator extends AbstractRepositoryValidator {
         super.consume(node);
     }
 
+    @Override
+    public Serializable saveState() {
+        return new State(error, revisionSnapshots, previousRevision);
+    }
+
+    @Override
+    public void restoreState(Serializable state) {
+        State saved = (State) state;
+        error = saved.error;
+        revisionSnapshots = saved.revisionSnapshots;
+        previousRevision = saved.previousRevision;
+    }
+
     @Override
     public boolean isValid() {
         return error == null;
@@ -134,4 +168,9 @@ public class PathCollisionValidator extends AbstractRepositoryValidator {
 
         return subPaths;
     }
+
+    @Override
+    public Set<ConsumerInterest> getInterests() {
+        return EnumSet.noneOf(ConsumerInterest.class);
+    }
 }
@@ -3,7 +3,11 @@ package com.github.cstroe.svndumpgui.internal.validate;
 import com.github.cstroe.svndumpgui.api.Node;
 import com.github.cstroe.svndumpgui.api.RepositoryValidationError;
 
-public class RepositoryValidationErrorImpl implements RepositoryValidationError {
+import java.io.Serializable;
+
+public class RepositoryValidationErrorImpl implements RepositoryValidationError, Serializable {
+    private static final long serialVersionUID = 1L;
+
     private final String message;
     private final int revision;
     private final Node node;
@@ -14,7 +14,14 @@ public abstract class AbstractRepositoryWriter extends AbstractRepositoryConsume
         if(os == null) {
             throw new IllegalArgumentException("Cannot write to null output stream.");
         }
-        this.ps = new SimplePrintStream(os);
+        this.ps = createPrintStream(os);
+    }
+
+    /**
+     * Makes the stream that {@link #ps()} returns, which writes to the given one.
+     */
+    protected SimplePrintStream createPrintStream(OutputStream os) {
+        return new SimplePrintStream(os);
     }
 
     public SimplePrintStream ps() {
@@ -1,12 +1,15 @@
 package com.github.cstroe.svndumpgui.internal.writer;
 
+import com.github.cstroe.svndumpgui.api.ConsumerInterest;
 import com.github.cstroe.svndumpgui.api.Property;
 import com.github.cstroe.svndumpgui.api.Revision;
+import com.github.cstroe.svndumpgui.api.SelectiveConsumer;
 
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Set;
 
-public class RepositoryAuthors extends AbstractRepositoryWriter {
+public class RepositoryAuthors extends AbstractRepositoryWriter implements SelectiveConsumer {
     private Set<String> authors = new HashSet<>();
 
     @Override
@@ -18,4 +21,9 @@ public class RepositoryAuthors extends AbstractRepositoryWriter {
         }
         super.consume(revision);
     }
+
+    @Override
+    public Set<ConsumerInterest> getInterests() {
+        return EnumSet.of(ConsumerInterest.REVISION_PROPERTIES);
+    }
 }
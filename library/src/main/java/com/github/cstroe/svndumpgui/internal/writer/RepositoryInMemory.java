@@ -46,13 +46,15 @@ public class RepositoryInMemory extends AbstractRepositoryWriter {
 
     @Override
     public void endNode(Node node) {
+        // the parsers count the trailing newlines after the node was consumed
+        currentNode.setTrailingNewlines(node.getTrailingNewlines());
         currentNode = null;
         super.endNode(node);
     }
 
     @Override
     public void consume(ContentChunk chunk) {
-        currentNode.addFileContentChunk(chunk);
+        currentNode.addFileContentChunk(chunk.retain());
         super.consume(chunk);
     }
 
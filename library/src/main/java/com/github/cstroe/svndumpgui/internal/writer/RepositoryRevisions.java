@@ -1,8 +1,13 @@
 package com.github.cstroe.svndumpgui.internal.writer;
 
+import com.github.cstroe.svndumpgui.api.ConsumerInterest;
 import com.github.cstroe.svndumpgui.api.Revision;
+import com.github.cstroe.svndumpgui.api.SelectiveConsumer;
 
-public class RepositoryRevisions extends AbstractRepositoryWriter {
+import java.util.EnumSet;
+import java.util.Set;
+
+public class RepositoryRevisions extends AbstractRepositoryWriter implements SelectiveConsumer {
 
     @Override
     public void consume(Revision revision) {
@@ -11,4 +16,9 @@ public class RepositoryRevisions extends AbstractRepositoryWriter {
         ps().println(".");
         super.consume(revision);
     }
+
+    @Override
+    public Set<ConsumerInterest> getInterests() {
+        return EnumSet.noneOf(ConsumerInterest.class);
+    }
 }
@@ -1,10 +1,15 @@
 package com.github.cstroe.svndumpgui.internal.writer;
 
+import com.github.cstroe.svndumpgui.api.ConsumerInterest;
 import com.github.cstroe.svndumpgui.api.Node;
 import com.github.cstroe.svndumpgui.api.Property;
 import com.github.cstroe.svndumpgui.api.Revision;
+import com.github.cstroe.svndumpgui.api.SelectiveConsumer;
 
-public class RepositorySummary extends AbstractRepositoryWriter {
+import java.util.EnumSet;
+import java.util.Set;
+
+public class RepositorySummary extends AbstractRepositoryWriter implements SelectiveConsumer {
     private static final int NOT_SET = -1;
 
     private int firstEmptyRevision = NOT_SET;
@@ -66,4 +71,9 @@ public class RepositorySummary extends AbstractRepositoryWriter {
 
         revisionHeaderPrinted = true;
     }
+
+    @Override
+    public Set<ConsumerInterest> getInterests() {
+        return EnumSet.of(ConsumerInterest.REVISION_PROPERTIES);
+    }
 }
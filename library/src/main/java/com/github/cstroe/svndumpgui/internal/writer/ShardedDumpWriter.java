@@ -0,0 +1,433 @@
+package com.github.cstroe.svndumpgui.internal.writer;
+
+import com.github.cstroe.svndumpgui.api.ContentChunk;
+import com.github.cstroe.svndumpgui.api.Node;
+import com.github.cstroe.svndumpgui.api.Preamble;
+import com.github.cstroe.svndumpgui.api.Revision;
+import com.github.cstroe.svndumpgui.internal.NodeHeaderMap;
+import com.github.cstroe.svndumpgui.internal.SimplePrintStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Splits a dump into files of consecutive revisions, in one pass.  Every
+ * shard starts with the preamble, like the dumps of
+ * <code>svnadmin dump --incremental</code>, so the shards can be loaded into
+ * the same repository one after the other.
+ *
+ * A new shard is started at a revision when the current one has
+ * {@link #setRevisionsPerShard(int) enough revisions}, has grown to
+ * {@link #setBytesPerShard(long) enough bytes}, or when the revision is one of
+ * the {@link #setBoundaries(int...) boundaries}.  The shards are named
+ * <code>prefix-00000.dump</code>, <code>prefix-00001.dump</code> and so on.
+ *
+ * When the dump is finished, a manifest is written with a line for each
+ * shard: its name, first and last revision, length and SHA1 sum, separated
+ * by tabs.  It goes to the stream given to {@link #writeTo(OutputStream)}, or
+ * to <code>prefix.manifest</code> next to the shards.
+ */
+public class ShardedDumpWriter extends AbstractRepositoryWriter {
+    public static final int DEFAULT_QUEUE_SIZE = 1024;
+
+    private final Path directory;
+    private final String prefix;
+
+    private int revisionsPerShard = 0;
+    private long bytesPerShard = 0;
+    private Set<Integer> boundaries = Collections.emptySet();
+    private int queueSize = 0;
+
+    private Preamble preamble = null;
+    private Shard shard = null;
+    private final List<Shard> shards = new ArrayList<>();
+
+    public ShardedDumpWriter(Path directory, String prefix) {
+        if(directory == null || prefix == null) {
+            throw new IllegalArgumentException("The shards need a directory and a prefix.");
+        }
+        this.directory = directory;
+        this.prefix = prefix;
+    }
+
+    /**
+     * @param revisions the most revisions in a shard, or 0 for no limit
+     */
+    public void setRevisionsPerShard(int revisions) {
+        if(revisions < 0) {
+            throw new IllegalArgumentException("The number of revisions per shard cannot be negative.");
+        }
+        this.revisionsPerShard = revisions;
+    }
+
+    /**
+     * A shard ends with the first revision that makes it at least this long,
+     * since revisions are not split.
+     *
+     * @param bytes the length at which a shard ends, or 0 for no limit
+     */
+    public void setBytesPerShard(long bytes) {
+        if(bytes < 0) {
+            throw new IllegalArgumentException("The number of bytes per shard cannot be negative.");
+        }
+        this.bytesPerShard = bytes;
+    }
+
+    /**
+     * @param firstRevisions the revisions that start a new shard
+     */
+    public void setBoundaries(int... firstRevisions) {
+        Set<Integer> boundaries = new TreeSet<>();
+        for(int revision : firstRevisions) {
+            boundaries.add(revision);
+        }
+        this.boundaries = boundaries;
+    }
+
+    /**
+     * @see #setBackground(int)
+     */
+    public void setBackground(boolean background) {
+        setBackground(background ? DEFAULT_QUEUE_SIZE : 0);
+    }
+
+    /**
+     * Writes each shard on its own thread, with its own buffer, so that the
+     * parser only hands the events over.  The content of the events must not
+     * change after they are consumed, and chunks are retained, see
+     * {@link ContentChunk#retain()}.
+     *
+     * A shard is measured as its thread writes it, so with
+     * {@link #setBytesPerShard(long)} a shard may run over by the revisions
+     * that were waiting to be written.
+     *
+     * @param queueSize how many events may wait for each thread, or 0 to write on the calling thread
+     */
+    public void setBackground(int queueSize) {
+        if(queueSize < 0) {
+            throw new IllegalArgumentException("The queue size cannot be negative.");
+        }
+        this.queueSize = queueSize;
+    }
+
+    /**
+     * @return the shards written so far, which are complete once the dump is finished
+     */
+    public List<Shard> getShards() {
+        return Collections.unmodifiableList(shards);
+    }
+
+    @Override
+    public void consume(Preamble preamble) {
+        this.preamble = preamble;
+        super.consume(preamble);
+    }
+
+    @Override
+    public void consume(Revision revision) {
+        if(shard != null && endsShard(revision.getNumber())) {
+            shard.close();
+            shard = null;
+        }
+        if(shard == null) {
+            shard = new Shard(String.format("%s-%05d.dump", prefix, shards.size()), revision.getNumber());
+            shards.add(shard);
+            shard.open(directory, preamble, queueSize);
+        }
+        shard.lastRevision = revision.getNumber();
+        shard.revisions++;
+        shard.submit(writer -> writer.consume(revision));
+        super.consume(revision);
+    }
+
+    private boolean endsShard(int revision) {
+        return (revisionsPerShard > 0 && shard.revisions >= revisionsPerShard) ||
+                (bytesPerShard > 0 && shard.written >= bytesPerShard) ||
+                boundaries.contains(revision);
+    }
+
+    @Override
+    public void endRevision(Revision revision) {
+        Shard current = shard;
+        current.submit(writer -> {
+            writer.endRevision(revision);
+            current.written = writer.ps().getBytesWritten();
+        });
+        super.endRevision(revision);
+    }
+
+    @Override
+    public void consume(Node node) {
+        shard.submit(writer -> writer.consume(node));
+        super.consume(node);
+    }
+
+    @Override
+    public void consume(ContentChunk chunk) {
+        ContentChunk handedOver = queueSize > 0 ? chunk.retain() : chunk;
+        shard.submit(writer -> writer.consume(handedOver));
+        super.consume(chunk);
+    }
+
+    @Override
+    public void endChunks() {
+        shard.submit(SvnDumpWriter::endChunks);
+        super.endChunks();
+    }
+
+    @Override
+    public void endNode(Node node) {
+        shard.submit(writer -> writer.endNode(node));
+        super.endNode(node);
+    }
+
+    @Override
+    public void finish() {
+        if(shard != null) {
+            shard.close();
+            shard = null;
+        }
+        // every thread is done before the first failure is raised
+        RuntimeException failure = null;
+        for(Shard written : shards) {
+            try {
+                written.await();
+            } catch(RuntimeException ex) {
+                if(failure == null) {
+                    failure = ex;
+                }
+            }
+        }
+        if(failure != null) {
+            throw failure;
+        }
+
+        if(ps() == null) {
+            try(OutputStream manifest = Files.newOutputStream(directory.resolve(prefix + ".manifest"))) {
+                writeManifest(new SimplePrintStream(manifest));
+            } catch(IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        } else {
+            writeManifest(ps());
+        }
+        super.finish();
+    }
+
+    private void writeManifest(SimplePrintStream manifest) {
+        for(Shard written : shards) {
+            manifest.println(written.name + "\t" + written.firstRevision + "\t" + written.lastRevision + "\t" + written.length + "\t" + written.sha1);
+        }
+        manifest.flush();
+    }
+
+    /**
+     * A file of consecutive revisions.
+     */
+    public static class Shard {
+        // what a writer thread takes to mean that the shard is closed
+        private static final Consumer<SvnDumpWriter> END = writer -> {};
+
+        private final String name;
+        private final int firstRevision;
+        private int lastRevision;
+        private int revisions = 0;
+
+        // what was written as of the last revision, by the thread that writes it
+        private volatile long written = 0;
+        private long length;
+        private String sha1;
+
+        private Path file;
+        private FileChannel channel;
+        private SvnDumpWriter writer;
+
+        private BlockingQueue<Consumer<SvnDumpWriter>> queue = null;
+        private Thread thread = null;
+        private volatile Throwable failure = null;
+
+        private Shard(String name, int firstRevision) {
+            this.name = name;
+            this.firstRevision = firstRevision;
+            this.lastRevision = firstRevision;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getFirstRevision() {
+            return firstRevision;
+        }
+
+        public int getLastRevision() {
+            return lastRevision;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * @return the SHA1 sum of the file, in hex
+         */
+        public String getSha1() {
+            return sha1;
+        }
+
+        private void open(Path directory, Preamble preamble, int queueSize) {
+            file = directory.resolve(name);
+            try {
+                channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            } catch(IOException ex) {
+                throw new RuntimeException(ex);
+            }
+            writer = new SvnDumpWriter();
+            writer.writeTo(channel);
+
+            if(queueSize > 0) {
+                queue = new ArrayBlockingQueue<>(queueSize);
+                thread = new Thread(this::run, "svndump-shard-writer-" + name);
+                thread.setDaemon(true);
+                thread.start();
+            }
+            if(preamble != null) {
+                submit(writer -> writer.consume(preamble));
+            }
+        }
+
+        private void submit(Consumer<SvnDumpWriter> event) {
+            if(queue == null) {
+                try {
+                    event.accept(writer);
+                } catch(RuntimeException | Error ex) {
+                    closeChannel();
+                    throw ex;
+                }
+                return;
+            }
+            if(failure != null) {
+                throw new RuntimeException("Could not write " + name + ".", failure);
+            }
+            try {
+                queue.put(event);
+            } catch(InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(ex);
+            }
+        }
+
+        /**
+         * Takes events until the shard is closed.  After an event fails, the
+         * rest are taken without being written, so that whoever hands them
+         * over is never left waiting for room in the queue.
+         */
+        private void run() {
+            while(true) {
+                Consumer<SvnDumpWriter> event;
+                try {
+                    event = queue.take();
+                } catch(InterruptedException ex) {
+                    fail(ex);
+                    continue;
+                }
+                if(event == END) {
+                    return;
+                }
+                if(failure == null) {
+                    try {
+                        event.accept(writer);
+                    } catch(Throwable ex) {
+                        fail(ex);
+                    }
+                }
+            }
+        }
+
+        private void fail(Throwable ex) {
+            if(failure == null) {
+                failure = ex;
+                closeChannel();
+            }
+        }
+
+        private void closeChannel() {
+            try {
+                channel.close();
+            } catch(IOException ex) {
+                // the failure that made us close it is the one to report
+            }
+        }
+
+        /**
+         * Finishes the file and sums it up, on the thread that writes it.
+         */
+        private void close() {
+            submit(writer -> {
+                writer.finish();
+                try {
+                    channel.close();
+                    length = Files.size(file);
+                    sha1 = sha1(file);
+                } catch(IOException ex) {
+                    throw new RuntimeException(ex);
+                }
+            });
+            if(queue != null) {
+                submit(END);
+            }
+        }
+
+        private void await() {
+            if(thread != null) {
+                try {
+                    thread.join();
+                } catch(InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(ex);
+                }
+            }
+            if(failure != null) {
+                throw new RuntimeException("Could not write " + name + ".", failure);
+            }
+        }
+
+        private static String sha1(Path file) throws IOException {
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA1");
+            } catch(NoSuchAlgorithmException ex) {
+                throw new RuntimeException(ex);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(256 * 1024);
+            try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                while(channel.read(buffer) >= 0) {
+                    buffer.flip();
+                    digest.update(buffer);
+                    buffer.clear();
+                }
+            }
+            return NodeHeaderMap.toHex(digest.digest());
+        }
+
+        @Override
+        public String toString() {
+            return name + " r" + firstRevision + "-" + lastRevision;
+        }
+    }
+}
@@ -1,22 +1,187 @@
 package com.github.cstroe.svndumpgui.internal.writer;
 
+import com.github.cstroe.svndumpgui.api.CheckpointableConsumer;
 import com.github.cstroe.svndumpgui.api.ContentChunk;
 import com.github.cstroe.svndumpgui.api.Node;
+import com.github.cstroe.svndumpgui.api.NodeKind;
 import com.github.cstroe.svndumpgui.api.Preamble;
 import com.github.cstroe.svndumpgui.api.NodeHeader;
-import com.github.cstroe.svndumpgui.api.Property;
 import com.github.cstroe.svndumpgui.api.Revision;
+import com.github.cstroe.svndumpgui.internal.BufferedPrintStream;
+import com.github.cstroe.svndumpgui.internal.FileRegionContentChunk;
+import com.github.cstroe.svndumpgui.internal.LazyPropertyMap;
+import com.github.cstroe.svndumpgui.internal.NodeHeaderMap;
+import com.github.cstroe.svndumpgui.internal.NodeImpl;
+import com.github.cstroe.svndumpgui.internal.RevisionImpl;
 import com.github.cstroe.svndumpgui.internal.SimplePrintStream;
+import com.github.cstroe.svndumpgui.internal.delta.SvndiffEncoder;
+import com.github.cstroe.svndumpgui.internal.delta.TextCache;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
-public class SvnDumpWriter extends AbstractRepositoryWriter {
+public class SvnDumpWriter extends AbstractRepositoryWriter implements CheckpointableConsumer {
+    private static final byte[] EMPTY = new byte[0];
+
+    // what is written for every node and property, encoded once
+    private static final byte[][] HEADERS = new byte[NodeHeader.values().length][];
+    private static final byte[] REVISION_NUMBER = "Revision-number: ".getBytes();
+    private static final byte[] PROP_CONTENT_LENGTH = NodeHeader.PROP_CONTENT_LENGTH.toString().getBytes();
+    private static final byte[] CONTENT_LENGTH = NodeHeader.CONTENT_LENGTH.toString().getBytes();
+    private static final byte[] KEY = "K ".getBytes();
+    private static final byte[] VALUE = "V ".getBytes();
+    private static final byte[] PROPS_END = "PROPS-END".getBytes();
+
+    static {
+        for(NodeHeader header : NodeHeader.values()) {
+            HEADERS[header.ordinal()] = header.toString().getBytes();
+        }
+    }
+
+    // the file being written, when the writer can be checkpointed
+    private FileChannel channel = null;
+    // the length of the file when this writer started writing to it
+    private long base = 0;
+
+    // the previous texts of files, when writing deltas
+    private TextCache texts = null;
+    private SvndiffEncoder encoder = null;
+
+    private int revision;
+
+    // the node whose text is being collected, to write its delta, and the text it is made against
+    private Node deltaNode = null;
+    private ByteArrayOutputStream deltaText = null;
+    private TextCache.Text deltaSource = null;
+
+    // the node whose text is written as it comes, and collected for later deltas
+    private Node cachedNode = null;
+    private ByteArrayOutputStream cachedText = null;
+
+    /**
+     * Writes the texts of files as deltas against their previous texts, in a
+     * version 3 dump, like <code>svnadmin dump --deltas</code>.
+     *
+     * @see #setDeltas(TextCache, SvndiffEncoder)
+     */
+    public void setDeltas(boolean deltas) {
+        if(deltas) {
+            setDeltas(new TextCache(), new SvndiffEncoder());
+        } else {
+            setDeltas(null, null);
+        }
+    }
+
+    /**
+     * Writes the texts of files as deltas against their previous texts, which
+     * are kept in the given cache.  A text is written in full when its delta
+     * is not smaller, as it happens with most binary files, or when its
+     * previous text is no longer in the cache.  Only the texts that fit in
+     * the cache are held in memory, a larger one is written as it comes.
+     *
+     * @param texts the previous texts of files, or null to write full texts
+     * @param encoder makes the deltas, with the window size and version of svndiff to write
+     */
+    public void setDeltas(TextCache texts, SvndiffEncoder encoder) {
+        if((texts == null) != (encoder == null)) {
+            throw new IllegalArgumentException("Deltas need both a text cache and an encoder.");
+        }
+        this.texts = texts;
+        this.encoder = encoder;
+    }
+
+    /**
+     * Output is buffered, and only reaches the stream when the buffer fills
+     * up, at {@link #finish()}, at a checkpoint or when {@link #ps()} is flushed.
+     */
+    @Override
+    protected SimplePrintStream createPrintStream(OutputStream os) {
+        return new BufferedPrintStream(os);
+    }
+
+    @Override
+    public void writeTo(OutputStream os) {
+        super.writeTo(os);
+        this.channel = null;
+        this.base = 0;
+    }
+
+    /**
+     * Writes to a file, at the current position of the channel.  Unlike
+     * other outputs, a file can be cut back to the length it had at a
+     * checkpoint, so only a writer to a file can resume.  Content that was
+     * parsed as {@link FileRegionContentChunk}s is copied from file to file
+     * by the operating system.
+     */
+    public void writeTo(FileChannel channel) {
+        if(channel == null) {
+            throw new IllegalArgumentException("Cannot write to null channel.");
+        }
+        try {
+            this.base = channel.position();
+        } catch(IOException ex) {
+            throw new RuntimeException(ex);
+        }
+        super.writeTo(Channels.newOutputStream(channel));
+        ps().setChannel(channel);
+        this.channel = channel;
+    }
+
+    /**
+     * @return the length of the output, which is forced to the disk first when it is a file
+     */
+    @Override
+    public Serializable saveState() {
+        if(texts != null) {
+            throw new IllegalStateException("A writer of deltas cannot be checkpointed, since the previous texts are not saved.");
+        }
+        ps().flush();
+        try {
+            if(channel != null) {
+                channel.force(false);
+            }
+        } catch(IOException ex) {
+            throw new RuntimeException(ex);
+        }
+        return base + ps().getBytesWritten();
+    }
+
+    /**
+     * Cuts the file back to the length it had at the checkpoint, dropping
+     * whatever was written after it, and continues writing from there.
+     */
+    @Override
+    public void restoreState(Serializable state) {
+        if(channel == null) {
+            throw new IllegalStateException("Only a writer to a file can resume, see writeTo(FileChannel).");
+        }
+        long length = (Long) state;
+        try {
+            if(channel.size() < length) {
+                throw new IllegalStateException("The output has " + channel.size() + " bytes, but it had " + length + " at the checkpoint.");
+            }
+            channel.truncate(length);
+            channel.position(length);
+        } catch(IOException ex) {
+            throw new RuntimeException(ex);
+        }
+        writeTo(channel);
+    }
 
     @Override
     public void consume(Preamble preamble) {
-        ps().println("SVN-fs-dump-format-version: 2\n");
+        ps().println(texts == null ? "SVN-fs-dump-format-version: 2\n" : "SVN-fs-dump-format-version: 3\n");
         if(preamble.getUUID() != null) {
             ps().print("UUID: ");
             ps().println(preamble.getUUID());
@@ -28,76 +193,228 @@ public class SvnDumpWriter extends AbstractRepositoryWriter {
 
     @Override
     public void consume(Revision revision) {
-        ps().print("Revision-number: ");
+        this.revision = revision.getNumber();
+        ByteBuffer raw = texts == null && revision instanceof RevisionImpl ? ((RevisionImpl) revision).getRawRecord() : null;
+        if(raw != null) {
+            ps().write(raw);
+            ps().println();
+            super.consume(revision);
+            return;
+        }
+
+        ps().print(REVISION_NUMBER);
         ps().println(revision.getNumber());
 
-        // properties are created here so that we can fill in the header values correctly
-        ByteArrayOutputStream properties = new ByteArrayOutputStream();
-        writeProperties(new SimplePrintStream(properties), revision.getProperties());
-        int propertiesLength = properties.size();
+        // properties are encoded first so that we can fill in the header values correctly
+        List<byte[]> properties = encodeProperties(revision.getProperties());
+        int propertiesLength = propertiesLength(properties);
 
-        ps().print("Prop-content-length: ");
+        ps().print(PROP_CONTENT_LENGTH);
         ps().println(propertiesLength);
-        ps().print("Content-length: ");
+        ps().print(CONTENT_LENGTH);
         ps().println(propertiesLength);
         ps().println();
 
-        ps().print(properties.toString());
+        writeProperties(properties);
         ps().println();
 
         super.consume(revision);
     }
 
-    private void writeProperties(SimplePrintStream ps, Map<String, String> properties) {
+    /**
+     * @return the keys and values of the properties, one after the other, or null when there are none
+     */
+    private static List<byte[]> encodeProperties(Map<String, String> properties) {
+        if(properties == null) {
+            return null;
+        }
+        List<byte[]> encoded = new ArrayList<>(properties.size() * 2);
+        if(properties instanceof LazyPropertyMap) {
+            // values that nobody changed are written as they were read, without being decoded
+            LazyPropertyMap lazyProperties = (LazyPropertyMap) properties;
+            for(String key : lazyProperties.keySet()) {
+                byte[] value = lazyProperties.getRaw(key);
+                encoded.add(key.getBytes());
+                encoded.add(value != null ? value : lazyProperties.get(key).getBytes());
+            }
+        } else {
+            for(Map.Entry<String, String> entry : properties.entrySet()) {
+                encoded.add(entry.getKey().getBytes());
+                encoded.add(entry.getValue().getBytes());
+            }
+        }
+        return encoded;
+    }
+
+    /**
+     * @return the length of the properties as {@link #writeProperties(List)} writes them
+     */
+    private int propertiesLength(List<byte[]> properties) {
+        if(properties == null) {
+            return 0;
+        }
+        int lineSeparator = ps().getLineSeparator().getBytes().length;
+        int length = PROPS_END.length + lineSeparator;
+        for(int i = 0; i < properties.size(); i++) {
+            int propertyLength = properties.get(i).length;
+            length += KEY.length + Integer.toString(propertyLength).length() + propertyLength + 2 * lineSeparator;
+        }
+        return length;
+    }
+
+    private void writeProperties(List<byte[]> properties) {
         if(properties == null) {
             return;
         }
-        for(Map.Entry<String, String> entry : properties.entrySet()) {
-            ps.print("K ");
-            ps.println(entry.getKey().getBytes().length);
-            ps.println(entry.getKey());
-            ps.print("V ");
-            ps.println(entry.getValue().getBytes().length);
-            ps.println(entry.getValue());
+        for(int i = 0; i < properties.size(); i++) {
+            byte[] property = properties.get(i);
+            ps().print(i % 2 == 0 ? KEY : VALUE);
+            ps().println(property.length);
+            ps().print(property);
+            ps().println();
         }
-        ps.println("PROPS-END");
-        ps.flush();
+        ps().print(PROPS_END);
+        ps().println();
     }
 
     @Override
     public void consume(Node node) {
-        // headers
-        for(Map.Entry<NodeHeader, String> headerEntry : node.getHeaders().entrySet()) {
-            ps().print(headerEntry.getKey().toString());
-            ps().println(headerEntry.getValue());
+        if(texts != null) {
+            texts.track(node, revision);
+            if(node.isTextDelta()) {
+                texts.setMissing(node.get(NodeHeader.PATH), revision);
+            } else if(node.getTextContentLength() > 0 && node.getKind() != NodeKind.DIR) {
+                String path = node.get(NodeHeader.PATH);
+                long length = node.getTextContentLength();
+                TextCache.Text source = TextCache.hasEmptySource(node) ? null : texts.get(path, revision);
+                if(length > texts.getCapacity() || length > Integer.MAX_VALUE - 8) {
+                    texts.setMissing(path, revision);
+                } else if(TextCache.hasEmptySource(node) || source != null) {
+                    // the headers are written with the length of the delta, once the whole text is here
+                    deltaNode = node;
+                    deltaText = new ByteArrayOutputStream((int) length);
+                    deltaSource = source;
+                    super.consume(node);
+                    return;
+                } else {
+                    // without a source there is no delta to make, but the next one may be made against this text
+                    cachedNode = node;
+                    cachedText = new ByteArrayOutputStream((int) length);
+                }
+            }
         }
-        ps().println();
 
-        // properties
-        if(node.getHeaders().containsKey(NodeHeader.PROP_DELTA)) {
-            writeProperties(ps(), node.getProperties());
-            // write an extra newline when there is no content and properties were written.
-            if(node.get(NodeHeader.TEXT_DELTA) == null || Boolean.parseBoolean(node.get(NodeHeader.TEXT_DELTA)) == true) {
+        ByteBuffer raw = texts == null && node instanceof NodeImpl ? ((NodeImpl) node).getRawRecord() : null;
+        if(raw != null) {
+            // nothing changed the headers or properties, so they are copied as they were parsed
+            ps().write(raw);
+            if(newlineAfterProperties(node)) {
                 ps().println();
             }
+        } else {
+            writeNode(node, node.getHeaders());
         }
+        super.consume(node);
+    }
 
+    private void writeNode(Node node, Map<NodeHeader, String> headers) {
+        for(Map.Entry<NodeHeader, String> headerEntry : headers.entrySet()) {
+            ps().print(HEADERS[headerEntry.getKey().ordinal()]);
+            ps().println(headerEntry.getValue());
+        }
+        ps().println();
+
+        // properties, which are there with or without Prop-delta
         if(node.getHeaders().containsKey(NodeHeader.PROP_CONTENT_LENGTH)) {
-            writeProperties(ps(), node.getProperties());
+            writeProperties(encodeProperties(node.getProperties()));
 
-            // write an extra newline when there is no content and properties were written.
-            if(node.get(NodeHeader.TEXT_CONTENT_LENGTH) == null || Long.parseLong(node.get(NodeHeader.TEXT_CONTENT_LENGTH)) == 0) {
+            if(newlineAfterProperties(node)) {
                 ps().println();
             }
         }
+    }
 
-        super.consume(node);
+    /**
+     * @return true when properties were written and there is no content, which
+     *         is followed by an extra newline
+     */
+    private static boolean newlineAfterProperties(Node node) {
+        return node.getHeaders().containsKey(NodeHeader.PROP_CONTENT_LENGTH) && node.getTextContentLength() <= 0;
+    }
+
+    /**
+     * Writes the node whose text was collected, with the delta of the text
+     * if it is smaller.
+     */
+    private void writeDelta() {
+        Node node = deltaNode;
+        byte[] text = deltaText.toByteArray();
+        TextCache.Text source = deltaSource;
+        deltaNode = null;
+        deltaText = null;
+        deltaSource = null;
+
+        String path = node.get(NodeHeader.PATH);
+        boolean emptySource = source == null;
+        byte[] sourceContent = emptySource ? EMPTY : source.getContent();
+        texts.put(path, revision, text, node.getMd5());
+
+        byte[] delta = encoder.encode(sourceContent, text);
+        if(delta.length >= text.length) {
+            writeNode(node, node.getHeaders());
+            ps().print(text);
+            return;
+        }
+
+        Map<NodeHeader, String> headers = new LinkedHashMap<>();
+        for(Map.Entry<NodeHeader, String> header : node.getHeaders().entrySet()) {
+            switch(header.getKey()) {
+                case TEXT_DELTA:
+                case DELTA_BASE_MD5:
+                case DELTA_BASE_SHA1:
+                    break;
+                case TEXT_CONTENT_LENGTH:
+                    headers.put(NodeHeader.TEXT_DELTA, "true");
+                    if(!emptySource) {
+                        byte[] md5 = source.getMd5() != null ? source.getMd5() : digest("MD5", sourceContent);
+                        headers.put(NodeHeader.DELTA_BASE_MD5, NodeHeaderMap.toHex(md5));
+                        headers.put(NodeHeader.DELTA_BASE_SHA1, NodeHeaderMap.toHex(digest("SHA1", sourceContent)));
+                    }
+                    headers.put(NodeHeader.TEXT_CONTENT_LENGTH, Integer.toString(delta.length));
+                    break;
+                case CONTENT_LENGTH:
+                    headers.put(NodeHeader.CONTENT_LENGTH, Long.toString(Math.max(node.getPropContentLength(), 0) + delta.length));
+                    break;
+                default:
+                    headers.put(header.getKey(), header.getValue());
+            }
+        }
+        writeNode(node, headers);
+        ps().print(delta);
+    }
+
+    private static void write(ByteBuffer content, ByteArrayOutputStream out) {
+        if(content.hasArray()) {
+            out.write(content.array(), content.arrayOffset() + content.position(), content.remaining());
+        } else {
+            byte[] bytes = new byte[content.remaining()];
+            content.duplicate().get(bytes);
+            out.write(bytes, 0, bytes.length);
+        }
+    }
+
+    private static byte[] digest(String algorithm, byte[] content) {
+        try {
+            return MessageDigest.getInstance(algorithm).digest(content);
+        } catch(NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        }
     }
 
     @Override
     public void endNode(Node node) {
-        if(node.getProperties().containsKey(Property.TRAILING_NEWLINE_HINT)) {
-            int numNewlines = Integer.parseInt(node.getProperties().get(Property.TRAILING_NEWLINE_HINT));
+        int numNewlines = node.getTrailingNewlines();
+        if(numNewlines > 0) {
             for(int i = 1; i < numNewlines; i++) {
                 ps().println();
             }
@@ -111,21 +428,49 @@ public class SvnDumpWriter extends AbstractRepositoryWriter {
     public void consume(ContentChunk chunk) {
         if(chunk == null) {
             throw new IllegalArgumentException("Cannot accept null chunks.");
-        } else if(chunk.getContent() == null) {
+        }
+
+        if(deltaNode == null && cachedNode == null && chunk instanceof FileRegionContentChunk && ((FileRegionContentChunk) chunk).isUnread()) {
+            FileRegionContentChunk region = (FileRegionContentChunk) chunk;
+            ps().transferFrom(region.getChannel(), region.getOffset(), region.getLength());
+            super.consume(chunk);
+            return;
+        }
+
+        ByteBuffer content = chunk.getBuffer();
+        if(content == null) {
             throw new IllegalArgumentException("Cannot accept chunks with null content.");
         }
 
-        try {
-            ps().write(chunk.getContent());
-        } catch (IOException ex) {
-            throw new RuntimeException(ex);
+        if(deltaNode != null) {
+            write(content, deltaText);
+        } else {
+            if(cachedNode != null) {
+                write(content, cachedText);
+            }
+            ps().write(content);
         }
         super.consume(chunk);
     }
 
     @Override
     public void endChunks() {
+        if(deltaNode != null) {
+            writeDelta();
+        } else if(cachedNode != null) {
+            texts.put(cachedNode.get(NodeHeader.PATH), revision, cachedText.toByteArray(), cachedNode.getMd5());
+            cachedNode = null;
+            cachedText = null;
+        }
         ps().println();
         super.endChunks();
     }
+
+    @Override
+    public void finish() {
+        if(ps() != null) {
+            ps().flush();
+        }
+        super.finish();
+    }
 }
@@ -0,0 +1,64 @@
+package com.github.cstroe.svndumpgui.api;
+
+import com.github.cstroe.svndumpgui.internal.ByteBufferContentChunk;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class ByteBufferContentChunkTest {
+    @Test(expected = IllegalArgumentException.class)
+    public void dont_allow_null_buffer() {
+        new ByteBufferContentChunk(null);
+    }
+
+    @Test
+    public void content_is_the_remaining_bytes_of_the_buffer() {
+        ByteBuffer buffer = ByteBuffer.wrap("a great chunk".getBytes());
+        buffer.position(2).limit(7);
+
+        ContentChunk chunk = new ByteBufferContentChunk(buffer);
+        assertThat(chunk.getLength(), is(5));
+        assertThat(new String(chunk.getContent()), is(equalTo("great")));
+        assertThat(buffer.position(), is(2));
+    }
+
+    @Test
+    public void buffer_is_a_read_only_view() {
+        ContentChunk chunk = new ByteBufferContentChunk(ByteBuffer.wrap("great".getBytes()));
+
+        ByteBuffer view = chunk.getBuffer();
+        assertThat(view.isReadOnly(), is(true));
+        view.get();
+        assertThat(chunk.getBuffer().remaining(), is(5));
+    }
+
+    @Test
+    public void buffer_follows_changes_to_the_content() {
+        ContentChunk chunk = new ByteBufferContentChunk(ByteBuffer.wrap("great".getBytes()));
+        chunk.getContent()[0] = 'G';
+
+        byte[] viewed = new byte[5];
+        chunk.getBuffer().get(viewed);
+        assertThat(new String(viewed), is(equalTo("Great")));
+
+        chunk.setContent("ok".getBytes());
+        assertThat(chunk.getBuffer().remaining(), is(2));
+        assertThat(chunk.getLength(), is(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void dont_let_anyone_set_null_content() {
+        ContentChunk chunk = new ByteBufferContentChunk(ByteBuffer.allocate(16));
+        chunk.setContent(null);
+    }
+
+    @Test
+    public void toString_should_describe_the_chunk() {
+        assertThat(new ByteBufferContentChunk(ByteBuffer.allocate(0)).toString(), is(equalTo("0 bytes")));
+        assertThat(new ByteBufferContentChunk(ByteBuffer.allocateDirect(999)).toString(), is(equalTo("999 bytes")));
+    }
+}
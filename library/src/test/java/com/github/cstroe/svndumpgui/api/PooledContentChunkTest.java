@@ -0,0 +1,55 @@
+package com.github.cstroe.svndumpgui.api;
+
+import com.github.cstroe.svndumpgui.internal.PooledContentChunk;
+import com.github.cstroe.svndumpgui.internal.utility.ChunkBufferPool;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class PooledContentChunkTest {
+    private static PooledContentChunk chunkOf(ChunkBufferPool pool, String content) {
+        byte[] leased = pool.lease(content.length());
+        System.arraycopy(content.getBytes(), 0, leased, 0, content.length());
+        return new PooledContentChunk(pool, leased, content.length());
+    }
+
+    @Test
+    public void content_is_the_used_part_of_the_leased_array() {
+        ChunkBufferPool pool = new ChunkBufferPool(16, 1024);
+        ContentChunk chunk = chunkOf(pool, "great");
+
+        assertThat(chunk.getLength(), is(5));
+        assertThat(chunk.getBuffer().remaining(), is(5));
+        assertThat(new String(chunk.getContent()), is(equalTo("great")));
+    }
+
+    @Test
+    public void retained_chunk_survives_release() {
+        ChunkBufferPool pool = new ChunkBufferPool(16, 1024);
+        PooledContentChunk chunk = chunkOf(pool, "great");
+
+        ContentChunk retained = chunk.retain();
+        assertThat(retained, is(not(sameInstance((ContentChunk) chunk))));
+        chunk.release();
+        chunkOf(pool, "XXXXX");
+
+        assertThat(new String(retained.getContent()), is(equalTo("great")));
+        assertThat(pool.getHits(), is(1L));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void released_chunk_cannot_be_read() {
+        PooledContentChunk chunk = chunkOf(new ChunkBufferPool(16, 1024), "great");
+        chunk.release();
+        chunk.getBuffer();
+    }
+
+    @Test
+    public void toString_should_describe_the_chunk() {
+        assertThat(chunkOf(new ChunkBufferPool(16, 1024), "great").toString(), is(equalTo("5 bytes")));
+    }
+}
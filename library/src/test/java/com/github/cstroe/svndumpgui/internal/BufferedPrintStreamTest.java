@@ -0,0 +1,54 @@
+package com.github.cstroe.svndumpgui.internal;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class BufferedPrintStreamTest {
+    @Test
+    public void prints_like_a_simple_print_stream() {
+        ByteArrayOutputStream simple = new ByteArrayOutputStream();
+        ByteArrayOutputStream buffered = new ByteArrayOutputStream();
+        for(SimplePrintStream sps : Arrays.asList(new SimplePrintStream(simple), new BufferedPrintStream(buffered, 32))) {
+            sps.print("Node-path: café/");
+            sps.println(0);
+            sps.println(Integer.MAX_VALUE);
+            sps.println(-42);
+            sps.print("a string that does not fit in the buffer");
+            sps.println();
+            sps.print("x".getBytes());
+            sps.write(ByteBuffer.wrap(new byte[100]));
+            sps.write(ByteBuffer.allocateDirect(10));
+            sps.flush();
+        }
+
+        assertThat(buffered.toByteArray(), is(equalTo(simple.toByteArray())));
+    }
+
+    @Test
+    public void nothing_is_written_until_flushed() {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        BufferedPrintStream bps = new BufferedPrintStream(baos);
+        bps.println("Revision-number: ");
+        bps.println(12345678901L);
+
+        assertThat(baos.size(), is(0));
+        assertThat(bps.getBytesWritten(), is((long) ("Revision-number: \n12345678901\n".length())));
+
+        bps.flush();
+        assertThat(new String(baos.toByteArray(), StandardCharsets.US_ASCII), is(equalTo("Revision-number: \n12345678901\n")));
+        assertThat(bps.getBytesWritten(), is((long) baos.size()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void buffer_too_small() {
+        new BufferedPrintStream(new ByteArrayOutputStream(), 8);
+    }
+}
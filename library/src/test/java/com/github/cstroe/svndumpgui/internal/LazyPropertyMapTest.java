@@ -0,0 +1,137 @@
+package com.github.cstroe.svndumpgui.internal;
+
+import com.github.cstroe.svndumpgui.api.Revision;
+import com.github.cstroe.svndumpgui.generated.ParseException;
+import com.github.cstroe.svndumpgui.internal.parser.ChecksumPolicy;
+import com.github.cstroe.svndumpgui.internal.parser.SvnDumpByteParser;
+import com.github.cstroe.svndumpgui.internal.utility.TestUtil;
+import com.github.cstroe.svndumpgui.internal.writer.SvnDumpWriter;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class LazyPropertyMapTest {
+
+    private static final String LOG = "été 日本";
+
+    @Test
+    public void decodes_raw_values() {
+        LazyPropertyMap properties = new LazyPropertyMap();
+        properties.putRaw("svn:log", LOG.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(properties.get("svn:log"), is(equalTo(LOG)));
+        assertThat(properties.getRaw("svn:log"), is(equalTo(LOG.getBytes(StandardCharsets.UTF_8))));
+        assertThat(properties.get("svn:author"), is(nullValue()));
+    }
+
+    @Test
+    public void put_replaces_the_raw_value() {
+        LazyPropertyMap properties = new LazyPropertyMap();
+        properties.putRaw("svn:log", "old".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(properties.put("svn:log", "new"), is(equalTo("old")));
+        assertThat(properties.get("svn:log"), is(equalTo("new")));
+        assertThat(properties.getRaw("svn:log"), is(nullValue()));
+    }
+
+    @Test
+    public void entries_write_through() {
+        LazyPropertyMap properties = new LazyPropertyMap();
+        properties.putRaw("svn:log", "old".getBytes(StandardCharsets.UTF_8));
+        properties.putRaw("svn:author", "cosmin".getBytes(StandardCharsets.UTF_8));
+
+        for(Map.Entry<String, String> entry : properties.entrySet()) {
+            if(entry.getKey().equals("svn:log")) {
+                assertThat(entry.setValue("new"), is(equalTo("old")));
+            }
+        }
+
+        assertThat(properties.get("svn:log"), is(equalTo("new")));
+        assertThat(properties.getRaw("svn:log"), is(nullValue()));
+        assertThat(properties.get("svn:author"), is(equalTo("cosmin")));
+    }
+
+    @Test
+    public void equals_an_ordinary_map() {
+        LazyPropertyMap properties = new LazyPropertyMap();
+        properties.putRaw("svn:log", LOG.getBytes(StandardCharsets.UTF_8));
+        properties.put("svn:author", "cosmin");
+
+        Map<String, String> expected = new LinkedHashMap<>();
+        expected.put("svn:log", LOG);
+        expected.put("svn:author", "cosmin");
+
+        assertThat(properties, is(equalTo(expected)));
+        assertThat(expected, is(equalTo(properties)));
+        assertThat(properties.hashCode(), is(equalTo(expected.hashCode())));
+        assertThat(new LazyPropertyMap(expected), is(equalTo(properties)));
+    }
+
+    @Test
+    public void copies_keep_the_raw_values() {
+        LazyPropertyMap properties = new LazyPropertyMap();
+        properties.putRaw("svn:log", LOG.getBytes(StandardCharsets.UTF_8));
+
+        LazyPropertyMap copy = new LazyPropertyMap(properties);
+        copy.put("svn:author", "cosmin");
+
+        assertThat(copy.getRaw("svn:log"), is(equalTo(LOG.getBytes(StandardCharsets.UTF_8))));
+        assertThat(properties.containsKey("svn:author"), is(false));
+    }
+
+    private static byte[] rewrite(InputStream dump) throws ParseException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        SvnDumpWriter writer = new SvnDumpWriter();
+        writer.writeTo(baos);
+        SvnDumpByteParser parser = new SvnDumpByteParser(dump);
+        parser.setChecksumPolicy(ChecksumPolicy.NONE); // the content checksums of the fixture are stale
+        parser.Start(writer);
+        return baos.toByteArray();
+    }
+
+    @Test
+    public void rewrites_parsed_properties_unchanged() throws ParseException {
+        byte[] written = rewrite(TestUtil.openResource("dumps/utf8_log_message.dump"));
+
+        assertThat(rewrite(new ByteArrayInputStream(written)), is(equalTo(written)));
+    }
+
+    @Test
+    public void writes_raw_values_that_are_not_utf8() {
+        byte[] latin1 = "caf\u00e9".getBytes(StandardCharsets.ISO_8859_1);
+        LazyPropertyMap properties = new LazyPropertyMap();
+        properties.putRaw("svn:log", latin1);
+        Revision revision = new RevisionImpl(1);
+        revision.setProperties(properties);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        SvnDumpWriter writer = new SvnDumpWriter();
+        writer.writeTo(baos);
+        writer.consume(revision);
+        writer.finish();
+
+        byte[] expected = "Revision-number: 1\nProp-content-length: 31\nContent-length: 31\n\nK 7\nsvn:log\nV 4\ncaf\u00e9\nPROPS-END\n\n".getBytes(StandardCharsets.ISO_8859_1);
+        assertThat(baos.toByteArray(), is(equalTo(expected)));
+    }
+
+    @Test
+    public void copied_revisions_keep_the_raw_values() {
+        LazyPropertyMap properties = new LazyPropertyMap();
+        properties.putRaw("svn:log", LOG.getBytes(StandardCharsets.UTF_8));
+        Revision revision = new RevisionImpl(1);
+        revision.setProperties(properties);
+
+        LazyPropertyMap copied = (LazyPropertyMap) new RevisionImpl(revision).getProperties();
+        assertThat(copied.getRaw("svn:log"), is(equalTo(LOG.getBytes(StandardCharsets.UTF_8))));
+    }
+}
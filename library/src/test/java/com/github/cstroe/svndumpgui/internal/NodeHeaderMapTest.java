@@ -0,0 +1,227 @@
+package com.github.cstroe.svndumpgui.internal;
+
+import com.github.cstroe.svndumpgui.api.ContentChunk;
+import com.github.cstroe.svndumpgui.api.Node;
+import com.github.cstroe.svndumpgui.api.NodeAction;
+import com.github.cstroe.svndumpgui.api.NodeHeader;
+import com.github.cstroe.svndumpgui.api.NodeKind;
+import com.github.cstroe.svndumpgui.api.Repository;
+import com.github.cstroe.svndumpgui.api.Revision;
+import com.github.cstroe.svndumpgui.generated.ParseException;
+import com.github.cstroe.svndumpgui.internal.parser.SvnDumpByteParser;
+import com.github.cstroe.svndumpgui.internal.writer.RepositoryInMemory;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class NodeHeaderMapTest {
+
+    private static final String MD5 = "b1946ac92492d2347c6235b4d2611184";
+    private static final String SHA1 = "d3486ae9136e7856bc42212385ea797094475802";
+
+    @Test
+    public void parses_the_strings_that_are_put() {
+        NodeHeaderMap headers = new NodeHeaderMap();
+        headers.put(NodeHeader.PATH, "trunk/README.txt");
+        headers.put(NodeHeader.KIND, "file");
+        headers.put(NodeHeader.ACTION, "add");
+        headers.put(NodeHeader.TEXT_DELTA, "true");
+        headers.put(NodeHeader.TEXT_CONTENT_LENGTH, "1024");
+        headers.put(NodeHeader.MD5, MD5);
+        headers.put(NodeHeader.SHA1, SHA1);
+        headers.put(NodeHeader.COPY_FROM_REV, "12");
+
+        assertThat(headers.getPath(), is(equalTo("trunk/README.txt")));
+        assertThat(headers.getKind(), is(NodeKind.FILE));
+        assertThat(headers.getAction(), is(NodeAction.ADD));
+        assertThat(headers.isTextDelta(), is(true));
+        assertThat(headers.isPropDelta(), is(false));
+        assertThat(headers.getTextContentLength(), is(1024L));
+        assertThat(headers.getPropContentLength(), is(-1L));
+        assertThat(headers.getMd5().length, is(16));
+        assertThat(headers.getSha1().length, is(20));
+        assertThat(headers.getCopyFromRevision(), is(12));
+
+        assertThat(headers.get(NodeHeader.MD5), is(equalTo(MD5)));
+        assertThat(headers.get(NodeHeader.SHA1), is(equalTo(SHA1)));
+        assertThat(headers.get(NodeHeader.TEXT_CONTENT_LENGTH), is(equalTo("1024")));
+        assertThat(headers.get(NodeHeader.COPY_FROM_PATH), is(nullValue()));
+    }
+
+    @Test
+    public void keeps_strings_that_are_not_typed_values() {
+        NodeHeaderMap headers = new NodeHeaderMap();
+        headers.put(NodeHeader.ACTION, "unknown");
+        headers.put(NodeHeader.TEXT_CONTENT_LENGTH, "007");
+        headers.put(NodeHeader.MD5, "ABC");
+
+        assertThat(headers.get(NodeHeader.ACTION), is(equalTo("unknown")));
+        assertThat(headers.getAction(), is(nullValue()));
+        assertThat(headers.get(NodeHeader.TEXT_CONTENT_LENGTH), is(equalTo("007")));
+        assertThat(headers.getTextContentLength(), is(-1L));
+        assertThat(headers.get(NodeHeader.MD5), is(equalTo("ABC")));
+        assertThat(headers.getMd5(), is(nullValue()));
+
+        headers.setAction(NodeAction.DELETE);
+        assertThat(headers.get(NodeHeader.ACTION), is(equalTo("delete")));
+    }
+
+    @Test
+    public void iterates_in_the_order_the_headers_were_added() {
+        NodeHeaderMap headers = new NodeHeaderMap();
+        headers.setTextContentLength(5);
+        headers.setPath("a.txt");
+        headers.put(NodeHeader.ACTION, "change");
+        headers.setPath("b.txt");
+
+        assertThat(new ArrayList<>(headers.keySet()), is(equalTo(Arrays.asList(NodeHeader.TEXT_CONTENT_LENGTH, NodeHeader.PATH, NodeHeader.ACTION))));
+
+        Iterator<Map.Entry<NodeHeader, String>> iterator = headers.entrySet().iterator();
+        iterator.next();
+        iterator.remove();
+        iterator.next().setValue("c.txt");
+
+        assertThat(new ArrayList<>(headers.keySet()), is(equalTo(Arrays.asList(NodeHeader.PATH, NodeHeader.ACTION))));
+        assertThat(headers.getPath(), is(equalTo("c.txt")));
+        assertThat(headers.getTextContentLength(), is(-1L));
+    }
+
+    @Test
+    public void equals_an_ordinary_map() {
+        Map<NodeHeader, String> expected = new LinkedHashMap<>();
+        expected.put(NodeHeader.PATH, "dir1");
+        expected.put(NodeHeader.KIND, "dir");
+        expected.put(NodeHeader.ACTION, "add");
+        expected.put(NodeHeader.PROP_CONTENT_LENGTH, "10");
+
+        NodeHeaderMap headers = new NodeHeaderMap(expected);
+        assertThat(headers, is(equalTo(expected)));
+        assertThat(expected, is(equalTo(headers)));
+        assertThat(headers.hashCode(), is(equalTo(expected.hashCode())));
+
+        NodeHeaderMap copy = new NodeHeaderMap(headers);
+        copy.remove(NodeHeader.KIND);
+        assertThat(copy.size(), is(3));
+        assertThat(headers.getKind(), is(NodeKind.DIR));
+    }
+
+    @Test
+    public void parser_fills_in_the_typed_values() throws ParseException {
+        String dump = "SVN-fs-dump-format-version: 2\n\n" +
+                "UUID: 0b7e5a5e-7b4e-4a5e-9d3f-2c6a1b8d9e0f\n\n" +
+                "Revision-number: 0\nProp-content-length: 10\nContent-length: 10\n\nPROPS-END\n\n" +
+                "Revision-number: 1\nProp-content-length: 10\nContent-length: 10\n\nPROPS-END\n\n" +
+                "Node-path: hello.txt\nNode-kind: file\nNode-action: add\n" +
+                "Text-content-md5: " + MD5 + "\n" +
+                "Text-content-length: 6\nContent-length: 6\n\nhello\n\n\n" +
+                "Node-path: copy.txt\nNode-kind: file\nNode-action: add\n" +
+                "Node-copyfrom-rev: 1\nNode-copyfrom-path: hello.txt\n" +
+                "Text-copy-source-md5: " + MD5 + "\n\n\n";
+
+        RepositoryInMemory inMemory = new RepositoryInMemory();
+        SvnDumpByteParser.consume(new ByteArrayInputStream(dump.getBytes(StandardCharsets.UTF_8)), inMemory);
+        Repository repository = inMemory.getRepo();
+
+        Node added = repository.getRevisions().get(1).getNodes().get(0);
+        assertThat(added.getAction(), is(NodeAction.ADD));
+        assertThat(added.getKind(), is(NodeKind.FILE));
+        assertThat(added.getTextContentLength(), is(6L));
+        assertThat(added.getContentLength(), is(6L));
+        assertThat(added.getMd5(), is(equalTo(NodeHeaderMap.parseHex(MD5, 16))));
+        assertThat(added.getCopyFromRevision(), is(-1));
+
+        Node copied = repository.getRevisions().get(1).getNodes().get(1);
+        assertThat(copied.getCopyFromRevision(), is(1));
+        assertThat(copied.get(NodeHeader.COPY_FROM_PATH), is(equalTo("hello.txt")));
+        assertThat(copied.getSourceMd5(), is(equalTo(NodeHeaderMap.parseHex(MD5, 16))));
+        assertThat(copied.getTextContentLength(), is(-1L));
+    }
+
+    @Test
+    public void nodes_without_a_header_map_parse_the_same_values() {
+        Map<NodeHeader, String> strings = new LinkedHashMap<>();
+        strings.put(NodeHeader.KIND, "file");
+        strings.put(NodeHeader.ACTION, "unknown");
+        strings.put(NodeHeader.TEXT_DELTA, "true");
+        strings.put(NodeHeader.TEXT_CONTENT_LENGTH, "1024");
+        strings.put(NodeHeader.CONTENT_LENGTH, "007");
+        strings.put(NodeHeader.MD5, MD5);
+        strings.put(NodeHeader.SHA1, "ABC");
+        strings.put(NodeHeader.COPY_FROM_REV, "12");
+
+        Node node = new HeadersOnlyNode(strings);
+        NodeHeaderMap headers = new NodeHeaderMap(strings);
+        assertThat(node.getKind(), is(headers.getKind()));
+        assertThat(node.getAction(), is(nullValue()));
+        assertThat(node.isTextDelta(), is(true));
+        assertThat(node.isPropDelta(), is(false));
+        assertThat(node.getTextContentLength(), is(headers.getTextContentLength()));
+        assertThat(node.getContentLength(), is(-1L));
+        assertThat(node.getPropContentLength(), is(-1L));
+        assertThat(node.getMd5(), is(equalTo(headers.getMd5())));
+        assertThat(node.getSha1(), is(nullValue()));
+        assertThat(node.getCopyFromRevision(), is(12));
+        assertThat(node.getSourceMd5(), is(nullValue()));
+    }
+
+    /**
+     * A node of another library, which only implements what it has to.
+     */
+    private static class HeadersOnlyNode implements Node {
+        private final Map<NodeHeader, String> headers;
+
+        private HeadersOnlyNode(Map<NodeHeader, String> headers) {
+            this.headers = headers;
+        }
+
+        @Override
+        public Optional<Revision> getRevision() {
+            return Optional.empty();
+        }
+
+        @Override
+        public void setRevision(Revision revision) {}
+
+        @Override
+        public Map<NodeHeader, String> getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public void setHeaders(Map<NodeHeader, String> headers) {}
+
+        @Override
+        public Map<String, String> getProperties() {
+            return null;
+        }
+
+        @Override
+        public void setProperties(Map<String, String> properties) {}
+
+        @Override
+        public List<ContentChunk> getContent() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public void addFileContentChunk(ContentChunk chunk) {}
+
+        @Override
+        public String get(NodeHeader header) {
+            return headers.get(header);
+        }
+    }
+}
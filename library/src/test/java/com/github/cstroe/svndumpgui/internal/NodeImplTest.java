@@ -2,8 +2,10 @@ package com.github.cstroe.svndumpgui.internal;
 
 import com.github.cstroe.svndumpgui.api.Node;
 import com.github.cstroe.svndumpgui.api.NodeHeader;
+import com.github.cstroe.svndumpgui.api.NodeKind;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -13,6 +15,7 @@ import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
 
 public class NodeImplTest {
 
@@ -169,4 +172,28 @@ public class NodeImplTest {
 
         assertThat(node.toString(), is(equalTo("add file new/path.txt Delta: is true eff2191c7e5abb19d79e8bcb2f1b7f38 -- copied from: some/old/path.txt@2 eff2191c7e5abb19d79e8bcb2f1b7f38 Size: 123456 bytes")));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void raw_record_is_dropped_once_the_node_changes() {
+        NodeImpl node = new NodeImpl(new RevisionImpl(1));
+        node.getHeaders().put(NodeHeader.PATH, "a");
+        LazyPropertyMap properties = new LazyPropertyMap();
+        properties.putRaw("svn:eol-style", "native".getBytes());
+        node.setProperties(properties);
+        node.setRawRecord(ByteBuffer.wrap("Node-path: a\n".getBytes()));
+        assertThat(node.getRawRecord().remaining(), is(13));
+
+        properties.keySet().iterator().next();
+        properties.get("svn:eol-style");
+        assertThat(node.getRawRecord(), is(notNullValue()));
+
+        properties.keySet().remove("svn:eol-style");
+        assertThat(node.getRawRecord(), is(nullValue()));
+
+        node.setRawRecord(ByteBuffer.wrap("Node-path: a\n".getBytes()));
+        node.getHeaders().remove(NodeHeader.KIND);
+        assertThat(node.getRawRecord(), is(notNullValue()));
+        ((NodeHeaderMap) node.getHeaders()).setKind(NodeKind.FILE);
+        assertThat(node.getRawRecord(), is(nullValue()));
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.Test;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsEqual.equalTo;
@@ -48,4 +49,21 @@ public class SimplePrintStreamTest {
         SimplePrintStream sps = new SimplePrintStream(badStream, "");
         sps.flush();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void writes_heap_and_direct_buffers() {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        SimplePrintStream sps = new SimplePrintStream(baos, "");
+
+        ByteBuffer heap = ByteBuffer.wrap("xheap".getBytes());
+        heap.position(1);
+        sps.write(heap);
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(6);
+        direct.put(" direct".getBytes(), 0, 6).flip();
+        sps.write(direct.asReadOnlyBuffer());
+
+        assertThat(baos.toString(), is(equalTo("heap direc")));
+        assertThat(heap.hasRemaining(), is(false));
+    }
+}
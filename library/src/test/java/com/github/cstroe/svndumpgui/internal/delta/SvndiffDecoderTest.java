@@ -0,0 +1,146 @@
+package com.github.cstroe.svndumpgui.internal.delta;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class SvndiffDecoderTest {
+
+    private static final byte[] SOURCE = bytes("hello world\n");
+
+    @Test
+    public void applies_svndiff0_windows() throws IOException {
+        byte[] delta = concat(header(0),
+                window(0, 12, 18, concat(new byte[] { 0x06, 0x00, (byte) 0x86, 0x06, 0x06 }), bytes("there ")));
+
+        assertThat(text(SvndiffDecoder.apply(SOURCE, delta)), is(equalTo("hello there world\n")));
+    }
+
+    @Test
+    public void copies_from_the_target_repeat_bytes() throws IOException {
+        byte[] delta = concat(header(0),
+                window(0, 0, 8, new byte[] { (byte) 0x82, 0x46, 0x00 }, bytes("ab")));
+
+        assertThat(text(SvndiffDecoder.apply(new byte[0], delta)), is(equalTo("abababab")));
+    }
+
+    @Test
+    public void reads_lengths_that_do_not_fit_in_the_instruction() throws IOException {
+        byte[] newData = new byte[200];
+        Arrays.fill(newData, (byte) 'x');
+        // 200 is 0x81 0x48 in 7 bits per byte
+        byte[] delta = concat(header(0), window(0, 0, 200, new byte[] { (byte) 0x80, (byte) 0x81, 0x48 }, newData));
+
+        assertThat(SvndiffDecoder.apply(new byte[0], delta), is(equalTo(newData)));
+    }
+
+    @Test
+    public void applies_windows_that_arrive_in_pieces() throws IOException {
+        byte[] delta = concat(header(0),
+                window(0, 6, 6, new byte[] { 0x06, 0x00 }, new byte[0]),
+                window(6, 6, 7, new byte[] { 0x06, 0x00, (byte) 0x81 }, bytes("!")));
+
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        SvndiffDecoder decoder = new SvndiffDecoder(SOURCE, target);
+        for(byte b : delta) {
+            decoder.write(b);
+        }
+        decoder.close();
+
+        assertThat(text(target.toByteArray()), is(equalTo("hello world\n!")));
+        assertThat(decoder.getTargetLength(), is(13L));
+    }
+
+    @Test
+    public void inflates_svndiff1_sections() throws IOException {
+        byte[] newData = bytes("compressible compressible compressible compressible\n");
+        byte[] instructions = new byte[] { (byte) 0x80, (byte) newData.length };
+        byte[] delta = concat(header(1),
+                window(0, 0, newData.length, stored(instructions), deflated(newData)));
+
+        assertThat(SvndiffDecoder.apply(new byte[0], delta), is(equalTo(newData)));
+    }
+
+    @Test
+    public void decompresses_svndiff2_sections() throws IOException {
+        // a literal "ab", a match of 6 bytes at offset 2, then a last literal "!"
+        byte[] lz4 = concat(new byte[] { 9, 0x22, 'a', 'b', 0x02, 0x00, 0x10, '!' });
+        byte[] delta = concat(header(2), window(0, 0, 9, stored(new byte[] { (byte) 0x89 }), lz4));
+
+        assertThat(text(SvndiffDecoder.apply(new byte[0], delta)), is(equalTo("abababab!")));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejects_a_delta_that_ends_in_a_window() throws IOException {
+        byte[] delta = concat(header(0), window(0, 0, 2, new byte[] { (byte) 0x82 }, bytes("ab")));
+        SvndiffDecoder.apply(new byte[0], Arrays.copyOf(delta, delta.length - 1));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejects_copies_from_outside_the_source_view() throws IOException {
+        byte[] delta = concat(header(0), window(0, 4, 6, new byte[] { 0x06, 0x00 }, new byte[0]));
+        SvndiffDecoder.apply(SOURCE, delta);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejects_data_that_is_not_svndiff() throws IOException {
+        SvndiffDecoder.apply(SOURCE, bytes("PLAIN TEXT"));
+    }
+
+    private static byte[] header(int version) {
+        return new byte[] { 'S', 'V', 'N', (byte) version };
+    }
+
+    private static byte[] window(int sourceOffset, int sourceLength, int targetLength, byte[] instructions, byte[] newData) {
+        return concat(varint(sourceOffset), varint(sourceLength), varint(targetLength),
+                varint(instructions.length), varint(newData.length), instructions, newData);
+    }
+
+    private static byte[] stored(byte[] section) {
+        return concat(varint(section.length), section);
+    }
+
+    private static byte[] deflated(byte[] section) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(section);
+        deflater.finish();
+        byte[] compressed = new byte[section.length + 64];
+        int length = deflater.deflate(compressed);
+        deflater.end();
+        return concat(varint(section.length), Arrays.copyOf(compressed, length));
+    }
+
+    private static byte[] varint(long value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int shift = 63 - Long.numberOfLeadingZeros(value | 1);
+        for(shift -= shift % 7; shift > 0; shift -= 7) {
+            out.write((int) ((value >>> shift) & 0x7f) | 0x80);
+        }
+        out.write((int) (value & 0x7f));
+        return out.toByteArray();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for(byte[] part : parts) {
+            out.write(part, 0, part.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
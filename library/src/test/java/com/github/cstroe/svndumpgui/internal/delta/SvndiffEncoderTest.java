@@ -0,0 +1,100 @@
+package com.github.cstroe.svndumpgui.internal.delta;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+
+public class SvndiffEncoderTest {
+
+    @Test
+    public void deltas_of_edited_texts_are_small() throws IOException {
+        byte[] source = text(300 * 1024, 1);
+        byte[] target = edit(source);
+
+        for(int version = 0; version <= 1; version++) {
+            byte[] delta = new SvndiffEncoder(version, 64 * 1024).encode(source, target);
+
+            assertThat(SvndiffDecoder.apply(source, delta), is(equalTo(target)));
+            assertThat(delta.length, is(lessThan(target.length / 20)));
+        }
+    }
+
+    @Test
+    public void svndiff1_compresses_new_data() throws IOException {
+        byte[] target = text(50 * 1024, 2);
+
+        byte[] plain = new SvndiffEncoder(0, SvndiffEncoder.DEFAULT_WINDOW_SIZE).encode(new byte[0], target);
+        byte[] compressed = new SvndiffEncoder(1, SvndiffEncoder.DEFAULT_WINDOW_SIZE).encode(new byte[0], target);
+
+        assertThat(SvndiffDecoder.apply(new byte[0], compressed), is(equalTo(target)));
+        assertThat(compressed.length, is(lessThan(plain.length / 2)));
+    }
+
+    @Test
+    public void random_bytes_do_not_get_smaller() throws IOException {
+        byte[] target = new byte[10000];
+        new Random(3).nextBytes(target);
+
+        byte[] delta = new SvndiffEncoder().encode(new byte[0], target);
+
+        assertThat(SvndiffDecoder.apply(new byte[0], delta), is(equalTo(target)));
+        assertThat(delta.length, is(greaterThanOrEqualTo(target.length)));
+    }
+
+    @Test
+    public void targets_larger_than_a_window_take_several_windows() throws IOException {
+        byte[] source = text(1000, 4);
+        byte[] target = Arrays.copyOf(source, 1001);
+        target[1000] = '\n';
+
+        byte[] oneWindow = new SvndiffEncoder(0, 1001).encode(source, target);
+        byte[] elevenWindows = new SvndiffEncoder(0, 100).encode(source, target);
+
+        assertThat(SvndiffDecoder.apply(source, elevenWindows), is(equalTo(target)));
+        assertThat(oneWindow.length, is(lessThan(elevenWindows.length)));
+    }
+
+    @Test
+    public void an_empty_target_has_no_windows() throws IOException {
+        byte[] delta = new SvndiffEncoder().encode(text(100, 5), new byte[0]);
+
+        assertThat(delta, is(equalTo(new byte[] { 'S', 'V', 'N', 1 })));
+        assertThat(SvndiffDecoder.apply(text(100, 5), delta).length, is(0));
+    }
+
+    /**
+     * @return lines of text made of words, which compresses like source code
+     */
+    private static byte[] text(int length, long seed) {
+        String[] words = { "public", "static", "void", "return", "if", "for", "int", "String", "null", "new", "this" };
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder(length + 16);
+        while(text.length() < length) {
+            text.append(words[random.nextInt(words.length)]);
+            text.append(random.nextInt(8) == 0 ? "\n" : " ");
+        }
+        return Arrays.copyOf(text.toString().getBytes(StandardCharsets.UTF_8), length);
+    }
+
+    /**
+     * @return the text with a line inserted near the start, a word changed in the middle and the end cut off
+     */
+    private static byte[] edit(byte[] source) {
+        byte[] inserted = "an inserted line\n".getBytes(StandardCharsets.UTF_8);
+        byte[] target = new byte[source.length + inserted.length - 100];
+        System.arraycopy(source, 0, target, 0, 1000);
+        System.arraycopy(inserted, 0, target, 1000, inserted.length);
+        System.arraycopy(source, 1000, target, 1000 + inserted.length, target.length - 1000 - inserted.length);
+        target[target.length / 2] = 'X';
+        return target;
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.cstroe.svndumpgui.internal.generator;
+
+import com.github.cstroe.svndumpgui.api.Node;
+import com.github.cstroe.svndumpgui.api.NodeHeader;
+import com.github.cstroe.svndumpgui.api.Property;
+import com.github.cstroe.svndumpgui.api.Repository;
+import com.github.cstroe.svndumpgui.api.Revision;
+import com.github.cstroe.svndumpgui.generated.ParseException;
+import com.github.cstroe.svndumpgui.internal.parser.SvnDumpByteParser;
+import com.github.cstroe.svndumpgui.internal.validate.PathCollisionValidator;
+import com.github.cstroe.svndumpgui.internal.writer.RepositoryInMemory;
+import com.github.cstroe.svndumpgui.internal.writer.SvnDumpWriter;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class DumpGeneratorTest {
+
+    @Test
+    public void the_same_seed_makes_the_same_dump() {
+        assertThat(generate(generator(7)), is(equalTo(generate(generator(7)))));
+        assertThat(generate(generator(7)), is(not(equalTo(generate(generator(8))))));
+    }
+
+    @Test
+    public void dumps_are_valid() throws ParseException {
+        byte[] dump = generate(generator(7));
+
+        PathCollisionValidator validator = new PathCollisionValidator();
+        SvnDumpByteParser.consume(new ByteArrayInputStream(dump), validator);
+        assertThat(validator.isValid(), is(true));
+
+        // the checksums are verified while parsing, and the dump is written back as it was generated
+        ByteArrayOutputStream rewritten = new ByteArrayOutputStream();
+        SvnDumpWriter writer = new SvnDumpWriter();
+        writer.writeTo(rewritten);
+        SvnDumpByteParser.consume(new ByteArrayInputStream(dump), writer);
+        assertThat(rewritten.toByteArray(), is(equalTo(dump)));
+    }
+
+    @Test
+    public void dumps_have_the_requested_shape() throws ParseException {
+        RepositoryInMemory inMemory = new RepositoryInMemory();
+        SvnDumpByteParser.consume(new ByteArrayInputStream(generate(generator(7))), inMemory);
+        Repository repository = inMemory.getRepo();
+
+        assertThat(repository.getRevisions().size(), is(60));
+
+        Revision copies = repository.getRevisions().get(20);
+        assertThat(copies.getNodes().size(), is(4));
+        assertThat(copies.getNodes().get(0).get(NodeHeader.COPY_FROM_PATH), is(equalTo("trunk")));
+
+        Node mergeinfo = repository.getRevisions().get(25).getNodes().get(0);
+        assertThat(mergeinfo.getProperties().get(Property.MERGEINFO).split("\n").length, is(30));
+
+        long binaries = repository.getRevisions().stream()
+                .flatMap(revision -> revision.getNodes().stream())
+                .filter(node -> "application/octet-stream".equals(node.getProperties() == null ? null : node.getProperties().get(Property.MIMETYPE)))
+                .peek(node -> assertThat(node.getByteContent().length, is(100 * 1024)))
+                .count();
+        assertThat(binaries > 0, is(true));
+    }
+
+    private static DumpGenerator generator(long seed) {
+        DumpGenerator generator = new DumpGenerator(seed);
+        generator.setRevisions(60);
+        generator.setTreeShape(3, 2);
+        generator.setBranches(20, 4);
+        generator.setBinaries(5, 100 * 1024);
+        generator.setMergeinfo(25, 30);
+        return generator;
+    }
+
+    private static byte[] generate(DumpGenerator generator) {
+        ByteArrayOutputStream dump = new ByteArrayOutputStream();
+        generator.writeTo(dump);
+        return dump.toByteArray();
+    }
+}
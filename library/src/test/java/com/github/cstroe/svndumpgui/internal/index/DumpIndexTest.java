@@ -0,0 +1,175 @@
+package com.github.cstroe.svndumpgui.internal.index;
+
+import com.github.cstroe.svndumpgui.api.ContentChunk;
+import com.github.cstroe.svndumpgui.api.Node;
+import com.github.cstroe.svndumpgui.api.NodeHeader;
+import com.github.cstroe.svndumpgui.api.Revision;
+import com.github.cstroe.svndumpgui.generated.ParseException;
+import com.github.cstroe.svndumpgui.internal.AbstractRepositoryConsumer;
+import com.github.cstroe.svndumpgui.internal.parser.ChecksumPolicy;
+import com.github.cstroe.svndumpgui.internal.parser.SvnDumpByteParser;
+import com.github.cstroe.svndumpgui.internal.parser.SvnDumpByteParserTest;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+public class DumpIndexTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Remembers the revisions and nodes in the order they were parsed.
+     */
+    private static class Recorder extends AbstractRepositoryConsumer {
+        private final List<Integer> revisions = new ArrayList<>();
+        private final List<Node> nodes = new ArrayList<>();
+        private final List<byte[]> texts = new ArrayList<>();
+        private ByteArrayOutputStream text;
+
+        @Override
+        public void consume(Revision revision) {
+            revisions.add(revision.getNumber());
+            super.consume(revision);
+        }
+
+        @Override
+        public void consume(Node node) {
+            nodes.add(node);
+            text = new ByteArrayOutputStream();
+            super.consume(node);
+        }
+
+        @Override
+        public void consume(ContentChunk chunk) {
+            text.write(chunk.getContent(), 0, chunk.getContent().length);
+            super.consume(chunk);
+        }
+
+        @Override
+        public void endNode(Node node) {
+            texts.add(text.toByteArray());
+            super.endNode(node);
+        }
+    }
+
+    @Test
+    public void offsets_point_at_revisions_and_nodes() throws URISyntaxException, IOException {
+        int indexedDumps = 0;
+        for(String dumpFile : SvnDumpByteParserTest.dumpFiles()) {
+            Path dumpPath = resourcePath(dumpFile);
+            Recorder recorder = new Recorder();
+            try {
+                SvnDumpByteParser.consume(dumpPath, recorder);
+                DumpIndexBuilder.build(dumpPath, temporaryFolder.getRoot().toPath().resolve("dump.idx"));
+            } catch(ParseException ex) {
+                continue; // only valid dumps can be indexed
+            }
+            indexedDumps++;
+
+            DumpIndex index = DumpIndex.load(temporaryFolder.getRoot().toPath().resolve("dump.idx"));
+            byte[] dump = Files.readAllBytes(dumpPath);
+            assertThat(dumpFile, index.getDumpLength(), is(equalTo((long) dump.length)));
+            assertThat(dumpFile, index.getRevisionCount(), is(equalTo(recorder.revisions.size())));
+            assertThat(dumpFile, index.getNodeCount(), is(equalTo((long) recorder.nodes.size())));
+
+            long nodeCount = 0;
+            for(int i = 0; i < index.getRevisionCount(); i++) {
+                int number = recorder.revisions.get(i);
+                assertThat(dumpFile, index.getRevisionNumber(i), is(equalTo(number)));
+                assertThat(dumpFile, index.indexOfRevision(number), is(equalTo(i)));
+                assertThat(dumpFile, text(dump, index.getRevisionOffset(i)), startsWith("Revision-number: " + number + "\n"));
+                assertThat(dumpFile, index.getFirstNode(i), is(equalTo(nodeCount)));
+                nodeCount += index.getNodeCount(i);
+            }
+            assertThat(dumpFile, nodeCount, is(equalTo(index.getNodeCount())));
+
+            for(int i = 0; i < recorder.nodes.size(); i++) {
+                Node node = recorder.nodes.get(i);
+                String firstHeader = node.getHeaders().keySet().iterator().next().toString();
+                assertThat(dumpFile, text(dump, index.getNodeHeaderOffset(i)), startsWith(firstHeader));
+                assertThat(dumpFile, dump[(int) index.getNodeContentOffset(i) - 1], is(equalTo((byte) '\n')));
+
+                byte[] expectedText = recorder.texts.get(i);
+                long textOffset = index.getNodeTextOffset(i);
+                if(expectedText.length == 0) {
+                    assertThat(dumpFile, textOffset, is(equalTo(-1L)));
+                } else {
+                    byte[] actualText = Arrays.copyOfRange(dump, (int) textOffset, (int) textOffset + expectedText.length);
+                    assertThat(dumpFile, actualText, is(equalTo(expectedText)));
+                }
+                if(node.getHeaders().containsKey(NodeHeader.PROP_CONTENT_LENGTH)) {
+                    assertThat(dumpFile, text(dump, index.getNodeContentOffset(i)), startsWith(node.getProperties().isEmpty() ? "PROPS-END" : "K "));
+                }
+            }
+        }
+        assertThat(indexedDumps, is(greaterThan(0)));
+    }
+
+    @Test
+    public void stream_and_mapped_input_give_the_same_index() throws URISyntaxException, IOException, ParseException {
+        Path dumpPath = resourcePath("dumps/svn_multi_file_delete.dump");
+        Path mappedIndex = temporaryFolder.getRoot().toPath().resolve("mapped.idx");
+        Path streamIndex = temporaryFolder.getRoot().toPath().resolve("stream.idx");
+
+        DumpIndexBuilder.build(dumpPath, mappedIndex);
+        try(InputStream inputStream = Files.newInputStream(dumpPath);
+            DumpIndexBuilder builder = new DumpIndexBuilder(streamIndex)) {
+            SvnDumpByteParser parser = new SvnDumpByteParser(inputStream);
+            parser.setIndexBuilder(builder);
+            parser.setChecksumPolicy(ChecksumPolicy.NONE); // indexing skips the content, and doesn't check it
+            parser.Start(new AbstractRepositoryConsumer() {});
+        }
+
+        assertThat(Files.readAllBytes(streamIndex), is(equalTo(Files.readAllBytes(mappedIndex))));
+    }
+
+    @Test
+    public void missing_revisions_give_the_insertion_point() throws URISyntaxException, IOException, ParseException {
+        Path indexPath = temporaryFolder.getRoot().toPath().resolve("dump.idx");
+        DumpIndexBuilder.build(resourcePath("dumps/svn_multi_file_delete.dump"), indexPath);
+        DumpIndex index = DumpIndex.load(indexPath);
+
+        assertThat(index.indexOfRevision(-1), is(equalTo(-1)));
+        assertThat(index.indexOfRevision(index.getRevisionNumber(index.getRevisionCount() - 1) + 1), is(equalTo(-index.getRevisionCount() - 1)));
+    }
+
+    @Test
+    public void only_index_files_are_loaded() throws IOException {
+        Path notAnIndex = temporaryFolder.newFile("not.idx").toPath();
+        Files.write(notAnIndex, "SVN-fs-dump-format-version: 2\n\nUUID: 0\n\n".getBytes(StandardCharsets.US_ASCII));
+        try {
+            DumpIndex.load(notAnIndex);
+            fail("Expected an IOException");
+        } catch(IOException ex) {
+            assertThat(ex.getMessage(), is(equalTo(notAnIndex + " is not a dump index.")));
+        }
+    }
+
+    private static String text(byte[] dump, long offset) {
+        return new String(dump, (int) offset, Math.min(80, dump.length - (int) offset), StandardCharsets.UTF_8);
+    }
+
+    private static Path resourcePath(String resource) throws URISyntaxException {
+        return Paths.get(Thread.currentThread().getContextClassLoader().getResource(resource).toURI());
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.cstroe.svndumpgui.internal.metrics;
+
+import com.github.cstroe.svndumpgui.api.ConsumerInterest;
+import com.github.cstroe.svndumpgui.api.Node;
+import com.github.cstroe.svndumpgui.api.RepositoryConsumer;
+import com.github.cstroe.svndumpgui.api.SelectiveConsumer;
+import com.github.cstroe.svndumpgui.generated.ParseException;
+import com.github.cstroe.svndumpgui.internal.AbstractRepositoryConsumer;
+import com.github.cstroe.svndumpgui.internal.consumer.TreeOfKnowledgeImpl;
+import com.github.cstroe.svndumpgui.internal.parser.SvnDumpByteParser;
+import org.junit.Test;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+
+public class ConsumerMetricsTest {
+
+    private static final long NODE_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    private static class SlowConsumer extends AbstractRepositoryConsumer {
+        @Override
+        public void consume(Node node) {
+            long end = System.nanoTime() + NODE_NANOS;
+            while(System.nanoTime() < end) {
+                Thread.yield();
+            }
+            super.consume(node);
+        }
+    }
+
+    private static class FastConsumer extends AbstractRepositoryConsumer {}
+
+    @Test
+    public void time_is_charged_to_the_consumer_that_spends_it() throws ParseException, IOException {
+        RepositoryConsumer chain = new FastConsumer();
+        chain.continueTo(new SlowConsumer());
+        chain.continueTo(new FastConsumer());
+        ConsumerMetrics metrics = ConsumerMetrics.instrument(chain);
+        parse(metrics);
+
+        assertThat(metrics.getCalls(1, Callback.NODE), is(4L));
+        assertThat(metrics.getCalls(2, Callback.REVISION), is(5L));
+        assertThat(metrics.getSelfNanos(1, Callback.NODE), is(greaterThanOrEqualTo(4 * NODE_NANOS)));
+        assertThat(metrics.getTotalNanos(0, Callback.NODE), is(greaterThanOrEqualTo(4 * NODE_NANOS)));
+        assertThat(metrics.getSelfNanos(0, Callback.NODE), is(lessThan(NODE_NANOS)));
+        assertThat(metrics.getSelfNanos(2, Callback.NODE), is(lessThan(NODE_NANOS)));
+    }
+
+    @Test
+    public void instrumenting_keeps_the_interests_of_the_chain() {
+        TreeOfKnowledgeImpl tree = new TreeOfKnowledgeImpl();
+        ConsumerMetrics metrics = ConsumerMetrics.instrument(tree);
+
+        assertThat(SelectiveConsumer.interestsOf(metrics), is(equalTo(tree.getInterests())));
+        assertThat(SelectiveConsumer.interestsOf(metrics).contains(ConsumerInterest.FILE_CONTENT), is(false));
+    }
+
+    @Test
+    public void detached_chains_are_not_timed() throws ParseException, IOException {
+        RepositoryConsumer chain = new FastConsumer();
+        chain.continueTo(new SlowConsumer());
+        ConsumerMetrics metrics = ConsumerMetrics.instrument(chain);
+        metrics.detach();
+        assertThat(chain.getPreviousConsumer(), is((RepositoryConsumer) null));
+
+        parse(chain);
+        assertThat(metrics.getCalls(1, Callback.NODE), is(0L));
+    }
+
+    @Test
+    public void metrics_are_visible_through_jmx() throws ParseException, IOException, JMException {
+        RepositoryConsumer chain = new FastConsumer();
+        chain.continueTo(new SlowConsumer());
+        ConsumerMetrics metrics = ConsumerMetrics.instrument(chain);
+        parse(metrics);
+
+        ObjectName name = metrics.register("metrics_are_visible_through_jmx");
+        try {
+            Object consumers = ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Consumers");
+            assertThat(Arrays.asList((String[]) consumers), is(equalTo(Arrays.asList("FastConsumer", "SlowConsumer"))));
+            assertThat(metrics.getCalls().get("1 SlowConsumer consume(Node)"), is(4L));
+        } finally {
+            metrics.unregister();
+        }
+    }
+
+    private static void parse(RepositoryConsumer chain) throws ParseException, IOException {
+        try(InputStream is = ConsumerMetricsTest.class.getClassLoader().getResourceAsStream("dumps/add_edit_delete_add.dump")) {
+            SvnDumpByteParser.consume(is, chain);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.cstroe.svndumpgui.internal.metrics;
+
+import com.github.cstroe.svndumpgui.generated.ParseException;
+import com.github.cstroe.svndumpgui.internal.parser.SvnDumpByteParser;
+import com.github.cstroe.svndumpgui.internal.writer.RepositoryInMemory;
+import org.junit.Test;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.core.Is.is;
+
+public class ParserMetricsTest {
+
+    @Test
+    public void counts_what_was_parsed() throws URISyntaxException, IOException, ParseException {
+        byte[] dump = dump("dumps/add_edit_delete_add.dump");
+        ParserMetrics metrics = parse(dump);
+
+        assertThat(metrics.getBytesRead(), is((long) dump.length));
+        assertThat(metrics.getRevisions(), is(5L));
+        assertThat(metrics.getNodes(), is(4L));
+        assertThat(metrics.getContentBytes(), is(20L + 27L + 31L));
+        assertThat(metrics.getHashingNanos(), is(greaterThan(0L)));
+        assertThat(metrics.getElapsedNanos(), is(greaterThan(0L)));
+        assertThat(metrics.getRevisionsPerSecond(), is(greaterThan(0.0)));
+    }
+
+    @Test
+    public void metrics_are_visible_through_jmx() throws URISyntaxException, IOException, ParseException, JMException {
+        ParserMetrics metrics = parse(dump("dumps/add_edit_delete_add.dump"));
+        ObjectName name = metrics.register("metrics_are_visible_through_jmx");
+        try {
+            assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Nodes"), is(equalTo(4L)));
+        } finally {
+            metrics.unregister();
+        }
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(name), is(false));
+    }
+
+    private static ParserMetrics parse(byte[] dump) throws ParseException {
+        ParserMetrics metrics = new ParserMetrics();
+        SvnDumpByteParser parser = new SvnDumpByteParser(new ByteArrayInputStream(dump));
+        parser.setMetrics(metrics);
+        parser.Start(new RepositoryInMemory());
+        return metrics;
+    }
+
+    private static byte[] dump(String resource) throws URISyntaxException, IOException {
+        return Files.readAllBytes(Paths.get(ParserMetricsTest.class.getClassLoader().getResource(resource).toURI()));
+    }
+}
@@ -0,0 +1,206 @@
+package com.github.cstroe.svndumpgui.internal.parser;
+
+import com.github.cstroe.svndumpgui.api.CheckpointableConsumer;
+import com.github.cstroe.svndumpgui.api.NodeHeader;
+import com.github.cstroe.svndumpgui.api.RepositoryConsumer;
+import com.github.cstroe.svndumpgui.api.Revision;
+import com.github.cstroe.svndumpgui.generated.ParseException;
+import com.github.cstroe.svndumpgui.internal.AbstractRepositoryConsumer;
+import com.github.cstroe.svndumpgui.internal.ContentChunkImpl;
+import com.github.cstroe.svndumpgui.internal.consumer.TreeOfKnowledgeImpl;
+import com.github.cstroe.svndumpgui.internal.transform.replace.FileContentReplace;
+import com.github.cstroe.svndumpgui.internal.utility.TestUtil;
+import com.github.cstroe.svndumpgui.internal.writer.SvnDumpWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.URISyntaxException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.NoSuchAlgorithmException;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+public class CheckpointTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Stops the run, as if the process had died, when a revision starts.
+     */
+    private static class Crash extends AbstractRepositoryConsumer implements CheckpointableConsumer {
+        private final int revision;
+
+        Crash(int revision) {
+            this.revision = revision;
+        }
+
+        @Override
+        public void consume(Revision revision) {
+            if(revision.getNumber() == this.revision) {
+                throw new IllegalStateException("crash at r" + this.revision);
+            }
+            super.consume(revision);
+        }
+
+        @Override
+        public Serializable saveState() {
+            return null;
+        }
+
+        @Override
+        public void restoreState(Serializable state) {}
+    }
+
+    @Test
+    public void resumed_run_writes_the_same_dump() throws URISyntaxException, IOException, ParseException {
+        byte[] dump = Files.readAllBytes(resourcePath("dumps/add_edit_delete_add.dump"));
+        Path output = temporaryFolder.getRoot().toPath().resolve("out.dump");
+        Path checkpointFile = temporaryFolder.getRoot().toPath().resolve("checkpoint");
+
+        try(FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            SvnDumpWriter writer = new SvnDumpWriter();
+            writer.writeTo(channel);
+            RepositoryConsumer chain = new TreeOfKnowledgeImpl();
+            chain.continueTo(writer);
+            chain.continueTo(new Crash(4));
+
+            SvnDumpByteParser parser = new SvnDumpByteParser(new ByteArrayInputStream(dump));
+            parser.setCheckpointer(new Checkpointer(checkpointFile, 1));
+            try {
+                parser.Start(chain);
+                fail("the run should have crashed");
+            } catch(IllegalStateException expected) {}
+        }
+
+        Checkpoint checkpoint = Checkpoint.read(checkpointFile);
+        assertThat(checkpoint.getRevision(), is(3));
+
+        TreeOfKnowledgeImpl tree = new TreeOfKnowledgeImpl();
+        try(FileChannel channel = FileChannel.open(output, StandardOpenOption.WRITE)) {
+            SvnDumpWriter writer = new SvnDumpWriter();
+            writer.writeTo(channel);
+            tree.continueTo(writer);
+            tree.continueTo(new Crash(-1));
+
+            SvnDumpByteParser parser = new SvnDumpByteParser(new ByteArrayInputStream(dump));
+            parser.setCheckpointer(new Checkpointer(checkpointFile, 1));
+            parser.resumeFrom(checkpoint);
+            parser.Start(tree);
+        }
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        SvnDumpWriter writer = new SvnDumpWriter();
+        writer.writeTo(expected);
+        SvnDumpByteParser.consume(new ByteArrayInputStream(dump), writer);
+
+        assertThat(Files.readAllBytes(output), is(equalTo(expected.toByteArray())));
+        assertThat(Checkpoint.read(checkpointFile).getRevision(), is(4));
+
+        // what the tree learned before the checkpoint is still known
+        assertThat(tree.tellMeAbout(2, "README.txt").get(NodeHeader.ACTION), is(equalTo("change")));
+        assertThat(tree.tellMeAbout(3, "README.txt"), is(nullValue()));
+        assertThat(tree.tellMeAbout(4, "README.txt"), is(notNullValue()));
+    }
+
+    @Test
+    public void resumed_content_replace_remembers_the_replaced_files() throws URISyntaxException, IOException, ParseException, NoSuchAlgorithmException {
+        byte[] dump = Files.readAllBytes(resourcePath("dumps/svn_copy_and_delete.before.dump"));
+        Path output = temporaryFolder.getRoot().toPath().resolve("out.dump");
+        Path checkpointFile = temporaryFolder.getRoot().toPath().resolve("checkpoint");
+
+        // README.txt is replaced in r1 and copied in r3, the copy is copied again after the checkpoint
+        try(FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            SvnDumpWriter writer = new SvnDumpWriter();
+            writer.writeTo(channel);
+            RepositoryConsumer chain = replaceReadme();
+            chain.continueTo(writer);
+            chain.continueTo(new Crash(4));
+
+            SvnDumpByteParser parser = new SvnDumpByteParser(new ByteArrayInputStream(dump));
+            parser.setCheckpointer(new Checkpointer(checkpointFile, 1));
+            try {
+                parser.Start(chain);
+                fail("the run should have crashed");
+            } catch(IllegalStateException expected) {}
+        }
+
+        Checkpoint checkpoint = Checkpoint.read(checkpointFile);
+        assertThat(checkpoint.getRevision(), is(3));
+
+        try(FileChannel channel = FileChannel.open(output, StandardOpenOption.WRITE)) {
+            SvnDumpWriter writer = new SvnDumpWriter();
+            writer.writeTo(channel);
+            RepositoryConsumer chain = replaceReadme();
+            chain.continueTo(writer);
+            chain.continueTo(new Crash(-1));
+
+            SvnDumpByteParser parser = new SvnDumpByteParser(new ByteArrayInputStream(dump));
+            parser.resumeFrom(checkpoint);
+            parser.Start(chain);
+        }
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        SvnDumpWriter writer = new SvnDumpWriter();
+        writer.writeTo(expected);
+        RepositoryConsumer chain = replaceReadme();
+        chain.continueTo(writer);
+        SvnDumpByteParser.consume(new ByteArrayInputStream(dump), chain);
+
+        assertThat(Files.readAllBytes(output), is(equalTo(expected.toByteArray())));
+        // the copy in r4 has the checksum of the replaced content as its source
+        String resumed = new String(Files.readAllBytes(output), StandardCharsets.UTF_8);
+        String replacedMd5 = TestUtil.md5sum("i replaced the content\n".getBytes());
+        assertThat(resumed.substring(resumed.indexOf("Revision-number: 4")), containsString("Text-copy-source-md5: " + replacedMd5));
+    }
+
+    private static FileContentReplace replaceReadme() {
+        return new FileContentReplace(
+                n -> n.getRevision().get().getNumber() == 1 && "README.txt".equals(n.get(NodeHeader.PATH)),
+                n -> new ContentChunkImpl("i replaced the content\n".getBytes()));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void chains_that_cannot_be_checkpointed_are_refused() throws URISyntaxException, IOException, ParseException {
+        byte[] dump = Files.readAllBytes(resourcePath("dumps/add_edit_delete_add.dump"));
+        SvnDumpByteParser parser = new SvnDumpByteParser(new ByteArrayInputStream(dump));
+        parser.setCheckpointer(new Checkpointer(temporaryFolder.getRoot().toPath().resolve("checkpoint"), 1));
+        parser.Start(new AbstractRepositoryConsumer() {});
+    }
+
+    @Test
+    public void checkpoints_only_restore_the_same_chain() throws URISyntaxException, IOException, ParseException {
+        byte[] dump = Files.readAllBytes(resourcePath("dumps/add_edit_delete_add.dump"));
+        Checkpointer checkpointer = new Checkpointer(temporaryFolder.getRoot().toPath().resolve("checkpoint"), 2);
+        SvnDumpByteParser parser = new SvnDumpByteParser(new ByteArrayInputStream(dump));
+        parser.setCheckpointer(checkpointer);
+        parser.Start(new TreeOfKnowledgeImpl());
+
+        Checkpoint checkpoint = checkpointer.getLastCheckpoint();
+        assertThat(checkpoint.getRevision(), is(3));
+        try {
+            checkpoint.restore(new Crash(-1));
+            fail("a different chain should be refused");
+        } catch(IllegalStateException expected) {}
+    }
+
+    private static Path resourcePath(String resource) throws URISyntaxException {
+        return Paths.get(CheckpointTest.class.getClassLoader().getResource(resource).toURI());
+    }
+}
@@ -0,0 +1,128 @@
+package com.github.cstroe.svndumpgui.internal.parser;
+
+import com.github.cstroe.svndumpgui.generated.ParseException;
+import com.github.cstroe.svndumpgui.generated.SvnDumpParser;
+import com.github.cstroe.svndumpgui.internal.utility.ChunkBufferPool;
+import com.github.cstroe.svndumpgui.internal.utility.SvnDumpCharStream;
+import com.github.cstroe.svndumpgui.internal.utility.TestUtil;
+import com.github.cstroe.svndumpgui.internal.writer.RepositoryInMemory;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+public class ChecksumVerifierTest {
+    private static final String WRONG_MD5 = "e2c81f0e7e6b7e3d6e7b1b8d3c6f1f0e";
+    private static final String WRONG_SHA1 = "17c4d1b1b9a6d0d5cc5d1bc8ffd5a6a3a1e4e1f0";
+
+    private static byte[] dumpWithContent(String md5, String sha1) {
+        String dump = "SVN-fs-dump-format-version: 2\n\n" +
+                "UUID: 0b7e5a5e-7b4e-4a5e-9d3f-2c6a1b8d9e0f\n\n" +
+                "Revision-number: 0\nProp-content-length: 10\nContent-length: 10\n\nPROPS-END\n\n" +
+                "Revision-number: 1\nProp-content-length: 10\nContent-length: 10\n\nPROPS-END\n\n" +
+                "Node-path: great.txt\nNode-kind: file\nNode-action: add\n" +
+                (md5 == null ? "" : "Text-content-md5: " + md5 + "\n") +
+                (sha1 == null ? "" : "Text-content-sha1: " + sha1 + "\n") +
+                "Text-content-length: 5\nContent-length: 5\n\ngreat\n\n";
+        return dump.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void parse(byte[] dump, ChecksumPolicy policy, VerificationMode mode) throws ParseException {
+        SvnDumpByteParser parser = new SvnDumpByteParser(new ByteArrayInputStream(dump));
+        parser.setChecksumPolicy(policy);
+        parser.setVerificationMode(mode);
+        parser.Start(new RepositoryInMemory());
+    }
+
+    @Test
+    public void mismatch_names_the_node_in_every_mode() {
+        for(VerificationMode mode : VerificationMode.values()) {
+            try {
+                parse(dumpWithContent(WRONG_MD5, null), ChecksumPolicy.BOTH, mode);
+                fail("Expected a ParseException in mode " + mode);
+            } catch(ParseException ex) {
+                assertThat(mode.name(), ex.getMessage(), containsString("MD5 sum is incorrect! Expected: " + WRONG_MD5));
+                assertThat(mode.name(), ex.getMessage(), containsString("(Node-path: great.txt)"));
+            }
+        }
+    }
+
+    @Test
+    public void javacc_parser_verifies_off_thread() {
+        SvnDumpParser parser = new SvnDumpParser(new SvnDumpCharStream(new ByteArrayInputStream(dumpWithContent(null, WRONG_SHA1))));
+        parser.setVerificationMode(VerificationMode.DEFERRED);
+        parser.setChunkBufferPool(new ChunkBufferPool(4, 1024));
+        parser.setFileContentChunkSize(4);
+        try {
+            parser.Start(new RepositoryInMemory());
+            fail("Expected a ParseException");
+        } catch(ParseException ex) {
+            assertThat(ex.getMessage(), containsString("SHA1 sum is incorrect! Expected: " + WRONG_SHA1));
+        }
+    }
+
+    @Test
+    public void policy_selects_the_verified_sums() throws ParseException {
+        parse(dumpWithContent(WRONG_MD5, WRONG_SHA1), ChecksumPolicy.NONE, VerificationMode.END_NODE);
+        parse(dumpWithContent(WRONG_MD5, null), ChecksumPolicy.SHA1, VerificationMode.INLINE);
+        parse(dumpWithContent(null, WRONG_SHA1), ChecksumPolicy.MD5, VerificationMode.DEFERRED);
+    }
+
+    @Test
+    public void off_thread_verification_gives_the_same_results() throws URISyntaxException {
+        for(String dumpFile : SvnDumpByteParserTest.dumpFiles()) {
+            String inline = outcome(dumpFile, VerificationMode.INLINE);
+            assertThat(dumpFile, outcome(dumpFile, VerificationMode.END_NODE), is(equalTo(inline)));
+            // parsing runs ahead of a deferred mismatch, so a later error may be found first
+            assertThat(dumpFile, outcome(dumpFile, VerificationMode.DEFERRED).equals("OK"), is(inline.equals("OK")));
+        }
+    }
+
+    private static String outcome(String dumpFile, VerificationMode mode) {
+        SvnDumpByteParser parser = new SvnDumpByteParser(TestUtil.openResource(dumpFile));
+        parser.setFileContentChunkSize(16);
+        parser.setVerificationMode(mode);
+        try {
+            parser.Start(new RepositoryInMemory());
+            return "OK";
+        } catch(ParseException ex) {
+            // which sums are wrong, not where the mismatch was noticed
+            return ex.getMessage().replaceAll(" \\(Node-path: .*\\)$", "");
+        }
+    }
+
+    @Test
+    public void chunks_larger_than_the_pending_limit_are_hashed_in_order() throws Exception {
+        byte[] content = new byte[100000];
+        new Random(3).nextBytes(content);
+        byte[] md5 = MessageDigest.getInstance("MD5").digest(content);
+        byte[] sha1 = MessageDigest.getInstance("SHA1").digest(content);
+
+        for(VerificationMode mode : new VerificationMode[] { VerificationMode.END_NODE, VerificationMode.DEFERRED }) {
+            ChecksumVerifier verifier = new ChecksumVerifier();
+            verifier.setMode(mode);
+            verifier.setMaxPendingBytes(1000);
+            verifier.startContent("random.bin", md5, sha1);
+            for(int offset = 0; offset < content.length; offset += 3000) {
+                verifier.update(content, offset, Math.min(3000, content.length - offset));
+            }
+            verifier.endContent();
+            verifier.endNode();
+            verifier.finish();
+        }
+    }
+
+    @Test
+    public void hex_digits_are_lowercase_and_zero_padded() {
+        assertThat(ChecksumVerifier.toHex(new byte[] { 0x00, 0x0f, (byte) 0xab }), is(equalTo("000fab")));
+    }
+}
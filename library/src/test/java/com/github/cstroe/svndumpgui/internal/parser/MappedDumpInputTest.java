@@ -0,0 +1,196 @@
+package com.github.cstroe.svndumpgui.internal.parser;
+
+import com.github.cstroe.svndumpgui.api.ContentChunk;
+import com.github.cstroe.svndumpgui.api.RepositoryConsumer;
+import com.github.cstroe.svndumpgui.generated.ParseException;
+import com.github.cstroe.svndumpgui.generated.SvnDumpParser;
+import com.github.cstroe.svndumpgui.internal.AbstractRepositoryConsumer;
+import com.github.cstroe.svndumpgui.internal.ByteBufferContentChunk;
+import com.github.cstroe.svndumpgui.internal.FileRegionContentChunk;
+import com.github.cstroe.svndumpgui.internal.utility.TestUtil;
+import com.github.cstroe.svndumpgui.internal.writer.RepositoryDebug;
+import com.github.cstroe.svndumpgui.internal.writer.SvnDumpWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+public class MappedDumpInputTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void produces_the_same_events_as_a_stream() throws URISyntaxException, IOException {
+        for(String dumpFile : SvnDumpByteParserTest.dumpFiles()) {
+            String expected = events(new SvnDumpByteParser(TestUtil.openResource(dumpFile)));
+            try(FileChannel channel = FileChannel.open(resourcePath(dumpFile), StandardOpenOption.READ)) {
+                String actual = events(new SvnDumpByteParser(new MappedDumpInput(channel)));
+                assertThat(dumpFile, actual, is(equalTo(expected)));
+            }
+        }
+    }
+
+    @Test
+    public void lines_and_content_may_span_segments() throws URISyntaxException, IOException {
+        for(String dumpFile : SvnDumpByteParserTest.dumpFiles()) {
+            String expected = events(new SvnDumpByteParser(TestUtil.openResource(dumpFile)));
+            try(FileChannel channel = FileChannel.open(resourcePath(dumpFile), StandardOpenOption.READ)) {
+                String actual = events(new SvnDumpByteParser(new MappedDumpInput(channel, 256)));
+                assertThat(dumpFile, actual, is(equalTo(expected)));
+            }
+        }
+    }
+
+    @Test
+    public void line_longer_than_a_segment_is_an_error() throws URISyntaxException, ParseException, IOException {
+        try(FileChannel channel = FileChannel.open(resourcePath("dumps/add_file.dump"), StandardOpenOption.READ)) {
+            new SvnDumpByteParser(new MappedDumpInput(channel, 8)).Start(new RepositoryDebug(new ByteArrayOutputStream()));
+            fail("Expected an IOException");
+        } catch(RuntimeException ex) {
+            assertThat(ex.getCause().getMessage(), startsWith("A line at byte 0 is longer than the segment size of 8 bytes."));
+        }
+    }
+
+    @Test
+    public void content_chunks_are_views_of_the_mapped_file() throws URISyntaxException, ParseException, IOException {
+        List<ContentChunk> chunks = new ArrayList<>();
+        RepositoryConsumer chunkCollector = new AbstractRepositoryConsumer() {
+            @Override
+            public void consume(ContentChunk chunk) {
+                chunks.add(chunk);
+                super.consume(chunk);
+            }
+        };
+        SvnDumpByteParser.consume(resourcePath("dumps/binary_commit.dump"), chunkCollector);
+
+        assertThat(chunks.size(), is(greaterThan(0)));
+        for(ContentChunk chunk : chunks) {
+            assertThat(chunk, is(instanceOf(ByteBufferContentChunk.class)));
+            assertThat(chunk.getBuffer().isDirect(), is(true));
+        }
+    }
+
+    @Test
+    public void content_regions_are_copied_from_file_to_file() throws URISyntaxException, ParseException, IOException {
+        Path dumpFile = resourcePath("dumps/binary_commit.dump");
+        for(ChecksumPolicy policy : new ChecksumPolicy[] { ChecksumPolicy.BOTH, ChecksumPolicy.NONE }) {
+            List<ContentChunk> chunks = new ArrayList<>();
+            RepositoryConsumer chunkCollector = new AbstractRepositoryConsumer() {
+                @Override
+                public void consume(ContentChunk chunk) {
+                    chunks.add(chunk);
+                    super.consume(chunk);
+                }
+            };
+            Path copy = temporaryFolder.newFile().toPath();
+            try(FileChannel input = FileChannel.open(dumpFile, StandardOpenOption.READ);
+                FileChannel output = FileChannel.open(copy, StandardOpenOption.WRITE)) {
+                SvnDumpWriter writer = new SvnDumpWriter();
+                writer.writeTo(output);
+                chunkCollector.continueTo(writer);
+
+                SvnDumpByteParser parser = new SvnDumpByteParser(new MappedDumpInput(input, 256));
+                parser.setFileContentChunkSize(100);
+                parser.setChecksumPolicy(policy);
+                parser.setContentRegions(true);
+                parser.Start(chunkCollector);
+            }
+
+            assertThat(policy.name(), Files.readAllBytes(copy), is(equalTo(Files.readAllBytes(dumpFile))));
+            assertThat(chunks.size(), is(greaterThan(1)));
+            for(ContentChunk chunk : chunks) {
+                assertThat(chunk, is(instanceOf(FileRegionContentChunk.class)));
+                assertThat(((FileRegionContentChunk) chunk).isUnread(), is(true));
+            }
+        }
+    }
+
+    @Test
+    public void content_regions_are_read_to_verify_their_checksums() throws URISyntaxException, ParseException, IOException {
+        String dump = new String(Files.readAllBytes(resourcePath("dumps/add_file.dump")), StandardCharsets.UTF_8);
+        Path corrupted = temporaryFolder.newFile().toPath();
+        Files.write(corrupted, dump.replace("this is a test file", "this is a best file").getBytes(StandardCharsets.UTF_8));
+
+        try(FileChannel channel = FileChannel.open(corrupted, StandardOpenOption.READ)) {
+            SvnDumpByteParser parser = new SvnDumpByteParser(new MappedDumpInput(channel));
+            parser.setContentRegions(true);
+            parser.Start(new RepositoryDebug(new ByteArrayOutputStream()));
+            fail("Expected a ParseException");
+        } catch(ParseException ex) {
+            assertThat(ex.getMessage(), containsString("MD5 sum is incorrect!"));
+        }
+
+        // with the checksums trusted, the content is not read until someone asks for it
+        List<ContentChunk> chunks = new ArrayList<>();
+        RepositoryConsumer chunkCollector = new AbstractRepositoryConsumer() {
+            @Override
+            public void consume(ContentChunk chunk) {
+                chunks.add(chunk);
+                super.consume(chunk);
+            }
+        };
+        try(FileChannel channel = FileChannel.open(corrupted, StandardOpenOption.READ)) {
+            SvnDumpByteParser parser = new SvnDumpByteParser(new MappedDumpInput(channel));
+            parser.setContentRegions(true);
+            parser.setChecksumPolicy(ChecksumPolicy.NONE);
+            parser.Start(chunkCollector);
+
+            assertThat(chunks.size(), is(1));
+            assertThat(new String(chunks.get(0).getContent(), StandardCharsets.UTF_8), is(equalTo("this is a best file\n")));
+        }
+    }
+
+    @Test
+    public void parser_can_consume_a_path() throws URISyntaxException, ParseException, IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        SvnDumpWriter writer = new SvnDumpWriter();
+        writer.writeTo(baos);
+        SvnDumpParser.consume(resourcePath("dumps/add_file_no_node_properties.dump"), writer);
+
+        TestUtil.assertEqualStreams(TestUtil.openResource("dumps/add_file_no_node_properties.dump"),
+                new ByteArrayInputStream(baos.toByteArray()));
+    }
+
+    private static Path resourcePath(String resource) throws URISyntaxException {
+        return Paths.get(Thread.currentThread().getContextClassLoader().getResource(resource).toURI());
+    }
+
+    private static String events(SvnDumpByteParser parser) {
+        ByteArrayOutputStream debugOutput = new ByteArrayOutputStream();
+        ByteArrayOutputStream dumpOutput = new ByteArrayOutputStream();
+        RepositoryDebug debug = new RepositoryDebug(debugOutput);
+        SvnDumpWriter writer = new SvnDumpWriter();
+        writer.writeTo(dumpOutput);
+        debug.continueTo(writer);
+
+        String error = "";
+        try {
+            parser.setFileContentChunkSize(100);
+            parser.Start(debug);
+        } catch(ParseException ex) {
+            error = ex.getMessage();
+        }
+        return debugOutput + "\n" + dumpOutput + "\n" + error;
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.cstroe.svndumpgui.internal.parser;
+
+import com.github.cstroe.svndumpgui.api.RepositoryConsumer;
+import com.github.cstroe.svndumpgui.generated.ParseException;
+import com.github.cstroe.svndumpgui.internal.index.DumpIndex;
+import com.github.cstroe.svndumpgui.internal.index.DumpIndexBuilder;
+import com.github.cstroe.svndumpgui.internal.utility.TestUtil;
+import com.github.cstroe.svndumpgui.internal.writer.RepositoryDebug;
+import com.github.cstroe.svndumpgui.internal.writer.SvnDumpWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.core.Is.is;
+
+public class ParallelDumpParserTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private interface Parse {
+        void parse(RepositoryConsumer consumer) throws ParseException;
+    }
+
+    @Test
+    public void produces_the_same_events_as_the_sequential_parser() throws URISyntaxException, IOException {
+        int parsedDumps = 0;
+        for(String dumpFile : SvnDumpByteParserTest.dumpFiles()) {
+            Path dumpPath = resourcePath(dumpFile);
+            Path indexPath = temporaryFolder.newFile().toPath();
+            try {
+                DumpIndexBuilder.build(dumpPath, indexPath);
+            } catch(ParseException ex) {
+                continue; // the headers are broken, there are no revision boundaries to split at
+            }
+            DumpIndex index = DumpIndex.load(indexPath);
+            parsedDumps++;
+
+            String expected = events(consumer -> {
+                SvnDumpByteParser parser = new SvnDumpByteParser(TestUtil.openResource(dumpFile));
+                parser.setFileContentChunkSize(100);
+                parser.Start(consumer);
+            });
+
+            // one revision per segment
+            String actual = events(consumer -> {
+                ParallelDumpParser parser = new ParallelDumpParser(dumpPath, index, 3);
+                parser.setSegmentLength(1);
+                parser.setFileContentChunkSize(100);
+                parser.Start(consumer);
+            });
+            assertThat(dumpFile, actual, is(equalTo(expected)));
+
+            // a single segment
+            actual = events(consumer -> {
+                ParallelDumpParser parser = new ParallelDumpParser(dumpPath, index, 2);
+                parser.setSegmentLength(Long.MAX_VALUE);
+                parser.setFileContentChunkSize(100);
+                parser.Start(consumer);
+            });
+            assertThat(dumpFile, actual, is(equalTo(expected)));
+        }
+        assertThat(parsedDumps, is(greaterThan(0)));
+    }
+
+    @Test
+    public void indexes_the_dump_when_there_is_no_index() throws URISyntaxException, ParseException, IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        SvnDumpWriter writer = new SvnDumpWriter();
+        writer.writeTo(baos);
+        ParallelDumpParser.consume(resourcePath("dumps/add_file_no_node_properties.dump"), writer);
+
+        TestUtil.assertEqualStreams(TestUtil.openResource("dumps/add_file_no_node_properties.dump"),
+                new ByteArrayInputStream(baos.toByteArray()));
+    }
+
+    private static Path resourcePath(String resource) throws URISyntaxException {
+        return Paths.get(Thread.currentThread().getContextClassLoader().getResource(resource).toURI());
+    }
+
+    private static String events(Parse parse) {
+        ByteArrayOutputStream debugOutput = new ByteArrayOutputStream();
+        ByteArrayOutputStream dumpOutput = new ByteArrayOutputStream();
+        RepositoryDebug debug = new RepositoryDebug(debugOutput);
+        SvnDumpWriter writer = new SvnDumpWriter();
+        writer.writeTo(dumpOutput);
+        debug.continueTo(writer);
+
+        String error = "";
+        try {
+            parse.parse(debug);
+        } catch(ParseException ex) {
+            error = ex.getMessage();
+        }
+        return debugOutput + "\n" + dumpOutput + "\n" + error;
+    }
+}
@@ -0,0 +1,148 @@
+package com.github.cstroe.svndumpgui.internal.parser;
+
+import com.github.cstroe.svndumpgui.generated.ParseException;
+import com.github.cstroe.svndumpgui.generated.SvnDumpParser;
+import com.github.cstroe.svndumpgui.internal.index.DumpIndex;
+import com.github.cstroe.svndumpgui.internal.index.DumpIndexBuilder;
+import com.github.cstroe.svndumpgui.internal.writer.SvnDumpWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+public class RevisionRangeTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void extracted_revisions_are_an_incremental_dump() throws URISyntaxException, IOException {
+        int checkedDumps = 0;
+        for(String dumpFile : SvnDumpByteParserTest.dumpFiles()) {
+            Path dumpPath = resourcePath(dumpFile);
+            byte[] dump = Files.readAllBytes(dumpPath);
+            DumpIndex index;
+            try {
+                if(!Arrays.equals(write(dumpPath, null, 0, 0), dump)) {
+                    continue; // only dumps that are written back unchanged can be compared byte for byte
+                }
+                index = index(dumpPath);
+            } catch(ParseException ex) {
+                continue;
+            }
+            checkedDumps++;
+
+            byte[] preamble = Arrays.copyOfRange(dump, 0, (int) index.getRevisionOffset(0));
+            int revisionCount = index.getRevisionCount();
+            for(int first = 0; first < revisionCount; first++) {
+                for(int last = first; last < revisionCount; last++) {
+                    int firstRevision = index.getRevisionNumber(first);
+                    int lastRevision = index.getRevisionNumber(last);
+
+                    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+                    expected.write(preamble);
+                    expected.write(dump, (int) index.getRevisionOffset(first), (int) (index.getRevisionEnd(last) - index.getRevisionOffset(first)));
+
+                    byte[] actual;
+                    try {
+                        actual = write(dumpPath, index, firstRevision, lastRevision);
+                    } catch(ParseException ex) {
+                        throw new AssertionError(dumpFile + " r" + firstRevision + ":" + lastRevision, ex);
+                    }
+                    assertThat(dumpFile + " r" + firstRevision + ":" + lastRevision, actual, is(equalTo(expected.toByteArray())));
+                }
+            }
+        }
+        assertThat(checkedDumps, is(greaterThan(0)));
+    }
+
+    @Test
+    public void range_outside_the_dump_has_only_the_preamble() throws URISyntaxException, IOException, ParseException {
+        Path dumpPath = resourcePath("dumps/add_file_no_node_properties.dump");
+        DumpIndex index = index(dumpPath);
+        byte[] dump = Files.readAllBytes(dumpPath);
+        byte[] preamble = Arrays.copyOfRange(dump, 0, (int) index.getRevisionOffset(0));
+
+        int lastRevision = index.getRevisionNumber(index.getRevisionCount() - 1);
+        assertThat(write(dumpPath, index, lastRevision + 1, lastRevision + 10), is(equalTo(preamble)));
+        assertThat(write(dumpPath, index, -10, -1), is(equalTo(preamble)));
+    }
+
+    @Test
+    public void missing_revisions_are_left_out_of_the_range() throws URISyntaxException, IOException, ParseException {
+        Path dumpPath = resourcePath("dumps/add_file_no_node_properties.dump");
+        DumpIndex index = index(dumpPath);
+        int lastRevision = index.getRevisionNumber(index.getRevisionCount() - 1);
+
+        assertThat(write(dumpPath, index, -10, lastRevision + 10), is(equalTo(Files.readAllBytes(dumpPath))));
+    }
+
+    @Test
+    public void a_stream_can_be_parsed_in_a_range() throws URISyntaxException, IOException, ParseException {
+        Path dumpPath = resourcePath("dumps/add_file_no_node_properties.dump");
+        DumpIndex index = index(dumpPath);
+        int lastRevision = index.getRevisionNumber(index.getRevisionCount() - 1);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        SvnDumpWriter writer = new SvnDumpWriter();
+        writer.writeTo(baos);
+        try(InputStream inputStream = Files.newInputStream(dumpPath)) {
+            SvnDumpByteParser parser = new SvnDumpByteParser(inputStream);
+            parser.setRevisionRange(index, lastRevision, lastRevision);
+            parser.Start(writer);
+        }
+
+        assertThat(baos.toByteArray(), is(equalTo(write(dumpPath, index, lastRevision, lastRevision))));
+    }
+
+    @Test
+    public void index_must_match_the_dump() throws URISyntaxException, IOException, ParseException {
+        DumpIndex index = index(resourcePath("dumps/add_file_no_node_properties.dump"));
+        try {
+            SvnDumpParser.consume(resourcePath("dumps/binary_commit.dump"), index, 0, 1, new SvnDumpWriter());
+            fail("Expected an IllegalArgumentException");
+        } catch(IllegalArgumentException ex) {
+            assertThat(ex.getMessage(), startsWith("The index is for a dump of " + index.getDumpLength() + " bytes"));
+        }
+    }
+
+    private DumpIndex index(Path dumpPath) throws ParseException, IOException {
+        Path indexPath = temporaryFolder.newFile().toPath();
+        DumpIndexBuilder.build(dumpPath, indexPath);
+        return DumpIndex.load(indexPath);
+    }
+
+    /**
+     * Writes the dump, or just a range of revisions of it when an index is given.
+     */
+    private static byte[] write(Path dumpPath, DumpIndex index, int firstRevision, int lastRevision) throws ParseException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        SvnDumpWriter writer = new SvnDumpWriter();
+        writer.writeTo(baos);
+        if(index == null) {
+            SvnDumpParser.consume(dumpPath, writer);
+        } else {
+            SvnDumpParser.consume(dumpPath, index, firstRevision, lastRevision, writer);
+        }
+        return baos.toByteArray();
+    }
+
+    private static Path resourcePath(String resource) throws URISyntaxException {
+        return Paths.get(Thread.currentThread().getContextClassLoader().getResource(resource).toURI());
+    }
+}
@@ -0,0 +1,170 @@
+package com.github.cstroe.svndumpgui.internal.parser;
+
+import com.github.cstroe.svndumpgui.api.ConsumerInterest;
+import com.github.cstroe.svndumpgui.api.ContentChunk;
+import com.github.cstroe.svndumpgui.api.Node;
+import com.github.cstroe.svndumpgui.api.RepositoryConsumer;
+import com.github.cstroe.svndumpgui.api.Revision;
+import com.github.cstroe.svndumpgui.api.SelectiveConsumer;
+import com.github.cstroe.svndumpgui.generated.ParseException;
+import com.github.cstroe.svndumpgui.generated.SvnDumpParser;
+import com.github.cstroe.svndumpgui.internal.AbstractRepositoryConsumer;
+import com.github.cstroe.svndumpgui.internal.utility.SvnDumpCharStream;
+import com.github.cstroe.svndumpgui.internal.utility.TestUtil;
+import com.github.cstroe.svndumpgui.internal.validate.PathCollisionValidator;
+import com.github.cstroe.svndumpgui.internal.writer.RepositoryAuthors;
+import com.github.cstroe.svndumpgui.internal.writer.RepositorySummary;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class SelectiveParsingTest {
+
+    /**
+     * Counts what it is given, and wants only what it is told to want.
+     */
+    private static class CountingConsumer extends AbstractRepositoryConsumer implements SelectiveConsumer {
+        private final Set<ConsumerInterest> interests;
+        private int chunks = 0;
+        private int endChunks = 0;
+        private int nodeProperties = 0;
+        private int revisionProperties = 0;
+
+        private CountingConsumer(Set<ConsumerInterest> interests) {
+            this.interests = interests;
+        }
+
+        @Override
+        public void consume(Revision revision) {
+            revisionProperties += revision.getProperties().size();
+            super.consume(revision);
+        }
+
+        @Override
+        public void endNode(Node node) {
+            nodeProperties += node.getProperties().size();
+            super.endNode(node);
+        }
+
+        @Override
+        public void consume(ContentChunk chunk) {
+            chunks++;
+            super.consume(chunk);
+        }
+
+        @Override
+        public void endChunks() {
+            endChunks++;
+            super.endChunks();
+        }
+
+        @Override
+        public Set<ConsumerInterest> getInterests() {
+            return interests;
+        }
+    }
+
+    @Test
+    public void interests_are_the_union_over_the_chain() {
+        RepositoryConsumer chain = new RepositoryAuthors();
+        chain.continueTo(new PathCollisionValidator());
+        assertThat(SelectiveConsumer.interestsOf(chain), is(equalTo(EnumSet.of(ConsumerInterest.REVISION_PROPERTIES))));
+
+        chain.continueTo(new CountingConsumer(EnumSet.of(ConsumerInterest.FILE_CONTENT)));
+        assertThat(SelectiveConsumer.interestsOf(chain),
+                is(equalTo(EnumSet.of(ConsumerInterest.REVISION_PROPERTIES, ConsumerInterest.FILE_CONTENT))));
+    }
+
+    @Test
+    public void consumers_that_dont_declare_get_everything() {
+        RepositoryConsumer chain = new PathCollisionValidator();
+        chain.continueTo(new AbstractRepositoryConsumer() {});
+        assertThat(SelectiveConsumer.interestsOf(chain), is(equalTo(EnumSet.allOf(ConsumerInterest.class))));
+    }
+
+    @Test
+    public void uninteresting_parts_are_skipped() throws ParseException, IOException, URISyntaxException {
+        String dumpFile = "dumps/binary_commit.dump";
+
+        CountingConsumer everything = new CountingConsumer(EnumSet.allOf(ConsumerInterest.class));
+        SvnDumpByteParser.consume(TestUtil.openResource(dumpFile), everything);
+        assertThat(everything.chunks, is(1));
+        assertThat(everything.nodeProperties, is(1));
+        assertThat(everything.revisionProperties, is(4));
+
+        CountingConsumer nothing = new CountingConsumer(EnumSet.noneOf(ConsumerInterest.class));
+        SvnDumpByteParser.consume(TestUtil.openResource(dumpFile), nothing);
+        assertCountedNothing(nothing);
+
+        nothing = new CountingConsumer(EnumSet.noneOf(ConsumerInterest.class));
+        try(FileInputStream fis = new FileInputStream(resourcePath(dumpFile).toFile())) {
+            SvnDumpByteParser.consume(fis, nothing);
+        }
+        assertCountedNothing(nothing);
+
+        nothing = new CountingConsumer(EnumSet.noneOf(ConsumerInterest.class));
+        SvnDumpByteParser.consume(resourcePath(dumpFile), nothing);
+        assertCountedNothing(nothing);
+
+        nothing = new CountingConsumer(EnumSet.noneOf(ConsumerInterest.class));
+        SvnDumpParser.consume(TestUtil.openResource(dumpFile), nothing);
+        assertThat(nothing.chunks, is(0));
+        assertThat(nothing.endChunks, is(0));
+    }
+
+    private static void assertCountedNothing(CountingConsumer consumer) {
+        assertThat(consumer.chunks, is(0));
+        assertThat(consumer.endChunks, is(0));
+        assertThat(consumer.nodeProperties, is(0));
+        assertThat(consumer.revisionProperties, is(0));
+    }
+
+    @Test
+    public void summary_is_the_same_when_skipping() throws URISyntaxException {
+        for(String dumpFile : SvnDumpByteParserTest.dumpFiles()) {
+            // the trailing consumer wants everything, so nothing is skipped
+            String full = summary(dumpFile, true, false);
+            if(full == null) {
+                continue; // skipping content also skips its checksums
+            }
+            assertThat(dumpFile, summary(dumpFile, false, false), is(equalTo(full)));
+            assertThat(dumpFile, summary(dumpFile, false, true), is(equalTo(full)));
+        }
+    }
+
+    private static String summary(String dumpFile, boolean everything, boolean mapped) throws URISyntaxException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        RepositorySummary summary = new RepositorySummary();
+        summary.writeTo(baos);
+        if(everything) {
+            summary.continueTo(new AbstractRepositoryConsumer() {});
+        }
+
+        try {
+            if(mapped) {
+                SvnDumpByteParser.consume(resourcePath(dumpFile), summary);
+            } else {
+                SvnDumpParser parser = new SvnDumpParser(new SvnDumpCharStream(TestUtil.openResource(dumpFile)));
+                parser.Start(summary);
+            }
+        } catch(ParseException ex) {
+            return null;
+        }
+        return baos.toString();
+    }
+
+    private static Path resourcePath(String resource) throws URISyntaxException {
+        return Paths.get(Thread.currentThread().getContextClassLoader().getResource(resource).toURI());
+    }
+}
@@ -0,0 +1,282 @@
+package com.github.cstroe.svndumpgui.internal.parser;
+
+import com.github.cstroe.svndumpgui.api.ContentChunk;
+import com.github.cstroe.svndumpgui.api.Node;
+import com.github.cstroe.svndumpgui.api.Repository;
+import com.github.cstroe.svndumpgui.api.RepositoryConsumer;
+import com.github.cstroe.svndumpgui.generated.ParseException;
+import com.github.cstroe.svndumpgui.generated.SvnDumpParser;
+import com.github.cstroe.svndumpgui.internal.AbstractRepositoryConsumer;
+import com.github.cstroe.svndumpgui.internal.utility.ChunkBufferPool;
+import com.github.cstroe.svndumpgui.internal.utility.SvnDumpCharStream;
+import com.github.cstroe.svndumpgui.internal.utility.TestUtil;
+import com.github.cstroe.svndumpgui.internal.writer.RepositoryDebug;
+import com.github.cstroe.svndumpgui.internal.writer.RepositoryInMemory;
+import com.github.cstroe.svndumpgui.internal.writer.SvnDumpWriter;
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+public class SvnDumpByteParserTest {
+
+    /**
+     * @return the names of all the dump files in the test resources
+     */
+    public static List<String> dumpFiles() throws URISyntaxException {
+        URL dumps = Thread.currentThread().getContextClassLoader().getResource("dumps");
+        assert dumps != null;
+        String[] names = new File(dumps.toURI()).list((dir, name) -> name.endsWith(".dump"));
+        assert names != null;
+        Arrays.sort(names);
+
+        List<String> dumpFiles = new ArrayList<>(names.length);
+        for(String name : names) {
+            dumpFiles.add("dumps/" + name);
+        }
+        return dumpFiles;
+    }
+
+    @Test
+    public void produces_the_same_events_as_the_javacc_parser() throws URISyntaxException {
+        List<String> dumpFiles = dumpFiles();
+        assertThat(dumpFiles.size(), is(greaterThan(0)));
+        for(String dumpFile : dumpFiles) {
+            assertSameEvents(dumpFile, 1024 * 1024 * 4);
+        }
+    }
+
+    @Test
+    public void produces_the_same_chunks_as_the_javacc_parser() throws URISyntaxException {
+        for(String dumpFile : dumpFiles()) {
+            assertSameEvents(dumpFile, 7);
+        }
+    }
+
+    private void assertSameEvents(String dumpFile, int chunkSize) {
+        String expected = events(dumpFile, consumer -> {
+            SvnDumpParser parser = new SvnDumpParser(new SvnDumpCharStream(TestUtil.openResource(dumpFile)));
+            parser.setFileContentChunkSize(chunkSize);
+            parser.Start(consumer);
+        });
+        String actual = events(dumpFile, consumer -> {
+            SvnDumpByteParser parser = new SvnDumpByteParser(TestUtil.openResource(dumpFile));
+            parser.setFileContentChunkSize(chunkSize);
+            parser.Start(consumer);
+        });
+
+        assertThat(dumpFile, actual, is(equalTo(expected)));
+    }
+
+    @Test
+    public void pooled_chunks_produce_the_same_events() throws URISyntaxException {
+        ChunkBufferPool pool = new ChunkBufferPool(7, 1024);
+        for(String dumpFile : dumpFiles()) {
+            String expected = events(dumpFile, consumer -> {
+                SvnDumpParser parser = new SvnDumpParser(new SvnDumpCharStream(TestUtil.openResource(dumpFile)));
+                parser.setFileContentChunkSize(7);
+                parser.Start(consumer);
+            });
+            String pooledJavaCC = events(dumpFile, consumer -> {
+                SvnDumpParser parser = new SvnDumpParser(new SvnDumpCharStream(TestUtil.openResource(dumpFile)));
+                parser.setFileContentChunkSize(7);
+                parser.setChunkBufferPool(pool);
+                parser.Start(consumer);
+            });
+            String pooledBytes = events(dumpFile, consumer -> {
+                SvnDumpByteParser parser = new SvnDumpByteParser(TestUtil.openResource(dumpFile));
+                parser.setFileContentChunkSize(7);
+                parser.setChunkBufferPool(pool);
+                parser.Start(consumer);
+            });
+
+            assertThat(dumpFile, pooledJavaCC, is(equalTo(expected)));
+            assertThat(dumpFile, pooledBytes, is(equalTo(expected)));
+        }
+        assertThat(pool.getHits(), is(greaterThan(0L)));
+    }
+
+    @Test
+    public void retained_chunks_keep_their_content() throws ParseException {
+        String dumpFile = "dumps/binary_commit.dump";
+        RepositoryInMemory unpooled = new RepositoryInMemory();
+        SvnDumpByteParser.consume(TestUtil.openResource(dumpFile), unpooled);
+
+        RepositoryInMemory pooled = new RepositoryInMemory();
+        SvnDumpByteParser parser = new SvnDumpByteParser(TestUtil.openResource(dumpFile));
+        parser.setFileContentChunkSize(64);
+        parser.setChunkBufferPool(new ChunkBufferPool(64, 1024));
+        parser.Start(pooled);
+
+        List<Node> expectedNodes = unpooled.getRepo().getRevisions().get(1).getNodes();
+        List<Node> actualNodes = pooled.getRepo().getRevisions().get(1).getNodes();
+        assertThat(actualNodes.size(), is(expectedNodes.size()));
+        for(int i = 0; i < expectedNodes.size(); i++) {
+            assertThat(actualNodes.get(i).getByteContent(), is(equalTo(expectedNodes.get(i).getByteContent())));
+        }
+    }
+
+    @Test
+    public void nodes_larger_than_the_pool_are_not_held_in_it() throws ParseException {
+        String dumpFile = "dumps/binary_commit.dump";
+        RepositoryInMemory unpooled = new RepositoryInMemory();
+        SvnDumpByteParser.consume(TestUtil.openResource(dumpFile), unpooled);
+        byte[] expected = unpooled.getRepo().getRevisions().get(1).getNodes().get(0).getByteContent();
+
+        // the file has 1024 bytes, and the pool only 4 chunks of 64
+        ChunkBufferPool pool = new ChunkBufferPool(64, 256);
+        List<String> chunks = new ArrayList<>();
+        RepositoryConsumer chunkCounter = new AbstractRepositoryConsumer() {
+            @Override
+            public void consume(ContentChunk chunk) {
+                assertThat(pool.getLeasedBytes() <= 256, is(true));
+                chunks.add(chunk.getClass().getSimpleName());
+                super.consume(chunk);
+            }
+        };
+        RepositoryInMemory pooled = new RepositoryInMemory();
+        chunkCounter.continueTo(pooled);
+
+        SvnDumpByteParser parser = new SvnDumpByteParser(TestUtil.openResource(dumpFile));
+        parser.setFileContentChunkSize(64);
+        parser.setChunkBufferPool(pool);
+        parser.Start(chunkCounter);
+
+        SvnDumpParser javacc = new SvnDumpParser(new SvnDumpCharStream(TestUtil.openResource(dumpFile)));
+        javacc.setFileContentChunkSize(64);
+        javacc.setChunkBufferPool(pool);
+        javacc.Start(chunkCounter);
+
+        assertThat(chunks.size(), is(32));
+        assertThat(chunks.stream().filter("PooledContentChunk"::equals).count(), is(8L));
+        assertThat(pooled.getRepo().getRevisions().get(1).getNodes().get(0).getByteContent(), is(equalTo(expected)));
+        assertThat(pool.getLeasedBytes(), is(0L));
+        assertThat(pool.getPooledBytes(), is(256L));
+    }
+
+    private interface ParserRun {
+        void parse(RepositoryConsumer consumer) throws ParseException;
+    }
+
+    /**
+     * @return the debug messages and the rewritten dump, followed by whether parsing failed.
+     *         The error messages themselves differ between the two parsers.
+     */
+    private static String events(String dumpFile, ParserRun parserRun) {
+        ByteArrayOutputStream debugOutput = new ByteArrayOutputStream();
+        ByteArrayOutputStream dumpOutput = new ByteArrayOutputStream();
+        RepositoryDebug debug = new RepositoryDebug(debugOutput);
+        SvnDumpWriter writer = new SvnDumpWriter();
+        writer.writeTo(dumpOutput);
+        debug.continueTo(writer);
+
+        String error = "";
+        try {
+            parserRun.parse(debug);
+        } catch(ParseException ex) {
+            error = "ParseException";
+        }
+
+        return dumpFile + "\n" + debugOutput + "\n" + dumpOutput + "\n" + error;
+    }
+
+    @Test
+    public void rewrites_dumps_byte_for_byte() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        SvnDumpWriter writer = new SvnDumpWriter();
+        writer.writeTo(baos);
+        SvnDumpByteParser.consume(TestUtil.openResource("dumps/add_file_no_node_properties.dump"), writer);
+
+        TestUtil.assertEqualStreams(TestUtil.openResource("dumps/add_file_no_node_properties.dump"),
+                new ByteArrayInputStream(baos.toByteArray()));
+    }
+
+    @Test
+    public void trailing_newlines_are_kept_out_of_the_properties() throws ParseException {
+        final String dumpFile = "dumps/add_file_no_node_properties.dump";
+        RepositoryInMemory fromBytes = new RepositoryInMemory();
+        SvnDumpByteParser.consume(TestUtil.openResource(dumpFile), fromBytes);
+        RepositoryInMemory fromJavacc = new RepositoryInMemory();
+        SvnDumpParser.consume(TestUtil.openResource(dumpFile), fromJavacc);
+
+        List<Node> bytesNodes = fromBytes.getRepo().getRevisions().get(1).getNodes();
+        List<Node> javaccNodes = fromJavacc.getRepo().getRevisions().get(1).getNodes();
+        assertThat(bytesNodes.size(), is(greaterThan(0)));
+        for(int i = 0; i < bytesNodes.size(); i++) {
+            assertThat(bytesNodes.get(i).getProperties().containsKey("TRAILING_NEWLINE_HINT"), is(false));
+            assertThat(bytesNodes.get(i).getTrailingNewlines(), is(greaterThan(0)));
+            assertThat(bytesNodes.get(i).getTrailingNewlines(), is(equalTo(javaccNodes.get(i).getTrailingNewlines())));
+        }
+    }
+
+    @Test
+    public void lines_may_span_buffer_refills() throws ParseException, IOException {
+        // hand out a few bytes at a time, so that every line is split across reads
+        InputStream trickle = new ByteArrayInputStream(ByteStreams.toByteArray(TestUtil.openResource("dumps/svn_multi_file_delete_multiple_authors.dump"))) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 3));
+            }
+        };
+
+        RepositoryInMemory fromTrickle = new RepositoryInMemory();
+        SvnDumpByteParser.consume(trickle, fromTrickle);
+
+        RepositoryInMemory fromStream = new RepositoryInMemory();
+        SvnDumpByteParser.consume(TestUtil.openResource("dumps/svn_multi_file_delete_multiple_authors.dump"), fromStream);
+
+        Repository expected = fromStream.getRepo();
+        Repository actual = fromTrickle.getRepo();
+        assertThat(actual.getRevisions().size(), is(expected.getRevisions().size()));
+        for(int i = 0; i < expected.getRevisions().size(); i++) {
+            assertThat(actual.getRevisions().get(i).getProperties(), is(equalTo(expected.getRevisions().get(i).getProperties())));
+            assertThat(actual.getRevisions().get(i).getNodes().toString(), is(equalTo(expected.getRevisions().get(i).getNodes().toString())));
+        }
+    }
+
+    @Test
+    public void unknown_node_header_is_a_parse_error() {
+        String dump = "SVN-fs-dump-format-version: 2\n\n" +
+                "UUID: 0b7e5a5e-7b4e-4a5e-9d3f-2c6a1b8d9e0f\n\n" +
+                "Revision-number: 0\nProp-content-length: 10\nContent-length: 10\n\nPROPS-END\n\n" +
+                "Node-path: a\nNode-colour: blue\n\n\n";
+
+        try {
+            SvnDumpByteParser.consume(new ByteArrayInputStream(dump.getBytes(StandardCharsets.UTF_8)), new RepositoryInMemory());
+            fail("Expected a ParseException");
+        } catch(ParseException ex) {
+            assertThat(ex.getMessage(), startsWith("Unknown node header at byte 162"));
+        }
+    }
+
+    @Test
+    public void truncated_dump_is_a_parse_error() {
+        String dump = "SVN-fs-dump-format-version: 2\n\n" +
+                "UUID: 0b7e5a5e-7b4e-4a5e-9d3f-2c6a1b8d9e0f\n\n" +
+                "Revision-number: 0\nProp-content-length: 10\nContent-length: 10\n\nPROPS-";
+
+        try {
+            SvnDumpByteParser.consume(new ByteArrayInputStream(dump.getBytes(StandardCharsets.UTF_8)), new RepositoryInMemory());
+            fail("Expected a ParseException");
+        } catch(ParseException ex) {
+            assertThat(ex.getMessage(), startsWith("Expected a property line starting with 'K'"));
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.github.cstroe.svndumpgui.internal.transform;
+
+import com.github.cstroe.svndumpgui.api.Node;
+import com.github.cstroe.svndumpgui.api.NodeHeader;
+import com.github.cstroe.svndumpgui.api.Repository;
+import com.github.cstroe.svndumpgui.generated.ParseException;
+import com.github.cstroe.svndumpgui.internal.NodeHeaderMap;
+import com.github.cstroe.svndumpgui.internal.parser.SvnDumpByteParser;
+import com.github.cstroe.svndumpgui.internal.writer.RepositoryInMemory;
+import com.github.cstroe.svndumpgui.internal.writer.SvnDumpWriter;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class TextDeltaApplierTest {
+
+    private static final String PREAMBLE = "SVN-fs-dump-format-version: 3\n\n" +
+            "UUID: 0b7e5a5e-7b4e-4a5e-9d3f-2c6a1b8d9e0f\n\n" +
+            "Revision-number: 0\nProp-content-length: 10\nContent-length: 10\n\nPROPS-END\n\n" +
+            "Revision-number: 1\nProp-content-length: 10\nContent-length: 10\n\nPROPS-END\n\n";
+
+    private static final String REVISION_2 = "Revision-number: 2\nProp-content-length: 10\nContent-length: 10\n\nPROPS-END\n\n";
+
+    // a window that writes "hello\n" from new data
+    private static final byte[] ADD_HELLO = {
+            'S', 'V', 'N', 0,
+            0, 0, 6, 1, 6, (byte) 0x86, 'h', 'e', 'l', 'l', 'o', '\n' };
+
+    // a window that copies the 6 bytes of the source, then writes "world\n"
+    private static final byte[] APPEND_WORLD = {
+            'S', 'V', 'N', 0,
+            0, 6, 12, 3, 6, 0x06, 0x00, (byte) 0x86, 'w', 'o', 'r', 'l', 'd', '\n' };
+
+    // a window that copies the 6 bytes of the source, then writes "!\n"
+    private static final byte[] APPEND_BANG = {
+            'S', 'V', 'N', 0,
+            0, 6, 8, 3, 2, 0x06, 0x00, (byte) 0x82, '!', '\n' };
+
+    @Test
+    public void turns_deltas_into_full_texts() throws Exception {
+        ByteArrayOutputStream dump = new ByteArrayOutputStream();
+        write(dump, PREAMBLE);
+        deltaNode(dump, "a.txt", "add", "", null, ADD_HELLO, "hello\n");
+        write(dump, REVISION_2);
+        deltaNode(dump, "a.txt", "change", "", "hello\n", APPEND_WORLD, "hello\nworld\n");
+        deltaNode(dump, "b.txt", "add", "Node-copyfrom-rev: 1\nNode-copyfrom-path: a.txt\n", "hello\n", APPEND_BANG, "hello\n!\n");
+
+        RepositoryInMemory inMemory = new RepositoryInMemory();
+        TextDeltaApplier applier = new TextDeltaApplier();
+        applier.continueTo(inMemory);
+        SvnDumpByteParser.consume(new ByteArrayInputStream(dump.toByteArray()), applier);
+        Repository repository = inMemory.getRepo();
+
+        assertText(repository.getRevisions().get(1).getNodes().get(0), "hello\n");
+        assertText(repository.getRevisions().get(2).getNodes().get(0), "hello\nworld\n");
+        assertText(repository.getRevisions().get(2).getNodes().get(1), "hello\n!\n");
+    }
+
+    @Test
+    public void writes_the_dump_that_would_have_been_made_without_deltas() throws Exception {
+        ByteArrayOutputStream deltas = new ByteArrayOutputStream();
+        write(deltas, PREAMBLE);
+        deltaNode(deltas, "a.txt", "add", "", null, ADD_HELLO, "hello\n");
+        write(deltas, REVISION_2);
+        deltaNode(deltas, "a.txt", "change", "", "hello\n", APPEND_WORLD, "hello\nworld\n");
+
+        // a dump without deltas is a version 2 dump
+        ByteArrayOutputStream fullTexts = new ByteArrayOutputStream();
+        write(fullTexts, PREAMBLE.replace("version: 3", "version: 2"));
+        fullTextNode(fullTexts, "a.txt", "add", "hello\n");
+        write(fullTexts, REVISION_2);
+        fullTextNode(fullTexts, "a.txt", "change", "hello\nworld\n");
+
+        ByteArrayOutputStream applied = new ByteArrayOutputStream();
+        TextDeltaApplier applier = new TextDeltaApplier();
+        SvnDumpWriter writer = new SvnDumpWriter();
+        writer.writeTo(applied);
+        applier.continueTo(writer);
+        SvnDumpByteParser.consume(new ByteArrayInputStream(deltas.toByteArray()), applier);
+
+        assertThat(new String(applied.toByteArray(), StandardCharsets.UTF_8),
+                is(equalTo(new String(fullTexts.toByteArray(), StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void passes_the_full_text_on_in_chunks() throws Exception {
+        ByteArrayOutputStream dump = new ByteArrayOutputStream();
+        write(dump, PREAMBLE);
+        deltaNode(dump, "a.txt", "add", "", null, ADD_HELLO, "hello\n");
+        write(dump, REVISION_2);
+        deltaNode(dump, "a.txt", "change", "", "hello\n", APPEND_WORLD, "hello\nworld\n");
+
+        RepositoryInMemory inMemory = new RepositoryInMemory();
+        TextDeltaApplier applier = new TextDeltaApplier();
+        applier.setFileContentChunkSize(5);
+        applier.continueTo(inMemory);
+        SvnDumpByteParser.consume(new ByteArrayInputStream(dump.toByteArray()), applier);
+
+        Node changed = inMemory.getRepo().getRevisions().get(2).getNodes().get(0);
+        assertThat(changed.getContent().size(), is(3));
+        assertThat(changed.getContent().get(2).getLength(), is(2));
+        assertText(changed, "hello\nworld\n");
+    }
+
+    @Test
+    public void writes_empty_texts_like_a_dump_without_deltas() throws Exception {
+        // a delta without windows makes an empty text
+        byte[] empty = { 'S', 'V', 'N', 0 };
+        String props = "Prop-content-length: 10\n";
+
+        ByteArrayOutputStream deltas = new ByteArrayOutputStream();
+        write(deltas, PREAMBLE);
+        write(deltas, "Node-path: a.txt\nNode-kind: file\nNode-action: add\nText-delta: true\n" +
+                "Text-content-length: 4\nText-content-md5: " + md5("") + "\nContent-length: 4\n\n");
+        deltas.write(empty, 0, empty.length);
+        write(deltas, "\n\n");
+        write(deltas, "Node-path: b.txt\nNode-kind: file\nNode-action: add\nText-delta: true\n" + props +
+                "Text-content-length: 4\nText-content-md5: " + md5("") + "\nContent-length: 14\n\nPROPS-END\n");
+        deltas.write(empty, 0, empty.length);
+        write(deltas, "\n\n");
+
+        ByteArrayOutputStream fullTexts = new ByteArrayOutputStream();
+        write(fullTexts, PREAMBLE.replace("version: 3", "version: 2"));
+        write(fullTexts, "Node-path: a.txt\nNode-kind: file\nNode-action: add\n" +
+                "Text-content-length: 0\nText-content-md5: " + md5("") + "\nContent-length: 0\n\n\n\n");
+        write(fullTexts, "Node-path: b.txt\nNode-kind: file\nNode-action: add\n" + props +
+                "Text-content-length: 0\nText-content-md5: " + md5("") + "\nContent-length: 10\n\nPROPS-END\n\n\n");
+
+        ByteArrayOutputStream applied = new ByteArrayOutputStream();
+        TextDeltaApplier applier = new TextDeltaApplier();
+        SvnDumpWriter writer = new SvnDumpWriter();
+        writer.writeTo(applied);
+        applier.continueTo(writer);
+        SvnDumpByteParser.consume(new ByteArrayInputStream(deltas.toByteArray()), applier);
+
+        assertThat(new String(applied.toByteArray(), StandardCharsets.UTF_8),
+                is(equalTo(new String(fullTexts.toByteArray(), StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void checks_the_md5_sum_of_the_full_text() throws Exception {
+        ByteArrayOutputStream dump = new ByteArrayOutputStream();
+        write(dump, PREAMBLE);
+        deltaNode(dump, "a.txt", "add", "", null, ADD_HELLO, "goodbye\n");
+
+        TextDeltaApplier applier = new TextDeltaApplier();
+        applier.continueTo(new RepositoryInMemory());
+        try {
+            SvnDumpByteParser.consume(new ByteArrayInputStream(dump.toByteArray()), applier);
+            throw new AssertionError("The wrong MD5 sum was not detected.");
+        } catch(RuntimeException ex) {
+            assertThat(ex.getCause(), is(instanceOf(ParseException.class)));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void needs_the_source_of_a_delta() throws Exception {
+        ByteArrayOutputStream dump = new ByteArrayOutputStream();
+        write(dump, PREAMBLE);
+        deltaNode(dump, "a.txt", "change", "", null, APPEND_WORLD, "hello\nworld\n");
+
+        TextDeltaApplier applier = new TextDeltaApplier();
+        applier.continueTo(new RepositoryInMemory());
+        SvnDumpByteParser.consume(new ByteArrayInputStream(dump.toByteArray()), applier);
+    }
+
+    private static void assertText(Node node, String expected) {
+        byte[] expectedBytes = expected.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        node.getContent().forEach(chunk -> content.write(chunk.getContent(), 0, chunk.getContent().length));
+
+        assertThat(new String(content.toByteArray(), StandardCharsets.UTF_8), is(equalTo(expected)));
+        assertThat(node.get(NodeHeader.TEXT_DELTA), is(nullValue()));
+        assertThat(node.get(NodeHeader.DELTA_BASE_MD5), is(nullValue()));
+        assertThat(node.getTextContentLength(), is((long) expectedBytes.length));
+        assertThat(node.getContentLength(), is((long) expectedBytes.length));
+    }
+
+    private static void deltaNode(ByteArrayOutputStream dump, String path, String action, String copyFrom,
+                                  String source, byte[] delta, String text) throws NoSuchAlgorithmException {
+        write(dump, "Node-path: " + path + "\nNode-kind: file\nNode-action: " + action + "\n" + copyFrom +
+                "Text-delta: true\n" +
+                (source == null ? "" : "Text-delta-base-md5: " + md5(source) + "\n") +
+                "Text-content-length: " + delta.length + "\n" +
+                "Text-content-md5: " + md5(text) + "\n" +
+                "Content-length: " + delta.length + "\n\n");
+        dump.write(delta, 0, delta.length);
+        write(dump, "\n\n");
+    }
+
+    private static void fullTextNode(ByteArrayOutputStream dump, String path, String action, String text) throws NoSuchAlgorithmException {
+        write(dump, "Node-path: " + path + "\nNode-kind: file\nNode-action: " + action + "\n" +
+                "Text-content-length: " + text.length() + "\n" +
+                "Text-content-md5: " + md5(text) + "\n" +
+                "Content-length: " + text.length() + "\n\n" + text + "\n\n");
+    }
+
+    private static String md5(String text) throws NoSuchAlgorithmException {
+        return NodeHeaderMap.toHex(MessageDigest.getInstance("MD5").digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void write(ByteArrayOutputStream dump, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        dump.write(bytes, 0, bytes.length);
+    }
+}
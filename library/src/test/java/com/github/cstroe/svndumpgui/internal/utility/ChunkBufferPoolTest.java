@@ -0,0 +1,68 @@
+package com.github.cstroe.svndumpgui.internal.utility;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class ChunkBufferPoolTest {
+    @Test(expected = IllegalArgumentException.class)
+    public void buffer_size_must_be_positive() {
+        new ChunkBufferPool(0, 1024);
+    }
+
+    @Test
+    public void released_buffers_are_reused() {
+        ChunkBufferPool pool = new ChunkBufferPool(16, 1024);
+
+        byte[] first = pool.lease(10);
+        assertThat(first.length, is(16));
+        pool.release(first);
+
+        assertThat(pool.lease(16), is(sameInstance(first)));
+        assertThat(pool.getHits(), is(1L));
+        assertThat(pool.getMisses(), is(1L));
+    }
+
+    @Test
+    public void large_requests_are_not_pooled() {
+        ChunkBufferPool pool = new ChunkBufferPool(16, 1024);
+
+        byte[] large = pool.lease(17);
+        assertThat(large.length, is(17));
+        pool.release(large);
+
+        assertThat(pool.getDiscards(), is(1L));
+        assertThat(pool.getPooledBytes(), is(0L));
+    }
+
+    @Test
+    public void pool_size_is_bounded() {
+        ChunkBufferPool pool = new ChunkBufferPool(16, 32);
+
+        byte[] a = pool.lease(16);
+        byte[] b = pool.lease(16);
+        assertThat(pool.lease(16), is(nullValue()));
+        assertThat(pool.getLeasedBytes(), is(32L));
+        pool.release(a);
+        pool.release(b);
+
+        assertThat(pool.getPooledBytes(), is(32L));
+        assertThat(pool.getLeasedBytes(), is(0L));
+        assertThat(pool.getDiscards(), is(0L));
+        assertThat(pool.lease(16), is(sameInstance(b)));
+        assertThat(pool.lease(17), is(nullValue()));
+    }
+
+    @Test
+    public void toString_should_describe_the_statistics() {
+        ChunkBufferPool pool = new ChunkBufferPool(16, 32);
+        pool.release(pool.lease(1));
+        pool.lease(1);
+
+        assertThat(pool.toString(), is(equalTo("ChunkBufferPool{hits=1, misses=1, discards=0, pooledBytes=0}")));
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.cstroe.svndumpgui.internal.utility;
+
+import com.github.cstroe.svndumpgui.generated.ParseException;
+import com.github.cstroe.svndumpgui.generated.SvnDumpParser;
+import com.github.cstroe.svndumpgui.internal.parser.SvnDumpByteParser;
+import com.github.cstroe.svndumpgui.internal.writer.SvnDumpWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class CompressedInputTest {
+
+    private static final String DUMP = "dumps/add_file_no_node_properties.dump";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private interface Compressor {
+        OutputStream wrap(OutputStream out) throws IOException;
+    }
+
+    private static byte[] compress(Compressor compressor) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try(InputStream dump = TestUtil.openResource(DUMP); OutputStream out = compressor.wrap(baos)) {
+            byte[] buffer = new byte[4096];
+            int bytesRead;
+            while((bytesRead = dump.read(buffer)) != -1) {
+                out.write(buffer, 0, bytesRead);
+            }
+        }
+        return baos.toByteArray();
+    }
+
+    private static void assertWritesTheDump(ByteArrayOutputStream written) throws IOException {
+        TestUtil.assertEqualStreams(TestUtil.openResource(DUMP), new ByteArrayInputStream(written.toByteArray()));
+    }
+
+    @Test
+    public void detects_the_format_from_the_magic_bytes() throws IOException {
+        assertThat(CompressedInput.detect('S', 'V'), is(equalTo(CompressedInput.Format.NONE)));
+        assertThat(CompressedInput.detect(-1, -1), is(equalTo(CompressedInput.Format.NONE)));
+        assertThat(CompressedInput.detect(0x1f, 0x8b), is(equalTo(CompressedInput.Format.GZIP)));
+        assertThat(CompressedInput.detect(0x78, 0x9c), is(equalTo(CompressedInput.Format.ZLIB)));
+
+        assertThat(CompressedInput.decompress(new ByteArrayInputStream(compress(GZIPOutputStream::new))), is(instanceOf(ParallelGzipInputStream.class)));
+    }
+
+    @Test
+    public void parsers_read_compressed_streams() throws IOException, ParseException {
+        Compressor[] compressors = { GZIPOutputStream::new, BlockGzipOutputStream::new, DeflaterOutputStream::new, out -> out };
+        for(Compressor compressor : compressors) {
+            byte[] compressed = compress(compressor);
+
+            ByteArrayOutputStream javacc = new ByteArrayOutputStream();
+            SvnDumpWriter writer = new SvnDumpWriter();
+            writer.writeTo(javacc);
+            SvnDumpParser.consume(new ByteArrayInputStream(compressed), writer);
+            assertWritesTheDump(javacc);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            writer = new SvnDumpWriter();
+            writer.writeTo(bytes);
+            SvnDumpByteParser.consume(new ByteArrayInputStream(compressed), writer);
+            assertWritesTheDump(bytes);
+        }
+    }
+
+    @Test
+    public void parser_reads_a_compressed_file() throws IOException, ParseException {
+        Path compressedFile = temporaryFolder.newFile("dump.gz").toPath();
+        Files.write(compressedFile, compress(BlockGzipOutputStream::new));
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        SvnDumpWriter writer = new SvnDumpWriter();
+        writer.writeTo(baos);
+        SvnDumpParser.consume(compressedFile, writer);
+        assertWritesTheDump(baos);
+    }
+}
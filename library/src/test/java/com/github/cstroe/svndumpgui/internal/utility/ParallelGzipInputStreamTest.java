@@ -0,0 +1,148 @@
+package com.github.cstroe.svndumpgui.internal.utility;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+public class ParallelGzipInputStreamTest {
+
+    // the end of file marker of BGZF, an empty member with a BC field
+    private static final byte[] EMPTY_MEMBER = {
+            0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff, 6, 0, 'B', 'C', 2, 0, 0x1b, 0,
+            3, 0, 0, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    /**
+     * Compressible, but not too compressible.
+     */
+    private static byte[] content(int length) {
+        Random random = new Random(length);
+        byte[] content = new byte[length];
+        for(int i = 0; i < length; i++) {
+            content[i] = (byte) ('a' + random.nextInt(8));
+        }
+        return content;
+    }
+
+    private static byte[] blockGzip(byte[] content) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try(OutputStream out = new BlockGzipOutputStream(baos)) {
+            out.write(content);
+        }
+        return baos.toByteArray();
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try(OutputStream out = new GZIPOutputStream(baos)) {
+            out.write(content);
+        }
+        return baos.toByteArray();
+    }
+
+    private static byte[] readAll(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        byte[] buffer = new byte[10000];
+        int bytesRead;
+        while((bytesRead = inputStream.read(buffer)) != -1) {
+            baos.write(buffer, 0, bytesRead);
+        }
+        return baos.toByteArray();
+    }
+
+    @Test
+    public void inflates_block_members_in_parallel() throws IOException {
+        byte[] content = content(500000);
+        byte[] compressed = blockGzip(content);
+
+        try(ParallelGzipInputStream inputStream = new ParallelGzipInputStream(new ByteArrayInputStream(compressed), 3, 50000)) {
+            assertThat(readAll(inputStream), is(equalTo(content)));
+            assertThat(inputStream.getParallelMembers(), is(equalTo((long) (content.length + BlockGzipOutputStream.BLOCK_SIZE - 1) / BlockGzipOutputStream.BLOCK_SIZE)));
+            assertThat(inputStream.getSequentialMembers(), is(equalTo(0L)));
+        }
+    }
+
+    @Test
+    public void block_members_are_plain_gzip() throws IOException {
+        byte[] content = content(200000);
+        assertThat(readAll(new GZIPInputStream(new ByteArrayInputStream(blockGzip(content)))), is(equalTo(content)));
+    }
+
+    @Test
+    public void inflates_a_single_member_as_it_is_read() throws IOException {
+        byte[] content = content(300000);
+        try(ParallelGzipInputStream inputStream = new ParallelGzipInputStream(new ByteArrayInputStream(gzip(content)))) {
+            assertThat(readAll(inputStream), is(equalTo(content)));
+            assertThat(inputStream.getParallelMembers(), is(equalTo(0L)));
+            assertThat(inputStream.getSequentialMembers(), is(equalTo(1L)));
+        }
+    }
+
+    @Test
+    public void keeps_the_order_of_mixed_members() throws IOException {
+        byte[] first = content(70000);
+        byte[] second = content(150000);
+        byte[] third = content(1000);
+        byte[] fourth = content(90000);
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        compressed.write(gzip(first));
+        compressed.write(blockGzip(second));
+        compressed.write(EMPTY_MEMBER);
+        compressed.write(gzip(third));
+        compressed.write(blockGzip(fourth));
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(first);
+        expected.write(second);
+        expected.write(third);
+        expected.write(fourth);
+
+        try(ParallelGzipInputStream inputStream = new ParallelGzipInputStream(new ByteArrayInputStream(compressed.toByteArray()), 2, 1)) {
+            assertThat(readAll(inputStream), is(equalTo(expected.toByteArray())));
+            assertThat(inputStream.getSequentialMembers(), is(equalTo(2L)));
+            assertThat(inputStream.getParallelMembers(), is(greaterThan(4L)));
+        }
+    }
+
+    @Test
+    public void detects_corrupt_members() throws IOException {
+        byte[] compressed = blockGzip(content(100000));
+        compressed[compressed.length - 5] ^= 1; // the CRC of the last member
+
+        try(InputStream inputStream = new ParallelGzipInputStream(new ByteArrayInputStream(compressed), 2, 1)) {
+            readAll(inputStream);
+            fail("Expected a ZipException");
+        } catch(ZipException ex) {
+            assertThat(ex.getMessage(), is(equalTo("Corrupt GZIP trailer")));
+        }
+    }
+
+    @Test
+    public void detects_truncated_input() throws IOException {
+        byte[] compressed = gzip(content(100000));
+        byte[] truncated = new byte[compressed.length - 4];
+        System.arraycopy(compressed, 0, truncated, 0, truncated.length);
+
+        try(InputStream inputStream = new ParallelGzipInputStream(new ByteArrayInputStream(truncated))) {
+            readAll(inputStream);
+            fail("Expected an IOException");
+        } catch(IOException ex) {
+            assertThat(ex.getMessage(), is(equalTo("Unexpected end of GZIP input")));
+        }
+    }
+}
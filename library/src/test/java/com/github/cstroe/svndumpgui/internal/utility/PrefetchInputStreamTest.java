@@ -0,0 +1,140 @@
+package com.github.cstroe.svndumpgui.internal.utility;
+
+import com.github.cstroe.svndumpgui.generated.ParseException;
+import com.github.cstroe.svndumpgui.generated.SvnDumpParser;
+import com.github.cstroe.svndumpgui.internal.writer.SvnDumpWriter;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+public class PrefetchInputStreamTest {
+
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        for(int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        return bytes;
+    }
+
+    @Test
+    public void reads_the_same_bytes_as_the_source() throws IOException {
+        byte[] expected = bytes(1000);
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        try(InputStream inputStream = new PrefetchInputStream(new ByteArrayInputStream(expected), 2, 7)) {
+            byte[] buffer = new byte[13];
+            int value;
+            while((value = inputStream.read()) != -1) {
+                actual.write(value);
+                int bytesRead = inputStream.read(buffer, 0, buffer.length);
+                if(bytesRead == -1) {
+                    break;
+                }
+                actual.write(buffer, 0, bytesRead);
+            }
+            assertThat(inputStream.read(buffer, 0, buffer.length), is(equalTo(-1)));
+        }
+        assertThat(actual.toByteArray(), is(equalTo(expected)));
+    }
+
+    @Test
+    public void skips_across_buffers() throws IOException {
+        byte[] expected = bytes(100);
+        try(InputStream inputStream = new PrefetchInputStream(new ByteArrayInputStream(expected), 3, 8)) {
+            assertThat(inputStream.skip(50), is(equalTo(50L)));
+            assertThat((byte) inputStream.read(), is(equalTo(expected[50])));
+            assertThat(inputStream.skip(100), is(equalTo(49L)));
+            assertThat(inputStream.read(), is(equalTo(-1)));
+        }
+    }
+
+    @Test
+    public void parser_reads_through_the_prefetch() throws ParseException, IOException {
+        PrefetchInputStream inputStream = new PrefetchInputStream(TestUtil.openResource("dumps/add_file_no_node_properties.dump"), 2, 16);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        SvnDumpWriter writer = new SvnDumpWriter();
+        writer.writeTo(baos);
+        SvnDumpParser.consume(inputStream, writer);
+
+        TestUtil.assertEqualStreams(TestUtil.openResource("dumps/add_file_no_node_properties.dump"),
+                new ByteArrayInputStream(baos.toByteArray()));
+        assertThat(inputStream.getBuffersRead(), is(greaterThan(1L)));
+    }
+
+    @Test
+    public void counts_stalls_on_a_slow_source() throws IOException {
+        InputStream slowSource = new ByteArrayInputStream(bytes(10)) {
+            @Override
+            public synchronized int read(byte[] destination, int offset, int length) {
+                try {
+                    Thread.sleep(5);
+                } catch(InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.read(destination, offset, Math.min(length, 1));
+            }
+        };
+
+        try(PrefetchInputStream inputStream = new PrefetchInputStream(slowSource, 4, 1)) {
+            while(inputStream.read() != -1) {
+                // the reader thread can't keep up
+            }
+            assertThat(inputStream.getStalls(), is(greaterThan(0L)));
+            assertThat(inputStream.getStallTime(TimeUnit.NANOSECONDS), is(greaterThan(0L)));
+            assertThat(inputStream.getBuffersRead(), is(equalTo(10L)));
+        }
+    }
+
+    @Test
+    public void errors_are_reported_to_the_reader() throws IOException {
+        InputStream brokenSource = new InputStream() {
+            private int left = 20;
+
+            @Override
+            public int read() throws IOException {
+                if(left == 0) {
+                    throw new IOException("broken pipe");
+                }
+                left--;
+                return 'a';
+            }
+        };
+
+        try(InputStream inputStream = new PrefetchInputStream(brokenSource, 2, 8)) {
+            int bytesRead = 0;
+            while(inputStream.read() != -1) {
+                bytesRead++;
+            }
+            fail("Expected an IOException after " + bytesRead + " bytes");
+        } catch(IOException ex) {
+            assertThat(ex.getMessage(), is(equalTo("broken pipe")));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void unchecked_errors_are_reported_to_the_reader() throws IOException {
+        InputStream brokenSource = new InputStream() {
+            @Override
+            public int read() {
+                throw new IllegalStateException("corrupt stream");
+            }
+        };
+
+        try(InputStream inputStream = new PrefetchInputStream(brokenSource, 2, 8)) {
+            inputStream.read();
+            fail("Expected an IOException");
+        } catch(IOException ex) {
+            assertThat(ex.getCause().getMessage(), is(equalTo("corrupt stream")));
+        }
+    }
+}
@@ -6,6 +6,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
@@ -314,4 +315,56 @@ public class SvnDumpCharStreamTest {
 
         assertThat(chars.toString(), is(equalTo(utf8String)));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void parse_UTF8_char_across_buffer_boundary() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for(int i = 0; i < SvnDumpCharStream.INITIAL_BUFFER_LENGTH - 1; i++) {
+            builder.append('a');
+        }
+        builder.append("Čx");
+        byte[] bytes = builder.toString().getBytes(StandardCharsets.UTF_8);
+
+        // hand out one byte at a time so that the two byte 'Č' is split across refills
+        charStream = new SvnDumpCharStream(new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, SvnDumpCharStream.INITIAL_BUFFER_LENGTH));
+            }
+        });
+
+        for(int i = 0; i < SvnDumpCharStream.INITIAL_BUFFER_LENGTH - 1; i++) {
+            assertThat(charStream.readChar(), is('a'));
+        }
+        assertThat(charStream.readChar(), is('Č'));
+        assertThat(charStream.readChar(), is('x'));
+        assertThat(charStream.getStreamPosition(), is((long) bytes.length));
+    }
+
+    @Test
+    public void parse_UTF8_supplementary_chars() throws IOException {
+        final String utf8String = "a\uD83D\uDE00b";
+        charStream = new SvnDumpCharStream(new ByteArrayInputStream(utf8String.getBytes(StandardCharsets.UTF_8)));
+
+        StringBuilder chars = new StringBuilder();
+        for(int i = 0; i < utf8String.length(); i++) {
+            chars.append(charStream.readChar());
+        }
+
+        assertThat(chars.toString(), is(equalTo(utf8String)));
+        assertThat(charStream.getStreamPosition(), is(6L));
+    }
+
+    @Test
+    public void image_is_decoded_as_UTF8() throws IOException {
+        final String path = "trunk/ČԵђ.txt";
+        charStream = new SvnDumpCharStream(new ByteArrayInputStream((path + "\n").getBytes(StandardCharsets.UTF_8)));
+
+        charStream.BeginToken();
+        for(int i = 1; i < path.length(); i++) {
+            charStream.readChar();
+        }
+
+        assertThat(charStream.GetImage(), is(equalTo(path)));
+    }
+}
@@ -0,0 +1,154 @@
+package com.github.cstroe.svndumpgui.internal.writer;
+
+import com.github.cstroe.svndumpgui.api.ContentChunk;
+import com.github.cstroe.svndumpgui.api.RepositoryConsumer;
+import com.github.cstroe.svndumpgui.generated.ParseException;
+import com.github.cstroe.svndumpgui.internal.AbstractRepositoryConsumer;
+import com.github.cstroe.svndumpgui.internal.parser.SvnDumpByteParser;
+import com.github.cstroe.svndumpgui.internal.utility.TestUtil;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+public class ShardedDumpWriterTest {
+    private static final String DUMP = "dumps/many_branches.dump";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void splits_by_revision_count() throws ParseException, IOException {
+        ShardedDumpWriter writer = new ShardedDumpWriter(temporaryFolder.getRoot().toPath(), "repo");
+        writer.setRevisionsPerShard(6);
+        SvnDumpByteParser.consume(TestUtil.openResource(DUMP), writer);
+
+        assertThat(firstRevisions(writer), is(equalTo(List.of(0, 6, 12, 18))));
+        assertThat(writer.getShards().get(3).getLastRevision(), is(19));
+        assertShardsMakeUpTheDump(writer);
+    }
+
+    @Test
+    public void splits_by_size() throws ParseException, IOException {
+        ShardedDumpWriter writer = new ShardedDumpWriter(temporaryFolder.getRoot().toPath(), "repo");
+        writer.setBytesPerShard(2000);
+        SvnDumpByteParser.consume(TestUtil.openResource(DUMP), writer);
+
+        List<ShardedDumpWriter.Shard> shards = writer.getShards();
+        assertThat(shards.size(), is(greaterThanOrEqualTo(4)));
+        for(ShardedDumpWriter.Shard shard : shards.subList(0, shards.size() - 1)) {
+            assertThat(shard.getName(), shard.getLength(), is(greaterThanOrEqualTo(2000L)));
+        }
+        assertShardsMakeUpTheDump(writer);
+    }
+
+    @Test
+    public void splits_at_boundaries_in_the_background() throws ParseException, IOException, NoSuchAlgorithmException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        ShardedDumpWriter writer = new ShardedDumpWriter(directory, "repo");
+        writer.setBoundaries(3, 7);
+        writer.setBackground(2);
+        SvnDumpByteParser.consume(TestUtil.openResource(DUMP), writer);
+
+        assertThat(firstRevisions(writer), is(equalTo(List.of(0, 3, 7))));
+        assertShardsMakeUpTheDump(writer);
+
+        StringBuilder manifest = new StringBuilder();
+        for(ShardedDumpWriter.Shard shard : writer.getShards()) {
+            byte[] content = Files.readAllBytes(directory.resolve(shard.getName()));
+            String sha1 = TestUtil.toHex(MessageDigest.getInstance("SHA1").digest(content), 40);
+            assertThat(shard.getSha1(), is(equalTo(sha1)));
+            manifest.append(shard.getName()).append('\t').append(shard.getFirstRevision()).append('\t').append(shard.getLastRevision())
+                    .append('\t').append(content.length).append('\t').append(sha1).append(System.lineSeparator());
+        }
+        assertThat(new String(Files.readAllBytes(directory.resolve("repo.manifest")), StandardCharsets.UTF_8), is(equalTo(manifest.toString())));
+    }
+
+    @Test(timeout = 10000)
+    public void failures_in_the_background_are_reported() throws ParseException {
+        // the first chunk can't be written, and the queue fills up behind it
+        RepositoryConsumer brokenChunk = new AbstractRepositoryConsumer() {
+            private boolean broken = false;
+
+            @Override
+            public void consume(ContentChunk chunk) {
+                if(broken) {
+                    super.consume(chunk);
+                    return;
+                }
+                broken = true;
+                super.consume(new ContentChunk() {
+                    @Override
+                    public byte[] getContent() {
+                        throw new AssertionError("unreadable chunk");
+                    }
+
+                    @Override
+                    public void setContent(byte[] content) {}
+
+                    @Override
+                    public ByteBuffer getBuffer() {
+                        throw new AssertionError("unreadable chunk");
+                    }
+                });
+            }
+        };
+        ShardedDumpWriter writer = new ShardedDumpWriter(temporaryFolder.getRoot().toPath(), "repo");
+        writer.setRevisionsPerShard(6);
+        writer.setBackground(1);
+        brokenChunk.continueTo(writer);
+
+        try {
+            SvnDumpByteParser.consume(TestUtil.openResource(DUMP), brokenChunk);
+            fail("Expected the failure to be reported");
+        } catch(RuntimeException ex) {
+            assertThat(ex.getMessage(), is(equalTo("Could not write repo-00000.dump.")));
+            assertThat(ex.getCause().getMessage(), is(equalTo("unreadable chunk")));
+        }
+    }
+
+    private static List<Integer> firstRevisions(ShardedDumpWriter writer) {
+        List<Integer> firstRevisions = new ArrayList<>();
+        for(ShardedDumpWriter.Shard shard : writer.getShards()) {
+            firstRevisions.add(shard.getFirstRevision());
+        }
+        return firstRevisions;
+    }
+
+    /**
+     * Every shard repeats the preamble, and the revisions after it are the
+     * ones an {@link SvnDumpWriter} writes for the whole dump.
+     */
+    private void assertShardsMakeUpTheDump(ShardedDumpWriter writer) throws ParseException, IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        SvnDumpWriter dumpWriter = new SvnDumpWriter();
+        dumpWriter.writeTo(expected);
+        SvnDumpByteParser.consume(TestUtil.openResource(DUMP), dumpWriter);
+        String dump = new String(expected.toByteArray(), StandardCharsets.ISO_8859_1);
+        String preamble = dump.substring(0, dump.indexOf("Revision-number:"));
+
+        StringBuilder revisions = new StringBuilder(preamble);
+        for(ShardedDumpWriter.Shard shard : writer.getShards()) {
+            String content = new String(Files.readAllBytes(temporaryFolder.getRoot().toPath().resolve(shard.getName())), StandardCharsets.ISO_8859_1);
+            assertThat(content.startsWith(preamble + "Revision-number: " + shard.getFirstRevision() + "\n"), is(true));
+            revisions.append(content.substring(preamble.length()));
+        }
+        assertThat(revisions.toString(), is(equalTo(dump)));
+    }
+}
@@ -1,30 +1,58 @@
 package com.github.cstroe.svndumpgui.internal.writer;
 
 import com.github.cstroe.svndumpgui.api.ContentChunk;
+import com.github.cstroe.svndumpgui.api.Node;
+import com.github.cstroe.svndumpgui.api.NodeHeader;
+import com.github.cstroe.svndumpgui.api.Property;
 import com.github.cstroe.svndumpgui.api.Repository;
+import com.github.cstroe.svndumpgui.api.RepositoryConsumer;
 import com.github.cstroe.svndumpgui.api.RepositoryWriter;
 import com.github.cstroe.svndumpgui.api.Revision;
 import com.github.cstroe.svndumpgui.generated.ParseException;
 import com.github.cstroe.svndumpgui.generated.SvnDumpParser;
+import com.github.cstroe.svndumpgui.internal.AbstractRepositoryConsumer;
+import com.github.cstroe.svndumpgui.internal.NodeHeaderMap;
 import com.github.cstroe.svndumpgui.internal.SvnDumpFileParserTest;
+import com.github.cstroe.svndumpgui.internal.delta.SvndiffEncoder;
+import com.github.cstroe.svndumpgui.internal.delta.TextCache;
 import com.github.cstroe.svndumpgui.internal.RepositoryImpl;
 import com.github.cstroe.svndumpgui.internal.PreambleImpl;
 import com.github.cstroe.svndumpgui.internal.RevisionImpl;
+import com.github.cstroe.svndumpgui.internal.parser.MappedDumpInput;
+import com.github.cstroe.svndumpgui.internal.parser.StreamDumpInput;
+import com.github.cstroe.svndumpgui.internal.parser.SvnDumpByteParser;
+import com.github.cstroe.svndumpgui.internal.transform.TextDeltaApplier;
 import com.github.cstroe.svndumpgui.internal.utility.SvnDumpParserDoppelganger;
 import com.github.cstroe.svndumpgui.internal.utility.TestUtil;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
 
 import static com.github.cstroe.svndumpgui.internal.utility.TestUtil.assertEqualStreams;
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.core.Is.is;
 
 public class SvnDumpWriterTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 
     @Test
     public void no_uuid() throws IOException {
@@ -174,4 +202,181 @@ public class SvnDumpWriterTest {
             public void setContent(byte[] content) {}
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    public void writes_deltas_that_apply_to_the_same_texts() throws Exception {
+        StringBuilder lines = new StringBuilder();
+        for(int i = 0; i < 200; i++) {
+            lines.append("line number ").append(i).append('\n');
+        }
+        byte[] first = lines.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] second = (lines + "one more line\n").getBytes(StandardCharsets.UTF_8);
+        byte[] fullTexts = fullTextDump(first, second);
+
+        SvnDumpWriter deltaWriter = new SvnDumpWriter();
+        deltaWriter.setDeltas(true);
+        byte[] deltas = write(fullTexts, deltaWriter);
+
+        String deltaDump = new String(deltas, StandardCharsets.ISO_8859_1);
+        assertThat(deltaDump, containsString("SVN-fs-dump-format-version: 3\n"));
+        assertThat(deltaDump, containsString("Text-delta: true\n"));
+        assertThat(deltaDump, containsString("Text-delta-base-md5: " + NodeHeaderMap.toHex(digest("MD5", first)) + "\n"));
+        assertThat(deltaDump, containsString("Text-delta-base-sha1: " + NodeHeaderMap.toHex(digest("SHA1", first)) + "\n"));
+        assertThat(deltas.length, is(lessThan(fullTexts.length / 2)));
+
+        TextDeltaApplier applier = new TextDeltaApplier();
+        applier.continueTo(new SvnDumpWriter());
+        byte[] applied = write(deltas, applier);
+        assertThat(applied, is(equalTo(write(fullTexts, new SvnDumpWriter()))));
+    }
+
+    @Test
+    public void writes_texts_in_full_when_deltas_are_not_smaller() throws Exception {
+        Random random = new Random(7);
+        byte[] first = new byte[5000];
+        byte[] second = new byte[5000];
+        random.nextBytes(first);
+        random.nextBytes(second);
+        byte[] fullTexts = fullTextDump(first, second);
+
+        SvnDumpWriter deltaWriter = new SvnDumpWriter();
+        deltaWriter.setDeltas(true);
+        byte[] deltas = write(fullTexts, deltaWriter);
+
+        String deltaDump = new String(deltas, StandardCharsets.ISO_8859_1);
+        assertThat(deltaDump, not(containsString("Text-delta")));
+        assertThat(deltaDump.replace("version: 3", "version: 2"),
+                is(equalTo(new String(write(fullTexts, new SvnDumpWriter()), StandardCharsets.ISO_8859_1))));
+    }
+
+    @Test
+    public void streams_texts_that_do_not_fit_in_the_cache() throws Exception {
+        StringBuilder lines = new StringBuilder();
+        for(int i = 0; i < 200; i++) {
+            lines.append("line number ").append(i).append('\n');
+        }
+        byte[] small = lines.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] large = (lines.toString() + lines).getBytes(StandardCharsets.UTF_8);
+        byte[] changed = (lines + "one more line\n").getBytes(StandardCharsets.UTF_8);
+        // the large text is written as it comes, and the small one after it has no source
+        byte[] fullTexts = fullTextDump(large, small, changed);
+
+        SvnDumpWriter deltaWriter = new SvnDumpWriter();
+        deltaWriter.setDeltas(new TextCache(small.length + 100), new SvndiffEncoder());
+        byte[] deltas = write(fullTexts, deltaWriter);
+
+        String deltaDump = new String(deltas, StandardCharsets.ISO_8859_1);
+        assertThat(deltaDump, containsString("Text-content-length: " + large.length + "\n"));
+        assertThat(deltaDump, containsString("Text-content-length: " + small.length + "\n"));
+        assertThat(deltaDump.indexOf("Text-delta: true\n"), is(equalTo(deltaDump.lastIndexOf("Text-delta: true\n"))));
+        assertThat(deltaDump, containsString("Text-delta-base-md5: " + NodeHeaderMap.toHex(digest("MD5", small)) + "\n"));
+
+        TextDeltaApplier applier = new TextDeltaApplier();
+        applier.continueTo(new SvnDumpWriter());
+        byte[] applied = write(deltas, applier);
+        assertThat(applied, is(equalTo(write(fullTexts, new SvnDumpWriter()))));
+    }
+
+    // the headers have extra spaces, which the writer would not write
+    private static final String UNUSUAL_DUMP = "SVN-fs-dump-format-version: 2\n\nUUID: 0b7e5a5e-7b4e-4a5e-9d3f-2c6a1b8d9e0f\n\n" +
+            "Revision-number:  0\nProp-content-length: 10\nContent-length:  10\n\nPROPS-END\n\n" +
+            "Revision-number: 1\nProp-content-length:  10\nContent-length: 10\n\nPROPS-END\n\n" +
+            "Node-path: a\nNode-kind:  dir\nNode-action: add\nProp-content-length: 10\nContent-length:  10\n\nPROPS-END\n\n\n" +
+            "Node-path: b\nNode-kind:  dir\nNode-action:  add\n\n\n";
+
+    @Test
+    public void copies_unchanged_records_as_they_were_parsed() throws ParseException {
+        byte[] dump = UNUSUAL_DUMP.getBytes(StandardCharsets.UTF_8);
+        assertThat(new String(write(dump, new SvnDumpWriter()), StandardCharsets.UTF_8), is(equalTo(UNUSUAL_DUMP)));
+    }
+
+    @Test
+    public void copies_records_that_cross_buffer_refills() throws ParseException, IOException {
+        byte[] dump = UNUSUAL_DUMP.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream fromStream = new ByteArrayOutputStream();
+        SvnDumpWriter writer = new SvnDumpWriter();
+        writer.writeTo(fromStream);
+        new SvnDumpByteParser(new StreamDumpInput(new ByteArrayInputStream(dump), 128)).Start(writer);
+        assertThat(new String(fromStream.toByteArray(), StandardCharsets.UTF_8), is(equalTo(UNUSUAL_DUMP)));
+
+        Path file = temporaryFolder.newFile().toPath();
+        Files.write(file, dump);
+        ByteArrayOutputStream fromMapping = new ByteArrayOutputStream();
+        writer = new SvnDumpWriter();
+        writer.writeTo(fromMapping);
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            new SvnDumpByteParser(new MappedDumpInput(channel, 256)).Start(writer);
+        }
+        assertThat(new String(fromMapping.toByteArray(), StandardCharsets.UTF_8), is(equalTo(UNUSUAL_DUMP)));
+    }
+
+    @Test
+    public void writes_changed_records_from_the_object_model() throws ParseException {
+        RepositoryConsumer renamer = new AbstractRepositoryConsumer() {
+            @Override
+            public void consume(Revision revision) {
+                if(revision.getNumber() == 0) {
+                    revision.getProperties().put(Property.LOG, "log");
+                }
+                super.consume(revision);
+            }
+
+            @Override
+            public void consume(Node node) {
+                if(node.get(NodeHeader.PATH).equals("b")) {
+                    node.getHeaders().put(NodeHeader.PATH, "c");
+                }
+                super.consume(node);
+            }
+        };
+        renamer.continueTo(new SvnDumpWriter());
+
+        String written = new String(write(UNUSUAL_DUMP.getBytes(StandardCharsets.UTF_8), renamer), StandardCharsets.UTF_8);
+        assertThat(written, is(equalTo(UNUSUAL_DUMP
+                .replace("Revision-number:  0\nProp-content-length: 10\nContent-length:  10\n\nPROPS-END\n",
+                        "Revision-number: 0\nProp-content-length: 30\nContent-length: 30\n\nK 7\nsvn:log\nV 3\nlog\nPROPS-END\n")
+                .replace("Node-path: b\nNode-kind:  dir\nNode-action:  add\n", "Node-path: c\nNode-kind: dir\nNode-action: add\n"))));
+    }
+
+    /**
+     * @return the output of the writer at the end of the chain that starts with the consumer
+     */
+    private static byte[] write(byte[] dump, RepositoryConsumer consumer) throws ParseException {
+        RepositoryConsumer last = consumer;
+        while(last.getNextConsumer() != null) {
+            last = last.getNextConsumer();
+        }
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ((RepositoryWriter) last).writeTo(os);
+        SvnDumpByteParser.consume(new ByteArrayInputStream(dump), consumer);
+        return os.toByteArray();
+    }
+
+    /**
+     * @return a dump that adds a.txt with the first text, and changes it to each of the others
+     */
+    private static byte[] fullTextDump(byte[]... texts) throws NoSuchAlgorithmException {
+        ByteArrayOutputStream dump = new ByteArrayOutputStream();
+        write(dump, "SVN-fs-dump-format-version: 2\n\nUUID: 0b7e5a5e-7b4e-4a5e-9d3f-2c6a1b8d9e0f\n\n" +
+                "Revision-number: 0\nProp-content-length: 10\nContent-length: 10\n\nPROPS-END\n\n");
+        for(int i = 0; i < texts.length; i++) {
+            write(dump, "Revision-number: " + (i + 1) + "\nProp-content-length: 10\nContent-length: 10\n\nPROPS-END\n\n" +
+                    "Node-path: a.txt\nNode-kind: file\nNode-action: " + (i == 0 ? "add" : "change") + "\n" +
+                    "Text-content-length: " + texts[i].length + "\n" +
+                    "Text-content-md5: " + NodeHeaderMap.toHex(digest("MD5", texts[i])) + "\n" +
+                    "Content-length: " + texts[i].length + "\n\n");
+            dump.write(texts[i], 0, texts[i].length);
+            write(dump, "\n\n");
+        }
+        return dump.toByteArray();
+    }
+
+    private static void write(ByteArrayOutputStream dump, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        dump.write(bytes, 0, bytes.length);
+    }
+
+    private static byte[] digest(String algorithm, byte[] content) throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance(algorithm).digest(content);
+    }
+}